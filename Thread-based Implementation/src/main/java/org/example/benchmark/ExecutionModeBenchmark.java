@@ -0,0 +1,92 @@
+package org.example.benchmark;
+
+import org.example.context.TimetableDataContext;
+import org.example.repository.*;
+import org.example.service.execution.ExecutionPool;
+import org.example.service.generation.GenerationMetrics;
+import org.example.service.generation.GenerationResult;
+import org.example.service.generation.TimetableGenerator;
+import org.example.service.validation.ValidationOrchestrator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * ExecutionModeBenchmark - Compares the ExecutionPool modes on the loaded config.
+ *
+ * Each iteration runs the full validation graph followed by one generation on a
+ * fresh pool, exactly like TimetableInitializer does. Reports:
+ * - throughput: pipeline runs per second
+ * - run latency: p50 / p99 of one validation + generation pipeline
+ * - task latency: p50 / p95 / p99 of SubjectScheduler tasks (submit -> finish)
+ *
+ * Usage: java -cp ... org.example.benchmark.ExecutionModeBenchmark [iterations] [warmup]
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        PlaceRepository placeRepository = new PlaceRepository();
+        TimetableDataContext context = TimetableDataContext.getInstance(
+                new GroupRepository(), new TeacherRepository(), new SubjectRepository(), placeRepository);
+
+        System.out.printf("Config: %d groups, %d teachers, %d subjects, %d places | %d iterations (+%d warmup) | %d CPUs%n",
+                context.getGroups().size(), context.getTeachers().size(), context.getSubjects().size(),
+                context.getPlaces().size(), iterations, warmup, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-14s %12s %12s %12s %12s %12s %12s%n",
+                "mode", "runs/s", "run p50 ms", "run p99 ms", "task p50 ms", "task p95 ms", "task p99 ms");
+
+        for (ExecutionPool.Mode mode : ExecutionPool.Mode.values()) {
+            runMode(mode, context, placeRepository, warmup, false);
+            ModeResult result = runMode(mode, context, placeRepository, iterations, true);
+            System.out.printf("%-14s %12.1f %12.2f %12.2f %12.2f %12.2f %12.2f%n",
+                    mode,
+                    iterations / (result.totalNanos / 1_000_000_000.0),
+                    GenerationMetrics.percentileMs(result.runLatencies, 0.50),
+                    GenerationMetrics.percentileMs(result.runLatencies, 0.99),
+                    GenerationMetrics.percentileMs(result.taskLatencies, 0.50),
+                    GenerationMetrics.percentileMs(result.taskLatencies, 0.95),
+                    GenerationMetrics.percentileMs(result.taskLatencies, 0.99));
+        }
+    }
+
+    private record ModeResult(long totalNanos, List<Long> runLatencies, List<Long> taskLatencies) {}
+
+    private static ModeResult runMode(ExecutionPool.Mode mode, TimetableDataContext context,
+                                      PlaceRepository placeRepository, int iterations, boolean measure) {
+        List<Long> runLatencies = new ArrayList<>();
+        List<Long> taskLatencies = new ArrayList<>();
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+
+        long start = System.nanoTime();
+        try {
+            // The pipeline prints progress and per-run summaries - keep the report readable
+            System.setOut(silent);
+            System.setErr(silent);
+            for (int i = 0; i < iterations; i++) {
+                try (ExecutionPool pool = new ExecutionPool(mode)) {
+                    long runStart = System.nanoTime();
+                    TimetableGenerator generator = new TimetableGenerator(context, pool.executor());
+                    var setup = generator.prepareAsync();
+                    new ValidationOrchestrator(context, placeRepository, pool.executor()).runAllValidations();
+                    GenerationResult result = generator.generate(setup.join());
+                    runLatencies.add(System.nanoTime() - runStart);
+                    taskLatencies.addAll(result.metrics().getTaskLatenciesNanos());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+        long total = System.nanoTime() - start;
+        return measure ? new ModeResult(total, runLatencies, taskLatencies) : null;
+    }
+}
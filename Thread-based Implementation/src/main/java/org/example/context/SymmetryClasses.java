@@ -0,0 +1,134 @@
+package org.example.context;
+
+import org.example.model.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * SymmetryClasses - Interchangeable groups, rooms and teachers, computed once from the config.
+ *
+ * Two entities are in one class when nothing the solvers read tells them apart:
+ * - groups: size, language, subjects and seminar / laboratory splits
+ * - rooms: capacity, flags and the opening hours of their place
+ * - teachers: capabilities, languages, MaxHoursPerWeek, config schedule and preferred buildings
+ * Class ids are dense and follow the sorted key of the first member; members of a class
+ * are sorted by id / name, which is the canonical order solvers use to break ties
+ * (an interchangeable resource is always taken lowest member first).
+ * Immutable and thread-safe once built.
+ */
+public class SymmetryClasses {
+    private final Map<String, Integer> groupClass;
+    private final Map<String, Integer> roomClass;
+    private final Map<String, Integer> teacherClass;
+    private final List<List<String>> groupMembers;
+    private final List<List<String>> roomMembers;
+    private final List<List<String>> teacherMembers;
+
+    SymmetryClasses(Map<String, Group> groups, Map<String, Place> places, Map<String, Teacher> teachers) {
+        Map<String, String> groupKeys = new TreeMap<>();
+        groups.forEach((id, group) -> groupKeys.put(id, groupKey(group)));
+
+        Map<String, String> roomKeys = new TreeMap<>();
+        places.values().forEach(place -> {
+            if (place.getRooms() == null) return;
+            place.getRooms().forEach((id, room) -> roomKeys.put(id, roomKey(place, room)));
+        });
+
+        Map<String, String> teacherKeys = new TreeMap<>();
+        teachers.forEach((name, teacher) -> teacherKeys.put(name, teacherKey(teacher)));
+
+        this.groupMembers = partition(groupKeys);
+        this.roomMembers = partition(roomKeys);
+        this.teacherMembers = partition(teacherKeys);
+        this.groupClass = index(groupMembers);
+        this.roomClass = index(roomMembers);
+        this.teacherClass = index(teacherMembers);
+    }
+
+    // ==== Keys ====
+
+    private static String groupKey(Group group) {
+        List<String> subjects = new ArrayList<>(group.getSubjects() == null ? List.of() : group.getSubjects());
+        Collections.sort(subjects);
+        return group.getSize() + "|" + group.getLanguage() + "|" + group.getSeminarySplit() + "|"
+                + group.getLaboratorySplit() + "|" + subjects;
+    }
+
+    private static String roomKey(Place place, Room room) {
+        List<String> flags = new ArrayList<>(room.getFlags() == null ? List.of() : room.getFlags());
+        Collections.sort(flags);
+        return room.getCapacity() + "|" + flags + "|" + Arrays.toString(place.getScheduleMask());
+    }
+
+    private static String teacherKey(Teacher teacher) {
+        Map<String, String> capabilities = new TreeMap<>();
+        if (teacher.getSubjects() != null) {
+            teacher.getSubjects().forEach((subject, capability) -> capabilities.put(subject, String.valueOf(capability)));
+        }
+        return capabilities + "|" + sorted(teacher.getLanguages()) + "|" + teacher.getMaxHoursPerWeek() + "|"
+                + Arrays.toString(teacher.getScheduleMask()) + "|" + sorted(teacher.getPreferredBuildings());
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values == null ? List.of() : values);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Members grouped by key, classes in order of their first member (keys iterate sorted by id)
+     */
+    private static List<List<String>> partition(Map<String, String> keys) {
+        Map<String, List<String>> byKey = new LinkedHashMap<>();
+        keys.forEach((id, key) -> byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(id));
+        List<List<String>> classes = new ArrayList<>();
+        byKey.values().forEach(members -> classes.add(List.copyOf(members)));
+        return List.copyOf(classes);
+    }
+
+    private static Map<String, Integer> index(List<List<String>> classes) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int c = 0; c < classes.size(); c++) {
+            for (String member : classes.get(c)) {
+                index.put(member, c);
+            }
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    // ==== Access ====
+
+    /** Class of a group, -1 if unknown */
+    public int groupClass(String groupId) { return groupClass.getOrDefault(groupId, -1); }
+
+    /** Class of a room, -1 if unknown */
+    public int roomClass(String roomId) { return roomClass.getOrDefault(roomId, -1); }
+
+    /** Class of a teacher, -1 if unknown */
+    public int teacherClass(String teacherName) { return teacherClass.getOrDefault(teacherName, -1); }
+
+    public List<String> groupMembers(int groupClass) { return groupMembers.get(groupClass); }
+    public List<String> roomMembers(int roomClass) { return roomMembers.get(roomClass); }
+    public List<String> teacherMembers(int teacherClass) { return teacherMembers.get(teacherClass); }
+
+    public int groupClassCount() { return groupMembers.size(); }
+    public int roomClassCount() { return roomMembers.size(); }
+    public int teacherClassCount() { return teacherMembers.size(); }
+
+    /**
+     * Canonical order of interchangeable entities: by class, then by id inside the class
+     */
+    public <T> Comparator<T> canonicalOrder(Function<T, String> id, Function<String, Integer> classOf) {
+        return Comparator.comparing((T t) -> classOf.apply(id.apply(t))).thenComparing(id);
+    }
+
+    /**
+     * Summary for metrics, e.g. "32 groups in 4 classes"
+     */
+    public String describe() {
+        return groupClass.size() + " groups in " + groupMembers.size() + " classes, "
+                + roomClass.size() + " rooms in " + roomMembers.size() + " classes, "
+                + teacherClass.size() + " teachers in " + teacherMembers.size() + " classes";
+    }
+}
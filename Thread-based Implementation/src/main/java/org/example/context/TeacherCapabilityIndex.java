@@ -0,0 +1,134 @@
+package org.example.context;
+
+import org.example.model.SubjectCapability;
+import org.example.model.Teacher;
+
+import java.util.*;
+
+/**
+ * TeacherCapabilityIndex - Which teachers may hold an activity, precomputed once.
+ *
+ * Teachers get dense ids (by name). For every subject and activity type
+ * (COURSE / SEMINAR / LABORATORY) the index keeps the sorted ids of the capable teachers,
+ * split per spoken language, so a lookup is two map reads and picking a teacher is one
+ * array read. Every id returned is eligible: capability flags and language are already
+ * applied. Immutable and thread-safe once built.
+ */
+public class TeacherCapabilityIndex {
+    public static final String[] ACTIVITY_TYPES = {"COURSE", "SEMINAR", "LABORATORY"};
+
+    private static final int[] NONE = new int[0];
+    private static final String ANY_LANGUAGE = "";
+
+    private final Teacher[] teachers;
+    private final Map<String, Integer> idByName;
+
+    // subject -> activity type ordinal -> language ("" = any) -> sorted teacher ids
+    private final Map<String, List<Map<String, int[]>>> bySubject;
+
+    TeacherCapabilityIndex(Map<String, Teacher> teachersByName) {
+        List<Teacher> sorted = new ArrayList<>(teachersByName.values());
+        sorted.sort(Comparator.comparing(Teacher::getName));
+        this.teachers = sorted.toArray(new Teacher[0]);
+
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < teachers.length; id++) {
+            ids.put(teachers[id].getName(), id);
+        }
+        this.idByName = Collections.unmodifiableMap(ids);
+        this.bySubject = Collections.unmodifiableMap(build());
+    }
+
+    private Map<String, List<Map<String, int[]>>> build() {
+        // Collect ids per (subject, type, language); ids arrive in ascending order
+        Map<String, List<Map<String, List<Integer>>>> collected = new HashMap<>();
+        for (int id = 0; id < teachers.length; id++) {
+            Teacher teacher = teachers[id];
+            if (teacher.getSubjects() == null) continue;
+            for (Map.Entry<String, SubjectCapability> entry : teacher.getSubjects().entrySet()) {
+                SubjectCapability capability = entry.getValue();
+                if (capability == null) continue;
+                List<Map<String, List<Integer>>> byType = collected.computeIfAbsent(entry.getKey(), k -> newTypeSlots());
+                boolean[] can = {capability.isCanCourse(), capability.isCanSeminary(), capability.isCanLaboratory()};
+                for (int type = 0; type < ACTIVITY_TYPES.length; type++) {
+                    if (!can[type]) continue;
+                    Map<String, List<Integer>> byLanguage = byType.get(type);
+                    byLanguage.computeIfAbsent(ANY_LANGUAGE, k -> new ArrayList<>()).add(id);
+                    if (teacher.getLanguages() == null) continue;
+                    for (String language : new LinkedHashSet<>(teacher.getLanguages())) {
+                        byLanguage.computeIfAbsent(language, k -> new ArrayList<>()).add(id);
+                    }
+                }
+            }
+        }
+
+        Map<String, List<Map<String, int[]>>> index = new HashMap<>();
+        collected.forEach((subject, byType) -> {
+            List<Map<String, int[]>> types = new ArrayList<>(ACTIVITY_TYPES.length);
+            for (Map<String, List<Integer>> byLanguage : byType) {
+                Map<String, int[]> compact = new HashMap<>();
+                byLanguage.forEach((language, ids) ->
+                        compact.put(language, ids.stream().mapToInt(Integer::intValue).toArray()));
+                types.add(Collections.unmodifiableMap(compact));
+            }
+            index.put(subject, List.copyOf(types));
+        });
+        return index;
+    }
+
+    private static List<Map<String, List<Integer>>> newTypeSlots() {
+        List<Map<String, List<Integer>>> slots = new ArrayList<>(ACTIVITY_TYPES.length);
+        for (int i = 0; i < ACTIVITY_TYPES.length; i++) {
+            slots.add(new HashMap<>());
+        }
+        return slots;
+    }
+
+    // ==== Lookups ====
+
+    /**
+     * Ids of the teachers allowed to hold `activityType` of `subjectName` in `language`
+     * (null or blank language = any). Sorted ascending; shared, do not modify.
+     */
+    public int[] teacherIds(String subjectName, String activityType, String language) {
+        List<Map<String, int[]>> byType = bySubject.get(subjectName);
+        if (byType == null) return NONE;
+        int type = typeOrdinal(activityType);
+        String key = (language == null || language.isBlank()) ? ANY_LANGUAGE : language;
+        return byType.get(type).getOrDefault(key, NONE);
+    }
+
+    /**
+     * Teachers allowed to hold the activity, in id order
+     */
+    public List<Teacher> teachers(String subjectName, String activityType, String language) {
+        int[] ids = teacherIds(subjectName, activityType, language);
+        List<Teacher> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(teachers[id]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public Teacher teacher(int id) {
+        return teachers[id];
+    }
+
+    /**
+     * Dense id of a teacher, or -1 if unknown
+     */
+    public int idOf(String teacherName) {
+        return idByName.getOrDefault(teacherName, -1);
+    }
+
+    public int size() {
+        return teachers.length;
+    }
+
+    public static int typeOrdinal(String activityType) {
+        for (int i = 0; i < ACTIVITY_TYPES.length; i++) {
+            if (ACTIVITY_TYPES[i].equals(activityType)) return i;
+        }
+        throw new IllegalArgumentException("Unknown activity type '" + activityType + "'");
+    }
+}
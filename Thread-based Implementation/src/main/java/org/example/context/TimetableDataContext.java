@@ -18,6 +18,9 @@ import java.util.stream.Collectors;
  * - groupsBySubject: fast lookup of which groups take a subject
  * - roomsByCapability: fast lookup of rooms by their capability (7 types)
  * - teachersByBuilding: fast lookup of teachers in a building
+ * - teachersBySubject / capabilityIndex: capable teachers per subject, and per
+ *   subject x activity type x language (see TeacherCapabilityIndex)
+ * - symmetry: interchangeable groups, rooms and teachers (see SymmetryClasses)
  */
 public class TimetableDataContext {
     private static volatile TimetableDataContext instance;
@@ -33,6 +36,9 @@ public class TimetableDataContext {
     private final Map<String, List<String>> subjectsByTeacher;        // teacher name -> list of subject names
     private final Map<String, List<String>> groupsBySubject;          // subject name -> list of group ids
     private final Map<String, List<String>> teachersByBuilding;       // building name -> list of teacher names
+    private final Map<String, List<Teacher>> teachersBySubject;       // subject name -> capable teachers
+    private final TeacherCapabilityIndex capabilityIndex;             // (subject, type, language) -> teacher ids
+    private final SymmetryClasses symmetry;                           // equivalence classes of groups, rooms, teachers
     private final Map<String, Integer> roomCountByCapability;         // capability type -> count of rooms
     private final Map<String, List<Room>> roomsByCapability;          // capability type -> list of rooms
     private final Map<String, Integer> totalHoursByCapability;        // capability type -> total available hours
@@ -60,6 +66,9 @@ public class TimetableDataContext {
         this.subjectsByTeacher = Collections.unmodifiableMap(buildSubjectsByTeacherIndex());
         this.groupsBySubject = Collections.unmodifiableMap(buildGroupsBySubjectIndex());
         this.teachersByBuilding = Collections.unmodifiableMap(buildTeachersByBuildingIndex());
+        this.teachersBySubject = Collections.unmodifiableMap(buildTeachersBySubjectIndex());
+        this.capabilityIndex = new TeacherCapabilityIndex(teachers);
+        this.symmetry = new SymmetryClasses(groups, places, teachers);
 
         // Room capability indices
         this.roomsByCapability = Collections.unmodifiableMap(buildRoomsByCapabilityIndex(placeRepo));
@@ -103,6 +112,8 @@ public class TimetableDataContext {
     public Map<String, List<String>> getSubjectsByTeacher() { return subjectsByTeacher; }
     public Map<String, List<String>> getGroupsBySubject() { return groupsBySubject; }
     public Map<String, List<String>> getTeachersByBuilding() { return teachersByBuilding; }
+    public TeacherCapabilityIndex getCapabilityIndex() { return capabilityIndex; }
+    public SymmetryClasses getSymmetry() { return symmetry; }
     public Map<String, List<Room>> getRoomsByCapability() { return roomsByCapability; }
     public Map<String, Integer> getRoomCountByCapability() { return roomCountByCapability; }
     public Map<String, Integer> getTotalHoursByCapability() { return totalHoursByCapability; }
@@ -152,6 +163,7 @@ public class TimetableDataContext {
 
     /**
      * Build index: subject name -> list of group ids that take it
+     * (for an elective: the groups its student blocks come from)
      */
     private Map<String, List<String>> buildGroupsBySubjectIndex() {
         Map<String, List<String>> index = new HashMap<>();
@@ -162,6 +174,15 @@ public class TimetableDataContext {
                 );
             }
         });
+        subjects.forEach((subjectName, subject) -> {
+            if (!subject.isElective()) return;
+            List<String> enrolled = subject.getStudents().stream()
+                    .map(block -> block.contains("/") ? block.substring(0, block.lastIndexOf('/')) : block)
+                    .filter(groups::containsKey)
+                    .distinct()
+                    .collect(Collectors.toList());
+            index.put(subjectName, enrolled);
+        });
         return index;
     }
 
@@ -180,6 +201,22 @@ public class TimetableDataContext {
         return index;
     }
 
+    /**
+     * Build index: subject name -> teachers who can teach it (any activity type)
+     */
+    private Map<String, List<Teacher>> buildTeachersBySubjectIndex() {
+        Map<String, List<Teacher>> index = new HashMap<>();
+        teachers.values().forEach(teacher -> {
+            if (teacher.getSubjects() != null) {
+                teacher.getSubjects().keySet().forEach(subjectName ->
+                    index.computeIfAbsent(subjectName, k -> new ArrayList<>()).add(teacher)
+                );
+            }
+        });
+        index.replaceAll((subjectName, list) -> List.copyOf(list));
+        return index;
+    }
+
     /**
      * Build index: capability type -> list of rooms with that capability
      */
@@ -224,9 +261,7 @@ public class TimetableDataContext {
      * Get all teachers capable of teaching a specific subject.
      */
     public List<Teacher> getCapableTeachers(String subjectName) {
-        return teachers.values().stream()
-            .filter(teacher -> teacher.canTeachSubject(subjectName))
-            .collect(Collectors.toList());
+        return teachersBySubject.getOrDefault(subjectName, List.of());
     }
 
     /**
@@ -238,6 +273,14 @@ public class TimetableDataContext {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Get all teachers allowed to hold one activity type (COURSE / SEMINAR / LABORATORY)
+     * of a subject in a language (null = any language).
+     */
+    public List<Teacher> getEligibleTeachers(String subjectName, String activityType, String language) {
+        return capabilityIndex.teachers(subjectName, activityType, language);
+    }
+
     /**
      * Get total available hours for all teachers who can teach a subject.
      */
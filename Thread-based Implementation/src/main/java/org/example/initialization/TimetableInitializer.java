@@ -2,10 +2,13 @@ package org.example.initialization;
 
 import org.example.context.TimetableDataContext;
 import org.example.repository.*;
+import org.example.service.execution.ExecutionPool;
 import org.example.service.generation.*;
 import org.example.ui.ConsoleUI;
 import org.example.service.validation.ValidationOrchestrator;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * TimetableInitializer - Orchestrates the entire initialization and generation flow.
  * ZERO prints here - all output delegated to ConsoleUI.
@@ -14,6 +17,7 @@ import org.example.service.validation.ValidationOrchestrator;
 public class TimetableInitializer {
     private TimetableDataContext dataContext;
     private PlaceRepository placeRepository;
+    private ExecutionPool executionPool;
 
     /**
      * Run complete initialization and generation pipeline
@@ -23,6 +27,10 @@ public class TimetableInitializer {
             // Show welcome
             ConsoleUI.printWelcome();
 
+            // SERVICE: Shared execution pool (mode from -Dscheduler.execution)
+            this.executionPool = ExecutionPool.fromConfig();
+            ConsoleUI.printInfo("Execution mode: " + executionPool.mode());
+
             // Load and initialize
             if (!loadAndInitialize()) {
                 ConsoleUI.printError("Failed to load data and initialize context");
@@ -39,6 +47,10 @@ public class TimetableInitializer {
             ConsoleUI.printError("Fatal error during initialization: " + e.getMessage());
             e.printStackTrace();
             System.exit(1);
+        } finally {
+            if (executionPool != null) {
+                executionPool.shutdown();
+            }
         }
     }
 
@@ -97,14 +109,17 @@ public class TimetableInitializer {
             // UI: show validation phase header
             ConsoleUI.printValidationPhase();
 
-            // SERVICE: Create orchestrator and run validations
+            // SERVICE: Create orchestrator and generator on the shared pool
             ValidationOrchestrator orchestrator = new ValidationOrchestrator(
                     this.dataContext,
-                    this.placeRepository
+                    this.placeRepository,
+                    executionPool.executor()
             );
+            TimetableGenerator generator = new TimetableGenerator(this.dataContext, executionPool.executor());
 
-            ValidationOrchestrator.ValidationReport report = orchestrator.runAllValidations();
-            orchestrator.shutdown();
+            // SERVICE: Generation setup overlaps with the validators
+            CompletableFuture<TimetableGenerator.GenerationSetup> setup = generator.prepareAsync();
+            ValidationOrchestrator.ValidationReport report = orchestrator.runAllValidationsAsync().join();
 
             // UI: Display results and get user decision
             boolean userWantsToProceed = ConsoleUI.displayValidationResults(report);
@@ -118,7 +133,7 @@ public class TimetableInitializer {
             ConsoleUI.printUserConfirmed();
 
             // Generate timetable
-            if (!generateTimetable()) {
+            if (!generateTimetable(generator, setup)) {
                 ConsoleUI.printError("Timetable generation failed");
                 return false;
             }
@@ -136,21 +151,20 @@ public class TimetableInitializer {
      * Generate timetable
      * @return true if successful, false otherwise
      */
-    private boolean generateTimetable() {
+    private boolean generateTimetable(TimetableGenerator generator,
+                                      CompletableFuture<TimetableGenerator.GenerationSetup> setup) {
         try {
             // UI: show generation phase header
             ConsoleUI.printGenerationPhase();
 
-            // SERVICE: Create generator and run generation
-            TimetableGenerator generator = new TimetableGenerator(this.dataContext);
-            GenerationResult result = generator.generate();
-            generator.shutdown();
+            // SERVICE: Run generation once its setup is ready
+            GenerationResult result = generator.generate(setup.join());
 
             // UI: Display generation results
             ConsoleUI.displayGenerationResults(result);
 
             if (result.success()) {
-                ConsoleUI.displayDetailedTimetable(result.getActivities());
+                ConsoleUI.displayDetailedTimetable(result.getSessions());
                 
                 // Export timetable
                 ScheduleExporter exporter = new ScheduleExporter();
@@ -1,5 +1,6 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
@@ -16,6 +17,8 @@ public class Place {
     @JsonProperty("Schedule")
     private Map<String, List<TimeSlot>> schedule;
 
+    private volatile int[] scheduleMask;
+
     @JsonProperty("Rooms")
     private Map<String, Room> rooms;
 
@@ -41,6 +44,21 @@ public class Place {
 
     public void setSchedule(Map<String, List<TimeSlot>> schedule) {
         this.schedule = schedule;
+        this.scheduleMask = null;
+    }
+
+    /**
+     * Opening hours from the Schedule, compiled once per place (index = week day, bit = hour).
+     * Shared: copy before modifying.
+     */
+    @JsonIgnore
+    public int[] getScheduleMask() {
+        int[] mask = scheduleMask;
+        if (mask == null) {
+            mask = TimeSlot.weeklyMask(schedule);
+            scheduleMask = mask;
+        }
+        return mask;
     }
 
     public Map<String, Room> getRooms() {
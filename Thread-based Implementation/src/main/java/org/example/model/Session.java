@@ -0,0 +1,83 @@
+package org.example.model;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Model class representing one scheduled session: a teacher, a room and a time slot shared by
+ * one or more groups. A course is a single session for all its groups; seminars and
+ * laboratories have one group each. Per-group Activity rows are derived with expand() only
+ * where a per-group view is needed (export).
+ */
+public record Session(
+        String subjectName,
+        List<String> groupIds,
+        String teacherName,
+        String roomId,
+        String day,
+        LocalTime startTime,
+        LocalTime endTime,
+        String activityType,
+        String subgroup,
+        String frequency
+) {
+    public Session {
+        Objects.requireNonNull(subjectName, "Subject name cannot be null");
+        Objects.requireNonNull(groupIds, "Group IDs cannot be null");
+        Objects.requireNonNull(teacherName, "Teacher name cannot be null");
+        Objects.requireNonNull(roomId, "Room ID cannot be null");
+        Objects.requireNonNull(day, "Day cannot be null");
+        Objects.requireNonNull(activityType, "Activity type cannot be null");
+        Objects.requireNonNull(subgroup, "Subgroup cannot be null");
+        Objects.requireNonNull(frequency, "Frequency cannot be null");
+        groupIds = List.copyOf(groupIds);
+    }
+
+    public int getDurationHours() {
+        return endTime.getHour() - startTime.getHour();
+    }
+
+    /**
+     * Hours per week on average: an "Odd Week" / "Even Week" session runs every other week
+     */
+    public double getWeeklyHours() {
+        return switch (frequency) {
+            case "Odd Week", "Even Week" -> getDurationHours() / 2.0;
+            default -> getDurationHours();
+        };
+    }
+
+    /**
+     * Group ids for display, e.g. "911, 912, 913"
+     */
+    public String groupLabel() {
+        return String.join(", ", groupIds);
+    }
+
+    /**
+     * This session as seen by one group (or any label, e.g. for teacher / room schedules)
+     */
+    public Activity forGroup(String groupId) {
+        return new Activity(subjectName, groupId, teacherName, roomId, day, startTime, endTime,
+                activityType, subgroup, frequency);
+    }
+
+    /**
+     * One Activity per attending group
+     */
+    public List<Activity> expand() {
+        List<Activity> activities = new ArrayList<>(groupIds.size());
+        for (String groupId : groupIds) {
+            activities.add(forGroup(groupId));
+        }
+        return activities;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | %s-%s (%s) | %s | Groups: %s | Teacher: %s | Room: %s",
+                day, startTime, endTime, activityType, subjectName, groupLabel(), teacherName, roomId);
+    }
+}
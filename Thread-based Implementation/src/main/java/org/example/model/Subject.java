@@ -1,6 +1,7 @@
 package org.example.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -33,6 +34,10 @@ public class Subject {
     @JsonProperty("LaboratoriesLenght")
     private int laboratoriesLenght;
 
+    // Optional elective enrolment: student blocks "921" (whole group) or "921/2" (subgroup lane 2)
+    @JsonProperty("Students")
+    private List<String> students;
+
     public Subject() {}
 
     public Subject(String name, String mainTeacher, String language,
@@ -122,6 +127,21 @@ public class Subject {
         this.laboratoriesLenght = laboratoriesLenght;
     }
 
+    public List<String> getStudents() {
+        return students;
+    }
+
+    public void setStudents(List<String> students) {
+        this.students = students;
+    }
+
+    /**
+     * An elective is attended by its listed student blocks, mixed from several groups
+     */
+    public boolean isElective() {
+        return students != null && !students.isEmpty();
+    }
+
     public int getTotalHoursPerWeek() {
         return (coursesPerWeek * courseLenght) +
                (seminarsPerWeek * seminarLenght) +
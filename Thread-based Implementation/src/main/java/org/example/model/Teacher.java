@@ -1,5 +1,6 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.ArrayList;
@@ -16,6 +17,8 @@ public class Teacher {
     @JsonProperty("Schedule")
     private Map<String, List<TimeSlot>> schedule;
 
+    private volatile int[] scheduleMask;
+
     @JsonProperty("MaxHoursPerWeek")
     private int maxHoursPerWeek;
 
@@ -55,6 +58,21 @@ public class Teacher {
 
     public void setSchedule(Map<String, List<TimeSlot>> schedule) {
         this.schedule = schedule;
+        this.scheduleMask = null;
+    }
+
+    /**
+     * Hours listed in the Schedule, compiled once per teacher (index = week day, bit = hour).
+     * The generator treats them as hours the teacher is busy. Shared: copy before modifying.
+     */
+    @JsonIgnore
+    public int[] getScheduleMask() {
+        int[] mask = scheduleMask;
+        if (mask == null) {
+            mask = TimeSlot.weeklyMask(schedule);
+            scheduleMask = mask;
+        }
+        return mask;
     }
 
     public int getMaxHoursPerWeek() {
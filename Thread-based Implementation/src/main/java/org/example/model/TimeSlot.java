@@ -1,20 +1,32 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 
 /**
  * Model class representing a time slot (start and end time).
+ * The "HH:mm" strings are parsed once, on first use, into minutes of the day;
+ * malformed values parse to -1 and the slot then covers no hours.
  */
 public class TimeSlot {
+    public static final int DAYS_PER_WEEK = 5;
+    private static final String[] WEEK_DAYS = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
+    private static final int UNPARSED = Integer.MIN_VALUE;
+
     @JsonProperty("start")
     private String start;
 
     @JsonProperty("end")
     private String end;
 
+    private int startMinute = UNPARSED;
+    private int endMinute = UNPARSED;
+
     public TimeSlot() {}
 
     public TimeSlot(String start, String end) {
@@ -28,6 +40,7 @@ public class TimeSlot {
 
     public void setStart(String start) {
         this.start = start;
+        this.startMinute = UNPARSED;
     }
 
     public String getEnd() {
@@ -36,6 +49,97 @@ public class TimeSlot {
 
     public void setEnd(String end) {
         this.end = end;
+        this.endMinute = UNPARSED;
+    }
+
+    // ==== Parsed values ====
+
+    @JsonIgnore
+    public int getStartMinute() {
+        if (startMinute == UNPARSED) startMinute = parseMinute(start);
+        return startMinute;
+    }
+
+    @JsonIgnore
+    public int getEndMinute() {
+        if (endMinute == UNPARSED) endMinute = parseMinute(end);
+        return endMinute;
+    }
+
+    @JsonIgnore
+    public int getStartHour() {
+        int minute = getStartMinute();
+        return minute < 0 ? -1 : minute / 60;
+    }
+
+    @JsonIgnore
+    public int getEndHour() {
+        int minute = getEndMinute();
+        return minute < 0 ? -1 : minute / 60;
+    }
+
+    @JsonIgnore
+    public boolean isValid() {
+        return getStartMinute() >= 0 && getEndMinute() >= 0;
+    }
+
+    /**
+     * Bit h set for every whole hour h in [start hour, end hour), 0 if malformed
+     */
+    public int hourMask() {
+        return isValid() ? hourMask(getStartHour(), getEndHour()) : 0;
+    }
+
+    private static int parseMinute(String time) {
+        if (time == null) return -1;
+        try {
+            String[] parts = time.trim().split(":");
+            int hour = Integer.parseInt(parts[0].trim());
+            int minute = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
+            if (hour < 0 || hour > 24 || minute < 0 || minute > 59) return -1;
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ==== Weekly masks ====
+
+    /**
+     * Bits [startHour, endHour) of one day, clamped to the 24 hours
+     */
+    public static int hourMask(int startHour, int endHour) {
+        int from = Math.max(0, startHour);
+        int to = Math.min(24, endHour);
+        if (from >= to) return 0;
+        return ((1 << to) - 1) & ~((1 << from) - 1);
+    }
+
+    /**
+     * Index of a week day (any case) in Monday..Friday order, -1 if unknown
+     */
+    public static int dayIndex(String day) {
+        if (day == null) return -1;
+        for (int i = 0; i < WEEK_DAYS.length; i++) {
+            if (WEEK_DAYS[i].equalsIgnoreCase(day)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Compile a config schedule (day -> slots) into one hour mask per week day
+     */
+    public static int[] weeklyMask(Map<String, List<TimeSlot>> schedule) {
+        int[] mask = new int[DAYS_PER_WEEK];
+        if (schedule == null) return mask;
+        schedule.forEach((day, slots) -> {
+            int d = dayIndex(day);
+            if (d < 0 || slots == null) return;
+            for (TimeSlot slot : slots) {
+                mask[d] |= slot.hourMask();
+            }
+        });
+        return mask;
     }
 
     @Override
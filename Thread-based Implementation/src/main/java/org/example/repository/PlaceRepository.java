@@ -131,7 +131,7 @@ public class PlaceRepository {
             for (List<org.example.model.TimeSlot> daySlots : place.getSchedule().values()) {
                 if (daySlots != null) {
                     for (org.example.model.TimeSlot slot : daySlots) {
-                        totalHours += parseHourDuration(slot.getStart(), slot.getEnd());
+                        totalHours += slotHours(slot);
                     }
                 }
             }
@@ -140,26 +140,14 @@ public class PlaceRepository {
     }
 
     /**
-     * Parse duration between two time strings (HH:MM format).
-     * Returns number of hours.
+     * Whole hours covered by a slot (rounded down), 0 if malformed.
      */
-    private int parseHourDuration(String startTime, String endTime) {
-        try {
-            String[] startParts = startTime.split(":");
-            String[] endParts = endTime.split(":");
-
-            int startHour = Integer.parseInt(startParts[0]);
-            int startMinute = Integer.parseInt(startParts[1]);
-
-            int endHour = Integer.parseInt(endParts[0]);
-            int endMinute = Integer.parseInt(endParts[1]);
-
-            int durationMinutes = (endHour * 60 + endMinute) - (startHour * 60 + startMinute);
-            return Math.max(0, durationMinutes / 60); // round down to whole hours
-        } catch (Exception e) {
-            System.err.println("Error parsing time duration: " + startTime + " - " + endTime);
+    private int slotHours(org.example.model.TimeSlot slot) {
+        if (!slot.isValid()) {
+            System.err.println("Error parsing time duration: " + slot.getStart() + " - " + slot.getEnd());
             return 0;
         }
+        return Math.max(0, (slot.getEndMinute() - slot.getStartMinute()) / 60);
     }
 
     /**
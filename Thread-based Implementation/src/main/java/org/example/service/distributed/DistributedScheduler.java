@@ -0,0 +1,343 @@
+package org.example.service.distributed;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Session;
+import org.example.model.TimeSlot;
+import org.example.service.generation.*;
+import org.example.service.generation.VersionedOccupancy.Claim;
+import org.example.service.generation.VersionedOccupancy.Resource;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * DistributedScheduler - Coordinator of multi-process generation (Java port of the MPI master).
+ *
+ * Cohort partitions (CohortPartitioner) are handed out to GenerationWorker processes over
+ * TCP using WireProtocol. Each assignment carries the current occupancy of the resources
+ * partitions share (shared teachers, rooms); the worker solves the partition and sends its
+ * sessions back. The coordinator commits them through a VersionedOccupancy:
+ * - no overlap with what other workers committed meanwhile -> accepted
+ * - overlap -> the partition is re-queued against a fresh snapshot (up to MAX_ATTEMPTS);
+ *   on the last attempt the non-conflicting placements are kept and the rest dropped
+ * Accepted hours are also charged to a coordinator-wide TeacherWorkloadLedger: a worker
+ * only knew the hours committed when it got the assignment, so a partition that would
+ * take a shared teacher past MaxHoursPerWeek is re-queued (or, on the last attempt,
+ * loses the placements that do not fit).
+ *
+ * Workers are spawned as local JVMs by default (-Dscheduler.distributed.workers=N).
+ * With -Dscheduler.distributed.spawn=false the coordinator waits for N external workers
+ * started by hand on any machine that can reach -Dscheduler.distributed.host/port.
+ */
+public class DistributedScheduler {
+    static final int MAX_ATTEMPTS = 4;
+    private static final String SCHEDULER_PROPERTY_PREFIX = "scheduler.";
+    private static final int CONNECT_TIMEOUT_MS = 30_000;
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final String host;
+    private final int port;
+    private final int workerCount;
+    private final boolean spawnWorkers;
+
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final Map<String, List<Session>> accepted = new ConcurrentHashMap<>();
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private final AtomicInteger assignments = new AtomicInteger();
+    private final AtomicInteger requeued = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicInteger linkErrors = new AtomicInteger();
+    private CountDownLatch remaining;
+    private VersionedOccupancy occupancy;
+    private TeacherWorkloadLedger workload;
+    private Set<String> sharedTeachers;
+
+    /**
+     * One partition on its way through the workers
+     */
+    private record Job(CohortPartitioner.Partition partition, int attempt, long submittedAt) {}
+
+    /**
+     * One placed session and the hours it claims (teacher, room and every attending group)
+     */
+    private record Unit(Session session, List<Claim> claims) {}
+
+    public DistributedScheduler(TimetableDataContext context, GenerationMetrics metrics) {
+        this.context = context;
+        this.metrics = metrics;
+        this.host = System.getProperty(SchedulerConfig.DISTRIBUTED_HOST_PROPERTY, "127.0.0.1");
+        this.port = Integer.getInteger(SchedulerConfig.DISTRIBUTED_PORT_PROPERTY, 0);
+        this.workerCount = Math.max(1, Integer.getInteger(SchedulerConfig.DISTRIBUTED_WORKERS_PROPERTY, 2));
+        this.spawnWorkers = Boolean.parseBoolean(System.getProperty(SchedulerConfig.DISTRIBUTED_SPAWN_PROPERTY, "true"));
+    }
+
+    /**
+     * Distribute all partitions; the returned futures complete once every partition is merged
+     */
+    public Map<String, CompletableFuture<List<Session>>> schedule(List<String> sortedSubjects,
+                                                                   TeacherScheduleState teacherState,
+                                                                   RoomScheduleState roomState,
+                                                                   GroupScheduleState groupState) {
+        metrics.recordPhaseStart("PARTITIONING");
+        CohortPartitioner.PartitionPlan plan = new CohortPartitioner().partition(context, sortedSubjects);
+        metrics.recordPhaseEnd("PARTITIONING");
+
+        this.occupancy = VersionedOccupancy.seed(context, teacherState, roomState, groupState);
+        this.workload = new TeacherWorkloadLedger(context.getTeachers());
+        this.sharedTeachers = plan.sharedTeachers();
+        this.remaining = new CountDownLatch(plan.partitions().size());
+
+        Map<String, CompletableFuture<List<Session>>> results = new LinkedHashMap<>();
+        sortedSubjects.forEach(subjectName -> results.put(subjectName, new CompletableFuture<>()));
+
+        long submittedAt = System.nanoTime();
+        plan.partitions().forEach(p -> queue.add(new Job(p, 1, submittedAt)));
+
+        // Socket I/O blocks - keep it off the shared generation pool
+        Thread.ofPlatform().daemon().name("generation-coordinator").start(() -> {
+            try {
+                coordinate();
+                metrics.recordMetric("distributed.workers", String.valueOf(workerCount));
+                metrics.recordMetric("distributed.assignments", String.valueOf(assignments.get()));
+                metrics.recordMetric("distributed.requeued", String.valueOf(requeued.get()));
+                metrics.recordMetric("distributed.droppedPlacements", String.valueOf(dropped.get()));
+                metrics.recordMetric("distributed.linkErrors", String.valueOf(linkErrors.get()));
+                results.forEach((subjectName, future) ->
+                        future.complete(accepted.getOrDefault(subjectName, List.of())));
+            } catch (Throwable t) {
+                results.values().forEach(future -> future.completeExceptionally(t));
+            }
+        });
+        return results;
+    }
+
+    // ==== Coordinator ====
+
+    private void coordinate() throws IOException, InterruptedException {
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port, workerCount, InetAddress.getByName(host))) {
+            metrics.recordMetric("distributed.endpoint", host + ":" + server.getLocalPort());
+            if (spawnWorkers) {
+                for (int i = 0; i < workerCount; i++) {
+                    processes.add(spawnWorker(server.getLocalPort()));
+                }
+            }
+
+            server.setSoTimeout(CONNECT_TIMEOUT_MS);
+            for (int i = 0; i < workerCount && remaining.getCount() > 0; i++) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    if (liveWorkers.get() == 0) {
+                        throw new IOException("No generation worker connected within " + CONNECT_TIMEOUT_MS + " ms", e);
+                    }
+                    break; // carry on with the workers we have
+                }
+                socket.setTcpNoDelay(true);
+                liveWorkers.incrementAndGet();
+                Thread.ofVirtual().name("generation-worker-link-" + i).start(() -> serve(socket));
+            }
+
+            while (!remaining.await(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (liveWorkers.get() == 0) {
+                    throw new IOException("All generation workers disconnected with "
+                            + remaining.getCount() + " partitions left");
+                }
+            }
+        } finally {
+            for (Process process : processes) {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    /**
+     * A worker JVM generating with this process's settings: every scheduler.* system property
+     * is passed on, with teacher selection and week cycle as resolved here
+     */
+    private Process spawnWorker(int localPort) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Map<String, String> settings = new TreeMap<>();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(SCHEDULER_PROPERTY_PREFIX))
+                .forEach(name -> settings.put(name, System.getProperty(name)));
+        settings.put(SchedulerConfig.TEACHER_SELECTION_PROPERTY, TeacherSelection.fromConfig().name());
+        settings.put(SchedulerConfig.WEEK_CYCLE_PROPERTY, String.valueOf(WeekCycle.WEEKS));
+
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path")));
+        settings.forEach((name, value) -> command.add("-D" + name + "=" + value));
+        command.addAll(List.of(GenerationWorker.class.getName(), host, String.valueOf(localPort)));
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Conversation with one worker. A job lost with its worker, or with a result that could
+     * not be read or merged, goes back to the queue.
+     */
+    private void serve(Socket socket) {
+        Job inFlight = null;
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                byte tag = in.readByte();
+                if (tag == WireProtocol.TAG_WORK_REQUEST) {
+                    inFlight = nextJob();
+                    if (inFlight == null) {
+                        out.writeByte(WireProtocol.TAG_TERMINATE);
+                        out.flush();
+                        return;
+                    }
+                    assignments.incrementAndGet();
+                    WireProtocol.writeAssignment(out, assignmentFor(inFlight));
+                } else if (tag == WireProtocol.TAG_WORK_RESULT) {
+                    WireProtocol.Result result = WireProtocol.readResult(in);
+                    merge(inFlight, result);
+                    inFlight = null;
+                } else {
+                    throw new IOException("Unexpected message tag " + tag);
+                }
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (inFlight != null) {
+                queue.add(inFlight);
+            }
+            if (e instanceof RuntimeException) {
+                // Not a worker going away: keep the cause, the link is closed all the same
+                linkErrors.incrementAndGet();
+                metrics.recordMetric("distributed.lastLinkError", e.toString());
+                System.err.println("Generation worker link failed: " + e);
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            liveWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Next queued job, or null once every partition has been merged
+     */
+    private Job nextJob() throws InterruptedException {
+        while (remaining.getCount() > 0) {
+            Job job = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            if (job != null) return job;
+        }
+        return null;
+    }
+
+    /**
+     * Partition plus the committed hours of everything it may share with other partitions
+     */
+    private WireProtocol.Assignment assignmentFor(Job job) {
+        VersionedOccupancy.Snapshot snapshot = occupancy.snapshot();
+        List<WireProtocol.Reservation> reservations = new ArrayList<>();
+        sharedTeachers.forEach(name -> addReservation(reservations, snapshot, Resource.TEACHER, name));
+        snapshot.rooms().keySet().forEach(roomId -> addReservation(reservations, snapshot, Resource.ROOM, roomId));
+        return new WireProtocol.Assignment(job.partition().id(), snapshot.version(),
+                job.partition().subjects(), reservations);
+    }
+
+    private static void addReservation(List<WireProtocol.Reservation> reservations, VersionedOccupancy.Snapshot snapshot,
+                                       Resource resource, String key) {
+        int[] row = snapshot.rows(resource).get(key);
+        if (row != null && Arrays.stream(row).anyMatch(mask -> mask != 0)) {
+            reservations.add(new WireProtocol.Reservation(resource, key, row.clone()));
+        }
+    }
+
+    // ==== Merge ====
+
+    private void merge(Job job, WireProtocol.Result result) {
+        if (job == null || job.partition().id() != result.partitionId()) {
+            throw new IllegalStateException("Result for partition " + result.partitionId() + " was not assigned");
+        }
+        List<Unit> units = result.sessions().stream().map(this::toUnit).collect(Collectors.toList());
+        List<Unit> kept;
+
+        if (job.attempt() < MAX_ATTEMPTS) {
+            // All or nothing: a partial partition would leave its remaining hours unscheduled
+            List<Unit> charged = new ArrayList<>();
+            for (Unit unit : units) {
+                if (!charge(unit)) {
+                    charged.forEach(this::refund);
+                    requeue(job);
+                    return;
+                }
+                charged.add(unit);
+            }
+            List<List<Unit>> rejected = occupancy.commit(result.version(), List.of(units),
+                    batch -> batch.stream().flatMap(u -> u.claims().stream()).collect(Collectors.toList()));
+            if (!rejected.isEmpty()) {
+                units.forEach(this::refund);
+                requeue(job);
+                return;
+            }
+            kept = units;
+        } else {
+            // Placements past a teacher's budget are dropped like conflicting ones
+            List<Unit> charged = units.stream().filter(this::charge).collect(Collectors.toList());
+            List<Unit> rejected = occupancy.commit(result.version(), charged, Unit::claims);
+            rejected.forEach(this::refund);
+            dropped.addAndGet(units.size() - charged.size() + rejected.size());
+            Set<Unit> rejectedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejectedSet.addAll(rejected);
+            kept = charged.stream().filter(u -> !rejectedSet.contains(u)).collect(Collectors.toList());
+        }
+
+        Map<String, List<Session>> bySubject = kept.stream()
+                .map(Unit::session)
+                .collect(Collectors.groupingBy(Session::subjectName));
+        long finishedAt = System.nanoTime();
+        for (String subjectName : job.partition().subjects()) {
+            accepted.put(subjectName, bySubject.getOrDefault(subjectName, List.of()));
+            metrics.recordTaskTiming(subjectName, 0, finishedAt - job.submittedAt());
+        }
+        remaining.countDown();
+    }
+
+    private void requeue(Job job) {
+        requeued.incrementAndGet();
+        queue.add(new Job(job.partition(), job.attempt() + 1, job.submittedAt()));
+    }
+
+    private boolean charge(Unit unit) {
+        return workload.tryCharge(unit.session().teacherName(), hours(unit));
+    }
+
+    private void refund(Unit unit) {
+        workload.release(unit.session().teacherName(), hours(unit));
+    }
+
+    private static int hours(Unit unit) {
+        return WeekCycle.cycleHours(unit.session().getDurationHours(), unit.session().frequency());
+    }
+
+    private Unit toUnit(Session session) {
+        List<Claim> claims = new ArrayList<>();
+        int day = TimeSlot.dayIndex(session.day());
+        if (day >= 0) {
+            int mask = VersionedOccupancy.hourMask(session.startTime().getHour(), session.endTime().getHour());
+            int lanes = WeekCycle.lanes(session.frequency());
+            claims.add(new Claim(Resource.TEACHER, session.teacherName(), day, mask, lanes));
+            claims.add(new Claim(Resource.ROOM, session.roomId(), day, mask, lanes));
+            StudentSetIndex.of(context)
+                    .setFor(session.subjectName(), session.groupIds(), session.activityType(), session.subgroup())
+                    .getKeys().forEach(key -> claims.add(new Claim(Resource.GROUP, key, day, mask, lanes)));
+        }
+        return new Unit(session, claims);
+    }
+}
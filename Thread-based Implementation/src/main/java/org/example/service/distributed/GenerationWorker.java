@@ -0,0 +1,122 @@
+package org.example.service.distributed;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Session;
+import org.example.model.Teacher;
+import org.example.repository.*;
+import org.example.service.generation.*;
+import org.example.service.generation.VersionedOccupancy.Resource;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GenerationWorker - Worker process for DISTRIBUTED generation.
+ *
+ * Loads the same configuration as the coordinator, connects to it and keeps asking for
+ * work until told to terminate. Each assignment is one cohort partition: its subjects are
+ * scheduled sequentially with SubjectScheduler against fresh states in which the hours
+ * already committed on shared teachers and rooms are blocked.
+ *
+ * Usage: java -cp ... org.example.service.distributed.GenerationWorker <host> <port>
+ */
+public class GenerationWorker {
+    private final TimetableDataContext context;
+
+    public GenerationWorker(TimetableDataContext context) {
+        this.context = context;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: GenerationWorker <host> <port>");
+            System.exit(2);
+        }
+        TimetableDataContext context = TimetableDataContext.getInstance(
+                new GroupRepository(), new TeacherRepository(), new SubjectRepository(), new PlaceRepository());
+
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            new GenerationWorker(context).serve(
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                    new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+        }
+    }
+
+    /**
+     * Request / solve / report loop until the coordinator sends TERMINATE
+     */
+    public void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            out.writeByte(WireProtocol.TAG_WORK_REQUEST);
+            out.flush();
+
+            byte tag = in.readByte();
+            if (tag == WireProtocol.TAG_TERMINATE) {
+                return;
+            }
+            if (tag != WireProtocol.TAG_WORK_ASSIGN) {
+                throw new IOException("Unexpected message tag " + tag);
+            }
+
+            WireProtocol.Assignment assignment = WireProtocol.readAssignment(in);
+            List<Session> sessions = solve(assignment);
+            WireProtocol.writeResult(out, new WireProtocol.Result(
+                    assignment.partitionId(), assignment.version(), sessions));
+        }
+    }
+
+    private List<Session> solve(WireProtocol.Assignment assignment) {
+        TeacherScheduleState teacherState = new TeacherScheduleState(context.getTeachers());
+        RoomScheduleState roomState = new RoomScheduleState(context.getPlaces());
+        GroupScheduleState groupState = new GroupScheduleState(context.getGroups(), StudentSetIndex.of(context));
+        assignment.reservations().forEach(r -> reserve(r, teacherState, roomState, groupState));
+        chargeReservedHours(assignment.reservations(), teacherState);
+
+        List<Session> sessions = new ArrayList<>();
+        for (String subjectName : assignment.subjects()) {
+            SubjectScheduler scheduler = new SubjectScheduler(subjectName, context.getSubjects().get(subjectName),
+                    context, teacherState, roomState, groupState);
+            sessions.addAll(scheduler.schedule());
+        }
+        return sessions;
+    }
+
+    /**
+     * Count hours other partitions placed for shared teachers against their weekly maximum
+     * (reserved rows also carry the config busy hours, which are not workload)
+     */
+    private void chargeReservedHours(List<WireProtocol.Reservation> reservations, TeacherScheduleState teacherState) {
+        for (WireProtocol.Reservation reservation : reservations) {
+            if (reservation.resource() != Resource.TEACHER) continue;
+            Teacher teacher = context.getTeachers().get(reservation.key());
+            if (teacher == null) continue;
+            int[] configured = teacher.getScheduleMask();
+            int placed = 0;
+            for (int slot = 0; slot < reservation.days().length && slot / WeekCycle.WEEKS < configured.length; slot++) {
+                placed += Integer.bitCount(reservation.days()[slot] & ~configured[slot / WeekCycle.WEEKS]);
+            }
+            if (placed > 0) teacherState.chargeHours(reservation.key(), placed);
+        }
+    }
+
+    /**
+     * Block hours committed elsewhere (they are not activities of this partition)
+     */
+    private static void reserve(WireProtocol.Reservation reservation, TeacherScheduleState teacherState,
+                                RoomScheduleState roomState, GroupScheduleState groupState) {
+        for (int slot = 0; slot < reservation.days().length; slot++) {
+            int hours = reservation.days()[slot];
+            if (hours == 0) continue;
+            int day = slot / WeekCycle.WEEKS;
+            int lane = 1 << (slot % WeekCycle.WEEKS);
+            switch (reservation.resource()) {
+                case TEACHER -> teacherState.block(reservation.key(), day, hours, lane);
+                case ROOM -> roomState.block(reservation.key(), day, hours, lane);
+                case GROUP -> groupState.block(reservation.key(), day, hours, lane);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.service.distributed;
+
+import org.example.model.Session;
+import org.example.service.generation.VersionedOccupancy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * WireProtocol - Binary messages between DistributedScheduler and GenerationWorker.
+ *
+ * Same conversation as the MPI solver (MPI/service/solver.cpp):
+ *   worker -> WORK_REQUEST
+ *   coordinator -> WORK_ASSIGN (partition + occupancy of shared resources) | TERMINATE
+ *   worker -> WORK_RESULT (placed sessions), then WORK_REQUEST again
+ *
+ * Every message is a one-byte tag followed by its body. Integers are unsigned varints;
+ * strings inside a message are sent once in a string table and then referenced by index,
+ * so a result of a few hundred sessions stays a few KB.
+ */
+public final class WireProtocol {
+    public static final byte TAG_WORK_REQUEST = 1;
+    public static final byte TAG_WORK_ASSIGN = 2;
+    public static final byte TAG_WORK_RESULT = 3;
+    public static final byte TAG_TERMINATE = 4;
+
+    /**
+     * Hours already taken on one resource, one int mask per (day, week lane) slot (see WeekCycle)
+     */
+    public record Reservation(VersionedOccupancy.Resource resource, String key, int[] days) {}
+
+    /**
+     * A partition to solve against the occupancy of snapshot `version`
+     */
+    public record Assignment(int partitionId, long version, List<String> subjects, List<Reservation> reservations) {}
+
+    /**
+     * Sessions placed by a worker for one assignment
+     */
+    public record Result(int partitionId, long version, List<Session> sessions) {}
+
+    private WireProtocol() {}
+
+    // ==== Assignment ====
+
+    public static void writeAssignment(DataOutputStream out, Assignment assignment) throws IOException {
+        StringTable table = new StringTable();
+        assignment.subjects().forEach(table::add);
+        assignment.reservations().forEach(r -> table.add(r.key()));
+
+        out.writeByte(TAG_WORK_ASSIGN);
+        writeVarInt(out, assignment.partitionId());
+        out.writeLong(assignment.version());
+        table.write(out);
+        writeVarInt(out, assignment.subjects().size());
+        for (String subject : assignment.subjects()) {
+            writeVarInt(out, table.indexOf(subject));
+        }
+        writeVarInt(out, assignment.reservations().size());
+        for (Reservation reservation : assignment.reservations()) {
+            out.writeByte(reservation.resource().ordinal());
+            writeVarInt(out, table.indexOf(reservation.key()));
+            writeVarInt(out, reservation.days().length);
+            for (int mask : reservation.days()) {
+                writeVarInt(out, mask);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the body of a WORK_ASSIGN message (tag already consumed)
+     */
+    public static Assignment readAssignment(DataInputStream in) throws IOException {
+        int partitionId = readVarInt(in);
+        long version = in.readLong();
+        List<String> table = StringTable.read(in);
+
+        int subjectCount = readVarInt(in);
+        List<String> subjects = new ArrayList<>(subjectCount);
+        for (int i = 0; i < subjectCount; i++) {
+            subjects.add(table.get(readVarInt(in)));
+        }
+
+        int reservationCount = readVarInt(in);
+        List<Reservation> reservations = new ArrayList<>(reservationCount);
+        VersionedOccupancy.Resource[] resources = VersionedOccupancy.Resource.values();
+        for (int i = 0; i < reservationCount; i++) {
+            VersionedOccupancy.Resource resource = resources[in.readByte()];
+            String key = table.get(readVarInt(in));
+            int[] days = new int[readVarInt(in)];
+            for (int d = 0; d < days.length; d++) {
+                days[d] = readVarInt(in);
+            }
+            reservations.add(new Reservation(resource, key, days));
+        }
+        return new Assignment(partitionId, version, subjects, reservations);
+    }
+
+    // ==== Result ====
+
+    public static void writeResult(DataOutputStream out, Result result) throws IOException {
+        StringTable table = new StringTable();
+        for (Session session : result.sessions()) {
+            table.add(session.subjectName());
+            session.groupIds().forEach(table::add);
+            table.add(session.teacherName());
+            table.add(session.roomId());
+            table.add(session.day());
+            table.add(session.activityType());
+            table.add(session.subgroup());
+            table.add(session.frequency());
+        }
+
+        out.writeByte(TAG_WORK_RESULT);
+        writeVarInt(out, result.partitionId());
+        out.writeLong(result.version());
+        table.write(out);
+        writeVarInt(out, result.sessions().size());
+        for (Session session : result.sessions()) {
+            writeVarInt(out, table.indexOf(session.subjectName()));
+            writeVarInt(out, session.groupIds().size());
+            for (String groupId : session.groupIds()) {
+                writeVarInt(out, table.indexOf(groupId));
+            }
+            writeVarInt(out, table.indexOf(session.teacherName()));
+            writeVarInt(out, table.indexOf(session.roomId()));
+            writeVarInt(out, table.indexOf(session.day()));
+            writeVarInt(out, session.startTime().toSecondOfDay() / 60);
+            writeVarInt(out, session.endTime().toSecondOfDay() / 60);
+            writeVarInt(out, table.indexOf(session.activityType()));
+            writeVarInt(out, table.indexOf(session.subgroup()));
+            writeVarInt(out, table.indexOf(session.frequency()));
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the body of a WORK_RESULT message (tag already consumed)
+     */
+    public static Result readResult(DataInputStream in) throws IOException {
+        int partitionId = readVarInt(in);
+        long version = in.readLong();
+        List<String> table = StringTable.read(in);
+
+        int count = readVarInt(in);
+        List<Session> sessions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String subjectName = table.get(readVarInt(in));
+            int groupCount = readVarInt(in);
+            List<String> groupIds = new ArrayList<>(groupCount);
+            for (int g = 0; g < groupCount; g++) {
+                groupIds.add(table.get(readVarInt(in)));
+            }
+            sessions.add(new Session(
+                    subjectName,
+                    groupIds,
+                    table.get(readVarInt(in)),
+                    table.get(readVarInt(in)),
+                    table.get(readVarInt(in)),
+                    LocalTime.ofSecondOfDay(readVarInt(in) * 60L),
+                    LocalTime.ofSecondOfDay(readVarInt(in) * 60L),
+                    table.get(readVarInt(in)),
+                    table.get(readVarInt(in)),
+                    table.get(readVarInt(in))
+            ));
+        }
+        return new Result(partitionId, version, sessions);
+    }
+
+    // ==== Encoding helpers ====
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Per-message string dictionary
+     */
+    private static class StringTable {
+        private final Map<String, Integer> indices = new LinkedHashMap<>();
+
+        void add(String value) {
+            indices.putIfAbsent(value, indices.size());
+        }
+
+        int indexOf(String value) {
+            return indices.get(value);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeVarInt(out, indices.size());
+            for (String value : indices.keySet()) {
+                out.writeUTF(value);
+            }
+        }
+
+        static List<String> read(DataInputStream in) throws IOException {
+            int size = readVarInt(in);
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(in.readUTF());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.service.evolution;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Session;
+import org.example.service.generation.GenerationMetrics;
+import org.example.service.generation.SchedulerConfig;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * IslandOptimizer - Island-model genetic algorithm improving the soft constraints of a finished timetable.
+ *
+ * The sessions every mode produces are encoded once into a TimetableModel (one int per
+ * movable activity) and the input becomes the ancestor of every island. An island is a
+ * small population evolved steady-state: two tournament winners are crossed (the child
+ * takes one parent's genes of a random day), a few genes of the child mutate and a few are
+ * moved to their best sampled value, and the child replaces the island's worst individual
+ * if it beats it. Operators only ever produce feasible timetables (Timetable), so the GA
+ * never trades hard constraints for soft ones.
+ *
+ * Each island runs an epoch of GENERATIONS_PER_EPOCH generations as one executor task and
+ * owns its individuals and its SplittableRandom outright, so islands share nothing but the
+ * immutable model. Between epochs the coordinator copies the MIGRANTS best of every island
+ * over the worst of the next one (ring topology).
+ *
+ * Runs until -Dscheduler.evolution.timeoutMs (default 0 = off), or for exactly
+ * -Dscheduler.evolution.epochs epochs if set. An epoch-bounded run defaults to
+ * FIXED_ISLANDS islands instead of one per core, so with the same
+ * -Dscheduler.evolution.seed and the same input timetable it is reproduced bit for bit
+ * on any machine (an explicit -Dscheduler.evolution.islands must match as well).
+ */
+public class IslandOptimizer {
+    private static final int POPULATION = 12;
+    private static final int GENERATIONS_PER_EPOCH = 20;
+    private static final int MIGRANTS = 2;
+    private static final int TOURNAMENT = 3;
+    private static final int MAX_MUTATIONS = 3;
+    private static final int IMPROVE_STEPS = 4;
+    private static final int TRIES = 16;
+    private static final long DEFAULT_SEED = 0x49534CL;
+    /** Island count of epoch-bounded runs, which must not depend on the machine */
+    private static final int FIXED_ISLANDS = 4;
+
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final ExecutorService executor;
+    private final long timeoutMs;
+    private final int epochs;
+    private final int islandCount;
+    private final long seed;
+
+    /**
+     * One population, touched by a single task at a time
+     */
+    private static final class Island {
+        private final List<Timetable> population = new ArrayList<>();
+        private final SplittableRandom random;
+
+        Island(Timetable ancestor, SplittableRandom random) {
+            this.random = random;
+            population.add(ancestor.copy());
+            // Spread the rest around the ancestor so crossover has something to mix
+            int genes = ancestor.genes().length;
+            while (population.size() < POPULATION) {
+                Timetable individual = ancestor.copy();
+                for (int k = 0; k < Math.max(1, genes / 10); k++) {
+                    individual.mutate(random.nextInt(genes), random, TRIES);
+                }
+                population.add(individual);
+            }
+        }
+
+        void evolve(int generations) {
+            int genes = population.get(0).genes().length;
+            for (int n = 0; n < generations; n++) {
+                Timetable child = Timetable.crossover(tournament(), tournament(), random, TRIES);
+                int mutations = 1 + random.nextInt(MAX_MUTATIONS);
+                for (int k = 0; k < mutations; k++) child.mutate(random.nextInt(genes), random, TRIES);
+                for (int k = 0; k < IMPROVE_STEPS; k++) child.improve(random.nextInt(genes), random, TRIES);
+
+                int worst = worst();
+                if (child.penalty() < population.get(worst).penalty()) population.set(worst, child);
+            }
+        }
+
+        private Timetable tournament() {
+            Timetable winner = population.get(random.nextInt(population.size()));
+            for (int k = 1; k < TOURNAMENT; k++) {
+                Timetable other = population.get(random.nextInt(population.size()));
+                if (other.penalty() < winner.penalty()) winner = other;
+            }
+            return winner;
+        }
+
+        private int worst() {
+            int worst = 0;
+            for (int i = 1; i < population.size(); i++) {
+                if (population.get(i).penalty() > population.get(worst).penalty()) worst = i;
+            }
+            return worst;
+        }
+
+        /**
+         * Copies of the `count` best individuals
+         */
+        List<Timetable> emigrants(int count) {
+            return population.stream()
+                    .sorted(Comparator.comparingLong(Timetable::penalty))
+                    .limit(count)
+                    .map(Timetable::copy)
+                    .toList();
+        }
+
+        void receive(List<Timetable> migrants) {
+            for (Timetable migrant : migrants) {
+                int worst = worst();
+                if (migrant.penalty() < population.get(worst).penalty()) population.set(worst, migrant);
+            }
+        }
+
+        Timetable best() {
+            return population.stream().min(Comparator.comparingLong(Timetable::penalty)).orElseThrow();
+        }
+    }
+
+    public IslandOptimizer(TimetableDataContext context, GenerationMetrics metrics, ExecutorService executor) {
+        this.context = context;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.timeoutMs = Long.getLong(SchedulerConfig.EVOLUTION_TIMEOUT_PROPERTY, 0);
+        this.epochs = Integer.getInteger(SchedulerConfig.EVOLUTION_EPOCHS_PROPERTY, 0);
+        int defaultIslands = epochs > 0 ? FIXED_ISLANDS : Runtime.getRuntime().availableProcessors();
+        this.islandCount = Math.max(1, Integer.getInteger(SchedulerConfig.EVOLUTION_ISLANDS_PROPERTY, defaultIslands));
+        this.seed = Long.getLong(SchedulerConfig.EVOLUTION_SEED_PROPERTY, DEFAULT_SEED);
+    }
+
+    public boolean isEnabled() {
+        return timeoutMs > 0 || epochs > 0;
+    }
+
+    /**
+     * Sessions per subject with the best timetable found; the input if nothing beat it
+     */
+    public Map<String, List<Session>> optimize(Map<String, List<Session>> sessionsBySubject) {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000;
+        TimetableModel model = new TimetableModel(context, sessionsBySubject);
+        Timetable ancestor = new Timetable(model);
+        metrics.recordMetric("evolution.genes", String.valueOf(model.genes));
+        metrics.recordMetric("evolution.penaltyBefore", String.valueOf(ancestor.penalty()));
+        if (model.genes == 0 || !ancestor.isConsistent()) {
+            metrics.recordMetric("evolution.skipped", model.genes == 0 ? "no movable activity" : "input clashes");
+            return sessionsBySubject;
+        }
+
+        SplittableRandom root = new SplittableRandom(seed);
+        List<Island> islands = new ArrayList<>();
+        for (int k = 0; k < islandCount; k++) islands.add(new Island(ancestor, root.split()));
+
+        int epoch = 0;
+        while (epochs > 0 ? epoch < epochs : System.nanoTime() < deadline) {
+            List<CompletableFuture<Void>> runs = islands.stream()
+                    .map(island -> CompletableFuture.runAsync(() -> island.evolve(GENERATIONS_PER_EPOCH), executor))
+                    .toList();
+            runs.forEach(CompletableFuture::join);
+            epoch++;
+
+            // Ring migration; emigrants are copied before anyone receives
+            List<List<Timetable>> emigrants = islands.stream().map(island -> island.emigrants(MIGRANTS)).toList();
+            for (int k = 0; k < islands.size(); k++) {
+                islands.get((k + 1) % islands.size()).receive(emigrants.get(k));
+            }
+        }
+
+        Timetable best = islands.stream().map(Island::best)
+                .min(Comparator.comparingLong(Timetable::penalty)).orElseThrow();
+        metrics.recordMetric("evolution.islands", String.valueOf(islands.size()));
+        metrics.recordMetric("evolution.epochs", String.valueOf(epoch));
+        metrics.recordMetric("evolution.generations", String.valueOf((long) epoch * GENERATIONS_PER_EPOCH * islands.size()));
+        metrics.recordMetric("evolution.penaltyAfter", String.valueOf(Math.min(best.penalty(), ancestor.penalty())));
+        if (best.penalty() >= ancestor.penalty()) return sessionsBySubject;
+        return model.decode(best.genes());
+    }
+}
@@ -0,0 +1,335 @@
+package org.example.service.evolution;
+
+import org.example.model.TimeSlot;
+import org.example.service.generation.SchedulerConfig;
+import org.example.service.generation.StudentSet;
+import org.example.service.generation.WeekCycle;
+
+import java.util.*;
+
+import static org.example.service.evolution.TimetableModel.*;
+
+/**
+ * Timetable - One individual of an island: a gene per movable activity plus the rows it fills.
+ *
+ * Only feasible timetables exist. Every operator removes a gene, checks a new value against
+ * the teacher, room and student rows (and the teacher's hour budget) and puts the old value
+ * back if nothing fits, so hard constraints hold between any two calls.
+ *
+ * The penalty (lower is better) is kept up to date on every place / remove, recomputing
+ * only the group-days and teacher-days the gene touches:
+ *   - per group and day: HOLE_WEIGHT per idle hour between the first and last activity,
+ *     plus every hour of a run past MAX_CONSECUTIVE_HOURS
+ *   - per teacher and day: BUILDING_CHANGE_WEIGHT per change of building without the
+ *     MIN_TIME_BETWEEN_BUILDINGS gap in between
+ *   - per gene: one per hour ending after LATE_END, PREFERENCE_WEIGHT outside the
+ *     teacher's preferred buildings
+ *
+ * Not thread-safe; an island owns its individuals.
+ */
+final class Timetable {
+    private static final int HOLE_WEIGHT = 2;
+    private static final int BUILDING_CHANGE_WEIGHT = 3;
+    private static final int PREFERENCE_WEIGHT = 2;
+    private static final int LATE_END = 18;
+    private static final int TRAVEL_GAP_HOURS = Math.max(1, SchedulerConfig.MIN_TIME_BETWEEN_BUILDINGS / 60);
+
+    private final TimetableModel model;
+    private final int[] genes;
+    private final int[][] teacherRows;
+    private final int[][] roomRows;
+    private final long[] students;
+    private final int[] teacherLoad;
+    private final int[] groupHours;       // activities attended per cell, TimetableModel.cell
+    private final int[] buildings;        // building + 1 per teacher cell, 0 if free
+    private final int[] groupPenalty;     // per (group, slot)
+    private final int[] teacherPenalty;   // per (teacher, slot)
+    private final int[] genePenalty;
+    private long penalty;
+    private final boolean consistent;
+
+    /**
+     * The timetable the model was built from
+     */
+    Timetable(TimetableModel model) {
+        this.model = model;
+        this.genes = new int[model.genes];
+        this.teacherRows = deepCopy(model.teacherBase);
+        this.roomRows = deepCopy(model.roomBase);
+        this.students = model.studentBase.clone();
+        this.teacherLoad = new int[model.teacherNames.length];
+        this.groupHours = model.groupBase.clone();
+        this.buildings = model.buildingBase.clone();
+        this.groupPenalty = new int[model.groupCount * WeekCycle.SLOTS];
+        this.teacherPenalty = new int[model.teacherNames.length * WeekCycle.SLOTS];
+        this.genePenalty = new int[model.genes];
+
+        for (int g = 0; g < model.groupCount; g++) {
+            for (int slot = 0; slot < WeekCycle.SLOTS; slot++) rescoreGroup(g, slot);
+        }
+        for (int t = 0; t < model.teacherNames.length; t++) {
+            for (int slot = 0; slot < WeekCycle.SLOTS; slot++) rescoreTeacher(t, slot);
+        }
+        boolean fits = true;
+        for (int i = 0; i < model.genes; i++) {
+            fits &= fits(i, model.initial[i]);
+            place(i, model.initial[i]);
+        }
+        this.consistent = fits;
+    }
+
+    private Timetable(Timetable other) {
+        this.model = other.model;
+        this.genes = other.genes.clone();
+        this.teacherRows = deepCopy(other.teacherRows);
+        this.roomRows = deepCopy(other.roomRows);
+        this.students = other.students.clone();
+        this.teacherLoad = other.teacherLoad.clone();
+        this.groupHours = other.groupHours.clone();
+        this.buildings = other.buildings.clone();
+        this.groupPenalty = other.groupPenalty.clone();
+        this.teacherPenalty = other.teacherPenalty.clone();
+        this.genePenalty = other.genePenalty.clone();
+        this.penalty = other.penalty;
+        this.consistent = other.consistent;
+    }
+
+    Timetable copy() {
+        return new Timetable(this);
+    }
+
+    long penalty() {
+        return penalty;
+    }
+
+    int[] genes() {
+        return genes.clone();
+    }
+
+    /**
+     * The genes of the input never clashed with each other or the fixed sessions
+     */
+    boolean isConsistent() {
+        return consistent;
+    }
+
+    // ==== Operators ====
+
+    /**
+     * Move gene `i` to a random feasible value, trying up to `tries` candidates; false leaves it as it was
+     */
+    boolean mutate(int i, SplittableRandom random, int tries) {
+        int old = genes[i];
+        remove(i);
+        for (int k = 0; k < tries; k++) {
+            int value = randomValue(i, old, random);
+            if (value != old && fits(i, value)) {
+                place(i, value);
+                return true;
+            }
+        }
+        place(i, old);
+        return false;
+    }
+
+    /**
+     * Move gene `i` to the lowest-penalty value among `tries` random feasible candidates and its own
+     */
+    void improve(int i, SplittableRandom random, int tries) {
+        int best = genes[i];
+        long bestPenalty = penalty;
+        remove(i);
+        for (int k = 0; k < tries; k++) {
+            int value = randomValue(i, best, random);
+            if (!fits(i, value)) continue;
+            place(i, value);
+            if (penalty < bestPenalty) {
+                best = value;
+                bestPenalty = penalty;
+            }
+            remove(i);
+        }
+        place(i, best);
+    }
+
+    /**
+     * Child of `a` taking every gene `b` has on one random day. A gene that does not fit keeps
+     * its value in `a`, else moves at random; if even that fails the child is a copy of `a`.
+     */
+    static Timetable crossover(Timetable a, Timetable b, SplittableRandom random, int tries) {
+        Timetable child = a.copy();
+        int day = random.nextInt(DAYS);
+        List<Integer> taken = new ArrayList<>();
+        for (int i = 0; i < a.genes.length; i++) {
+            if (day(b.genes[i]) == day && a.genes[i] != b.genes[i]) taken.add(i);
+        }
+        if (taken.isEmpty()) return child;
+        for (int i : taken) child.remove(i);
+        for (int i : taken) {
+            if (child.fits(i, b.genes[i])) {
+                child.place(i, b.genes[i]);
+            } else if (child.fits(i, a.genes[i])) {
+                child.place(i, a.genes[i]);
+            } else if (!child.placeRandom(i, a.genes[i], random, tries)) {
+                return a.copy();
+            }
+        }
+        return child;
+    }
+
+    private boolean placeRandom(int i, int near, SplittableRandom random, int tries) {
+        for (int k = 0; k < tries; k++) {
+            int value = randomValue(i, near, random);
+            if (fits(i, value)) {
+                place(i, value);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A random start; teacher and room are kept from `near` half of the time each
+     */
+    private int randomValue(int i, int near, SplittableRandom random) {
+        int day = random.nextInt(DAYS);
+        int hour = SchedulerConfig.FIRST_HOUR + random.nextInt(model.lastStartHour(i) - SchedulerConfig.FIRST_HOUR + 1);
+        int teacher = random.nextBoolean() ? teacher(near) : random.nextInt(model.teacherOf[i].length);
+        int room = random.nextBoolean() ? room(near) : random.nextInt(model.roomOf[i].length);
+        return gene(day * HOURS + hour - SchedulerConfig.FIRST_HOUR, teacher, room);
+    }
+
+    // ==== Hard constraints ====
+
+    /**
+     * Gene `i` (currently removed) could take `value`
+     */
+    boolean fits(int i, int value) {
+        int day = day(value);
+        int hour = hour(value);
+        int end = hour + model.requirements[i].duration();
+        if (end > SchedulerConfig.LAST_HOUR + 1) return false;
+        int teacher = model.teacherOf[i][teacher(value)];
+        int room = model.roomOf[i][room(value)];
+        if (teacher < 0 || room < 0) return false;
+        if (teacherLoad[teacher] + model.charge[i] > model.teacherBudget[teacher]) return false;
+
+        int mask = TimeSlot.hourMask(hour, end);
+        int lanes = model.lanes[i];
+        if ((WeekCycle.occupied(teacherRows[teacher], day, lanes) & mask) != 0) return false;
+        if ((WeekCycle.occupied(roomRows[room], day, lanes) & mask) != 0) return false;
+        StudentSet set = model.requirements[i].students();
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((lanes & (1 << lane)) == 0) continue;
+            int slot = WeekCycle.slot(day, lane);
+            for (int h = hour; h < end; h++) {
+                if (set.intersects(students, model.studentOffset(slot, h))) return false;
+            }
+        }
+        return true;
+    }
+
+    private void place(int i, int value) {
+        genes[i] = value;
+        apply(i, true);
+    }
+
+    private void remove(int i) {
+        apply(i, false);
+    }
+
+    private void apply(int i, boolean add) {
+        int value = genes[i];
+        int day = day(value);
+        int hour = hour(value);
+        int end = hour + model.requirements[i].duration();
+        int teacher = model.teacherOf[i][teacher(value)];
+        int room = model.roomOf[i][room(value)];
+        int building = model.roomBuilding[room] + 1;
+        int mask = TimeSlot.hourMask(hour, end);
+        int lanes = model.lanes[i];
+        StudentSet set = model.requirements[i].students();
+
+        teacherLoad[teacher] += add ? model.charge[i] : -model.charge[i];
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((lanes & (1 << lane)) == 0) continue;
+            int slot = WeekCycle.slot(day, lane);
+            if (add) {
+                teacherRows[teacher][slot] |= mask;
+                roomRows[room][slot] |= mask;
+            } else {
+                teacherRows[teacher][slot] &= ~mask;
+                roomRows[room][slot] &= ~mask;
+            }
+            for (int h = hour; h < end; h++) {
+                if (add) {
+                    set.or(students, model.studentOffset(slot, h));
+                } else {
+                    set.clear(students, model.studentOffset(slot, h));
+                }
+                for (int g : model.groupsOf[i]) groupHours[cell(g, slot, h)] += add ? 1 : -1;
+                buildings[cell(teacher, slot, h)] = add ? building : 0;
+            }
+            for (int g : model.groupsOf[i]) rescoreGroup(g, slot);
+            rescoreTeacher(teacher, slot);
+        }
+
+        penalty -= genePenalty[i];
+        genePenalty[i] = add ? scoreGene(i, value) : 0;
+        penalty += genePenalty[i];
+    }
+
+    // ==== Soft constraints ====
+
+    private void rescoreGroup(int g, int slot) {
+        int index = g * WeekCycle.SLOTS + slot;
+        int first = -1, last = -1, busy = 0, run = 0, excess = 0;
+        for (int h = 0; h < HOURS; h++) {
+            if (groupHours[index * HOURS + h] > 0) {
+                if (first < 0) first = h;
+                last = h;
+                busy++;
+                if (++run > SchedulerConfig.MAX_CONSECUTIVE_HOURS) excess++;
+            } else {
+                run = 0;
+            }
+        }
+        int score = first < 0 ? 0 : HOLE_WEIGHT * (last - first + 1 - busy) + excess;
+        penalty += score - groupPenalty[index];
+        groupPenalty[index] = score;
+    }
+
+    private void rescoreTeacher(int t, int slot) {
+        int index = t * WeekCycle.SLOTS + slot;
+        int score = 0, lastBuilding = 0, lastHour = -HOURS;
+        for (int h = 0; h < HOURS; h++) {
+            int building = buildings[index * HOURS + h];
+            if (building == 0) continue;
+            if (lastBuilding != 0 && building != lastBuilding && h - lastHour <= TRAVEL_GAP_HOURS) {
+                score += BUILDING_CHANGE_WEIGHT;
+            }
+            lastBuilding = building;
+            lastHour = h;
+        }
+        penalty += score - teacherPenalty[index];
+        teacherPenalty[index] = score;
+    }
+
+    private int scoreGene(int i, int value) {
+        int end = hour(value) + model.requirements[i].duration();
+        int score = Math.max(0, end - LATE_END);
+        int teacher = model.teacherOf[i][teacher(value)];
+        boolean[] preferred = model.prefers[teacher];
+        int building = model.roomBuilding[model.roomOf[i][room(value)]];
+        boolean any = false;
+        for (boolean p : preferred) any |= p;
+        if (any && !preferred[building]) score += PREFERENCE_WEIGHT;
+        return score;
+    }
+
+    private static int[][] deepCopy(int[][] rows) {
+        int[][] copy = new int[rows.length][];
+        for (int i = 0; i < rows.length; i++) copy[i] = rows[i].clone();
+        return copy;
+    }
+}
@@ -0,0 +1,255 @@
+package org.example.service.evolution;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.*;
+import org.example.service.generation.*;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * TimetableModel - The part of a finished timetable the islands may move, as dense arrays.
+ *
+ * Every session matched to a WorkloadPlan requirement whose teacher and room are among
+ * the requirement's eligible ones becomes a gene: one int packing its start cell
+ * (day * HOURS + hour - FIRST_HOUR), the index of its teacher among the eligible teachers
+ * and the index of its room among the eligible rooms. Everything else (sessions no
+ * requirement claims, config schedules, place opening hours) is fixed and folded into the
+ * base rows the genes are checked against, as are the teacher hour budgets they leave.
+ *
+ * Immutable once built; islands on every core read it without synchronization.
+ */
+final class TimetableModel {
+    static final int HOURS = SubgroupLanes.HOUR_SPAN;
+    static final int DAYS = SchedulerConfig.DAYS.length;
+
+    final int genes;
+    final Requirement[] requirements;
+    final int[][] teacherOf;        // gene -> teacher ids of its eligible teachers
+    final int[][] roomOf;           // gene -> room ids of its eligible rooms
+    final int[][] groupsOf;         // gene -> ids of the groups attending
+    final int[] lanes;
+    final int[] charge;             // cycle hours charged to the teacher
+    final int[] initial;            // genes of the timetable it was built from
+
+    final String[] teacherNames;
+    final String[] roomIds;
+    final int groupCount;
+    final int[][] teacherBase;      // [teacher][slot] hours taken before any gene
+    final int[][] roomBase;         // [room][slot]
+    final long[] studentBase;       // [(slot * HOURS + hour - FIRST_HOUR) * words + word]
+    final int words;
+    final int[] teacherBudget;      // cycle hours left for the genes
+    final int[] groupBase;          // [(group * SLOTS + slot) * HOURS + hour - FIRST_HOUR] fixed sessions attended
+    final int[] buildingBase;       // [(teacher * SLOTS + slot) * HOURS + hour - FIRST_HOUR] building + 1 of a fixed session
+    final int[] roomBuilding;       // building id of each room
+    final boolean[][] prefers;      // [teacher][building], all false if no preference
+
+    private final List<String> subjects;
+    private final Map<String, List<Session>> fixed;
+
+    TimetableModel(TimetableDataContext context, Map<String, List<Session>> sessionsBySubject) {
+        this.subjects = List.copyOf(sessionsBySubject.keySet());
+        this.fixed = new LinkedHashMap<>();
+
+        // Dense ids
+        this.teacherNames = new TreeSet<>(context.getTeachers().keySet()).toArray(String[]::new);
+        Map<String, Integer> teacherId = index(teacherNames);
+        List<String> rooms = new ArrayList<>();
+        Map<String, String> buildingOfRoom = new HashMap<>();
+        context.getPlaces().values().forEach(place -> {
+            if (place.getRooms() == null) return;
+            place.getRooms().keySet().forEach(roomId -> {
+                rooms.add(roomId);
+                buildingOfRoom.put(roomId, place.getName());
+            });
+        });
+        Collections.sort(rooms);
+        this.roomIds = rooms.toArray(String[]::new);
+        Map<String, Integer> roomId = index(roomIds);
+        String[] groupIds = new TreeSet<>(context.getGroups().keySet()).toArray(String[]::new);
+        Map<String, Integer> groupId = index(groupIds);
+        this.groupCount = groupIds.length;
+
+        String[] buildings = new TreeSet<>(buildingOfRoom.values()).toArray(String[]::new);
+        Map<String, Integer> buildingId = index(buildings);
+        this.roomBuilding = new int[roomIds.length];
+        for (int r = 0; r < roomIds.length; r++) roomBuilding[r] = buildingId.get(buildingOfRoom.get(roomIds[r]));
+        this.prefers = new boolean[teacherNames.length][buildings.length];
+        for (int t = 0; t < teacherNames.length; t++) {
+            List<String> preferred = context.getTeachers().get(teacherNames[t]).getPreferredBuildings();
+            if (preferred == null) continue;
+            for (String building : preferred) {
+                Integer b = buildingId.get(building);
+                if (b != null) prefers[t][b] = true;
+            }
+        }
+
+        // Split sessions into genes and fixed ones
+        StudentSetIndex students = StudentSetIndex.of(context);
+        WorkloadPlan workload = WorkloadPlan.of(context);
+        List<Requirement> geneRequirements = new ArrayList<>();
+        List<Integer> geneValues = new ArrayList<>();
+        List<Session> fixedSessions = new ArrayList<>();
+        List<StudentSet> fixedStudents = new ArrayList<>();
+        sessionsBySubject.forEach((subjectName, sessions) -> workload.match(subjectName, sessions,
+                (requirement, session) -> {
+                    int teacher = requirement.teachers().stream().map(Teacher::getName).toList().indexOf(session.teacherName());
+                    int room = requirement.rooms().stream().map(Room::getId).toList().indexOf(session.roomId());
+                    if (teacher < 0 || room < 0) {
+                        keepFixed(subjectName, session, requirement.students(), fixedSessions, fixedStudents);
+                        return;
+                    }
+                    int start = TimeSlot.dayIndex(session.day()) * HOURS + session.startTime().getHour() - SchedulerConfig.FIRST_HOUR;
+                    geneRequirements.add(requirement);
+                    geneValues.add(gene(start, teacher, room));
+                },
+                session -> keepFixed(subjectName, session, students.setFor(subjectName, session.groupIds(),
+                        session.activityType().toUpperCase(), session.subgroup()), fixedSessions, fixedStudents)));
+
+        this.genes = geneRequirements.size();
+        this.requirements = geneRequirements.toArray(Requirement[]::new);
+        this.initial = geneValues.stream().mapToInt(Integer::intValue).toArray();
+        this.teacherOf = new int[genes][];
+        this.roomOf = new int[genes][];
+        this.groupsOf = new int[genes][];
+        this.lanes = new int[genes];
+        this.charge = new int[genes];
+        for (int i = 0; i < genes; i++) {
+            Requirement requirement = requirements[i];
+            teacherOf[i] = requirement.teachers().stream().mapToInt(t -> teacherId.getOrDefault(t.getName(), -1)).toArray();
+            roomOf[i] = requirement.rooms().stream().mapToInt(r -> roomId.getOrDefault(r.getId(), -1)).toArray();
+            groupsOf[i] = requirement.students().getGroupLanes().keySet().stream().mapToInt(groupId::get).toArray();
+            lanes[i] = WeekCycle.lanes(requirement.frequency());
+            charge[i] = WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+        }
+
+        // Base rows: config hours plus the fixed sessions, read back from fresh schedule states
+        TeacherScheduleState teacherState = new TeacherScheduleState(context.getTeachers());
+        RoomScheduleState roomState = new RoomScheduleState(context.getPlaces());
+        this.words = students.words();
+        this.studentBase = new long[WeekCycle.SLOTS * HOURS * words];
+        this.groupBase = new int[groupCount * WeekCycle.SLOTS * HOURS];
+        this.buildingBase = new int[teacherNames.length * WeekCycle.SLOTS * HOURS];
+        for (int s = 0; s < fixedSessions.size(); s++) {
+            Session session = fixedSessions.get(s);
+            int day = TimeSlot.dayIndex(session.day());
+            int hours = TimeSlot.hourMask(session.startTime().getHour(), session.endTime().getHour());
+            int sessionLanes = WeekCycle.lanes(session.frequency());
+            teacherState.block(session.teacherName(), day, hours, sessionLanes);
+            teacherState.chargeHours(session.teacherName(), WeekCycle.cycleHours(session.getDurationHours(), session.frequency()));
+            roomState.block(session.roomId(), day, hours, sessionLanes);
+            for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                if ((sessionLanes & (1 << lane)) == 0) continue;
+                int slot = WeekCycle.slot(day, lane);
+                Integer teacher = teacherId.get(session.teacherName());
+                Integer room = roomId.get(session.roomId());
+                for (int hour = session.startTime().getHour(); hour < session.endTime().getHour(); hour++) {
+                    if (hour < SchedulerConfig.FIRST_HOUR || hour > SchedulerConfig.LAST_HOUR) continue;
+                    fixedStudents.get(s).or(studentBase, studentOffset(slot, hour));
+                    for (String group : session.groupIds()) {
+                        Integer g = groupId.get(group);
+                        if (g != null) groupBase[cell(g, slot, hour)]++;
+                    }
+                    if (teacher != null && room != null) buildingBase[cell(teacher, slot, hour)] = roomBuilding[room] + 1;
+                }
+            }
+        }
+        this.teacherBase = new int[teacherNames.length][];
+        this.teacherBudget = new int[teacherNames.length];
+        for (int t = 0; t < teacherNames.length; t++) {
+            String name = teacherNames[t];
+            teacherBase[t] = rows((day, hour, lane) -> teacherState.isTeacherFree(name, day, TimeSlot.hourMask(hour, hour + 1), 1 << lane));
+            teacherBudget[t] = teacherState.remainingHours(name);
+        }
+        // Never tighter than the timetable being improved already is
+        int[] load = new int[teacherNames.length];
+        for (int i = 0; i < genes; i++) load[teacherOf[i][teacher(initial[i])]] += charge[i];
+        for (int t = 0; t < teacherNames.length; t++) teacherBudget[t] = Math.max(teacherBudget[t], load[t]);
+        this.roomBase = new int[roomIds.length][];
+        for (int r = 0; r < roomIds.length; r++) {
+            String id = roomIds[r];
+            roomBase[r] = rows((day, hour, lane) -> roomState.isRoomFree(id, day, TimeSlot.hourMask(hour, hour + 1), 1 << lane));
+        }
+    }
+
+    private void keepFixed(String subjectName, Session session, StudentSet set, List<Session> sessions, List<StudentSet> sets) {
+        fixed.computeIfAbsent(subjectName, k -> new ArrayList<>()).add(session);
+        sessions.add(session);
+        sets.add(set);
+    }
+
+    private interface FreeCheck {
+        boolean isFree(int day, int hour, int lane);
+    }
+
+    private static int[] rows(FreeCheck free) {
+        int[] rows = new int[WeekCycle.SLOTS];
+        for (int day = 0; day < DAYS; day++) {
+            for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                    if (!free.isFree(day, hour, lane)) rows[WeekCycle.slot(day, lane)] |= 1 << hour;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Map<String, Integer> index(String[] names) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.length; i++) index.put(names[i], i);
+        return index;
+    }
+
+    // ==== Genes ====
+
+    static int gene(int start, int teacher, int room) {
+        return start << 24 | teacher << 12 | room;
+    }
+
+    static int start(int gene) { return gene >>> 24; }
+    static int teacher(int gene) { return gene >>> 12 & 0xFFF; }
+    static int room(int gene) { return gene & 0xFFF; }
+
+    static int day(int gene) { return start(gene) / HOURS; }
+    static int hour(int gene) { return SchedulerConfig.FIRST_HOUR + start(gene) % HOURS; }
+
+    /**
+     * Index of one hour of one row (group or teacher) in the per-hour arrays
+     */
+    static int cell(int row, int slot, int hour) {
+        return (row * WeekCycle.SLOTS + slot) * HOURS + hour - SchedulerConfig.FIRST_HOUR;
+    }
+
+    int studentOffset(int slot, int hour) {
+        return (slot * HOURS + hour - SchedulerConfig.FIRST_HOUR) * words;
+    }
+
+    /**
+     * Latest start cell hour that still ends by LAST_HOUR + 1
+     */
+    int lastStartHour(int i) {
+        return SchedulerConfig.LAST_HOUR + 1 - requirements[i].duration();
+    }
+
+    // ==== Decoding ====
+
+    /**
+     * Sessions per subject: the fixed ones as they were, then one per gene
+     */
+    Map<String, List<Session>> decode(int[] values) {
+        Map<String, List<Session>> sessions = new LinkedHashMap<>();
+        subjects.forEach(subjectName -> sessions.put(subjectName, new ArrayList<>(fixed.getOrDefault(subjectName, List.of()))));
+        for (int i = 0; i < genes; i++) {
+            Requirement requirement = requirements[i];
+            int value = values[i];
+            int hour = hour(value);
+            sessions.get(requirement.subjectName()).add(new Session(requirement.subjectName(), requirement.groupIds(),
+                    teacherNames[teacherOf[i][teacher(value)]], roomIds[roomOf[i][room(value)]],
+                    SchedulerConfig.DAYS[day(value)], LocalTime.of(hour, 0), LocalTime.of(hour + requirement.duration(), 0),
+                    requirement.activityType(), requirement.subgroup(), requirement.frequency()));
+        }
+        return sessions;
+    }
+}
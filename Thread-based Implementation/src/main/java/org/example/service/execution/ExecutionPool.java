@@ -0,0 +1,98 @@
+package org.example.service.execution;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * ExecutionPool - Single shared execution substrate for the whole run.
+ *
+ * Validation and generation used to create their own fixed pools (orchestrator,
+ * every parallel validator, the generator) and tear them down again. All of them
+ * now receive this pool's executor and express their work as CompletableFutures,
+ * so independent stages (e.g. generation setup and Phase-2 validators) overlap.
+ *
+ * Execution modes (system property "scheduler.execution"):
+ * - WORK_STEALING (default): ForkJoinPool sized to the CPU count. Joining a
+ *   CompletableFuture from inside the pool is a managed block, so nested fan-out
+ *   (orchestrator task -> validator subtasks) cannot starve the workers.
+ * - VIRTUAL: one virtual thread per Validator / SubjectScheduler task.
+ * - PLATFORM: a single fixed pool of platform threads shared by every stage, kept
+ *   as the benchmark baseline. Sized to at least MIN_PLATFORM_THREADS:
+ *   the four Phase-2 validators block on their own subtasks, so a smaller
+ *   fixed pool could deadlock on low-core machines.
+ */
+public class ExecutionPool implements AutoCloseable {
+    public static final String MODE_PROPERTY = "scheduler.execution";
+    private static final int MIN_PLATFORM_THREADS = 5;
+
+    public enum Mode {
+        WORK_STEALING,
+        VIRTUAL,
+        PLATFORM
+    }
+
+    private final Mode mode;
+    private final ExecutorService executor;
+
+    public ExecutionPool() {
+        this(Mode.WORK_STEALING);
+    }
+
+    public ExecutionPool(Mode mode) {
+        this.mode = mode;
+        this.executor = switch (mode) {
+            case WORK_STEALING -> Executors.newWorkStealingPool();
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+            case PLATFORM -> Executors.newFixedThreadPool(
+                    Math.max(MIN_PLATFORM_THREADS, Runtime.getRuntime().availableProcessors()));
+        };
+    }
+
+    /**
+     * Create the pool selected by -Dscheduler.execution (defaults to WORK_STEALING)
+     */
+    public static ExecutionPool fromConfig() {
+        String configured = System.getProperty(MODE_PROPERTY, Mode.WORK_STEALING.name());
+        try {
+            return new ExecutionPool(Mode.valueOf(configured.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown execution mode '" + configured +
+                    "' (expected one of " + java.util.Arrays.toString(Mode.values()) + ")", e);
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Run a task asynchronously on the shared pool
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Shutdown the shared pool gracefully - call once, at the end of the run
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+
+import java.util.*;
+
+/**
+ * Where the finished timetable is retained, selected with -Dscheduler.storage (default HEAP).
+ * Only the collected result is affected: every scheduler still builds its sessions on the
+ * heap, so the peak heap of a run is the same either way.
+ */
+public enum ActivityStorage {
+    /** One Session record per placement in an ArrayList */
+    HEAP,
+    /** Fixed-size rows in direct memory, a new Session per read (OffHeapActivityStore) */
+    OFF_HEAP;
+
+    public static ActivityStorage fromConfig() {
+        String configured = System.getProperty(SchedulerConfig.STORAGE_PROPERTY, HEAP.name());
+        try {
+            return valueOf(configured.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown activity storage '" + configured +
+                    "' (expected one of " + Arrays.toString(values()) + ")", e);
+        }
+    }
+
+    /**
+     * Empty, thread-safe list to collect the generated sessions into
+     */
+    public List<Session> newSessionList() {
+        return switch (this) {
+            case HEAP -> Collections.synchronizedList(new ArrayList<>());
+            case OFF_HEAP -> new OffHeapActivityStore().asList();
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Teacher;
+
+import java.util.*;
+
+/**
+ * CohortPartitioner - Splits the generation problem into independent student cohorts.
+ *
+ * Builds the group–subject sharing graph from TimetableDataContext.groupsBySubject and
+ * takes its connected components: two subjects land in the same partition when some
+ * group takes both (e.g. 911–917 all share the first-year subjects). Groups never
+ * cross partitions, so each partition can own a private GroupScheduleState.
+ *
+ * Teachers and rooms are the weak coupling between partitions:
+ * - a teacher capable only of subjects inside one partition is exclusive to it
+ * - a teacher spanning several partitions is shared and reconciled at claim time
+ * - rooms are always shared
+ *
+ * Complexity: O(groups × subjects-per-group + teachers × subjects-per-teacher)
+ */
+public class CohortPartitioner {
+
+    /**
+     * One independent block of the problem. Subjects keep the caller's order (hardest first).
+     */
+    public record Partition(
+            int id,
+            List<String> subjects,
+            Set<String> groupIds,
+            Set<String> exclusiveTeachers
+    ) {}
+
+    /**
+     * Result of partitioning: the blocks plus the resources they have to share
+     */
+    public record PartitionPlan(
+            List<Partition> partitions,
+            Set<String> sharedTeachers
+    ) {}
+
+    /**
+     * Partition the subjects of the context into connected components.
+     * @param sortedSubjects subjects in scheduling order - preserved inside each partition
+     */
+    public PartitionPlan partition(TimetableDataContext context, List<String> sortedSubjects) {
+        Map<String, Integer> subjectIndex = new HashMap<>();
+        for (int i = 0; i < sortedSubjects.size(); i++) {
+            subjectIndex.put(sortedSubjects.get(i), i);
+        }
+
+        // Union subjects that share at least one group
+        int[] parent = new int[sortedSubjects.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+
+        Map<String, List<Integer>> subjectsByGroup = new HashMap<>();
+        context.getGroupsBySubject().forEach((subjectName, groupIds) -> {
+            Integer idx = subjectIndex.get(subjectName);
+            if (idx == null) return;
+            for (String groupId : groupIds) {
+                subjectsByGroup.computeIfAbsent(groupId, k -> new ArrayList<>()).add(idx);
+            }
+        });
+        subjectsByGroup.values().forEach(indices -> {
+            for (int i = 1; i < indices.size(); i++) {
+                union(parent, indices.get(0), indices.get(i));
+            }
+        });
+
+        // Collect components in scheduling order (first subject decides partition order)
+        Map<Integer, Integer> partitionByRoot = new LinkedHashMap<>();
+        List<List<String>> subjectsPerPartition = new ArrayList<>();
+        List<Set<String>> groupsPerPartition = new ArrayList<>();
+        for (int i = 0; i < sortedSubjects.size(); i++) {
+            int partitionId = partitionByRoot.computeIfAbsent(find(parent, i), root -> {
+                subjectsPerPartition.add(new ArrayList<>());
+                groupsPerPartition.add(new HashSet<>());
+                return subjectsPerPartition.size() - 1;
+            });
+            String subjectName = sortedSubjects.get(i);
+            subjectsPerPartition.get(partitionId).add(subjectName);
+            groupsPerPartition.get(partitionId).addAll(context.getGroupsForSubject(subjectName));
+        }
+
+        // Classify teachers: exclusive to one partition or shared between several
+        List<Set<String>> exclusiveTeachers = new ArrayList<>();
+        subjectsPerPartition.forEach(p -> exclusiveTeachers.add(new HashSet<>()));
+        Set<String> sharedTeachers = new HashSet<>();
+
+        for (Teacher teacher : context.getTeachers().values()) {
+            Set<Integer> touched = new HashSet<>();
+            for (String subjectName : context.getSubjectsForTeacher(teacher.getName())) {
+                Integer idx = subjectIndex.get(subjectName);
+                if (idx != null) {
+                    touched.add(partitionByRoot.get(find(parent, idx)));
+                }
+            }
+            if (touched.size() == 1) {
+                exclusiveTeachers.get(touched.iterator().next()).add(teacher.getName());
+            } else if (touched.size() > 1) {
+                sharedTeachers.add(teacher.getName());
+            }
+        }
+
+        List<Partition> partitions = new ArrayList<>();
+        for (int p = 0; p < subjectsPerPartition.size(); p++) {
+            partitions.add(new Partition(
+                    p,
+                    Collections.unmodifiableList(subjectsPerPartition.get(p)),
+                    Collections.unmodifiableSet(groupsPerPartition.get(p)),
+                    Collections.unmodifiableSet(exclusiveTeachers.get(p))
+            ));
+        }
+        return new PartitionPlan(Collections.unmodifiableList(partitions), Collections.unmodifiableSet(sharedTeachers));
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.*;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * DSaturScheduler - Time slots by DSatur coloring of the activity conflict graph.
+ *
+ * Every requirement of the workload is a vertex; two vertices are adjacent when they share
+ * their teacher (the TeacherAssignment flow pre-assigns one) or some students, in a week
+ * lane both use. A color is a start slot (day, hour), so the domain of a vertex is one long
+ * of DAYS x HOUR_SPAN bits, and coloring a vertex strikes from every neighbour the starts
+ * whose hours would overlap it (when another eligible teacher stands in, from the vertices
+ * pre-assigned to that teacher instead of the assigned one's). The graph is built in parallel, one adjacency bitset row
+ * per task chunk, from teacher and group buckets rather than all pairs.
+ *
+ * Coloring follows DSatur: the uncolored vertex with the fewest starts left goes next
+ * (ties: higher degree, then plan order), taken from a heap with lazily dropped stale
+ * entries. Its starts are confirmed on the schedule states (teacher schedule, groups, a
+ * free eligible room) and tried least constraining first: fewest starts struck from
+ * uncolored neighbours, then most free rooms; the assigned teacher's starts come before
+ * those needing another eligible teacher. The room is taken per slot: the smallest free
+ * one, or a ticket of the per-window matching under -Dscheduler.rooms=matching.
+ */
+public class DSaturScheduler {
+    private static final int HOURS = SubgroupLanes.HOUR_SPAN;
+    private static final int CHUNK = 64;
+
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final ExecutorService executor;
+    private final WorkloadPlan workload;
+    private final TeacherAssignment assignment;
+
+    public DSaturScheduler(TimetableDataContext context, GenerationMetrics metrics, ExecutorService executor) {
+        this.context = context;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.workload = WorkloadPlan.of(context);
+        this.assignment = TeacherAssignment.of(context);
+    }
+
+    /**
+     * Color the whole workload as one task; every subject's future completes with it
+     */
+    public Map<String, CompletableFuture<List<Session>>> schedule(List<String> sortedSubjects,
+                                                                   TeacherScheduleState teacherState,
+                                                                   RoomScheduleState roomState,
+                                                                   GroupScheduleState groupState) {
+        long submittedAt = System.nanoTime();
+        Coloring coloring = new Coloring(sortedSubjects, teacherState, roomState, groupState);
+        // Graph rows are parallel tasks; coloring runs once they are all done (no worker blocks on another)
+        CompletableFuture<Map<String, PlacementStore>> colored = coloring.buildGraph().thenApplyAsync(ignored -> {
+            long startedAt = System.nanoTime();
+            metrics.recordMetric("dsatur.graphMs", String.valueOf((startedAt - submittedAt) / 1_000_000));
+            Map<String, PlacementStore> placements = coloring.run();
+            sortedSubjects.forEach(subjectName ->
+                    metrics.recordTaskTiming(subjectName, startedAt - submittedAt, System.nanoTime() - startedAt));
+            return placements;
+        }, executor);
+
+        Map<String, CompletableFuture<List<Session>>> results = new LinkedHashMap<>();
+        for (String subjectName : sortedSubjects) {
+            results.put(subjectName, colored.thenApply(placements -> placements.get(subjectName).toSessions()));
+        }
+        return results;
+    }
+
+    // ==== One coloring run ====
+
+    private class Coloring {
+        private final List<String> subjects;
+        private final TeacherScheduleState teacherState;
+        private final RoomScheduleState roomState;
+        private final GroupScheduleState groupState;
+
+        private final Requirement[] vertices;
+        private final Teacher[] teachers;   // pre-assigned teacher, null if the flow found none
+        private final int[] lanes;          // week lanes
+        private final long[][] adjacency;
+        private final int[] degree;
+        private final long[] domain;        // feasible starts, bit day * HOURS + (hour - FIRST_HOUR)
+        private final boolean[] colored;
+        private final Map<Teacher, List<Integer>> byTeacher = new HashMap<>(); // pre-assigned teacher -> vertices
+
+        Coloring(List<String> subjects, TeacherScheduleState teacherState, RoomScheduleState roomState,
+                 GroupScheduleState groupState) {
+            this.subjects = subjects;
+            this.teacherState = teacherState;
+            this.roomState = roomState;
+            this.groupState = groupState;
+
+            List<Requirement> all = new ArrayList<>();
+            subjects.forEach(subjectName -> all.addAll(workload.forSubject(subjectName)));
+            this.vertices = all.toArray(Requirement[]::new);
+            int n = vertices.length;
+            this.teachers = new Teacher[n];
+            this.lanes = new int[n];
+            for (int v = 0; v < n; v++) {
+                teachers[v] = assignment.teacherFor(vertices[v]);
+                lanes[v] = WeekCycle.lanes(vertices[v].frequency());
+            }
+            this.adjacency = new long[n][(n + Long.SIZE - 1) / Long.SIZE];
+            this.degree = new int[n];
+            this.domain = new long[n];
+            this.colored = new boolean[n];
+        }
+
+        Map<String, PlacementStore> run() {
+            long edges = 0;
+            for (int d : degree) edges += d;
+            metrics.recordMetric("dsatur.vertices", String.valueOf(vertices.length));
+            metrics.recordMetric("dsatur.edges", String.valueOf(edges / 2));
+
+            Map<String, PlacementStore> placements = new LinkedHashMap<>();
+            subjects.forEach(subjectName -> placements.put(subjectName, new PlacementStore()));
+            List<Requirement> unplaced = color(placements);
+            metrics.recordMetric("dsatur.unplaced", String.valueOf(unplaced.size()));
+
+            Map<String, Set<String>> failedTypes = new LinkedHashMap<>();
+            unplaced.forEach(r -> failedTypes.computeIfAbsent(r.subjectName(), k -> new LinkedHashSet<>()).add(r.activityType()));
+            failedTypes.forEach((subjectName, types) -> types.forEach(type ->
+                    SubjectScheduler.reportUnplaced(subjectName, type)));
+            return placements;
+        }
+
+        // ==== Conflict graph ====
+
+        /**
+         * Adjacency rows in parallel: candidates come from the vertex's teacher and group buckets
+         */
+        CompletableFuture<Void> buildGraph() {
+            Map<String, List<Integer>> byGroup = new HashMap<>();
+            for (int v = 0; v < vertices.length; v++) {
+                if (teachers[v] != null) byTeacher.computeIfAbsent(teachers[v], k -> new ArrayList<>()).add(v);
+                for (String groupId : vertices[v].students().getGroupLanes().keySet()) {
+                    byGroup.computeIfAbsent(groupId, k -> new ArrayList<>()).add(v);
+                }
+            }
+
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int from = 0; from < vertices.length; from += CHUNK) {
+                int start = from;
+                int end = Math.min(vertices.length, from + CHUNK);
+                chunks.add(CompletableFuture.runAsync(() -> {
+                    for (int v = start; v < end; v++) {
+                        buildRow(v, byGroup);
+                    }
+                }, executor));
+            }
+            return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new));
+        }
+
+        private void buildRow(int v, Map<String, List<Integer>> byGroup) {
+            long[] row = adjacency[v];
+            if (teachers[v] != null) {
+                for (int u : byTeacher.get(teachers[v])) {
+                    if (u != v && (lanes[u] & lanes[v]) != 0) row[u / Long.SIZE] |= 1L << (u % Long.SIZE);
+                }
+            }
+            StudentSet students = vertices[v].students();
+            for (String groupId : students.getGroupLanes().keySet()) {
+                for (int u : byGroup.get(groupId)) {
+                    if (u == v || (lanes[u] & lanes[v]) == 0 || (row[u / Long.SIZE] & (1L << (u % Long.SIZE))) != 0) continue;
+                    if (students.intersects(vertices[u].students())) row[u / Long.SIZE] |= 1L << (u % Long.SIZE);
+                }
+            }
+            int count = 0;
+            for (long word : row) count += Long.bitCount(word);
+            degree[v] = count;
+        }
+
+        // ==== DSatur ====
+
+        private List<Requirement> color(Map<String, PlacementStore> placements) {
+            // Heap entries: (starts left, -degree, vertex); stale ones are skipped when polled
+            PriorityQueue<int[]> heap = new PriorityQueue<>(Comparator
+                    .<int[]>comparingInt(e -> e[0]).thenComparingInt(e -> -e[1]).thenComparingInt(e -> e[2]));
+            for (int v = 0; v < vertices.length; v++) {
+                domain[v] = initialDomain(v);
+                heap.add(new int[]{Long.bitCount(domain[v]), degree[v], v});
+            }
+
+            List<Requirement> unplaced = new ArrayList<>();
+            while (!heap.isEmpty()) {
+                int[] entry = heap.poll();
+                int v = entry[2];
+                if (colored[v] || entry[0] != Long.bitCount(domain[v])) continue;
+                colored[v] = true;
+
+                Choice choice = null;
+                for (Choice candidate : candidates(v)) {
+                    if (commit(v, candidate, placements.get(vertices[v].subjectName()))) {
+                        choice = candidate;
+                        break;
+                    }
+                }
+                if (choice == null) {
+                    unplaced.add(vertices[v]);
+                    continue;
+                }
+                for (int u : constrained(v, choice.teacher())) {
+                    long struck = domain[u] & strike(v, choice.day(), choice.startHour(), u);
+                    if (struck == 0) continue;
+                    domain[u] &= ~struck;
+                    heap.add(new int[]{Long.bitCount(domain[u]), degree[u], u});
+                }
+            }
+            return unplaced;
+        }
+
+        /**
+         * Starts whose hours fit the day and are free for the students and the assigned teacher
+         */
+        private long initialDomain(int v) {
+            Requirement requirement = vertices[v];
+            int duration = requirement.duration();
+            long starts = 0;
+            for (int day = 0; day < SchedulerConfig.DAYS.length; day++) {
+                for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR + 1 - duration; hour++) {
+                    int hours = TimeSlot.hourMask(hour, hour + duration);
+                    if (!groupState.isFree(requirement.students(), day, hours, lanes[v])) continue;
+                    if (teachers[v] != null && !teacherState.isTeacherFree(teachers[v].getName(), day, hours, lanes[v])) continue;
+                    starts |= 1L << bit(day, hour);
+                }
+            }
+            return starts;
+        }
+
+        /**
+         * Starts of `u` that overlap `v` placed at (day, startHour)
+         */
+        private long strike(int v, int day, int startHour, int u) {
+            int from = Math.max(SchedulerConfig.FIRST_HOUR, startHour - vertices[u].duration() + 1);
+            int to = Math.min(SchedulerConfig.LAST_HOUR, startHour + vertices[v].duration() - 1);
+            long struck = 0;
+            for (int hour = from; hour <= to; hour++) {
+                struck |= 1L << bit(day, hour);
+            }
+            return struck;
+        }
+
+        /**
+         * Uncolored vertices that placing `v` with `teacher` constrains: its student neighbours,
+         * and those pre-assigned to `teacher`. The teacher edges of the graph assume teachers[v],
+         * so a substitute frees their vertices and binds the substitute's instead.
+         */
+        private List<Integer> constrained(int v, Teacher teacher) {
+            boolean assigned = teacher.equals(teachers[v]);
+            List<Integer> result = new ArrayList<>();
+            for (int u : neighbours(v)) {
+                if (!colored[u] && (assigned || vertices[u].students().intersects(vertices[v].students()))) result.add(u);
+            }
+            if (assigned) return result;
+            for (int u : byTeacher.getOrDefault(teacher, List.of())) {
+                if (u == v || colored[u] || (lanes[u] & lanes[v]) == 0) continue;
+                // Already listed as a student neighbour
+                if (adjacent(v, u) && vertices[u].students().intersects(vertices[v].students())) continue;
+                result.add(u);
+            }
+            return result;
+        }
+
+        private boolean adjacent(int v, int u) {
+            return (adjacency[v][u / Long.SIZE] & (1L << (u % Long.SIZE))) != 0;
+        }
+
+        private List<Integer> neighbours(int v) {
+            List<Integer> result = new ArrayList<>(degree[v]);
+            long[] row = adjacency[v];
+            for (int w = 0; w < row.length; w++) {
+                long word = row[w];
+                while (word != 0) {
+                    result.add(w * Long.SIZE + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return result;
+        }
+
+        // ==== Start, teacher and room ====
+
+        private record Choice(Teacher teacher, int day, int startHour, long cost) {}
+
+        /**
+         * Starts confirmed on the states, least constraining first; the assigned teacher's before
+         * those needing another eligible teacher
+         */
+        private List<Choice> candidates(int v) {
+            Requirement requirement = vertices[v];
+            List<Choice> choices = new ArrayList<>();
+            if (requirement.teachers().isEmpty() || requirement.rooms().isEmpty()) return choices;
+            int charge = WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+            Map<Teacher, List<Integer>> open = new HashMap<>();
+            int roomClass = roomState.roomClass(requirement.rooms());
+
+            long starts = domain[v];
+            while (starts != 0) {
+                int b = Long.numberOfTrailingZeros(starts);
+                starts &= starts - 1;
+                int day = b / HOURS;
+                int hour = SchedulerConfig.FIRST_HOUR + b % HOURS;
+                int hours = TimeSlot.hourMask(hour, hour + requirement.duration());
+                int freeRooms = roomState.freeRooms(roomClass, day, hours, lanes[v]);
+                if (freeRooms == 0 || !groupState.isFree(requirement.students(), day, hours, lanes[v])) continue;
+                Teacher teacher = teacherAt(v, charge, day, hours);
+                if (teacher == null) continue;
+
+                int struck = 0;
+                for (int u : open.computeIfAbsent(teacher, t -> constrained(v, t))) {
+                    struck += Long.bitCount(domain[u] & strike(v, day, hour, u));
+                }
+                // Fewest struck neighbour starts, then most free rooms, then earliest
+                boolean assigned = teacher.equals(teachers[v]);
+                long cost = ((assigned ? 0L : 1L) << 48) | ((long) struck << 24) | (0xFFFFFF - Math.min(freeRooms, 0xFFFFFF));
+                choices.add(new Choice(teacher, day, hour, cost));
+            }
+            choices.sort(Comparator.comparingLong(Choice::cost));
+            return choices;
+        }
+
+        /**
+         * The assigned teacher if free with hours left, else the first eligible one that is
+         */
+        private Teacher teacherAt(int v, int charge, int day, int hours) {
+            Teacher assigned = teachers[v];
+            if (assigned != null && fits(assigned, charge, day, hours, lanes[v])) return assigned;
+            for (Teacher teacher : vertices[v].teachers()) {
+                if (teacher != assigned && fits(teacher, charge, day, hours, lanes[v])) return teacher;
+            }
+            return null;
+        }
+
+        private boolean fits(Teacher teacher, int charge, int day, int hours, int lanes) {
+            return teacherState.remainingHours(teacher.getName()) >= charge
+                    && teacherState.isTeacherFree(teacher.getName(), day, hours, lanes);
+        }
+
+        /**
+         * Charge the teacher and take a room, both or neither, then block teacher and students
+         */
+        private boolean commit(int v, Choice choice, PlacementStore store) {
+            Requirement requirement = vertices[v];
+            int hours = TimeSlot.hourMask(choice.startHour(), choice.startHour() + requirement.duration());
+            String teacherName = choice.teacher().getName();
+            int charge = WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+            if (!teacherState.tryChargeHours(teacherName, charge)) return false;
+            String roomId = reserveRoom(requirement, choice, hours);
+            if (roomId == null) {
+                teacherState.releaseHours(teacherName, charge);
+                return false;
+            }
+            teacherState.block(teacherName, choice.day(), hours, lanes[v]);
+            groupState.block(requirement.students(), choice.day(), hours, lanes[v]);
+            store.add(requirement.subjectName(), requirement.groupIds(), requirement.subgroup(), teacherName, roomId,
+                    choice.day(), choice.startHour(), requirement.duration(), requirement.activityType(), requirement.frequency());
+            return true;
+        }
+
+        /**
+         * Smallest free eligible room, or a matching ticket resolved per time window
+         */
+        private String reserveRoom(Requirement requirement, Choice choice, int hours) {
+            int lane = WeekCycle.lanes(requirement.frequency());
+            if (roomState.getAssignment() == RoomAssignment.MATCHING) {
+                int ticket = roomState.reserveRoom(requirement.rooms(), choice.day(), choice.startHour(),
+                        choice.startHour() + requirement.duration(), lane);
+                return (ticket < 0) ? null : RoomScheduleState.pendingRoomId(ticket);
+            }
+            for (Room room : requirement.rooms()) {
+                if (roomState.isRoomFree(room.getId(), choice.day(), hours, lane)) {
+                    roomState.block(room.getId(), choice.day(), hours, lane);
+                    return room.getId();
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private static int bit(int day, int hour) {
+        return day * HOURS + hour - SchedulerConfig.FIRST_HOUR;
+    }
+}
@@ -10,6 +10,7 @@ public class GenerationMetrics {
     private final Map<String, Long> phaseTimings = new ConcurrentHashMap<>();
     private final Map<String, Long> phaseStarts = new ConcurrentHashMap<>();
     private final Map<String, Map<String, Object>> subjectMetrics = new ConcurrentHashMap<>();
+    private final List<Long> taskLatenciesNanos = Collections.synchronizedList(new ArrayList<>());
     private final Map<String, String> detailedMetrics = new ConcurrentHashMap<>();
     private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
     private volatile long totalTime = 0;
@@ -71,10 +72,54 @@ public class GenerationMetrics {
      * Record a metric for a subject
      */
     public void recordSubjectMetric(String subjectName, String metricName, Object value) {
-        subjectMetrics.computeIfAbsent(subjectName, k -> new HashMap<>())
+        subjectMetrics.computeIfAbsent(subjectName, k -> new ConcurrentHashMap<>())
                 .put(metricName, value);
     }
 
+    /**
+     * Record timing of one subject task: time spent queued before a thread picked it up,
+     * and time spent running. Latency (queued + running) feeds the percentile report.
+     */
+    public void recordTaskTiming(String subjectName, long queuedNanos, long runNanos) {
+        recordSubjectMetric(subjectName, "queueWaitMs", queuedNanos / 1_000_000);
+        recordSubjectMetric(subjectName, "executionTimeMs", runNanos / 1_000_000);
+        taskLatenciesNanos.add(queuedNanos + runNanos);
+    }
+
+    /**
+     * Get measured execution time of a subject task (0 if never recorded)
+     */
+    public long getTaskExecutionTimeMs(String subjectName) {
+        Object value = getSubjectMetrics(subjectName).get("executionTimeMs");
+        return value instanceof Long ms ? ms : 0L;
+    }
+
+    /**
+     * Get all recorded task latencies (submit -> finish) in nanoseconds
+     */
+    public List<Long> getTaskLatenciesNanos() {
+        return new ArrayList<>(taskLatenciesNanos);
+    }
+
+    /**
+     * Get a task latency percentile in milliseconds (nearest-rank), e.g. 0.99 for p99
+     */
+    public double getTaskLatencyPercentileMs(double percentile) {
+        return percentileMs(getTaskLatenciesNanos(), percentile);
+    }
+
+    /**
+     * Nearest-rank percentile of nanosecond samples, in milliseconds
+     */
+    public static double percentileMs(List<Long> samplesNanos, double percentile) {
+        if (samplesNanos.isEmpty()) return 0.0;
+        List<Long> sorted = new ArrayList<>(samplesNanos);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile * sorted.size());
+        int index = Math.min(sorted.size() - 1, Math.max(0, rank - 1));
+        return sorted.get(index) / 1_000_000.0;
+    }
+
     /**
      * Get phase timing
      */
@@ -129,6 +174,13 @@ public class GenerationMetrics {
                 System.out.println(phase + ": " + time + " ms")
         );
 
+        if (!taskLatenciesNanos.isEmpty()) {
+            System.out.println("\n--- Task Latency (submit -> finish) ---");
+            System.out.printf("p50: %.2f ms | p95: %.2f ms | p99: %.2f ms | max: %.2f ms%n",
+                    getTaskLatencyPercentileMs(0.50), getTaskLatencyPercentileMs(0.95),
+                    getTaskLatencyPercentileMs(0.99), getTaskLatencyPercentileMs(1.0));
+        }
+
         System.out.println("\n--- Subject Metrics ---");
         subjectMetrics.forEach((subject, metrics) -> {
             System.out.println(subject + ":");
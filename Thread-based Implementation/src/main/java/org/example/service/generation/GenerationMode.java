@@ -0,0 +1,33 @@
+package org.example.service.generation;
+
+import java.util.Arrays;
+
+/**
+ * Generation strategies, selected with -Dscheduler.generation (default SHARED)
+ */
+public enum GenerationMode {
+    /** Every subject is a parallel task against one global teacher/room/group state */
+    SHARED,
+    /** Independent student cohorts solved with fork/join in isolated state (CohortPartitioner) */
+    PARTITIONED,
+    /** Subjects plan against versioned snapshots and commit validated batches, retrying conflicts (OptimisticScheduler) */
+    OPTIMISTIC,
+    /** Cohort partitions solved by GenerationWorker processes over TCP (DistributedScheduler) */
+    DISTRIBUTED,
+    /** Co-located JVMs claim hours in one memory-mapped grid with CAS (SharedMemoryScheduler) */
+    SHARED_MEMORY,
+    /** Start slots by DSatur coloring of the activity conflict graph, rooms per slot (DSaturScheduler) */
+    DSATUR,
+    /** The workload as one CNF, solved by an in-tree CDCL portfolio with greedy MaxSAT steps (SatScheduler) */
+    SAT;
+
+    public static GenerationMode fromConfig() {
+        String configured = System.getProperty(SchedulerConfig.GENERATION_MODE_PROPERTY, SHARED.name());
+        try {
+            return valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown generation mode '" + configured +
+                    "' (expected one of " + Arrays.toString(values()) + ")", e);
+        }
+    }
+}
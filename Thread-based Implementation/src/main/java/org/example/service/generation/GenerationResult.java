@@ -1,6 +1,7 @@
 package org.example.service.generation;
 
 import org.example.model.Activity;
+import org.example.model.Session;
 
 import java.util.*;
 
@@ -8,7 +9,7 @@ import java.util.*;
  * Complete result of timetable generation
  */
 public class GenerationResult {
-    private final List<Activity> activities;
+    private final List<Session> sessions;
     private final int totalActivities;
     private final double successRate;
     private final long totalTime;
@@ -16,11 +17,11 @@ public class GenerationResult {
     private final List<TimetableGenerator.SubjectGenerationResult> subjectResults;
     private final String errorMessage;
 
-    public GenerationResult(List<Activity> activities, int totalActivities,
+    public GenerationResult(List<Session> sessions, int totalActivities,
                             double successRate, long totalTime, GenerationMetrics metrics,
                             List<TimetableGenerator.SubjectGenerationResult> subjectResults,
                             String errorMessage) {
-        this.activities = activities;
+        this.sessions = sessions;
         this.totalActivities = totalActivities;
         this.successRate = successRate;
         this.totalTime = totalTime;
@@ -29,7 +30,19 @@ public class GenerationResult {
         this.errorMessage = errorMessage;
     }
 
-    public List<Activity> getActivities() { return activities; }
+    public List<Session> getSessions() { return sessions; }
+
+    /**
+     * Per-group view of the sessions (a course appears once per attending group), built on each call
+     */
+    public List<Activity> getActivities() {
+        List<Activity> activities = new ArrayList<>();
+        for (Session session : sessions) {
+            activities.addAll(session.expand());
+        }
+        return activities;
+    }
+
     public int getTotalActivities() { return totalActivities; }
     public double getSuccessRate() { return successRate; }
     public long getTotalTimeMs() { return totalTime; }
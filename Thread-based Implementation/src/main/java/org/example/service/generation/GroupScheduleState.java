@@ -2,66 +2,312 @@ package org.example.service.generation;
 
 import org.example.model.Activity;
 import org.example.model.Group;
+import org.example.model.TimeSlot;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Thread-safe state for tracking group schedules during generation
+ * Thread-safe state for tracking group schedules during generation.
+ * Availability is one long per group, day and week lane (WeekCycle): the hour bits of
+ * each subgroup lane (SubgroupLanes) side by side, so semigroups of a group can have
+ * parallel sessions while a whole-group activity checks every lane with one AND.
+ *
+ * A second layer keeps, per (day, week lane, hour), the bitset of student blocks taken
+ * (StudentSetIndex). Every block updates both; group-aligned activities are checked on
+ * the per-group masks (fast path), electives that mix groups by intersecting their
+ * StudentSet with that bitset, O(words) however many groups they span.
+ *
+ * Courses attended by several whole groups are checked on a cohort union: the OR of
+ * the member rows, built the first time the cohort is asked about and then kept up to
+ * date by every block of a member, so a whole-year course is one AND per week lane
+ * whatever the cohort size.
  */
 public class GroupScheduleState {
-    private final Map<String, Map<String, List<Activity>>> groupSchedules;
+    private static final int ALL_SUBGROUPS = (1 << SubgroupLanes.MAX_LANES) - 1;
 
-    public GroupScheduleState(Map<String, Group> groups) {
-        this.groupSchedules = new ConcurrentHashMap<>();
+    private final Map<String, long[]> occupied;
+    private final Map<String, Group> groups;
+    private final StudentSetIndex students;
+    private final long[] blocks;    // [(slot * HOUR_SPAN + hour - FIRST_HOUR) * words + word]
+    private final int words;
+    private final Map<String, long[]> cohorts = new HashMap<>();              // cohort key -> OR of member rows
+    private final Map<String, List<long[]>> cohortsByGroup = new HashMap<>(); // group id -> unions it feeds
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong releases = new AtomicLong();
 
-        groups.forEach((groupId, group) -> {
-            Map<String, List<Activity>> schedule = new ConcurrentHashMap<>();
-            String[] days = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
-            for (String day : days) {
-                schedule.put(day, new CopyOnWriteArrayList<>());
+    public GroupScheduleState(Map<String, Group> groups, StudentSetIndex students) {
+        this.occupied = new ConcurrentHashMap<>();
+        this.groups = groups;
+        this.students = students;
+        this.words = students.words();
+        this.blocks = new long[WeekCycle.SLOTS * SubgroupLanes.HOUR_SPAN * words];
+        groups.forEach((groupId, group) -> occupied.put(groupId, new long[WeekCycle.SLOTS]));
+    }
+
+    /**
+     * Subgroup lanes of an activity of this group ("" subgroup = every lane)
+     */
+    public int subgroupLanes(String groupId, String activityType, String subgroup) {
+        return SubgroupLanes.lanes(groups.get(groupId), activityType, subgroup);
+    }
+
+    /**
+     * Free for the whole group in every week of the cycle
+     */
+    public boolean isGroupAvailable(String groupId, String day, int hour) {
+        return isGroupFree(groupId, TimeSlot.dayIndex(day), TimeSlot.hourMask(hour, hour + 1), WeekCycle.ALL);
+    }
+
+    /**
+     * None of `hourMask` is taken by any subgroup on the given week lanes of that day
+     */
+    public boolean isGroupFree(String groupId, int dayIndex, int hourMask, int lanes) {
+        return isGroupFree(groupId, SubgroupLanes.all(groups.get(groupId)), dayIndex, hourMask, lanes);
+    }
+
+    /**
+     * None of `hourMask` is taken on the given subgroup lanes and week lanes of that day
+     */
+    public boolean isGroupFree(String groupId, int subgroups, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return true;
+        lock.lock();
+        try {
+            return isGroupFreeLocked(groupId, subgroups, dayIndex, hourMask, lanes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * No student of `set` is busy during `hourMask` on the given week lanes of that day
+     */
+    public boolean isFree(StudentSet set, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return true;
+        lock.lock();
+        try {
+            if (set.getCohort() != null) {
+                long[] union = cohortUnion(set);
+                long wanted = SubgroupLanes.pack(hourMask, ALL_SUBGROUPS);
+                for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                    if ((lanes & (1 << lane)) != 0 && (union[WeekCycle.slot(dayIndex, lane)] & wanted) != 0) return false;
+                }
+                return true;
+            }
+            if (set.isAligned()) {
+                for (Map.Entry<String, Integer> entry : set.getGroupLanes().entrySet()) {
+                    if (!isGroupFreeLocked(entry.getKey(), entry.getValue(), dayIndex, hourMask, lanes)) return false;
+                }
+                return true;
+            }
+            for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                if ((lanes & (1 << lane)) == 0) continue;
+                for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                    if ((hourMask & (1 << hour)) != 0 && set.intersects(blocks, offset(dayIndex, lane, hour))) return false;
+                }
             }
-            groupSchedules.put(groupId, schedule);
-        });
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized boolean isGroupAvailable(String groupId, String day, int hour) {
-        Map<String, List<Activity>> schedule = groupSchedules.get(groupId);
-        if (schedule == null) return true;
-        
-        String upperDay = day.toUpperCase();
-        List<Activity> dayActivities = schedule.get(upperDay);
-        if (dayActivities == null) return true;
+    /**
+     * Union row of a cohort, built from the member rows on first use (lock held)
+     */
+    private long[] cohortUnion(StudentSet set) {
+        long[] union = cohorts.get(set.getCohort());
+        if (union != null) return union;
+        long[] built = new long[WeekCycle.SLOTS];
+        for (String groupId : set.getGroupLanes().keySet()) {
+            long[] row = occupied.get(groupId);
+            if (row == null) continue;
+            for (int slot = 0; slot < built.length; slot++) {
+                built[slot] |= row[slot];
+            }
+            cohortsByGroup.computeIfAbsent(groupId, k -> new ArrayList<>()).add(built);
+        }
+        cohorts.put(set.getCohort(), built);
+        return built;
+    }
 
-        return dayActivities.stream()
-                .noneMatch(a -> {
-                    int start = a.startTime().getHour();
-                    int end = a.endTime().getHour();
-                    return hour >= start && hour < end;
-                });
+    /**
+     * Both groups have exactly the same busy hours on every subgroup and week lane (symmetry check)
+     */
+    public boolean sameRows(String groupA, String groupB) {
+        lock.lock();
+        try {
+            long[] a = occupied.get(groupA);
+            long[] b = occupied.get(groupB);
+            return a != null && b != null && Arrays.equals(a, b);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void addActivity(String groupId, Activity activity) {
+    private boolean isGroupFreeLocked(String groupId, int subgroups, int dayIndex, int hourMask, int lanes) {
+        long[] row = occupied.get(groupId);
+        if (row == null) return true;
+        long wanted = SubgroupLanes.pack(hourMask, subgroups);
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((lanes & (1 << lane)) != 0 && (row[WeekCycle.slot(dayIndex, lane)] & wanted) != 0) return false;
+        }
+        return true;
+    }
+
+    private int offset(int dayIndex, int lane, int hour) {
+        return (WeekCycle.slot(dayIndex, lane) * SubgroupLanes.HOUR_SPAN + hour - SchedulerConfig.FIRST_HOUR) * words;
+    }
+
+    public void addActivity(String groupId, Activity activity) {
         if (groupId == null || activity == null) return;
-        Map<String, List<Activity>> schedule = groupSchedules.get(groupId);
-        if (schedule == null) return;
-        
-        String upperDay = activity.day().toUpperCase();
-        List<Activity> dayActivities = schedule.get(upperDay);
-        if (dayActivities != null) {
-            dayActivities.add(activity);
+        block(groupId, subgroupLanes(groupId, activity.activityType(), activity.subgroup()),
+                TimeSlot.dayIndex(activity.day()),
+                TimeSlot.hourMask(activity.startTime().getHour(), activity.endTime().getHour()),
+                WeekCycle.lanes(activity.frequency()));
+    }
+
+    /**
+     * Mark hours taken for the whole group in every week (a placement, or hours committed by another process)
+     */
+    public void block(String groupId, int dayIndex, int hourMask) {
+        block(groupId, dayIndex, hourMask, WeekCycle.ALL);
+    }
+
+    /**
+     * Mark hours taken for the whole group on the given week lanes
+     */
+    public void block(String groupId, int dayIndex, int hourMask, int lanes) {
+        block(groupId, SubgroupLanes.all(groups.get(groupId)), dayIndex, hourMask, lanes);
+    }
+
+    /**
+     * Mark hours taken on the given subgroup lanes and week lanes
+     */
+    public void block(String groupId, int subgroups, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+        lock.lock();
+        try {
+            blockLocked(groupId, subgroups, dayIndex, hourMask, lanes);
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized List<Activity> getGroupActivities(String groupId) {
-        List<Activity> all = new ArrayList<>();
-        if (groupId == null) return all;
-        
-        Map<String, List<Activity>> schedule = groupSchedules.get(groupId);
-        if (schedule != null) {
-            schedule.values().forEach(all::addAll);
+    /**
+     * Mark hours taken for every student of `set`
+     */
+    public void block(StudentSet set, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+        lock.lock();
+        try {
+            set.getGroupLanes().forEach((groupId, subgroups) -> blockLocked(groupId, subgroups, dayIndex, hourMask, lanes));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Block the hours only if no student of `set` is busy, checked and marked under one lock
+     * @return false if another task took some of them since the caller's check
+     */
+    public boolean tryBlock(StudentSet set, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            if (!isFree(set, dayIndex, hourMask, lanes)) return false;
+            block(set, dayIndex, hourMask, lanes);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Free hours `set` had taken (undoing a placement when the search backjumps). Cohort
+     * unions cannot be un-ORed, so they are dropped and rebuilt on their next use.
+     */
+    public void release(StudentSet set, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+        lock.lock();
+        try {
+            unblock(set, dayIndex, hourMask, lanes);
+        } finally {
+            releases.incrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Undo a tryBlock whose placement then lost a race on another state. Not a release:
+     * no placement was undone, so releaseCount and the failures proven at it stay put
+     */
+    public void rollback(StudentSet set, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+        lock.lock();
+        try {
+            unblock(set, dayIndex, hourMask, lanes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unblock(StudentSet set, int dayIndex, int hourMask, int lanes) {
+        set.getGroupLanes().forEach((groupId, subgroups) -> releaseLocked(groupId, subgroups, dayIndex, hourMask, lanes));
+        cohorts.clear();
+        cohortsByGroup.clear();
+    }
+
+    /**
+     * Release calls so far; a failed search is only a proof while this has not moved
+     */
+    public long releaseCount() {
+        return releases.get();
+    }
+
+    private void releaseLocked(String groupId, int subgroups, int dayIndex, int hourMask, int lanes) {
+        long[] row = occupied.get(groupId);
+        if (row == null) return;
+        long freed = SubgroupLanes.pack(hourMask, subgroups);
+        int first = students.firstBlock(groupId);
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((lanes & (1 << lane)) == 0) continue;
+            row[WeekCycle.slot(dayIndex, lane)] &= ~freed;
+            if (first < 0) continue;
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                if ((hourMask & (1 << hour)) == 0) continue;
+                int offset = offset(dayIndex, lane, hour);
+                for (int sub = 0; sub < SubgroupLanes.MAX_LANES; sub++) {
+                    if ((subgroups & (1 << sub)) == 0) continue;
+                    int block = first + sub;
+                    blocks[offset + block / Long.SIZE] &= ~(1L << (block % Long.SIZE));
+                }
+            }
+        }
+    }
+
+    private void blockLocked(String groupId, int subgroups, int dayIndex, int hourMask, int lanes) {
+        long[] row = occupied.get(groupId);
+        if (row == null) return;
+        long taken = SubgroupLanes.pack(hourMask, subgroups);
+        int first = students.firstBlock(groupId);
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((lanes & (1 << lane)) == 0) continue;
+            row[WeekCycle.slot(dayIndex, lane)] |= taken;
+            for (long[] union : cohortsByGroup.getOrDefault(groupId, List.of())) {
+                union[WeekCycle.slot(dayIndex, lane)] |= taken;
+            }
+            if (first < 0) continue;
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                if ((hourMask & (1 << hour)) == 0) continue;
+                int offset = offset(dayIndex, lane, hour);
+                for (int sub = 0; sub < SubgroupLanes.MAX_LANES; sub++) {
+                    if ((subgroups & (1 << sub)) == 0) continue;
+                    int block = first + sub;
+                    blocks[offset + block / Long.SIZE] |= 1L << (block % Long.SIZE);
+                }
+            }
         }
-        return all;
     }
 }
@@ -0,0 +1,367 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.*;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * LnsRepair - Large Neighbourhood Search over a finished timetable, for subjects left short.
+ *
+ * The sessions of every mode are matched back to their WorkloadPlan requirements and
+ * replayed into fresh schedule states; requirements without a session are the targets.
+ * One neighbourhood is a target plus up to MAX_DESTROY placed activities around it on
+ * two days: sharing students with it, holding one of its eligible teachers or one of its
+ * eligible rooms. They are released and the sub-problem is re-solved exactly by depth-first
+ * search with forward checking (most constrained requirement first, no requirement left
+ * without a value), under a node budget; a neighbourhood is kept only if everything in it
+ * is placed again, otherwise the destroyed placements are restored as they were.
+ *
+ * Rounds run neighbourhoods whose footprints (eligible teachers, eligible rooms, attending
+ * groups) are disjoint in parallel on the executor, so no two ever touch one row of the
+ * thread-safe states. Repair stops when nothing is unplaced, after MAX_STALE_ROUNDS rounds
+ * without progress or at -Dscheduler.repair.timeoutMs. Neighbourhood choice is seeded, so
+ * a run repairs the same way every time (up to the time budget).
+ */
+public class LnsRepair {
+    private static final int MAX_DESTROY = 6;
+    private static final int DAYS_PER_NEIGHBOURHOOD = 2;
+    private static final int NODE_BUDGET = 2_000;
+    private static final int MAX_STALE_ROUNDS = 25;
+    private static final long DEFAULT_TIMEOUT_MS = 5_000;
+    private static final long SEED = 0x4C4E53L;
+
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final ExecutorService executor;
+    private final long timeoutMs;
+    private final Random random = new Random(SEED);
+
+    private TeacherScheduleState teacherState;
+    private RoomScheduleState roomState;
+    private GroupScheduleState groupState;
+    private long deadline;
+
+    /**
+     * One placed requirement
+     */
+    private record Placed(Requirement requirement, String teacherName, String roomId, int day, int startHour) {
+        int hourMask() {
+            return TimeSlot.hourMask(startHour, startHour + requirement.duration());
+        }
+
+        int lanes() {
+            return WeekCycle.lanes(requirement.frequency());
+        }
+
+        int charge() {
+            return WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+        }
+    }
+
+    /**
+     * A target, the placements destroyed around it and the rows the re-solve may touch
+     */
+    private record Neighbourhood(Requirement target, List<Placed> destroyed, Set<String> footprint, long seed) {}
+
+    public LnsRepair(TimetableDataContext context, GenerationMetrics metrics, ExecutorService executor) {
+        this.context = context;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.timeoutMs = Long.getLong(SchedulerConfig.REPAIR_TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_MS);
+    }
+
+    public boolean isEnabled() {
+        return timeoutMs > 0;
+    }
+
+    /**
+     * Sessions per subject after repair; subjects missing nothing come back unchanged
+     */
+    public Map<String, List<Session>> repair(Map<String, List<Session>> sessionsBySubject) {
+        long startedAt = System.nanoTime();
+        deadline = startedAt + timeoutMs * 1_000_000;
+        teacherState = new TeacherScheduleState(context.getTeachers());
+        roomState = new RoomScheduleState(context.getPlaces(), RoomAssignment.GREEDY);
+        groupState = new GroupScheduleState(context.getGroups(), StudentSetIndex.of(context));
+
+        List<Placed> placed = new ArrayList<>();
+        Map<String, List<Session>> unmatched = new LinkedHashMap<>();
+        List<Requirement> unplaced = match(sessionsBySubject, placed, unmatched);
+        int before = unplaced.size();
+
+        int rounds = 0, neighbourhoods = 0, stale = 0;
+        Set<String> changedSubjects = new HashSet<>();
+        while (!unplaced.isEmpty() && stale < MAX_STALE_ROUNDS && !timedOut()) {
+            rounds++;
+            List<Neighbourhood> batch = batch(unplaced, placed);
+            neighbourhoods += batch.size();
+            List<CompletableFuture<List<Placed>>> solves = new ArrayList<>();
+            for (Neighbourhood neighbourhood : batch) {
+                solves.add(CompletableFuture.supplyAsync(() -> solve(neighbourhood), executor));
+            }
+            boolean progress = false;
+            for (int i = 0; i < batch.size(); i++) {
+                List<Placed> solution = solves.get(i).join();
+                if (solution == null) continue;
+                Neighbourhood neighbourhood = batch.get(i);
+                placed.removeAll(neighbourhood.destroyed());
+                placed.addAll(solution);
+                unplaced.remove(neighbourhood.target());
+                solution.forEach(p -> changedSubjects.add(p.requirement().subjectName()));
+                progress = true;
+            }
+            stale = progress ? 0 : stale + 1;
+        }
+
+        metrics.recordMetric("repair.unplacedBefore", String.valueOf(before));
+        metrics.recordMetric("repair.unplacedAfter", String.valueOf(unplaced.size()));
+        metrics.recordMetric("repair.rounds", String.valueOf(rounds));
+        metrics.recordMetric("repair.neighbourhoods", String.valueOf(neighbourhoods));
+        metrics.recordMetric("repair.ms", String.valueOf((System.nanoTime() - startedAt) / 1_000_000));
+
+        Map<String, List<Session>> repaired = new LinkedHashMap<>();
+        sessionsBySubject.forEach((subjectName, sessions) -> repaired.put(subjectName,
+                changedSubjects.contains(subjectName) ? new ArrayList<>(unmatched.getOrDefault(subjectName, List.of())) : sessions));
+        for (Placed p : placed) {
+            List<Session> sessions = repaired.get(p.requirement().subjectName());
+            if (changedSubjects.contains(p.requirement().subjectName())) sessions.add(toSession(p));
+        }
+        return repaired;
+    }
+
+    // ==== Replay ====
+
+    /**
+     * Block every session; sessions of a requirement become Placed, the rest stay as they are
+     * @return requirements without a session, in plan order
+     */
+    private List<Requirement> match(Map<String, List<Session>> sessionsBySubject, List<Placed> placed,
+                                    Map<String, List<Session>> unmatched) {
+        WorkloadPlan workload = WorkloadPlan.of(context);
+        List<Requirement> unplaced = new ArrayList<>();
+        sessionsBySubject.forEach((subjectName, sessions) -> unplaced.addAll(workload.match(subjectName, sessions,
+                (requirement, session) -> {
+                    Placed p = new Placed(requirement, session.teacherName(), session.roomId(),
+                            TimeSlot.dayIndex(session.day()), session.startTime().getHour());
+                    teacherState.chargeHours(p.teacherName(), p.charge());
+                    block(p);
+                    placed.add(p);
+                },
+                // Sessions no requirement claims (e.g. fixed by hand) are kept and only block their hours
+                session -> {
+                    int day = TimeSlot.dayIndex(session.day());
+                    int hours = TimeSlot.hourMask(session.startTime().getHour(), session.endTime().getHour());
+                    int lanes = WeekCycle.lanes(session.frequency());
+                    teacherState.block(session.teacherName(), day, hours, lanes);
+                    roomState.block(session.roomId(), day, hours, lanes);
+                    session.groupIds().forEach(groupId -> groupState.block(groupId, day, hours, lanes));
+                    unmatched.computeIfAbsent(subjectName, k -> new ArrayList<>()).add(session);
+                })));
+        return unplaced;
+    }
+
+    private static Session toSession(Placed p) {
+        Requirement requirement = p.requirement();
+        return new Session(requirement.subjectName(), requirement.groupIds(), p.teacherName(), p.roomId(),
+                SchedulerConfig.DAYS[p.day()], LocalTime.of(p.startHour(), 0),
+                LocalTime.of(p.startHour() + requirement.duration(), 0), requirement.activityType(),
+                requirement.subgroup(), requirement.frequency());
+    }
+
+    // ==== Neighbourhoods ====
+
+    /**
+     * One neighbourhood per target, as many as have pairwise disjoint footprints
+     */
+    private List<Neighbourhood> batch(List<Requirement> unplaced, List<Placed> placed) {
+        List<Requirement> targets = new ArrayList<>(unplaced);
+        Collections.shuffle(targets, random);
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        List<Neighbourhood> batch = new ArrayList<>();
+        Set<String> taken = new HashSet<>();
+        for (Requirement target : targets) {
+            if (batch.size() == parallelism) break;
+            Neighbourhood neighbourhood = neighbourhood(target, placed);
+            if (!Collections.disjoint(taken, neighbourhood.footprint())) continue;
+            taken.addAll(neighbourhood.footprint());
+            batch.add(neighbourhood);
+        }
+        return batch;
+    }
+
+    private Neighbourhood neighbourhood(Requirement target, List<Placed> placed) {
+        List<Integer> days = new ArrayList<>();
+        for (int d = 0; d < SchedulerConfig.DAYS.length; d++) days.add(d);
+        Collections.shuffle(days, random);
+        Set<Integer> chosenDays = new HashSet<>(days.subList(0, DAYS_PER_NEIGHBOURHOOD));
+
+        Set<String> teachers = new HashSet<>();
+        target.teachers().forEach(t -> teachers.add(t.getName()));
+        Set<String> rooms = new HashSet<>();
+        target.rooms().forEach(r -> rooms.add(r.getId()));
+        List<Placed> related = new ArrayList<>();
+        for (Placed p : placed) {
+            if (!chosenDays.contains(p.day())) continue;
+            if (teachers.contains(p.teacherName()) || rooms.contains(p.roomId())
+                    || p.requirement().students().intersects(target.students())) {
+                related.add(p);
+            }
+        }
+        Collections.shuffle(related, random);
+        List<Placed> destroyed = List.copyOf(related.subList(0, Math.min(MAX_DESTROY, related.size())));
+
+        Set<String> footprint = new HashSet<>();
+        footprint(target, footprint);
+        destroyed.forEach(p -> {
+            footprint(p.requirement(), footprint);
+            footprint.add("t:" + p.teacherName());
+            footprint.add("r:" + p.roomId());
+        });
+        return new Neighbourhood(target, destroyed, footprint, random.nextLong());
+    }
+
+    private static void footprint(Requirement requirement, Set<String> footprint) {
+        requirement.teachers().forEach(t -> footprint.add("t:" + t.getName()));
+        requirement.rooms().forEach(r -> footprint.add("r:" + r.getId()));
+        requirement.students().getGroupLanes().keySet().forEach(groupId -> footprint.add("g:" + groupId));
+        requirement.groupIds().forEach(groupId -> footprint.add("g:" + groupId));
+    }
+
+    // ==== Re-solve ====
+
+    /**
+     * Destroy and re-solve one neighbourhood
+     * @return the new placements of the destroyed requirements and the target, null if kept as it was
+     */
+    private List<Placed> solve(Neighbourhood neighbourhood) {
+        neighbourhood.destroyed().forEach(this::unplace);
+        List<Requirement> requirements = new ArrayList<>();
+        Map<Requirement, Placed> previous = new HashMap<>();
+        for (Placed p : neighbourhood.destroyed()) {
+            requirements.add(p.requirement());
+            previous.put(p.requirement(), p);
+        }
+        requirements.add(neighbourhood.target());
+
+        Search search = new Search(requirements, previous, new Random(neighbourhood.seed()));
+        if (search.run()) return Arrays.asList(search.assigned);
+        neighbourhood.destroyed().forEach(p -> {
+            teacherState.chargeHours(p.teacherName(), p.charge());
+            block(p);
+        });
+        return null;
+    }
+
+    /**
+     * Depth-first search with forward checking over one neighbourhood
+     */
+    private class Search {
+        private final List<Requirement> requirements;
+        private final Map<Requirement, Placed> previous;
+        private final Random random;
+        private final Placed[] assigned;
+        private int nodes;
+
+        Search(List<Requirement> requirements, Map<Requirement, Placed> previous, Random random) {
+            this.requirements = requirements;
+            this.previous = previous;
+            this.random = random;
+            this.assigned = new Placed[requirements.size()];
+        }
+
+        boolean run() {
+            return extend(0);
+        }
+
+        private boolean extend(int done) {
+            if (done == requirements.size()) return true;
+            if (++nodes > NODE_BUDGET || timedOut()) return false;
+
+            // Most constrained next; any requirement with no value left fails this branch
+            int best = -1;
+            List<Placed> bestValues = null;
+            for (int i = 0; i < requirements.size(); i++) {
+                if (assigned[i] != null) continue;
+                List<Placed> values = values(requirements.get(i));
+                if (values.isEmpty()) return false;
+                if (bestValues == null || values.size() < bestValues.size()) {
+                    best = i;
+                    bestValues = values;
+                }
+            }
+            for (Placed value : bestValues) {
+                if (!teacherState.tryChargeHours(value.teacherName(), value.charge())) continue;
+                block(value);
+                assigned[best] = value;
+                if (extend(done + 1)) return true;
+                assigned[best] = null;
+                unplace(value);
+            }
+            return false;
+        }
+
+        /**
+         * Feasible (teacher, start) pairs with the smallest free eligible room; the previous
+         * placement first, then the previous teacher, the rest shuffled
+         */
+        private List<Placed> values(Requirement requirement) {
+            Placed before = previous.get(requirement);
+            int lanes = WeekCycle.lanes(requirement.frequency());
+            int charge = WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+            List<Placed> preferred = new ArrayList<>();
+            List<Placed> rest = new ArrayList<>();
+            for (int day = 0; day < SchedulerConfig.DAYS.length; day++) {
+                for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR + 1 - requirement.duration(); hour++) {
+                    int hours = TimeSlot.hourMask(hour, hour + requirement.duration());
+                    if (!groupState.isFree(requirement.students(), day, hours, lanes)) continue;
+                    String roomId = freeRoom(requirement, day, hours, lanes);
+                    if (roomId == null) continue;
+                    for (Teacher teacher : requirement.teachers()) {
+                        String name = teacher.getName();
+                        if (teacherState.remainingHours(name) < charge || !teacherState.isTeacherFree(name, day, hours, lanes)) continue;
+                        Placed value = new Placed(requirement, name, roomId, day, hour);
+                        boolean same = before != null && name.equals(before.teacherName());
+                        (same ? preferred : rest).add(value);
+                    }
+                }
+            }
+            Collections.shuffle(rest, random);
+            Collections.shuffle(preferred, random);
+            if (before != null) {
+                preferred.sort(Comparator.comparingInt(v -> v.day() == before.day() && v.startHour() == before.startHour() ? 0 : 1));
+            }
+            preferred.addAll(rest);
+            return preferred;
+        }
+
+        private String freeRoom(Requirement requirement, int day, int hours, int lanes) {
+            for (Room room : requirement.rooms()) {
+                if (roomState.isRoomFree(room.getId(), day, hours, lanes)) return room.getId();
+            }
+            return null;
+        }
+    }
+
+    // ==== State ====
+
+    private void block(Placed p) {
+        teacherState.block(p.teacherName(), p.day(), p.hourMask(), p.lanes());
+        roomState.block(p.roomId(), p.day(), p.hourMask(), p.lanes());
+        groupState.block(p.requirement().students(), p.day(), p.hourMask(), p.lanes());
+    }
+
+    private void unplace(Placed p) {
+        teacherState.release(p.teacherName(), p.day(), p.hourMask(), p.lanes());
+        teacherState.releaseHours(p.teacherName(), p.charge());
+        roomState.release(p.roomId(), p.day(), p.hourMask(), p.lanes());
+        groupState.release(p.requirement().students(), p.day(), p.hourMask(), p.lanes());
+    }
+
+    private boolean timedOut() {
+        return System.nanoTime() > deadline;
+    }
+}
@@ -0,0 +1,341 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.service.generation.VersionedOccupancy.Claim;
+import org.example.service.generation.VersionedOccupancy.Resource;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * MappedOccupancy - Occupancy grid in a memory-mapped file, shared by every JVM on the host.
+ *
+ * Layout (native byte order):
+ *   [0]  int  magic
+ *   [8]  long fingerprint    64-bit FNV-1a hash of the sorted teacher / group / room keys
+ *   [16] long claims, [24] long conflicts
+ *   [32] long run            run id << 2 | state (0 = empty, 1 = seeding, 2 = ready)
+ *   [40] long inFlight       claims between their first CAS and their outcome
+ *   [64] int  word[slot * days + day]   bit h = hour h taken (a group has one slot per subgroup lane)
+ *   then int  used[teacher slot]        hours charged against MaxHoursPerWeek (TeacherWorkloadLedger)
+ *
+ * Slots are assigned from the sorted keys of the configuration, so every process that
+ * loaded the same config agrees on them; the fingerprint rejects a file built from
+ * another config. Processes of one run share a run id (SharedMemoryScheduler): a file
+ * left behind by another run, finished or crashed, carries a different id and is reseeded
+ * by the first process of the new run, which swaps the whole run word with one CAS, so
+ * its old claims never count. Only one run may use a file at a time. A claim sets bits in several words (teacher, room, groups) with CAS,
+ * one word at a time; if any word already has one of the bits, the words claimed so far
+ * are rolled back and the claim fails. Two processes can never both own an hour. A claim
+ * may also charge its teacher's weekly hours, in the same all-or-nothing step, so the
+ * MaxHoursPerWeek limit holds across processes too. A planner that found nothing is only
+ * final if stamp() did not move around it: a claim in flight may still roll its bits back.
+ * The grid has no week lanes (WeekCycle): a biweekly claim takes its hours in every week.
+ */
+public class MappedOccupancy implements OccupancyView, AutoCloseable {
+    private static final int MAGIC = 0x5454_4F33; // "TTO3"
+    private static final long STATE_SEEDING = 1;
+    private static final long STATE_READY = 2;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FINGERPRINT_OFFSET = 8;
+    private static final int CLAIMS_OFFSET = 16;
+    private static final int CONFLICTS_OFFSET = 24;
+    private static final int RUN_OFFSET = 32;
+    private static final int IN_FLIGHT_OFFSET = 40;
+    private static final int HEADER_BYTES = 64;
+    private static final long SEED_TIMEOUT_MS = 30_000;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final EnumMap<Resource, Map<String, Integer>> slots = new EnumMap<>(Resource.class);
+    private final int days = SchedulerConfig.DAYS.length;
+    private final int hoursOffset;          // first byte of used[]
+    private final int[] maxHours;           // per teacher slot, the same in every process of the config
+
+    private MappedOccupancy(FileChannel channel, MappedByteBuffer buffer, int hoursOffset, int[] maxHours) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.hoursOffset = hoursOffset;
+        this.maxHours = maxHours;
+    }
+
+    /**
+     * Map (creating if needed) the grid file for run `runId`. The first process of the run to
+     * get here seeds it from its freshly built states (config busy / closed hours), replacing
+     * whatever an earlier run left; the others wait for it.
+     */
+    public static MappedOccupancy open(Path file, long runId, TimetableDataContext context,
+                                       TeacherScheduleState teacherState, RoomScheduleState roomState,
+                                       GroupScheduleState groupState) throws IOException {
+        List<String> teachers = sorted(context.getTeachers().keySet());
+        List<String> groups = new ArrayList<>();
+        context.getGroups().forEach((id, group) -> groups.addAll(SubgroupLanes.keys(group, id)));
+        Collections.sort(groups);
+        List<String> rooms = new ArrayList<>();
+        context.getPlaces().values().forEach(place -> {
+            if (place.getRooms() != null) rooms.addAll(place.getRooms().keySet());
+        });
+        Collections.sort(rooms);
+
+        int slotCount = teachers.size() + groups.size() + rooms.size();
+        int hoursOffset = HEADER_BYTES + slotCount * SchedulerConfig.DAYS.length * Integer.BYTES;
+        long size = hoursOffset + (long) teachers.size() * Integer.BYTES;
+        int[] maxHours = new int[teachers.size()];
+        for (int i = 0; i < teachers.size(); i++) {
+            int max = context.getTeachers().get(teachers.get(i)).getMaxHoursPerWeek();
+            maxHours[i] = (max > 0) ? max * WeekCycle.WEEKS : Integer.MAX_VALUE;
+        }
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedOccupancy occupancy = new MappedOccupancy(channel,
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, size), hoursOffset, maxHours);
+        occupancy.assignSlots(Resource.TEACHER, teachers, 0);
+        occupancy.assignSlots(Resource.GROUP, groups, teachers.size());
+        occupancy.assignSlots(Resource.ROOM, rooms, teachers.size() + groups.size());
+
+        long fingerprint = fingerprint(List.of(teachers, groups, rooms));
+        try {
+            occupancy.initialize(runId, fingerprint, teacherState, roomState, groupState);
+        } catch (IOException | RuntimeException e) {
+            occupancy.close();
+            throw e;
+        }
+        return occupancy;
+    }
+
+    /**
+     * 64-bit FNV-1a over every key, each list and key terminated so that boundaries count
+     */
+    private static long fingerprint(List<List<String>> keyLists) {
+        long hash = 0xcbf2_9ce4_8422_2325L;
+        for (List<String> keys : keyLists) {
+            for (String key : keys) {
+                for (int i = 0; i < key.length(); i++) {
+                    hash = (hash ^ key.charAt(i)) * 0x0100_0000_01b3L;
+                }
+                hash = (hash ^ 0xFFFF) * 0x0100_0000_01b3L;
+            }
+            hash = (hash ^ 0xFFFE) * 0x0100_0000_01b3L;
+        }
+        return hash;
+    }
+
+    private static List<String> sorted(Collection<String> keys) {
+        List<String> list = new ArrayList<>(keys);
+        Collections.sort(list);
+        return list;
+    }
+
+    private void assignSlots(Resource resource, List<String> keys, int firstSlot) {
+        Map<String, Integer> bySlot = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            bySlot.put(keys.get(i), firstSlot + i);
+        }
+        slots.put(resource, bySlot);
+    }
+
+    private void initialize(long runId, long fingerprint, TeacherScheduleState teacherState,
+                            RoomScheduleState roomState, GroupScheduleState groupState) throws IOException {
+        long seeding = runId << 2 | STATE_SEEDING;
+        long ready = runId << 2 | STATE_READY;
+        long deadline = System.currentTimeMillis() + SEED_TIMEOUT_MS;
+        while (true) {
+            long run = (long) LONG.getVolatile(buffer, RUN_OFFSET);
+            if (run == ready) break;
+            if (run == seeding) {
+                // Another process of this run is seeding
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Shared occupancy grid was never seeded (seeding process of this run crashed?)");
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            // Empty, or left by another run: whoever swaps the run word first reseeds it
+            if (LONG.compareAndSet(buffer, RUN_OFFSET, run, seeding)) {
+                seed(fingerprint, teacherState, roomState, groupState);
+                LONG.setVolatile(buffer, RUN_OFFSET, ready);
+                break;
+            }
+        }
+
+        if ((int) INT.getVolatile(buffer, MAGIC_OFFSET) != MAGIC
+                || (long) LONG.getVolatile(buffer, FINGERPRINT_OFFSET) != fingerprint) {
+            throw new IllegalStateException("Shared occupancy grid was built from a different configuration");
+        }
+    }
+
+    private void seed(long fingerprint, TeacherScheduleState teacherState, RoomScheduleState roomState,
+                      GroupScheduleState groupState) {
+        INT.setVolatile(buffer, MAGIC_OFFSET, MAGIC);
+        LONG.setVolatile(buffer, FINGERPRINT_OFFSET, fingerprint);
+        LONG.setVolatile(buffer, CLAIMS_OFFSET, 0L);
+        LONG.setVolatile(buffer, CONFLICTS_OFFSET, 0L);
+        LONG.setVolatile(buffer, IN_FLIGHT_OFFSET, 0L);
+        for (int i = 0; i < maxHours.length; i++) {
+            INT.setVolatile(buffer, hoursOffset + i * Integer.BYTES, 0);
+        }
+        slots.get(Resource.TEACHER).keySet().forEach(name ->
+                seedRow(Resource.TEACHER, name, (day, hour) -> !teacherState.isTeacherAvailable(name, day, hour)));
+        slots.get(Resource.GROUP).keySet().forEach(key ->
+                seedRow(Resource.GROUP, key, (day, hour) -> !groupState.isGroupAvailable(groupIdOf(key), day, hour)));
+        slots.get(Resource.ROOM).keySet().forEach(roomId ->
+                seedRow(Resource.ROOM, roomId, (day, hour) -> !roomState.isRoomAvailable(roomId, day, hour)));
+    }
+
+    private interface HourProbe {
+        boolean isTaken(String day, int hour);
+    }
+
+    private void seedRow(Resource resource, String key, HourProbe probe) {
+        for (int d = 0; d < days; d++) {
+            int mask = 0;
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                if (probe.isTaken(SchedulerConfig.DAYS[d], hour)) mask |= 1 << hour;
+            }
+            INT.setVolatile(buffer, offset(resource, key, d), mask);
+        }
+    }
+
+    /**
+     * Group id of a subgroup lane key (SubgroupLanes.key)
+     */
+    private static String groupIdOf(String key) {
+        int separator = key.lastIndexOf('/');
+        return (separator < 0) ? key : key.substring(0, separator);
+    }
+
+    private int offset(Resource resource, String key, int day) {
+        Integer slot = slots.get(resource).get(key);
+        return slot == null ? -1 : HEADER_BYTES + (slot * days + day) * Integer.BYTES;
+    }
+
+    // ==== Access ====
+
+    @Override
+    public int occupied(Resource resource, String key, int day) {
+        int offset = offset(resource, key, day);
+        return offset < 0 ? 0 : (int) INT.getVolatile(buffer, offset);
+    }
+
+    /**
+     * Atomically claim all hours of a placement, or none of them
+     * @return true if every claim was free and is now owned by the caller
+     */
+    public boolean tryClaim(List<Claim> claims) {
+        return tryClaim(claims, null, 0);
+    }
+
+    /**
+     * Claim the hours and charge `hours` to the teacher's weekly budget, all or nothing
+     * @return false (nothing claimed or charged) on a taken hour or an exhausted budget
+     */
+    public boolean tryClaim(List<Claim> claims, String teacherName, int hours) {
+        LONG.getAndAdd(buffer, IN_FLIGHT_OFFSET, 1L);
+        try {
+            if (!tryChargeHours(teacherName, hours)) {
+                LONG.getAndAdd(buffer, CONFLICTS_OFFSET, 1L);
+                return false;
+            }
+            List<Claim> taken = new ArrayList<>(claims.size());
+            for (Claim claim : claims) {
+                if (!setBits(claim)) {
+                    taken.forEach(this::clearBits);
+                    chargeHours(teacherName, -hours);
+                    LONG.getAndAdd(buffer, CONFLICTS_OFFSET, 1L);
+                    return false;
+                }
+                taken.add(claim);
+            }
+            LONG.getAndAdd(buffer, CLAIMS_OFFSET, 1L);
+            return true;
+        } finally {
+            LONG.getAndAdd(buffer, IN_FLIGHT_OFFSET, -1L);
+        }
+    }
+
+    /**
+     * Conflicts so far, or -1 while some claim is in flight. A view read between two equal
+     * stamps holds no bit or charge that a failed claim has since rolled back.
+     */
+    public long stamp() {
+        if ((long) LONG.getVolatile(buffer, IN_FLIGHT_OFFSET) != 0) return -1;
+        return (long) LONG.getVolatile(buffer, CONFLICTS_OFFSET);
+    }
+
+    // ==== Weekly hours ====
+
+    @Override
+    public int remainingHours(String teacherName) {
+        int offset = hoursOffset(teacherName);
+        if (offset < 0 || maxHours[teacherIndex(offset)] == Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        return Math.max(0, maxHours[teacherIndex(offset)] - (int) INT.getVolatile(buffer, offset));
+    }
+
+    private boolean tryChargeHours(String teacherName, int hours) {
+        int offset = hoursOffset(teacherName);
+        if (offset < 0 || hours == 0) return true;
+        int max = maxHours[teacherIndex(offset)];
+        while (true) {
+            int current = (int) INT.getVolatile(buffer, offset);
+            if ((long) current + hours > max) return false;
+            if (INT.compareAndSet(buffer, offset, current, current + hours)) return true;
+        }
+    }
+
+    private void chargeHours(String teacherName, int hours) {
+        int offset = hoursOffset(teacherName);
+        if (offset >= 0) INT.getAndAdd(buffer, offset, hours);
+    }
+
+    private int hoursOffset(String teacherName) {
+        Integer slot = (teacherName == null) ? null : slots.get(Resource.TEACHER).get(teacherName);
+        return slot == null ? -1 : hoursOffset + slot * Integer.BYTES;
+    }
+
+    private int teacherIndex(int offset) {
+        return (offset - hoursOffset) / Integer.BYTES;
+    }
+
+    private boolean setBits(Claim claim) {
+        int offset = offset(claim.resource(), claim.key(), claim.day());
+        if (offset < 0) return true; // resource unknown to the grid - nothing to contend for
+        while (true) {
+            int current = (int) INT.getVolatile(buffer, offset);
+            if ((current & claim.hourMask()) != 0) return false;
+            if (INT.compareAndSet(buffer, offset, current, current | claim.hourMask())) return true;
+        }
+    }
+
+    private void clearBits(Claim claim) {
+        int offset = offset(claim.resource(), claim.key(), claim.day());
+        if (offset < 0) return;
+        while (true) {
+            int current = (int) INT.getVolatile(buffer, offset);
+            if (INT.compareAndSet(buffer, offset, current, current & ~claim.hourMask())) return;
+        }
+    }
+
+    /** Successful claims by all processes sharing the file */
+    public long getClaimCount() { return (long) LONG.getVolatile(buffer, CLAIMS_OFFSET); }
+
+    /** Failed (rolled back) claims by all processes sharing the file */
+    public long getConflictCount() { return (long) LONG.getVolatile(buffer, CONFLICTS_OFFSET); }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
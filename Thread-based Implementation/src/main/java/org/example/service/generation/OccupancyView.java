@@ -0,0 +1,25 @@
+package org.example.service.generation;
+
+/**
+ * Read access to an hour-bitmask occupancy grid: bit h of the result set = hour h taken
+ */
+public interface OccupancyView {
+    /**
+     * Hours taken in any week of the cycle
+     */
+    int occupied(VersionedOccupancy.Resource resource, String key, int day);
+
+    /**
+     * Hours taken in any of the given week lanes (WeekCycle); views without lanes answer for every week
+     */
+    default int occupied(VersionedOccupancy.Resource resource, String key, int day, int lanes) {
+        return occupied(resource, key, day);
+    }
+
+    /**
+     * Weekly hours the teacher may still be charged (TeacherWorkloadLedger); views without a ledger never limit
+     */
+    default int remainingHours(String teacherName) {
+        return Integer.MAX_VALUE;
+    }
+}
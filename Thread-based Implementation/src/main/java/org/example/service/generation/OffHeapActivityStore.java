@@ -0,0 +1,167 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OffHeapActivityStore - Placed sessions as fixed-size rows in direct memory.
+ *
+ * Row layout (ROW_BYTES, native order):
+ *   int subject, int groups, int teacher, int room, int day, int type, int subgroup,
+ *   int frequency (ids into the dictionaries), short startMinute, short endMinute
+ *
+ * Strings are interned once in a string dictionary and group lists (one per course
+ * audience) in a group-set dictionary, so the heap the stored result retains grows with
+ * the number of distinct names rather than with the number of placed sessions. Rows live
+ * in direct ByteBuffer chunks the GC never scans or copies. asList() is the on-heap view
+ * for ConsoleUI / GenerationResult: every get() allocates a new Session, so readers that
+ * walk the whole list pay that allocation again on each pass.
+ *
+ * The store only holds the finished result. Generation still builds each subject's
+ * sessions on the heap first (TimetableGenerator copies them in at the end), so it
+ * shrinks what the result retains, not the peak heap of a run.
+ */
+public class OffHeapActivityStore {
+    static final int ROW_BYTES = 8 * Integer.BYTES + 2 * Short.BYTES;
+    private static final int ROWS_PER_CHUNK = 16_384;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<List<String>, Integer> groupSetIds = new HashMap<>();
+    private final List<List<String>> groupSets = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile int size;
+
+    // ==== Writes ====
+
+    /**
+     * Append one session
+     * @return its row index
+     */
+    public int append(Session session) {
+        lock.lock();
+        try {
+            int row = size;
+            if (row % ROWS_PER_CHUNK == 0 && row / ROWS_PER_CHUNK == chunks.size()) {
+                chunks.add(ByteBuffer.allocateDirect(ROWS_PER_CHUNK * ROW_BYTES).order(ByteOrder.nativeOrder()));
+            }
+            ByteBuffer chunk = chunks.get(row / ROWS_PER_CHUNK);
+            int offset = (row % ROWS_PER_CHUNK) * ROW_BYTES;
+            chunk.putInt(offset, intern(session.subjectName()));
+            chunk.putInt(offset + 4, internGroups(session.groupIds()));
+            chunk.putInt(offset + 8, intern(session.teacherName()));
+            chunk.putInt(offset + 12, intern(session.roomId()));
+            chunk.putInt(offset + 16, intern(session.day()));
+            chunk.putInt(offset + 20, intern(session.activityType()));
+            chunk.putInt(offset + 24, intern(session.subgroup()));
+            chunk.putInt(offset + 28, intern(session.frequency()));
+            chunk.putShort(offset + 32, (short) (session.startTime().toSecondOfDay() / 60));
+            chunk.putShort(offset + 34, (short) (session.endTime().toSecondOfDay() / 60));
+            size = row + 1;
+            return row;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int intern(String value) {
+        Integer id = dictionary.get(value);
+        if (id != null) return id;
+        strings.add(value);
+        dictionary.put(value, strings.size() - 1);
+        return strings.size() - 1;
+    }
+
+    private int internGroups(List<String> groupIds) {
+        Integer id = groupSetIds.get(groupIds);
+        if (id != null) return id;
+        groupSets.add(groupIds);
+        groupSetIds.put(groupIds, groupSets.size() - 1);
+        return groupSets.size() - 1;
+    }
+
+    // ==== Reads ====
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materialize the session stored in `row`
+     */
+    public Session get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        lock.lock();
+        try {
+            ByteBuffer chunk = chunks.get(row / ROWS_PER_CHUNK);
+            int offset = (row % ROWS_PER_CHUNK) * ROW_BYTES;
+            return new Session(
+                    strings.get(chunk.getInt(offset)),
+                    groupSets.get(chunk.getInt(offset + 4)),
+                    strings.get(chunk.getInt(offset + 8)),
+                    strings.get(chunk.getInt(offset + 12)),
+                    strings.get(chunk.getInt(offset + 16)),
+                    LocalTime.ofSecondOfDay(chunk.getShort(offset + 32) * 60L),
+                    LocalTime.ofSecondOfDay(chunk.getShort(offset + 34) * 60L),
+                    strings.get(chunk.getInt(offset + 20)),
+                    strings.get(chunk.getInt(offset + 24)),
+                    strings.get(chunk.getInt(offset + 28))
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Direct memory reserved for rows
+     */
+    public long offHeapBytes() {
+        lock.lock();
+        try {
+            return (long) chunks.size() * ROWS_PER_CHUNK * ROW_BYTES;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append-only List view: add() stores a row, get() materializes one
+     */
+    public List<Session> asList() {
+        return new View();
+    }
+
+    private class View extends AbstractList<Session> implements RandomAccess {
+        @Override
+        public Session get(int index) {
+            return OffHeapActivityStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return OffHeapActivityStore.this.size();
+        }
+
+        @Override
+        public boolean add(Session session) {
+            append(session);
+            return true;
+        }
+
+        @Override
+        public void add(int index, Session session) {
+            if (index != size()) {
+                throw new UnsupportedOperationException("Off-heap session rows are append-only");
+            }
+            append(session);
+        }
+    }
+}
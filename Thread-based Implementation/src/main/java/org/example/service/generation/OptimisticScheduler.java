@@ -0,0 +1,145 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Session;
+import org.example.model.Subject;
+import org.example.service.generation.PlacementPlanner.Placement;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * OptimisticScheduler - Lock-free planning with validated batch commits.
+ *
+ * Every subject is a parallel task that:
+ * 1. expands its requirements (courses, seminars, laboratories) like SubjectScheduler
+ * 2. plans all of them against an immutable VersionedOccupancy snapshot - no locks taken
+ * 3. charges each planned teacher's weekly hours (TeacherWorkloadLedger of the teacher
+ *    state) and commits the charged plan as one batch; the commit re-checks each placement
+ *    against the latest version and rejects only the ones whose teacher/group/room hours
+ *    were claimed in the meantime (their hours are refunded)
+ * 4. re-plans just the rejected activities against a fresh snapshot (up to MAX_ROUNDS)
+ *
+ * Committed occupancy only ever grows, so a requirement that does not fit a snapshot will
+ * not fit a later one either - it is reported as unplaced right away instead of retried.
+ * (Teacher hours only come back when another task's plan is rejected; that is not waited for.)
+ * One that fits the snapshot but not the task's own overlay is blocked only by this round's
+ * uncommitted plan: it is retried in the next round if the commit rejected part of that plan,
+ * and reported unplaced otherwise (everything in its way is then committed).
+ */
+public class OptimisticScheduler {
+    static final int MAX_ROUNDS = 8;
+
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final ExecutorService executor;
+    private final PlacementPlanner planner;
+    private final AtomicInteger retriedPlacements = new AtomicInteger();
+
+    public OptimisticScheduler(TimetableDataContext context, GenerationMetrics metrics, ExecutorService executor) {
+        this.context = context;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.planner = new PlacementPlanner(context);
+    }
+
+    /**
+     * Schedule all subjects; every future completes once all subjects are done,
+     * so the commit/conflict metrics are final before results are collected.
+     */
+    public Map<String, CompletableFuture<List<Session>>> schedule(List<String> sortedSubjects,
+                                                                   TeacherScheduleState teacherState,
+                                                                   RoomScheduleState roomState,
+                                                                   GroupScheduleState groupState) {
+        VersionedOccupancy occupancy = VersionedOccupancy.seed(context, teacherState, roomState, groupState);
+
+        Map<String, CompletableFuture<List<Session>>> running = new LinkedHashMap<>();
+        for (String subjectName : sortedSubjects) {
+            long submittedAt = System.nanoTime();
+            running.put(subjectName, CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                List<Session> sessions = scheduleSubject(subjectName, occupancy, teacherState);
+                metrics.recordTaskTiming(subjectName, startedAt - submittedAt, System.nanoTime() - startedAt);
+                return sessions;
+            }, executor));
+        }
+
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(running.values().stream()
+                        .map(f -> f.handle((sessions, error) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+                    metrics.recordMetric("optimistic.commits", String.valueOf(occupancy.getCommitCount()));
+                    metrics.recordMetric("optimistic.conflicts", String.valueOf(occupancy.getConflictCount()));
+                    metrics.recordMetric("optimistic.retriedPlacements", String.valueOf(retriedPlacements.get()));
+                    metrics.recordMetric("optimistic.finalVersion", String.valueOf(occupancy.snapshot().version()));
+                });
+
+        Map<String, CompletableFuture<List<Session>>> results = new LinkedHashMap<>();
+        running.forEach((subjectName, future) -> results.put(subjectName, allDone.thenCompose(ignored -> future)));
+        return results;
+    }
+
+    // ==== Per-subject plan / commit / retry loop ====
+
+    private List<Session> scheduleSubject(String subjectName, VersionedOccupancy occupancy,
+                                          TeacherScheduleState teacherState) {
+        Subject subject = context.getSubjects().get(subjectName);
+        List<Session> sessions = new ArrayList<>();
+        if (subject == null) return sessions;
+
+        List<Requirement> pending = planner.expandRequests(subjectName);
+        List<Requirement> unplaced = new ArrayList<>();
+        Random random = new Random();
+
+        for (int round = 0; round < MAX_ROUNDS && !pending.isEmpty(); round++) {
+            if (round > 0) retriedPlacements.addAndGet(pending.size());
+
+            VersionedOccupancy.Snapshot snapshot = occupancy.snapshot();
+            PlacementPlanner.Overlay overlay = new PlacementPlanner.Overlay(snapshot, teacherState::remainingHours);
+            List<Placement> planned = new ArrayList<>();
+            List<Requirement> blockedByPlan = new ArrayList<>();
+            for (Requirement request : pending) {
+                Placement placement = planner.plan(request, overlay, random);
+                if (placement == null) {
+                    boolean fitsSnapshot = planner.plan(request,
+                            new PlacementPlanner.Overlay(snapshot, teacherState::remainingHours), random) != null;
+                    (fitsSnapshot ? blockedByPlan : unplaced).add(request);
+                } else {
+                    overlay.apply(placement);
+                    planned.add(placement);
+                }
+            }
+
+            // Other tasks charge the same ledger meanwhile: a plan that no longer fits is re-planned
+            List<Placement> charged = new ArrayList<>();
+            List<Placement> overBudget = new ArrayList<>();
+            for (Placement placement : planned) {
+                boolean fits = teacherState.tryChargeHours(placement.teacher().getName(), placement.charge());
+                (fits ? charged : overBudget).add(placement);
+            }
+            List<Placement> rejected = new ArrayList<>(occupancy.commit(snapshot.version(), charged, Placement::claims));
+            rejected.forEach(p -> teacherState.refundHours(p.teacher().getName(), p.charge()));
+            Set<Placement> rejectedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejectedSet.addAll(rejected);
+            charged.stream()
+                    .filter(p -> !rejectedSet.contains(p))
+                    .forEach(p -> sessions.add(planner.toSession(subjectName, p)));
+
+            rejected.addAll(overBudget);
+            pending = rejected.stream().map(Placement::request).collect(Collectors.toList());
+            if (rejected.isEmpty()) {
+                unplaced.addAll(blockedByPlan);
+            } else {
+                pending.addAll(blockedByPlan);
+            }
+        }
+        unplaced.addAll(pending);
+
+        unplaced.stream().map(Requirement::activityType).distinct().forEach(type ->
+                SubjectScheduler.reportUnplaced(subjectName, type));
+        return sessions;
+    }
+}
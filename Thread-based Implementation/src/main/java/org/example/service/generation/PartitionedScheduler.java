@@ -0,0 +1,294 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Activity;
+import org.example.model.Session;
+import org.example.model.Group;
+import org.example.model.Teacher;
+import org.example.model.TimeSlot;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * PartitionedScheduler - Fork/join generation over independent student cohorts.
+ *
+ * Each partition from CohortPartitioner is solved as its own task on the configured
+ * executor (with WORK_STEALING a ForkJoinPool, so idle workers steal partitions) with
+ * isolated state: a private GroupScheduleState for its groups and a private
+ * TeacherScheduleState for its exclusive teachers. Only the shared resources
+ * (rooms and teachers spanning partitions) go through the global states, so
+ * partitions contend only where they really overlap.
+ *
+ * Inside a partition subjects are scheduled sequentially in the given order -
+ * they share groups, so running them in parallel would only fight over the
+ * partition's own lock.
+ */
+public class PartitionedScheduler {
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final ExecutorService executor;
+
+    public PartitionedScheduler(TimetableDataContext context, GenerationMetrics metrics, ExecutorService executor) {
+        this.context = context;
+        this.metrics = metrics;
+        this.executor = executor;
+    }
+
+    /**
+     * Schedule all subjects, returning one future per subject (completed once its partition is done)
+     */
+    public Map<String, CompletableFuture<List<Session>>> schedule(List<String> sortedSubjects,
+                                                                   TeacherScheduleState sharedTeacherState,
+                                                                   RoomScheduleState sharedRoomState) {
+        metrics.recordPhaseStart("PARTITIONING");
+        CohortPartitioner.PartitionPlan plan = new CohortPartitioner().partition(context, sortedSubjects);
+        metrics.recordPhaseEnd("PARTITIONING");
+
+        metrics.recordMetric("partitions", String.valueOf(plan.partitions().size()));
+        metrics.recordMetric("sharedTeachers", String.valueOf(plan.sharedTeachers().size()));
+        plan.partitions().forEach(p -> metrics.recordMetric("partition." + p.id(),
+                p.subjects().size() + " subjects, " + p.groupIds().size() + " groups, "
+                        + p.exclusiveTeachers().size() + " exclusive teachers"));
+
+        Map<String, CompletableFuture<List<Session>>> results = new LinkedHashMap<>();
+        sortedSubjects.forEach(subjectName -> results.put(subjectName, new CompletableFuture<>()));
+
+        long submittedAt = System.nanoTime();
+        for (CohortPartitioner.Partition partition : plan.partitions()) {
+            PartitionTask task = new PartitionTask(partition, plan.sharedTeachers(),
+                    sharedTeacherState, sharedRoomState, results, submittedAt);
+            // A failure outside the per-subject try (e.g. building the partition's state) must
+            // still fail the partition's subjects, or generate() would wait on them forever
+            CompletableFuture.runAsync(task, executor).whenComplete((ignored, failure) -> {
+                if (failure == null) return;
+                Throwable cause = (failure instanceof CompletionException && failure.getCause() != null)
+                        ? failure.getCause() : failure;
+                partition.subjects().forEach(subjectName -> results.get(subjectName).completeExceptionally(cause));
+            });
+        }
+
+        return results;
+    }
+
+    /**
+     * Solves one partition in isolated state and completes its subjects' futures
+     */
+    private class PartitionTask implements Runnable {
+        private final CohortPartitioner.Partition partition;
+        private final Set<String> sharedTeachers;
+        private final TeacherScheduleState sharedTeacherState;
+        private final RoomScheduleState sharedRoomState;
+        private final Map<String, CompletableFuture<List<Session>>> results;
+        private final long submittedAt;
+
+        PartitionTask(CohortPartitioner.Partition partition, Set<String> sharedTeachers,
+                      TeacherScheduleState sharedTeacherState, RoomScheduleState sharedRoomState,
+                      Map<String, CompletableFuture<List<Session>>> results, long submittedAt) {
+            this.partition = partition;
+            this.sharedTeachers = sharedTeachers;
+            this.sharedTeacherState = sharedTeacherState;
+            this.sharedRoomState = sharedRoomState;
+            this.results = results;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            Map<String, Group> groups = new HashMap<>();
+            partition.groupIds().forEach(id -> groups.put(id, context.getGroups().get(id)));
+            Map<String, Teacher> teachers = new HashMap<>();
+            partition.exclusiveTeachers().forEach(name -> teachers.put(name, context.getTeachers().get(name)));
+
+            GroupScheduleState groupState = new GroupScheduleState(groups, StudentSetIndex.of(context));
+            TeacherScheduleState teacherState = new PartitionTeacherScheduleState(
+                    teachers, sharedTeacherState, sharedTeachers);
+
+            for (String subjectName : partition.subjects()) {
+                CompletableFuture<List<Session>> result = results.get(subjectName);
+                try {
+                    long startedAt = System.nanoTime();
+                    SubjectScheduler scheduler = new SubjectScheduler(
+                            subjectName, context.getSubjects().get(subjectName), context,
+                            teacherState, sharedRoomState, groupState);
+                    List<Session> sessions = scheduler.schedule();
+                    metrics.recordTaskTiming(subjectName, startedAt - submittedAt, System.nanoTime() - startedAt);
+                    result.complete(sessions);
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Teacher state of one partition: exclusive teachers live in this (private) state,
+     * shared teachers are routed to the global state and reconciled under its lock.
+     */
+    static class PartitionTeacherScheduleState extends TeacherScheduleState {
+        private final TeacherScheduleState shared;
+        private final Set<String> sharedTeachers;
+        // Used by one partition task at a time, so the class table needs no lock
+        private final Map<List<String>, Integer> classIds = new HashMap<>();
+        private final List<int[]> classes = new ArrayList<>(); // class -> {exclusive class, shared class}
+
+        PartitionTeacherScheduleState(Map<String, Teacher> exclusiveTeachers,
+                                      TeacherScheduleState shared, Set<String> sharedTeachers) {
+            super(exclusiveTeachers);
+            this.shared = shared;
+            this.sharedTeachers = sharedTeachers;
+        }
+
+        @Override
+        public boolean isTeacherFree(String teacherName, int dayIndex, int hourMask, int lanes) {
+            return sharedTeachers.contains(teacherName)
+                    ? shared.isTeacherFree(teacherName, dayIndex, hourMask, lanes)
+                    : super.isTeacherFree(teacherName, dayIndex, hourMask, lanes);
+        }
+
+        @Override
+        public boolean sameRows(String teacherA, String teacherB) {
+            boolean sharedA = sharedTeachers.contains(teacherA);
+            if (sharedA != sharedTeachers.contains(teacherB)) return false;
+            return sharedA ? shared.sameRows(teacherA, teacherB) : super.sameRows(teacherA, teacherB);
+        }
+
+        @Override
+        public void addActivity(String teacherName, Activity activity) {
+            if (sharedTeachers.contains(teacherName)) {
+                shared.addActivity(teacherName, activity);
+            } else {
+                super.addActivity(teacherName, activity);
+            }
+        }
+
+        @Override
+        public void block(String teacherName, int dayIndex, int hourMask, int lanes) {
+            if (sharedTeachers.contains(teacherName)) {
+                shared.block(teacherName, dayIndex, hourMask, lanes);
+            } else {
+                super.block(teacherName, dayIndex, hourMask, lanes);
+            }
+        }
+
+        @Override
+        public boolean tryBlock(String teacherName, int dayIndex, int hourMask, int lanes) {
+            return sharedTeachers.contains(teacherName)
+                    ? shared.tryBlock(teacherName, dayIndex, hourMask, lanes)
+                    : super.tryBlock(teacherName, dayIndex, hourMask, lanes);
+        }
+
+        @Override
+        public void release(String teacherName, int dayIndex, int hourMask, int lanes) {
+            if (sharedTeachers.contains(teacherName)) {
+                shared.release(teacherName, dayIndex, hourMask, lanes);
+            } else {
+                super.release(teacherName, dayIndex, hourMask, lanes);
+            }
+        }
+
+        @Override
+        public void rollback(String teacherName, int dayIndex, int hourMask, int lanes) {
+            if (sharedTeachers.contains(teacherName)) {
+                shared.rollback(teacherName, dayIndex, hourMask, lanes);
+            } else {
+                super.rollback(teacherName, dayIndex, hourMask, lanes);
+            }
+        }
+
+        @Override
+        public long releaseCount() {
+            return shared.releaseCount() + super.releaseCount();
+        }
+
+        // ==== Residual capacity ====
+
+        /**
+         * Registers the exclusive members here and the shared members in the global state,
+         * so each half is counted from the rows that are actually blocked
+         */
+        @Override
+        public int teacherClass(List<Teacher> teachers) {
+            List<String> names = new ArrayList<>(teachers.size());
+            teachers.forEach(teacher -> names.add(teacher.getName()));
+            Integer id = classIds.get(names);
+            if (id != null) return id;
+
+            List<Teacher> exclusive = new ArrayList<>();
+            List<Teacher> sharedMembers = new ArrayList<>();
+            for (Teacher teacher : teachers) {
+                (sharedTeachers.contains(teacher.getName()) ? sharedMembers : exclusive).add(teacher);
+            }
+            id = classes.size();
+            classes.add(new int[]{super.teacherClass(exclusive), shared.teacherClass(sharedMembers)});
+            classIds.put(List.copyOf(names), id);
+            return id;
+        }
+
+        @Override
+        public boolean hasFreeTeacher(int teacherClass, int dayIndex, int hourMask, int lanes) {
+            return freeTeachers(teacherClass, dayIndex, hourMask, lanes) > 0;
+        }
+
+        /**
+         * Summed per hour and lane: the two halves can be scarcest at different hours
+         */
+        @Override
+        public int freeTeachers(int teacherClass, int dayIndex, int hourMask, int lanes) {
+            if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return 0;
+            int[] ids = classes.get(teacherClass);
+            int fewest = Integer.MAX_VALUE;
+            for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                if ((lanes & (1 << lane)) == 0) continue;
+                for (int hour = 0; hour < Integer.SIZE; hour++) {
+                    int bit = 1 << hour;
+                    if ((hourMask & bit) == 0) continue;
+                    fewest = Math.min(fewest, super.freeTeachers(ids[0], dayIndex, bit, 1 << lane)
+                            + shared.freeTeachers(ids[1], dayIndex, bit, 1 << lane));
+                }
+            }
+            return (fewest == Integer.MAX_VALUE) ? 0 : fewest;
+        }
+
+        @Override
+        public boolean tryChargeHours(String teacherName, int hours) {
+            return sharedTeachers.contains(teacherName)
+                    ? shared.tryChargeHours(teacherName, hours)
+                    : super.tryChargeHours(teacherName, hours);
+        }
+
+        @Override
+        public void chargeHours(String teacherName, int hours) {
+            if (sharedTeachers.contains(teacherName)) {
+                shared.chargeHours(teacherName, hours);
+            } else {
+                super.chargeHours(teacherName, hours);
+            }
+        }
+
+        @Override
+        public void releaseHours(String teacherName, int hours) {
+            if (sharedTeachers.contains(teacherName)) {
+                shared.releaseHours(teacherName, hours);
+            } else {
+                super.releaseHours(teacherName, hours);
+            }
+        }
+
+        @Override
+        public void refundHours(String teacherName, int hours) {
+            if (sharedTeachers.contains(teacherName)) {
+                shared.refundHours(teacherName, hours);
+            } else {
+                super.refundHours(teacherName, hours);
+            }
+        }
+
+        @Override
+        public int remainingHours(String teacherName) {
+            return sharedTeachers.contains(teacherName)
+                    ? shared.remainingHours(teacherName)
+                    : super.remainingHours(teacherName);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.*;
+import org.example.service.generation.VersionedOccupancy.Claim;
+import org.example.service.generation.VersionedOccupancy.Resource;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * PlacementPlanner - Slot search over hour bitmasks for WorkloadPlan requirements.
+ *
+ * Shared by the engines that work on an OccupancyView instead of the list-based
+ * schedule states (OptimisticScheduler, SharedMemoryScheduler). Planning only reads
+ * the view; committing the returned claims is up to the caller. With
+ * -Dscheduler.teachers=FLOW the pre-assigned teacher (TeacherAssignment) is tried first.
+ */
+class PlacementPlanner {
+    private final WorkloadPlan workload;
+    private final TeacherAssignment assignment;
+
+    /**
+     * A planned (not yet committed) placement and the hours it claims
+     */
+    record Placement(Requirement request, Teacher teacher, Room room, int day, int startHour, List<Claim> claims) {
+        /**
+         * Hours charged to the teacher's weekly budget (WeekCycle.cycleHours)
+         */
+        int charge() {
+            return WeekCycle.cycleHours(request.duration(), request.frequency());
+        }
+    }
+
+    PlacementPlanner(TimetableDataContext context) {
+        this.workload = WorkloadPlan.of(context);
+        this.assignment = TeacherAssignment.forConfig(context);
+    }
+
+    /**
+     * Requirements of one subject, from the compiled WorkloadPlan
+     */
+    List<Requirement> expandRequests(String subjectName) {
+        return workload.forSubject(subjectName);
+    }
+
+    // ==== Planning against an occupancy view ====
+
+    /**
+     * First free (slot, teacher, room) starting from a random slot; rooms best-fit by capacity.
+     * Teachers without the weekly hours left for the requirement are skipped.
+     */
+    Placement plan(Requirement request, OccupancyView occupancy, Random random) {
+        int duration = request.duration();
+        int lastStart = SchedulerConfig.LAST_HOUR + 1 - duration;
+        if (request.teachers().isEmpty() || lastStart < SchedulerConfig.FIRST_HOUR) return null;
+
+        List<Room> rooms = request.rooms();
+        if (rooms.isEmpty()) return null;
+
+        int charge = WeekCycle.cycleHours(duration, request.frequency());
+        List<Teacher> teachers = new ArrayList<>(request.teachers());
+        teachers.removeIf(teacher -> occupancy.remainingHours(teacher.getName()) < charge);
+        if (teachers.isEmpty()) return null;
+        Collections.shuffle(teachers, random);
+        Teacher assigned = (assignment != null) ? assignment.teacherFor(request) : null;
+        if (assigned != null && teachers.remove(assigned)) teachers.add(0, assigned);
+
+        int lanes = WeekCycle.lanes(request.frequency());
+        List<String> groupKeys = request.students().getKeys();
+        int startsPerDay = lastStart - SchedulerConfig.FIRST_HOUR + 1;
+        int slotCount = SchedulerConfig.DAYS.length * startsPerDay;
+        int offset = random.nextInt(slotCount);
+
+        for (int i = 0; i < slotCount; i++) {
+            int slot = (offset + i) % slotCount;
+            int day = slot / startsPerDay;
+            int startHour = SchedulerConfig.FIRST_HOUR + slot % startsPerDay;
+            int mask = VersionedOccupancy.hourMask(startHour, startHour + duration);
+
+            boolean groupsFree = groupKeys.stream()
+                    .allMatch(key -> isFree(occupancy, Resource.GROUP, key, day, mask, lanes));
+            if (!groupsFree) continue;
+
+            Teacher teacher = teachers.stream()
+                    .filter(t -> isFree(occupancy, Resource.TEACHER, t.getName(), day, mask, lanes))
+                    .findFirst().orElse(null);
+            if (teacher == null) continue;
+
+            Room room = rooms.stream()
+                    .filter(r -> isFree(occupancy, Resource.ROOM, r.getId(), day, mask, lanes))
+                    .findFirst().orElse(null);
+            if (room == null) continue;
+
+            List<Claim> claims = new ArrayList<>();
+            claims.add(new Claim(Resource.TEACHER, teacher.getName(), day, mask, lanes));
+            claims.add(new Claim(Resource.ROOM, room.getId(), day, mask, lanes));
+            groupKeys.forEach(key -> claims.add(new Claim(Resource.GROUP, key, day, mask, lanes)));
+            return new Placement(request, teacher, room, day, startHour, claims);
+        }
+        return null;
+    }
+
+    private static boolean isFree(OccupancyView occupancy, Resource resource, String key, int day, int mask, int lanes) {
+        return (occupancy.occupied(resource, key, day, lanes) & mask) == 0;
+    }
+
+    /**
+     * Same output shape as SubjectScheduler: one session per placement (a course lists all its groups)
+     */
+    Session toSession(String subjectName, Placement placement) {
+        Requirement request = placement.request();
+        return new Session(subjectName, request.groupIds(), placement.teacher().getName(), placement.room().getId(),
+                SchedulerConfig.DAYS[placement.day()],
+                LocalTime.of(placement.startHour(), 0),
+                LocalTime.of(placement.startHour() + request.duration(), 0),
+                request.activityType(), request.subgroup(), request.frequency());
+    }
+
+    /**
+     * A base view plus the claims a task already planned but has not committed yet, and the
+     * hours those plans would charge against a teacher ledger
+     */
+    static class Overlay implements OccupancyView {
+        private final OccupancyView base;
+        private final ToIntFunction<String> hoursLeft;
+        private final Map<String, int[]> local = new HashMap<>();
+        private final Map<String, Integer> planned = new HashMap<>();
+
+        Overlay(OccupancyView base) {
+            this(base, base::remainingHours);
+        }
+
+        Overlay(OccupancyView base, ToIntFunction<String> hoursLeft) {
+            this.base = base;
+            this.hoursLeft = hoursLeft;
+        }
+
+        @Override
+        public int occupied(Resource resource, String key, int day) {
+            return occupied(resource, key, day, WeekCycle.ALL);
+        }
+
+        @Override
+        public int occupied(Resource resource, String key, int day, int lanes) {
+            int[] planned = local.get(resource + ":" + key);
+            return base.occupied(resource, key, day, lanes) | (planned == null ? 0 : WeekCycle.occupied(planned, day, lanes));
+        }
+
+        @Override
+        public int remainingHours(String teacherName) {
+            int left = hoursLeft.applyAsInt(teacherName);
+            return (left == Integer.MAX_VALUE) ? left : left - planned.getOrDefault(teacherName, 0);
+        }
+
+        void apply(Placement placement) {
+            placement.claims().forEach(c -> WeekCycle.block(local.computeIfAbsent(c.resource() + ":" + c.key(),
+                    k -> new int[WeekCycle.SLOTS]), c.day(), c.lanes(), c.hourMask()));
+            planned.merge(placement.teacher().getName(), placement.charge(), Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * PlacementStore - Placements of the generation core as primitive columns.
+ *
+ * One row per placement, struct-of-arrays:
+ *   long packed[row]   start hour, day, duration, type, week parity, subgroup and the
+ *                      subject / teacher / room ids (layout below)
+ *   int  groups[row]   id of the attending group list (a course shares one list)
+ *
+ * Packed layout (low to high bits):
+ *   0-4 start hour | 5-7 day | 8-11 duration | 12-13 type | 14-15 parity | 16-19 subgroup
+ *   20-31 subject  | 32-47 teacher | 48-63 room
+ *
+ * Recording a placement interns its names and writes two array slots; no Activity,
+ * Session or LocalTime is created until toSessions() materializes the result.
+ * Not thread-safe: each SubjectScheduler owns one.
+ */
+public class PlacementStore {
+    static final String[] TYPES = {"COURSE", "SEMINAR", "LABORATORY"};
+    static final String[] PARITIES = {"Weekly", "Odd Week", "Even Week"};
+
+    private static final int INITIAL_ROWS = 64;
+
+    private long[] packed = new long[INITIAL_ROWS];
+    private int[] groups = new int[INITIAL_ROWS];
+    private int size;
+
+    private final Dictionary<String> subjects = new Dictionary<>(1 << 12);
+    private final Dictionary<String> teachers = new Dictionary<>(1 << 16);
+    private final Dictionary<String> rooms = new Dictionary<>(1 << 16);
+    private final Dictionary<List<String>> groupLists = new Dictionary<>(Integer.MAX_VALUE);
+
+    // ==== Writes ====
+
+    /**
+     * Record one placement
+     * @return its row index
+     */
+    public int add(String subjectName, List<String> groupIds, String subgroup, String teacherName, String roomId,
+                   int day, int startHour, int duration, String activityType, String frequency) {
+        if (size == packed.length) {
+            packed = Arrays.copyOf(packed, size * 2);
+            groups = Arrays.copyOf(groups, size * 2);
+        }
+        packed[size] = pack(subjects.intern(subjectName), teachers.intern(teacherName), rooms.intern(roomId),
+                day, startHour, duration, code(TYPES, activityType), code(PARITIES, frequency), subgroupNumber(subgroup));
+        groups[size] = groupLists.intern(groupIds);
+        return size++;
+    }
+
+    /**
+     * Drop one placement; later rows move up by one
+     */
+    public void remove(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        System.arraycopy(packed, row + 1, packed, row, size - row - 1);
+        System.arraycopy(groups, row + 1, groups, row, size - row - 1);
+        size--;
+    }
+
+    static long pack(int subject, int teacher, int room, int day, int startHour, int duration,
+                     int type, int parity, int subgroup) {
+        return (startHour & 0x1FL)
+                | (day & 0x7L) << 5
+                | (duration & 0xFL) << 8
+                | (type & 0x3L) << 12
+                | (parity & 0x3L) << 14
+                | (subgroup & 0xFL) << 16
+                | (subject & 0xFFFL) << 20
+                | (teacher & 0xFFFFL) << 32
+                | (room & 0xFFFFL) << 48;
+    }
+
+    private static int code(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        throw new IllegalArgumentException("Unsupported value '" + value + "' (expected one of " + Arrays.toString(values) + ")");
+    }
+
+    private static int subgroupNumber(String subgroup) {
+        if (subgroup == null || subgroup.isEmpty()) return 0;
+        int number = Integer.parseInt(subgroup);
+        if (number < 1 || number > 15) {
+            throw new IllegalArgumentException("Subgroup " + subgroup + " out of range 1..15");
+        }
+        return number;
+    }
+
+    // ==== Column accessors ====
+
+    public int size() { return size; }
+
+    public long packed(int row) { return packed[row]; }
+
+    public static int startHour(long packed) { return (int) (packed & 0x1F); }
+    public static int day(long packed) { return (int) (packed >>> 5 & 0x7); }
+    public static int duration(long packed) { return (int) (packed >>> 8 & 0xF); }
+    public static int type(long packed) { return (int) (packed >>> 12 & 0x3); }
+    public static int parity(long packed) { return (int) (packed >>> 14 & 0x3); }
+    public static int subgroup(long packed) { return (int) (packed >>> 16 & 0xF); }
+    public static int subject(long packed) { return (int) (packed >>> 20 & 0xFFF); }
+    public static int teacher(long packed) { return (int) (packed >>> 32 & 0xFFFF); }
+    public static int room(long packed) { return (int) (packed >>> 48 & 0xFFFF); }
+
+    /**
+     * Total placed hours (a course counts once for all its groups)
+     */
+    public int totalHours() {
+        int hours = 0;
+        for (int row = 0; row < size; row++) {
+            hours += duration(packed[row]);
+        }
+        return hours;
+    }
+
+    // ==== Materialization ====
+
+    public Session toSession(int row) {
+        long p = packed[row];
+        int subgroup = subgroup(p);
+        return new Session(
+                subjects.get(subject(p)),
+                groupLists.get(groups[row]),
+                teachers.get(teacher(p)),
+                rooms.get(room(p)),
+                SchedulerConfig.DAYS[day(p)],
+                LocalTime.of(startHour(p), 0),
+                LocalTime.of(startHour(p) + duration(p), 0),
+                TYPES[type(p)],
+                subgroup == 0 ? "" : String.valueOf(subgroup),
+                PARITIES[parity(p)]
+        );
+    }
+
+    public List<Session> toSessions() {
+        List<Session> sessions = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            sessions.add(toSession(row));
+        }
+        return sessions;
+    }
+
+    /**
+     * Value <-> dense id, bounded by the width of its packed field
+     */
+    private static class Dictionary<T> {
+        private final Map<T, Integer> ids = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+        private final int capacity;
+
+        Dictionary(int capacity) {
+            this.capacity = capacity;
+        }
+
+        int intern(T value) {
+            Integer id = ids.get(value);
+            if (id != null) return id;
+            if (values.size() == capacity) {
+                throw new IllegalStateException("More than " + capacity + " distinct values for a packed field");
+            }
+            values.add(value);
+            ids.put(value, values.size() - 1);
+            return values.size() - 1;
+        }
+
+        T get(int id) {
+            return values.get(id);
+        }
+    }
+}
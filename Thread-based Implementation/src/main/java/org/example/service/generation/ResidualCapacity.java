@@ -0,0 +1,93 @@
+package org.example.service.generation;
+
+import java.util.*;
+
+/**
+ * ResidualCapacity - How many resources of a class are still free, per (day, week lane, hour).
+ *
+ * A class is a fixed list of interchangeable resources, e.g. the eligible rooms of one
+ * (activity type, size) or the eligible teachers of one requirement. Its counters are
+ * filled from the owner's rows when the class is first registered, decremented as
+ * members get blocked and incremented when a backjump releases them, so "no LAB room of
+ * 15+ seats is free on Friday 18:00" is a counter read instead of a sweep over the rooms.
+ * A free count is necessary, not sufficient (a member still has to be free for every
+ * hour of the slot).
+ *
+ * Not thread-safe: the owning schedule state calls it under its own lock.
+ */
+class ResidualCapacity {
+    private static final int HOURS = SubgroupLanes.HOUR_SPAN;
+
+    private final Map<List<String>, Integer> classIds = new HashMap<>();
+    private final List<int[]> counts = new ArrayList<>();                 // class -> [slot * HOURS + hour]
+    private final Map<String, List<Integer>> classesOf = new HashMap<>(); // member -> classes it is in
+
+    /**
+     * Id of the class of `members`, registering it from the current rows on first use
+     */
+    int register(List<String> members, Map<String, int[]> rows) {
+        Integer id = classIds.get(members);
+        if (id != null) return id;
+        int[] free = new int[WeekCycle.SLOTS * HOURS];
+        for (String member : members) {
+            int[] row = rows.get(member);
+            for (int slot = 0; slot < WeekCycle.SLOTS; slot++) {
+                int taken = (row == null) ? 0 : row[slot];
+                for (int h = 0; h < HOURS; h++) {
+                    if ((taken & (1 << (SchedulerConfig.FIRST_HOUR + h))) == 0) free[slot * HOURS + h]++;
+                }
+            }
+        }
+        id = counts.size();
+        counts.add(free);
+        classIds.put(List.copyOf(members), id);
+        for (String member : members) {
+            classesOf.computeIfAbsent(member, k -> new ArrayList<>()).add(id);
+        }
+        return id;
+    }
+
+    /**
+     * `member` just lost `newlyTaken` hours (bits that were free before) in one slot
+     */
+    void taken(String member, int slot, int newlyTaken) {
+        List<Integer> classes = classesOf.get(member);
+        if (classes == null || newlyTaken == 0) return;
+        for (int h = 0; h < HOURS; h++) {
+            if ((newlyTaken & (1 << (SchedulerConfig.FIRST_HOUR + h))) == 0) continue;
+            for (int id : classes) {
+                counts.get(id)[slot * HOURS + h]--;
+            }
+        }
+    }
+
+    /**
+     * `member` got `newlyFreed` hours back (bits that were taken before) in one slot
+     */
+    void freed(String member, int slot, int newlyFreed) {
+        List<Integer> classes = classesOf.get(member);
+        if (classes == null || newlyFreed == 0) return;
+        for (int h = 0; h < HOURS; h++) {
+            if ((newlyFreed & (1 << (SchedulerConfig.FIRST_HOUR + h))) == 0) continue;
+            for (int id : classes) {
+                counts.get(id)[slot * HOURS + h]++;
+            }
+        }
+    }
+
+    /**
+     * Fewest free members over the hours and week lanes of a slot (its scarcity)
+     */
+    int minFree(int classId, int dayIndex, int hourMask, int lanes) {
+        int[] free = counts.get(classId);
+        int min = Integer.MAX_VALUE;
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((lanes & (1 << lane)) == 0) continue;
+            int base = WeekCycle.slot(dayIndex, lane) * HOURS;
+            for (int h = 0; h < HOURS; h++) {
+                if ((hourMask & (1 << (SchedulerConfig.FIRST_HOUR + h))) != 0) min = Math.min(min, free[base + h]);
+            }
+        }
+        return (min == Integer.MAX_VALUE) ? 0 : min;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.service.generation;
+
+import java.util.Arrays;
+
+/**
+ * How placements get their room, selected with -Dscheduler.rooms (default GREEDY).
+ * MATCHING applies to the modes that share one in-process RoomScheduleState (SHARED, PARTITIONED).
+ */
+public enum RoomAssignment {
+    /** Smallest eligible room free for the whole slot, fixed when the slot is chosen */
+    GREEDY,
+    /** The slot only reserves a room; rooms are matched per time window and resolved after generation */
+    MATCHING;
+
+    public static RoomAssignment fromConfig() {
+        String configured = System.getProperty(SchedulerConfig.ROOM_ASSIGNMENT_PROPERTY, GREEDY.name());
+        try {
+            return valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown room assignment '" + configured +
+                    "' (expected one of " + Arrays.toString(values()) + ")", e);
+        }
+    }
+}
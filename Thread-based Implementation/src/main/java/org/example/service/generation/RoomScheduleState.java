@@ -2,115 +2,311 @@ package org.example.service.generation;
 
 import org.example.model.Activity;
 import org.example.model.Place;
+import org.example.model.Room;
+import org.example.model.Session;
+import org.example.model.TimeSlot;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Thread-safe state for tracking room schedules during generation
+ * Thread-safe state for tracking room schedules during generation.
+ * Availability is one int per room, day and week lane (bit h = hour h taken, lanes per
+ * WeekCycle); the hours between FIRST_HOUR and LAST_HOUR outside the place's opening
+ * hours start out taken on every lane.
+ *
+ * With RoomAssignment.MATCHING a placement only reserves a room (reserveRoom): every
+ * time window (day, start, end, week lanes) keeps a bipartite matching of its reservations to rooms,
+ * and a new reservation may move earlier ones of the same window to other eligible rooms
+ * (augmenting path). The concrete rooms are read once generation is over (resolveRooms).
+ * Augmenting never frees a room, so the free-room counters of each eligible-room class
+ * (ResidualCapacity) hold in both modes.
  */
 public class RoomScheduleState {
-    private final Map<String, Map<String, List<Activity>>> roomSchedules;
+    private static final int WORKING_HOURS =
+            TimeSlot.hourMask(SchedulerConfig.FIRST_HOUR, SchedulerConfig.LAST_HOUR + 1);
+
+    private static final String PENDING_PREFIX = "pending:";
+
+    private final Map<String, int[]> occupied;
+    private final ResidualCapacity residual = new ResidualCapacity();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong releases = new AtomicLong();
+
+    // MATCHING only: reservations per time window, and the current room of every ticket
+    private final RoomAssignment assignment;
+    private final Map<Long, Window> windows = new HashMap<>();
+    private final List<String> ticketRooms = new ArrayList<>();
 
     public RoomScheduleState(Map<String, Place> places) {
-        this.roomSchedules = new ConcurrentHashMap<>();
-        
+        this(places, RoomAssignment.GREEDY);
+    }
+
+    public RoomScheduleState(Map<String, Place> places, RoomAssignment assignment) {
+        this.occupied = new ConcurrentHashMap<>();
+        this.assignment = assignment;
+
         places.forEach((placeName, place) -> {
             if (place.getRooms() != null) {
+                // Rooms follow their place's opening hours; everything else in the day is closed
+                int[] open = place.getScheduleMask();
                 place.getRooms().forEach((roomId, room) -> {
-                    Map<String, List<Activity>> schedule = new ConcurrentHashMap<>();
-                    String[] days = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
-                    for (String day : days) {
-                        schedule.put(day, new CopyOnWriteArrayList<>());
+                    int[] closed = new int[TimeSlot.DAYS_PER_WEEK];
+                    for (int d = 0; d < closed.length; d++) {
+                        closed[d] = WORKING_HOURS & ~open[d];
                     }
-                    roomSchedules.put(roomId, schedule);
+                    occupied.put(roomId, WeekCycle.spread(closed));
                 });
             }
         });
-        
-        initializeBusySlots(places);
     }
 
-    private void initializeBusySlots(Map<String, Place> places) {
-        places.forEach((placeName, place) -> {
-            if (place.getRooms() == null) return;
-            
-            place.getRooms().forEach((roomId, room) -> {
-                Map<String, List<Activity>> roomSchedule = roomSchedules.get(roomId);
-                if (roomSchedule == null) return;
-
-                String[] allDays = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
-                for (String day : allDays) {
-                    List<Activity> dayActivities = roomSchedule.get(day);
-                    
-                    // Get available slots for this day from place config
-                    List<org.example.model.TimeSlot> availableSlots = null;
-                    if (place.getSchedule() != null) {
-                        // Config might use "Monday" or "MONDAY"
-                        availableSlots = place.getSchedule().get(day);
-                        if (availableSlots == null) {
-                            // Try title case
-                            String titleCaseDay = day.substring(0, 1).toUpperCase() + day.substring(1).toLowerCase();
-                            availableSlots = place.getSchedule().get(titleCaseDay);
-                        }
-                    }
+    /**
+     * Free in every week of the cycle
+     */
+    public boolean isRoomAvailable(String roomId, String day, int hour) {
+        return isRoomFree(roomId, TimeSlot.dayIndex(day), TimeSlot.hourMask(hour, hour + 1), WeekCycle.ALL);
+    }
 
-                    boolean[] isBusy = new boolean[24];
-                    Arrays.fill(isBusy, true); // Assume busy by default
-
-                    if (availableSlots != null) {
-                        for (org.example.model.TimeSlot slot : availableSlots) {
-                            try {
-                                int start = Integer.parseInt(slot.getStart().split(":")[0]);
-                                int end = Integer.parseInt(slot.getEnd().split(":")[0]);
-                                for (int h = start; h < end; h++) {
-                                    if (h >= 0 && h < 24) isBusy[h] = false; // It's available
-                                }
-                            } catch (Exception e) {}
-                        }
-                    }
+    /**
+     * None of `hourMask` is taken on the given week lanes of that day
+     */
+    public boolean isRoomFree(String roomId, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            int[] row = occupied.get(roomId);
+            if (row == null || dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return true;
+            return (WeekCycle.occupied(row, dayIndex, lanes) & hourMask) == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-                    // Add busy activities for all non-available hours between 8 and 20
-                    for (int h = 8; h < 20; h++) {
-                        if (isBusy[h]) {
-                            dayActivities.add(new Activity(
-                                "CLOSED", "N/A", "N/A", roomId, day,
-                                java.time.LocalTime.of(h, 0), java.time.LocalTime.of(h + 1, 0), "CLOSED"
-                            ));
-                        }
-                    }
+    // ==== Residual capacity ====
+
+    /**
+     * Class id of an eligible-room list (one activity type and size class), for hasFreeRoom / freeRooms
+     */
+    public int roomClass(List<Room> rooms) {
+        List<String> ids = new ArrayList<>(rooms.size());
+        rooms.forEach(room -> ids.add(room.getId()));
+        lock.lock();
+        try {
+            return residual.register(ids, occupied);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Some room of the class is free in each hour of the slot (necessary, not sufficient)
+     */
+    public boolean hasFreeRoom(int roomClass, int dayIndex, int hourMask, int lanes) {
+        return freeRooms(roomClass, dayIndex, hourMask, lanes) > 0;
+    }
+
+    /**
+     * Fewest free rooms of the class over the hours of the slot
+     */
+    public int freeRooms(int roomClass, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return 0;
+        lock.lock();
+        try {
+            return residual.minFree(roomClass, dayIndex, hourMask, lanes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addActivity(String roomId, Activity activity) {
+        block(roomId, TimeSlot.dayIndex(activity.day()),
+                TimeSlot.hourMask(activity.startTime().getHour(), activity.endTime().getHour()),
+                WeekCycle.lanes(activity.frequency()));
+    }
+
+    /**
+     * Mark hours taken in every week (a placement, or hours committed by another process).
+     * Rooms unknown to the config are tracked from their first placement on.
+     */
+    public void block(String roomId, int dayIndex, int hourMask) {
+        block(roomId, dayIndex, hourMask, WeekCycle.ALL);
+    }
+
+    /**
+     * Mark hours taken on the given week lanes
+     */
+    public void block(String roomId, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+        lock.lock();
+        try {
+            int[] row = occupied.computeIfAbsent(roomId, k -> new int[WeekCycle.SLOTS]);
+            for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                if ((lanes & (1 << lane)) == 0) continue;
+                int slot = WeekCycle.slot(dayIndex, lane);
+                residual.taken(roomId, slot, hourMask & ~row[slot]);
+                row[slot] |= hourMask;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Block the first of `rooms` free for the whole slot, checked and marked under one lock
+     * (rooms are pre-sorted by capacity, so this is the smallest that fits)
+     * @return its id, or null if none is free
+     */
+    public String blockFirstFree(List<Room> rooms, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            for (Room room : rooms) {
+                if (isRoomFree(room.getId(), dayIndex, hourMask, lanes)) {
+                    block(room.getId(), dayIndex, hourMask, lanes);
+                    return room.getId();
                 }
-            });
-        });
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Free hours a greedy placement had taken (the search backjumped over it)
+     */
+    public void release(String roomId, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+        lock.lock();
+        try {
+            int[] row = occupied.get(roomId);
+            if (row == null) return;
+            for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                if ((lanes & (1 << lane)) == 0) continue;
+                int slot = WeekCycle.slot(dayIndex, lane);
+                residual.freed(roomId, slot, hourMask & row[slot]);
+                row[slot] &= ~hourMask;
+            }
+        } finally {
+            releases.incrementAndGet();
+            lock.unlock();
+        }
     }
 
-    public synchronized boolean isRoomAvailable(String roomId, String day, int hour) {
-        Map<String, List<Activity>> daySchedules = roomSchedules.get(roomId);
-        if (daySchedules == null) return true;
-        
-        String upperDay = day.toUpperCase();
-        List<Activity> dayActivities = daySchedules.get(upperDay);
-        if (dayActivities == null) return true;
+    /**
+     * Release calls so far; a failed search is only a proof while this has not moved
+     */
+    public long releaseCount() {
+        return releases.get();
+    }
 
-        return dayActivities.stream()
-                .noneMatch(a -> {
-                    int start = a.startTime().getHour();
-                    int end = a.endTime().getHour();
-                    return hour >= start && hour < end;
-                });
+    // ==== Room matching (RoomAssignment.MATCHING) ====
+
+    /**
+     * Reservations of one time window: demand i holds roomOf[i]
+     */
+    private static class Window {
+        final int lanes;
+        final List<List<Room>> demands = new ArrayList<>();
+        final List<Integer> tickets = new ArrayList<>();
+        final List<String> roomOf = new ArrayList<>();
+        final Map<String, Integer> holder = new HashMap<>();
+
+        Window(int lanes) {
+            this.lanes = lanes;
+        }
+    }
+
+    public RoomAssignment getAssignment() {
+        return assignment;
+    }
+
+    /**
+     * Reserve one of `eligible` for [startHour, endHour) on the given week lanes without
+     * fixing which. An augmenting path never releases a room, so the window's rooms grow by
+     * exactly the one blocked here.
+     * @return the reservation ticket, or -1 if the window has no room left for it
+     */
+    public int reserveRoom(List<Room> eligible, int dayIndex, int startHour, int endHour, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return -1;
+        int hours = TimeSlot.hourMask(startHour, endHour);
+        lock.lock();
+        try {
+            long key = (((long) dayIndex * 32 + startHour) * 32 + endHour) << 16 | lanes;
+            Window window = windows.computeIfAbsent(key, k -> new Window(lanes));
+            int demand = window.demands.size();
+            window.demands.add(eligible);
+            window.roomOf.add(null);
+
+            String[] claimed = new String[1];
+            if (!augment(window, demand, new HashSet<>(), dayIndex, hours, claimed)) {
+                window.demands.remove(demand);
+                window.roomOf.remove(demand);
+                return -1;
+            }
+            block(claimed[0], dayIndex, hours, lanes);
+
+            int ticket = ticketRooms.size();
+            ticketRooms.add(null);
+            window.tickets.add(ticket);
+            for (int i = 0; i < window.tickets.size(); i++) {
+                ticketRooms.set(window.tickets.get(i), window.roomOf.get(i));
+            }
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Kuhn's augmenting path: give `demand` a room, moving current holders along if needed
+     */
+    private boolean augment(Window window, int demand, Set<String> visited, int dayIndex, int hours, String[] claimed) {
+        for (Room room : window.demands.get(demand)) {
+            String roomId = room.getId();
+            if (!visited.add(roomId)) continue;
+            Integer holder = window.holder.get(roomId);
+            if (holder == null) {
+                int[] row = occupied.get(roomId);
+                if (row != null && (WeekCycle.occupied(row, dayIndex, window.lanes) & hours) != 0) continue;
+                claimed[0] = roomId;
+            } else if (!augment(window, holder, visited, dayIndex, hours, claimed)) {
+                continue;
+            }
+            window.holder.put(roomId, demand);
+            window.roomOf.set(demand, roomId);
+            return true;
+        }
+        return false;
     }
 
-    public synchronized void addActivity(String roomId, Activity activity) {
-        String upperDay = activity.day().toUpperCase();
-        roomSchedules.computeIfAbsent(roomId, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(upperDay, k -> new CopyOnWriteArrayList<>())
-                .add(activity);
+    /**
+     * Placeholder room id of a reservation, replaced by resolveRooms
+     */
+    public static String pendingRoomId(int ticket) {
+        return PENDING_PREFIX + ticket;
     }
 
-    public synchronized List<Activity> getRoomActivities(String roomId) {
-        List<Activity> all = new ArrayList<>();
-        roomSchedules.getOrDefault(roomId, new ConcurrentHashMap<>()).values().forEach(all::addAll);
-        return all;
+    /**
+     * Sessions with their reserved rooms resolved (call once every placement is made)
+     */
+    public List<Session> resolveRooms(List<Session> sessions) {
+        lock.lock();
+        try {
+            List<Session> resolved = new ArrayList<>(sessions.size());
+            for (Session s : sessions) {
+                if (!s.roomId().startsWith(PENDING_PREFIX)) {
+                    resolved.add(s);
+                    continue;
+                }
+                String roomId = ticketRooms.get(Integer.parseInt(s.roomId().substring(PENDING_PREFIX.length())));
+                resolved.add(new Session(s.subjectName(), s.groupIds(), s.teacherName(), roomId, s.day(),
+                        s.startTime(), s.endTime(), s.activityType(), s.subgroup(), s.frequency()));
+            }
+            return resolved;
+        } finally {
+            lock.unlock();
+        }
     }
 }
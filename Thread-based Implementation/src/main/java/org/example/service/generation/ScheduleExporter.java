@@ -17,7 +17,6 @@ public class ScheduleExporter {
     public void export(List<Activity> activities) throws IOException {
         // Prepare data for export in the requested format
         List<Map<String, Object>> exportData = activities.stream()
-                .filter(a -> !a.groupId().equals("ALL_GROUPS")) // Filter out internal teacher activities
                 .map(this::mapActivityToExport)
                 .collect(Collectors.toList());
 
@@ -17,4 +17,34 @@ public class SchedulerConfig {
     public static final int LAST_HOUR = 19;
     public static final String[] DAYS = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
     public static final int[] HOURS = {8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19};
+
+    // Strategy selection (system properties)
+    public static final String GENERATION_MODE_PROPERTY = "scheduler.generation";
+    public static final String STORAGE_PROPERTY = "scheduler.storage";
+    public static final String TEACHER_SELECTION_PROPERTY = "scheduler.teachers";
+    public static final String ROOM_ASSIGNMENT_PROPERTY = "scheduler.rooms";
+    public static final String WEEK_CYCLE_PROPERTY = "scheduler.weekCycle";
+    public static final String BACKJUMP_PROPERTY = "scheduler.backjumps"; // jumps per failed activity, default 3, 0 = off
+    public static final String REPAIR_TIMEOUT_PROPERTY = "scheduler.repair.timeoutMs"; // LNS repair budget, default 5000, 0 = off
+
+    // Distributed generation (system properties)
+    public static final String DISTRIBUTED_HOST_PROPERTY = "scheduler.distributed.host";       // default 127.0.0.1
+    public static final String DISTRIBUTED_PORT_PROPERTY = "scheduler.distributed.port";       // default 0 (ephemeral)
+    public static final String DISTRIBUTED_WORKERS_PROPERTY = "scheduler.distributed.workers"; // default 2
+    public static final String DISTRIBUTED_SPAWN_PROPERTY = "scheduler.distributed.spawn";     // default true
+
+    // Shared-memory generation (system properties)
+    public static final String SHM_FILE_PROPERTY = "scheduler.shm.file";   // default: private temp file
+    public static final String SHM_SHARD_PROPERTY = "scheduler.shm.shard"; // "index/count", default 0/1
+    public static final String SHM_RUN_PROPERTY = "scheduler.shm.run";     // id shared by the processes of one run, required with several shards
+
+    // SAT generation (system properties)
+    public static final String SAT_TIMEOUT_PROPERTY = "scheduler.sat.timeoutMs";     // default 60000
+    public static final String SAT_PORTFOLIO_PROPERTY = "scheduler.sat.portfolio";   // solvers raced, default min(4, cores)
+
+    // Island-model optimization (system properties)
+    public static final String EVOLUTION_TIMEOUT_PROPERTY = "scheduler.evolution.timeoutMs"; // default 0 = off
+    public static final String EVOLUTION_EPOCHS_PROPERTY = "scheduler.evolution.epochs";     // fixed epoch count instead of the timeout, default 0
+    public static final String EVOLUTION_ISLANDS_PROPERTY = "scheduler.evolution.islands";   // default cores, 4 with a fixed epoch count
+    public static final String EVOLUTION_SEED_PROPERTY = "scheduler.evolution.seed";
 }
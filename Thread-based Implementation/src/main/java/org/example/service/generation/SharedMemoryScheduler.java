@@ -0,0 +1,166 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Session;
+import org.example.model.Subject;
+import org.example.service.generation.PlacementPlanner.Placement;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * SharedMemoryScheduler - Generation against a MappedOccupancy shared by co-located JVMs.
+ *
+ * Every process started with the same -Dscheduler.shm.file maps the same grid and
+ * takes its share of the subjects (-Dscheduler.shm.shard=index/count, round-robin over
+ * the hardest-first order). Each placement is planned against the live mapped words and
+ * claimed with CAS, together with the teacher's weekly hours; a lost race re-plans just
+ * that placement. No coordinator and no messages - processes only meet in the grid.
+ *
+ * Processes of one run pass the same -Dscheduler.shm.run id (required with several shards,
+ * a fresh random one otherwise); a grid file left by any other run is reseeded, never joined.
+ *
+ * Without -Dscheduler.shm.file the grid lives in a private temp file, so a single process
+ * behaves like a lock-free variant of SHARED mode.
+ */
+public class SharedMemoryScheduler {
+    static final int MAX_ATTEMPTS = 8;
+
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final ExecutorService executor;
+    private final PlacementPlanner planner;
+
+    public SharedMemoryScheduler(TimetableDataContext context, GenerationMetrics metrics, ExecutorService executor) {
+        this.context = context;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.planner = new PlacementPlanner(context);
+    }
+
+    /**
+     * Schedule this process's shard of the subjects; only those subjects get a future
+     */
+    public Map<String, CompletableFuture<List<Session>>> schedule(List<String> sortedSubjects,
+                                                                   TeacherScheduleState teacherState,
+                                                                   RoomScheduleState roomState,
+                                                                   GroupScheduleState groupState) {
+        int[] shard = parseShard(System.getProperty(SchedulerConfig.SHM_SHARD_PROPERTY, "0/1"));
+        MappedOccupancy grid;
+        Path file;
+        try {
+            String configured = System.getProperty(SchedulerConfig.SHM_FILE_PROPERTY);
+            if (configured != null) {
+                file = Path.of(configured);
+            } else {
+                file = Files.createTempFile("timetable-occupancy", ".bin");
+                file.toFile().deleteOnExit();
+            }
+            grid = MappedOccupancy.open(file, runId(shard[1]), context, teacherState, roomState, groupState);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map shared occupancy grid", e);
+        }
+        metrics.recordMetric("shm.file", file.toString());
+        metrics.recordMetric("shm.shard", shard[0] + "/" + shard[1]);
+
+        Map<String, CompletableFuture<List<Session>>> running = new LinkedHashMap<>();
+        for (int i = 0; i < sortedSubjects.size(); i++) {
+            if (i % shard[1] != shard[0]) continue;
+            String subjectName = sortedSubjects.get(i);
+            long submittedAt = System.nanoTime();
+            running.put(subjectName, CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                List<Session> sessions = scheduleSubject(subjectName, grid);
+                metrics.recordTaskTiming(subjectName, startedAt - submittedAt, System.nanoTime() - startedAt);
+                return sessions;
+            }, executor));
+        }
+
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(running.values().stream()
+                        .map(f -> f.handle((sessions, error) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+                    // Counters live in the file: they cover every process sharing it
+                    metrics.recordMetric("shm.claims", String.valueOf(grid.getClaimCount()));
+                    metrics.recordMetric("shm.conflicts", String.valueOf(grid.getConflictCount()));
+                    try {
+                        grid.close();
+                    } catch (IOException e) {
+                        metrics.recordError("Failed to close shared occupancy grid: " + e.getMessage());
+                    }
+                });
+
+        Map<String, CompletableFuture<List<Session>>> results = new LinkedHashMap<>();
+        running.forEach((subjectName, future) -> results.put(subjectName, allDone.thenCompose(ignored -> future)));
+        return results;
+    }
+
+    /**
+     * Run id from -Dscheduler.shm.run; a single shard makes up its own, so it never joins a stale grid
+     */
+    private static long runId(int shards) {
+        String configured = System.getProperty(SchedulerConfig.SHM_RUN_PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            long hash = 0xcbf2_9ce4_8422_2325L;
+            for (int i = 0; i < configured.length(); i++) {
+                hash = (hash ^ configured.charAt(i)) * 0x0100_0000_01b3L;
+            }
+            return hash;
+        }
+        if (shards > 1) {
+            throw new IllegalStateException("-D" + SchedulerConfig.SHM_RUN_PROPERTY
+                    + "=<id> must be set, to the same value, on every process sharing the grid");
+        }
+        return new SplittableRandom().nextLong();
+    }
+
+    private static int[] parseShard(String value) {
+        String[] parts = value.trim().split("/");
+        try {
+            int index = Integer.parseInt(parts[0].trim());
+            int count = Integer.parseInt(parts[1].trim());
+            if (count > 0 && index >= 0 && index < count) {
+                return new int[]{index, count};
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Invalid shard '" + value + "' (expected index/count, e.g. 0/2)");
+    }
+
+    private List<Session> scheduleSubject(String subjectName, MappedOccupancy grid) {
+        Subject subject = context.getSubjects().get(subjectName);
+        List<Session> sessions = new ArrayList<>();
+        if (subject == null) return sessions;
+
+        Random random = new Random();
+        Set<String> failedTypes = new LinkedHashSet<>();
+        for (Requirement request : planner.expandRequests(subjectName)) {
+            Placement placed = null;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS && placed == null; attempt++) {
+                long stamp = grid.stamp();
+                Placement placement = planner.plan(request, grid, random);
+                if (placement == null) {
+                    // Final only if no claim was in flight or rolled back meanwhile: a lost
+                    // claim clears its bits again, so the plan may have seen hours that are free
+                    if (stamp >= 0 && stamp == grid.stamp()) break;
+                    continue;
+                }
+                if (grid.tryClaim(placement.claims(), placement.teacher().getName(), placement.charge())) placed = placement;
+            }
+            if (placed == null) {
+                failedTypes.add(request.activityType());
+            } else {
+                sessions.add(planner.toSession(subjectName, placed));
+            }
+        }
+
+        failedTypes.forEach(type -> SubjectScheduler.reportUnplaced(subjectName, type));
+        return sessions;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.service.generation;
+
+import java.util.*;
+
+/**
+ * StudentSet - The students attending one activity, as a bitset over student blocks.
+ *
+ * A block is one subgroup lane of one group (StudentSetIndex); the set is immutable and
+ * only keeps its non-zero words, so intersection costs O(words set) however many other
+ * sets overlap it. `aligned` sets come from a group / subgroup and can also be checked on
+ * the per-group masks of GroupScheduleState; elective sets mix groups and cannot. A set
+ * of several whole groups (a course) also names its cohort, whose union mask
+ * GroupScheduleState maintains.
+ */
+public final class StudentSet {
+    private final int[] wordIndex;             // indices of the non-zero words, ascending
+    private final long[] words;                // their values
+    private final boolean aligned;
+    private final Map<String, Integer> groupLanes; // group id -> subgroup lanes (SubgroupLanes)
+    private final List<String> keys;           // occupancy keys, SubgroupLanes.key
+    private final String cohort;               // sorted group ids if several whole groups, else null
+
+    StudentSet(BitSet blocks, boolean aligned, Map<String, Integer> groupLanes, List<String> keys, String cohort) {
+        long[] all = blocks.toLongArray();
+        int count = 0;
+        for (long word : all) {
+            if (word != 0) count++;
+        }
+        this.wordIndex = new int[count];
+        this.words = new long[count];
+        for (int w = 0, i = 0; w < all.length; w++) {
+            if (all[w] == 0) continue;
+            wordIndex[i] = w;
+            words[i++] = all[w];
+        }
+        this.aligned = aligned;
+        this.groupLanes = Collections.unmodifiableMap(new LinkedHashMap<>(groupLanes));
+        this.keys = List.copyOf(keys);
+        this.cohort = cohort;
+    }
+
+    /**
+     * Any block of this set is set in `occupied` (words starting at `offset`)
+     */
+    public boolean intersects(long[] occupied, int offset) {
+        for (int i = 0; i < words.length; i++) {
+            if ((occupied[offset + wordIndex[i]] & words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set this set's blocks in `occupied` (words starting at `offset`)
+     */
+    public void or(long[] occupied, int offset) {
+        for (int i = 0; i < words.length; i++) {
+            occupied[offset + wordIndex[i]] |= words[i];
+        }
+    }
+
+    /**
+     * Clear this set's blocks in `occupied` (words starting at `offset`)
+     */
+    public void clear(long[] occupied, int offset) {
+        for (int i = 0; i < words.length; i++) {
+            occupied[offset + wordIndex[i]] &= ~words[i];
+        }
+    }
+
+    /**
+     * Some student is in both sets
+     */
+    public boolean intersects(StudentSet other) {
+        int i = 0, j = 0;
+        while (i < wordIndex.length && j < other.wordIndex.length) {
+            if (wordIndex[i] < other.wordIndex[j]) {
+                i++;
+            } else if (wordIndex[i] > other.wordIndex[j]) {
+                j++;
+            } else if ((words[i++] & other.words[j++]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public boolean isAligned() {
+        return aligned;
+    }
+
+    public Map<String, Integer> getGroupLanes() {
+        return groupLanes;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public String getCohort() {
+        return cohort;
+    }
+}
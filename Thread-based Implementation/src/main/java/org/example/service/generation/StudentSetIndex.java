@@ -0,0 +1,141 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Group;
+import org.example.model.Subject;
+
+import java.util.*;
+
+/**
+ * StudentSetIndex - Dense ids for student blocks and the StudentSet of every activity.
+ *
+ * Blocks are the subgroup lanes of every group (SubgroupLanes), numbered in group id
+ * order, so a group's blocks are adjacent bits. A regular activity takes the blocks of
+ * its group / subgroup; an elective (Subject "Students") takes the blocks it lists,
+ * "921" for a whole group or "921/2" for one lane, whatever groups they come from.
+ *
+ * Built once per data context, like the WorkloadPlan that reads it.
+ */
+public class StudentSetIndex {
+    private static final Map<TimetableDataContext, StudentSetIndex> CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, Group> groups;
+    private final Map<String, StudentSet> electives = new HashMap<>(); // subject name -> its enrolled set
+    private final Map<String, Integer> firstBlock = new HashMap<>(); // group id -> id of its lane 0
+    private final int blockCount;
+
+    StudentSetIndex(Map<String, Group> groups, Map<String, Subject> subjects) {
+        this.groups = groups;
+        int next = 0;
+        for (String groupId : new TreeSet<>(groups.keySet())) {
+            firstBlock.put(groupId, next);
+            next += SubgroupLanes.count(groups.get(groupId));
+        }
+        this.blockCount = next;
+        subjects.forEach((name, subject) -> {
+            if (subject.isElective()) electives.put(name, elective(subject));
+        });
+    }
+
+    public static StudentSetIndex of(TimetableDataContext context) {
+        StudentSetIndex index = CACHE.get(context);
+        if (index != null) return index;
+        index = new StudentSetIndex(context.getGroups(), context.getSubjects());
+        StudentSetIndex existing = CACHE.putIfAbsent(context, index);
+        return existing != null ? existing : index;
+    }
+
+    /**
+     * Words of a bitset over every block
+     */
+    public int words() {
+        return Math.max(1, (blockCount + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    // ==== Sets ====
+
+    /**
+     * Students of an activity: the elective's blocks, or `subgroup` of each of `groupIds`
+     */
+    public StudentSet setFor(String subjectName, List<String> groupIds, String activityType, String subgroup) {
+        StudentSet elective = electives.get(subjectName);
+        if (elective != null) return elective;
+        Map<String, Integer> groupLanes = new LinkedHashMap<>();
+        for (String groupId : groupIds) {
+            groupLanes.merge(groupId, SubgroupLanes.lanes(groups.get(groupId), activityType, subgroup), (a, b) -> a | b);
+        }
+        return build(groupLanes, true);
+    }
+
+    private StudentSet elective(Subject subject) {
+        Map<String, Integer> groupLanes = new LinkedHashMap<>();
+        for (String block : subject.getStudents()) {
+            int separator = block.lastIndexOf('/');
+            String groupId = (separator < 0) ? block.trim() : block.substring(0, separator).trim();
+            Group group = groups.get(groupId);
+            if (group == null) {
+                System.err.println("Subject " + subject.getName() + ": unknown student block '" + block + "' ignored.");
+                continue;
+            }
+            int lanes = SubgroupLanes.all(group);
+            if (separator >= 0) {
+                try {
+                    int lane = Integer.parseInt(block.substring(separator + 1).trim()) - 1;
+                    lanes = (lane >= 0 && lane < SubgroupLanes.MAX_LANES) ? lanes & (1 << lane) : 0;
+                } catch (NumberFormatException e) {
+                    lanes = 0;
+                }
+                if (lanes == 0) {
+                    System.err.println("Subject " + subject.getName() + ": unknown student block '" + block + "' ignored.");
+                    continue;
+                }
+            }
+            groupLanes.merge(groupId, lanes, (a, b) -> a | b);
+        }
+        return build(groupLanes, false);
+    }
+
+    private StudentSet build(Map<String, Integer> groupLanes, boolean aligned) {
+        BitSet blocks = new BitSet(blockCount);
+        List<String> keys = new ArrayList<>();
+        boolean wholeGroups = aligned && groupLanes.size() > 1;
+        groupLanes.forEach((groupId, lanes) -> {
+            Integer first = firstBlock.get(groupId);
+            if (first == null) return;
+            Group group = groups.get(groupId);
+            for (int lane = 0; lane < SubgroupLanes.count(group); lane++) {
+                if ((lanes & (1 << lane)) != 0) blocks.set(first + lane);
+            }
+            keys.addAll(SubgroupLanes.keys(group, groupId, lanes));
+        });
+        for (Map.Entry<String, Integer> entry : groupLanes.entrySet()) {
+            wholeGroups &= entry.getValue() == SubgroupLanes.all(groups.get(entry.getKey()));
+        }
+        String cohort = wholeGroups ? String.join(",", new TreeSet<>(groupLanes.keySet())) : null;
+        return new StudentSet(blocks, aligned, groupLanes, keys, cohort);
+    }
+
+    // ==== Block lookup ====
+
+    /**
+     * Id of a group's lane 0, or -1 for an unknown group
+     */
+    public int firstBlock(String groupId) {
+        return firstBlock.getOrDefault(groupId, -1);
+    }
+
+    /**
+     * Students in a set, each lane counted as its share of the group
+     */
+    public int studentCount(StudentSet set) {
+        int students = 0;
+        for (Map.Entry<String, Integer> entry : set.getGroupLanes().entrySet()) {
+            Group group = groups.get(entry.getKey());
+            if (group == null) continue;
+            int count = SubgroupLanes.count(group);
+            students += (int) Math.ceil((double) group.getSize() * Integer.bitCount(entry.getValue()) / count);
+        }
+        return students;
+    }
+}
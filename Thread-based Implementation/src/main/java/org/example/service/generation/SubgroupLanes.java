@@ -0,0 +1,120 @@
+package org.example.service.generation;
+
+import org.example.model.Group;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SubgroupLanes - Disjoint student sets of a group, so semigroups can have parallel sessions.
+ *
+ * A group is cut into lcm(SeminarySplit, LaboratorySplit) lanes (at most MAX_LANES);
+ * subgroup i of a k-way split takes the lanes covering the i-th k-th of the students,
+ * a whole-group activity (course, or no split) takes every lane. Two sessions whose
+ * student sets can overlap always share a lane. When the lcm is too large the cut is
+ * coarser and subgroups may share a lane: conservative, never wrong.
+ *
+ * GroupScheduleState packs the hours of every lane into one long per (day, week lane),
+ * HOUR_SPAN bits per lane, so a whole-group check is a single AND. The snapshot based
+ * occupancies (VersionedOccupancy, MappedOccupancy) keep one row per lane instead,
+ * keyed by key(groupId, lane).
+ */
+public final class SubgroupLanes {
+    /** Hour bits kept per lane (FIRST_HOUR .. LAST_HOUR) */
+    public static final int HOUR_SPAN = SchedulerConfig.LAST_HOUR - SchedulerConfig.FIRST_HOUR + 1;
+
+    /** Lanes that fit in one long */
+    public static final int MAX_LANES = Long.SIZE / HOUR_SPAN;
+
+    private static final long SPAN_MASK = (1L << HOUR_SPAN) - 1;
+
+    private SubgroupLanes() {}
+
+    /**
+     * Number of lanes of a group
+     */
+    public static int count(Group group) {
+        if (group == null) return 1;
+        int seminars = Math.max(1, group.getSeminarySplit());
+        int laboratories = Math.max(1, group.getLaboratorySplitCount());
+        int lcm = seminars / gcd(seminars, laboratories) * laboratories;
+        return Math.min(lcm, MAX_LANES);
+    }
+
+    public static int all(Group group) {
+        return (1 << count(group)) - 1;
+    }
+
+    /**
+     * Lanes taken by `subgroup` ("" = the whole group) of an activity type
+     */
+    public static int lanes(Group group, String activityType, String subgroup) {
+        int count = count(group);
+        int all = (1 << count) - 1;
+        if (group == null || subgroup == null || subgroup.isEmpty()) return all;
+
+        int split = switch (activityType) {
+            case "SEMINAR" -> group.getSeminarySplit();
+            case "LABORATORY" -> group.getLaboratorySplitCount();
+            default -> 1;
+        };
+        int index;
+        try {
+            index = Integer.parseInt(subgroup.trim()) - 1;
+        } catch (NumberFormatException e) {
+            return all;
+        }
+        if (split <= 1 || index < 0 || index >= split) return all;
+
+        // Lanes overlapping [index / split, (index + 1) / split) of the group
+        int first = index * count / split;
+        int last = ((index + 1) * count + split - 1) / split - 1;
+        return (all >>> first << first) & ((1 << (last + 1)) - 1);
+    }
+
+    // ==== Packed masks (GroupScheduleState) ====
+
+    /**
+     * An hour mask repeated on every lane of `lanes`
+     */
+    public static long pack(int hourMask, int lanes) {
+        long hours = (hourMask >>> SchedulerConfig.FIRST_HOUR) & SPAN_MASK;
+        long packed = 0;
+        for (int lane = 0; lane < MAX_LANES; lane++) {
+            if ((lanes & (1 << lane)) != 0) packed |= hours << (lane * HOUR_SPAN);
+        }
+        return packed;
+    }
+
+    // ==== Row keys (snapshot occupancies) ====
+
+    /**
+     * Occupancy key of one lane; a group with a single lane keeps its plain id
+     */
+    public static String key(String groupId, int lane, int count) {
+        return (count <= 1) ? groupId : groupId + "/" + (lane + 1);
+    }
+
+    /**
+     * Keys of the given lanes of a group
+     */
+    public static List<String> keys(Group group, String groupId, int lanes) {
+        int count = count(group);
+        List<String> keys = new ArrayList<>(count);
+        for (int lane = 0; lane < count; lane++) {
+            if ((lanes & (1 << lane)) != 0) keys.add(key(groupId, lane, count));
+        }
+        return keys;
+    }
+
+    /**
+     * Keys of every lane of a group
+     */
+    public static List<String> keys(Group group, String groupId) {
+        return keys(group, groupId, all(group));
+    }
+
+    private static int gcd(int a, int b) {
+        return (b == 0) ? a : gcd(b, a % b);
+    }
+}
@@ -1,24 +1,73 @@
 package org.example.service.generation;
 
+import org.example.context.SymmetryClasses;
 import org.example.context.TimetableDataContext;
 import org.example.model.*;
+import org.example.service.generation.WorkloadPlan.Requirement;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * SubjectScheduler - Schedules all activities for a single subject
  * Uses backtracking with constraint satisfaction
+ *
+ * What to place comes from the compiled WorkloadPlan (requirements with their eligible
+ * teachers and rooms); this class only searches for slots. With -Dscheduler.teachers=FLOW
+ * the pre-assigned teacher (TeacherAssignment) is tried first. Placed hours are charged to
+ * the teacher's weekly maximum in the TeacherScheduleState. The free-room and free-teacher
+ * counters of the states (ResidualCapacity) order the requirements scarcest first and
+ * reject slots without a free eligible room before anything else is probed.
+ *
+ * Symmetry (SymmetryClasses): a teacher interchangeable with one that already failed the
+ * requirement, and currently busy at the same hours with no more hours left, is not tried;
+ * a requirement identical to one whose failure covered every eligible teacher, except for
+ * a group of the same class that is busy at the same hours, is not searched again.
+ * Both skips hold only while no occupancy is freed: every state counts its releases (this
+ * subject's backjumps, another subject's in the shared and partitioned modes, repair), and
+ * the failed store and the tried teachers are dropped as soon as the count moves.
+ *
+ * Backjumping: when a requirement fails, its conflict set is this subject's own placements
+ * that took one of its eligible teachers or rooms or some of its students in an overlapping
+ * week. The search jumps back to the most recent of them: it is undone, the failed
+ * requirement is placed, then the undone one is placed again elsewhere; if that does not
+ * work the undone placement is restored. A jump that did not help is a nogood (requirement
+ * shape x culprit placement) and is never repeated. At most -Dscheduler.backjumps culprits
+ * (default 3, 0 = off) are tried per failure; greedy room assignment only.
  */
 public class SubjectScheduler {
+    private static final int RANDOM_ATTEMPTS = 100;
+    private static final int BACKJUMPS = Math.max(0, Integer.getInteger(SchedulerConfig.BACKJUMP_PROPERTY, 3));
+
+    /**
+     * One placement of this subject, row for row with `placements`
+     */
+    private record Placed(Requirement requirement, Teacher teacher, String roomId, int dayIndex, int startHour) {}
+
+    /**
+     * A backjump that failed: requirements of this shape are not placed by moving that culprit
+     */
+    private record Nogood(int shape, int requirementId, int dayIndex, int startHour) {
+        static Nogood of(int shape, Placed culprit) {
+            return new Nogood(shape, culprit.requirement().id(), culprit.dayIndex(), culprit.startHour());
+        }
+    }
+
     private final String subjectName;
     private final Subject subject;
-    private final TimetableDataContext context;
     private final TeacherScheduleState teacherState;
     private final RoomScheduleState roomState;
     private final GroupScheduleState groupState;
-
-    private final List<Activity> scheduledActivities = Collections.synchronizedList(new ArrayList<>());
+    private final WorkloadPlan workload;
+    private final TeacherAssignment assignment;
+    private final SymmetryClasses symmetry;
+
+    private final List<Requirement> failed = new ArrayList<>(); // requirements whose failure covered every teacher
+    private long failedAt;                                      // releases() the failures were recorded at
+    private final PlacementStore placements = new PlacementStore();
+    private final List<Placed> placed = new ArrayList<>();
+    private final List<Requirement> lost = new ArrayList<>();   // undone by a backjump and not placed again
+    private final Set<Nogood> nogoods = new HashSet<>();        // (shape, culprit placement) jumps that failed
+    private final Map<List<Object>, Integer> shapes = new HashMap<>();
     private final Random random = new Random();
 
     public SubjectScheduler(String subjectName, Subject subject, TimetableDataContext context,
@@ -26,52 +75,38 @@ public class SubjectScheduler {
                             GroupScheduleState groupState) {
         this.subjectName = subjectName;
         this.subject = subject;
-        this.context = context;
         this.teacherState = teacherState;
         this.roomState = roomState;
         this.groupState = groupState;
+        this.workload = WorkloadPlan.of(context);
+        this.assignment = TeacherAssignment.forConfig(context);
+        this.symmetry = context.getSymmetry();
     }
 
     /**
-     * Main scheduling method - returns list of scheduled activities
+     * Main scheduling method - returns list of scheduled sessions (one per course, not per group)
      */
-    public List<Activity> schedule() {
+    public List<Session> schedule() {
         try {
-            // Get groups that take this subject
-            List<Group> groupsForSubject = getGroupsForSubject();
-            if (groupsForSubject.isEmpty()) {
+            if (subject == null) {
                 return new ArrayList<>();
             }
 
-            // Get teachers who can teach this subject
-            List<Teacher> capableTeachers = getCapableTeachers();
-            if (capableTeachers.isEmpty()) {
-                return new ArrayList<>();
+            // Scarcest first; ties keep the plan order (courses, then seminars and laboratories)
+            List<Requirement> unplaced = new ArrayList<>();
+            for (Requirement requirement : byScarcity(workload.forSubject(subjectName))) {
+                if (!place(requirement) && !backjump(requirement)) {
+                    unplaced.add(requirement);
+                }
             }
+            unplaced.addAll(lost);
+            Set<String> failedTypes = new LinkedHashSet<>();
+            unplaced.forEach(requirement -> failedTypes.add(requirement.activityType()));
 
-            // Schedule each activity type
-            boolean coursesOk = scheduleCourses(groupsForSubject, capableTeachers);
-            boolean seminarsOk = scheduleSeminars(groupsForSubject, capableTeachers);
-            boolean labsOk = scheduleLaboratories(groupsForSubject, capableTeachers);
-            
-            if (!coursesOk) {
-                String msg = "Subject " + subjectName + ": Failed to schedule courses completely.";
-                System.err.println(msg);
-            }
-            if (!seminarsOk) {
-                String msg = "Subject " + subjectName + ": Failed to schedule seminars completely.";
-                System.err.println(msg);
-            }
-            if (!labsOk) {
-                String msg = "Subject " + subjectName + ": Failed to schedule laboratories completely.";
-                System.err.println(msg);
-            }
+            failedTypes.forEach(type -> reportUnplaced(subjectName, type));
 
-            // Important: We need to filter scheduledActivities to avoid duplicates in reporting
-            // If we have course with 3 groups, we added 3 group activities + 1 teacher activity
-            // But for 'required hours' count we should probably count teacher slots.
-            
-            return new ArrayList<>(scheduledActivities);
+            // Placements are primitive rows until here
+            return placements.toSessions();
         } catch (Exception e) {
             String subjectInfo = (subjectName != null) ? subjectName : "unknown";
             System.err.println("Error scheduling subject " + subjectInfo + ": " + e.getMessage());
@@ -81,441 +116,338 @@ public class SubjectScheduler {
     }
 
     /**
-     * Schedule all course activities for this subject
+     * The line every generation mode prints for an activity type a subject is left short of
      */
-    private boolean scheduleCourses(List<Group> groups, List<Teacher> teachers) {
-        int courseHours = subject.getCourseHours();
-        int courseLength = subject.getCourseLenght();
-        if (courseLength <= 0) return true; // No courses to schedule
-        
-        int numCourses = courseHours / courseLength;
-        boolean allScheduled = true;
-
-        for (int i = 0; i < numCourses; i++) {
-            Teacher teacher = selectTeacher(teachers);
-            
-            // Courses are attended by ALL groups of that subject together (usually)
-            // But we must mark all groups as busy in that slot.
-            
-            String[] days = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
-            boolean scheduled = false;
-            
-            // Try to find a slot where teacher, room AND ALL groups are free
-            for (int attempt = 0; attempt < 100 && !scheduled; attempt++) {
-                String day = days[random.nextInt(days.length)];
-                int startHour = 8 + random.nextInt(12 - courseLength);
-                
-                if (canScheduleCourseForAllGroups(teacher, groups, day, startHour, courseLength)) {
-                    scheduled = scheduleCourseForAllGroups(teacher, groups, day, startHour, courseLength);
-                }
+    public static void reportUnplaced(String subjectName, String activityType) {
+        System.err.println("Subject " + subjectName + ": Failed to schedule " + pluralOf(activityType) + " completely.");
+    }
+
+    private static String pluralOf(String activityType) {
+        return switch (activityType) {
+            case "COURSE" -> "courses";
+            case "SEMINAR" -> "seminars";
+            default -> "laboratories";
+        };
+    }
+
+    /**
+     * Requirements ordered by how many start slots still have a free eligible room and a free
+     * eligible teacher, fewest first (stable)
+     */
+    private List<Requirement> byScarcity(List<Requirement> requirements) {
+        Map<Requirement, Integer> openSlots = new IdentityHashMap<>();
+        for (Requirement requirement : requirements) {
+            if (requirement.teachers().isEmpty() || requirement.rooms().isEmpty()) {
+                openSlots.put(requirement, 0);
+                continue;
             }
-            
-            if (!scheduled) {
-                // Backtracking
-                for (String day : days) {
-                    for (int hour = 8; hour <= 20 - courseLength; hour++) {
-                        if (canScheduleCourseForAllGroups(teacher, groups, day, hour, courseLength)) {
-                            scheduled = scheduleCourseForAllGroups(teacher, groups, day, hour, courseLength);
-                            if (scheduled) break;
-                        }
-                    }
-                    if (scheduled) break;
+            int roomClass = roomState.roomClass(requirement.rooms());
+            int teacherClass = teacherState.teacherClass(requirement.teachers());
+            int lanes = WeekCycle.lanes(requirement.frequency());
+            int open = 0;
+            for (int day = 0; day < SchedulerConfig.DAYS.length; day++) {
+                for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR + 1 - requirement.duration(); hour++) {
+                    int hours = TimeSlot.hourMask(hour, hour + requirement.duration());
+                    if (roomState.hasFreeRoom(roomClass, day, hours, lanes)
+                            && teacherState.hasFreeTeacher(teacherClass, day, hours, lanes)) open++;
                 }
             }
-            
-            if (!scheduled) allScheduled = false;
+            openSlots.put(requirement, open);
         }
-        return allScheduled;
+        List<Requirement> ordered = new ArrayList<>(requirements);
+        ordered.sort(Comparator.comparingInt(openSlots::get));
+        return ordered;
     }
 
-    private boolean canScheduleCourseForAllGroups(Teacher teacher, List<Group> groups, String day, int hour, int duration) {
-        if (teacher == null || teacher.getName() == null) return false;
-        
-        if (!teacher.canTeachCourse(subjectName)) return false;
-
-        for (int h = hour; h < hour + duration; h++) {
-            if (!teacherState.isTeacherAvailable(teacher.getName(), day, h)) return false;
-        }
-        
-        for (Group group : groups) {
-            if (group == null || group.getId() == null) continue;
-            for (int h = hour; h < hour + duration; h++) {
-                if (!groupState.isGroupAvailable(group.getId(), day, h)) return false;
-            }
+    /**
+     * Place one requirement with its pre-assigned teacher (FLOW), else a random eligible one;
+     * the random one is not tried when it is symmetric to the assigned one that just failed
+     */
+    private boolean place(Requirement requirement) {
+        if (requirement.teachers().isEmpty() || requirement.rooms().isEmpty()) return false;
+        long releases = releases();
+        if (releases != failedAt) {
+            failed.clear();
+            failedAt = releases;
         }
-        
-        // Total students attending the course
-        int totalStudents = groups.stream().filter(Objects::nonNull).mapToInt(Group::getSize).sum();
-        Room room = getAvailableRoomWithCapacity(day, hour, "COURSE", totalStudents);
-        if (room == null) return false;
-
-        // Check room availability for the whole duration
-        for (int h = hour + 1; h < hour + duration; h++) {
-            if (!roomState.isRoomAvailable(room.getId(), day, h)) return false;
+        if (mirrorsFailed(requirement)) return false;
+        int roomClass = roomState.roomClass(requirement.rooms());
+
+        Map<Teacher, Integer> tried = new LinkedHashMap<>(); // failed teacher -> hours it had left
+        Teacher assigned = (assignment != null) ? assignment.teacherFor(requirement) : null;
+        if (assigned != null) {
+            int remaining = teacherState.remainingHours(assigned.getName());
+            if (placeWith(requirement, assigned, roomClass)) return true;
+            tried.put(assigned, remaining);
         }
 
-        return true;
-    }
-
-    private boolean scheduleCourseForAllGroups(Teacher teacher, List<Group> groups, String day, int hour, int duration) {
-        // Total students attending the course
-        int totalStudents = groups.stream().filter(Objects::nonNull).mapToInt(Group::getSize).sum();
-        Room room = getAvailableRoomWithCapacity(day, hour, "COURSE", totalStudents);
-        if (room == null || room.getId() == null) return false;
-        
-        for (Group group : groups) {
-            if (group == null || group.getId() == null) continue;
-            Activity activity = new Activity(
-                    subjectName,
-                    group.getId(),
-                    teacher.getName(),
-                    room.getId(),
-                    day,
-                    java.time.LocalTime.of(hour, 0),
-                    java.time.LocalTime.of(hour + duration, 0),
-                    "COURSE",
-                    "",
-                    "Weekly"
-            );
-            
-            groupState.addActivity(group.getId(), activity);
+        Teacher teacher = selectTeacher(requirement);
+        if (releases() != releases) tried.clear();    // the assigned teacher's failure proves nothing now
+        if (teacher != null && !tried.containsKey(teacher) && !symmetricToTried(teacher, tried)) {
+            int remaining = teacherState.remainingHours(teacher.getName());
+            if (placeWith(requirement, teacher, roomClass)) return true;
+            tried.put(teacher, remaining);
         }
-        
-        Activity teacherActivity = new Activity(
-                subjectName,
-                "ALL_GROUPS",
-                teacher.getName(),
-                room.getId(),
-                day,
-                java.time.LocalTime.of(hour, 0),
-                java.time.LocalTime.of(hour + duration, 0),
-                "COURSE",
-                "",
-                "Weekly"
-        );
-        teacherState.addActivity(teacher.getName(), teacherActivity);
-        roomState.addActivity(room.getId(), teacherActivity);
-        
-        // Count unique hours scheduled for statistics
-        for (int h = 0; h < duration; h++) {
-            scheduledActivities.add(teacherActivity); 
-        }
-        
-        return true;
+        if (releases() == releases && exhausted(requirement, tried)) failed.add(requirement);
+        return false;
     }
 
-    private Room getAvailableRoomWithCapacity(String day, int hour, String activityType, int minCapacity) {
-        if (context == null || context.getPlaces() == null) return null;
-        
-        // Prefer rooms with specific capability for the activity type to avoid wasting multi-purpose rooms
-        List<Room> allMatchingRooms = new ArrayList<>();
-        
-        for (Place place : context.getPlaces().values()) {
-            if (place == null || place.getRooms() == null) continue;
-
-            for (Room room : place.getRooms().values()) {
-                if (room == null || room.getId() == null) continue;
-                if (room.getCapacity() < minCapacity) continue;
-                
-                if ("COURSE".equals(activityType) && room.hasFlag("noCourse")) continue;
-                if ("SEMINAR".equals(activityType) && room.hasFlag("noSeminar")) continue;
-                if ("LABORATORY".equals(activityType) && room.hasFlag("noLaboratory")) continue;
-
-                if (roomState != null && roomState.isRoomAvailable(room.getId(), day, hour)) {
-                    allMatchingRooms.add(room);
-                }
-            }
-        }
-        
-        if (allMatchingRooms.isEmpty()) return null;
-        
-        // Sort rooms by capacity to pick the smallest one that fits (Best Fit)
-        allMatchingRooms.sort(Comparator.comparingInt(Room::getCapacity));
-        
-        return allMatchingRooms.get(0);
+    /**
+     * Releases on all three states; a failure recorded at another count may not hold any more
+     */
+    private long releases() {
+        return teacherState.releaseCount() + roomState.releaseCount() + groupState.releaseCount();
     }
 
     /**
-     * Schedule all seminar activities for this subject
+     * Every eligible teacher failed, is symmetric to one that did, or has too few hours left,
+     * so the failure is a proof for this requirement (see mirrorsFailed)
      */
-    private boolean scheduleSeminars(List<Group> groups, List<Teacher> teachers) {
-        boolean allScheduled = true;
-
-        for (Group group : groups) {
-            int seminarSplits = group.getSeminarySplit();
-            if (seminarSplits <= 0) continue;
-            
-            double frequencyPerWeek = subject.getSeminarsPerWeek();
-            int duration = subject.getSeminarLenght();
-            
-            if (frequencyPerWeek == 0.5) {
-                // 0.5 frequency means 2 hours every 2 weeks (Odd/Even)
-                // We schedule one 2-hour activity for each split, alternating weeks
-                for (int i = 0; i < seminarSplits; i++) {
-                    Teacher teacher = selectTeacher(teachers);
-                    String subgroup = (seminarSplits > 1) ? String.valueOf(i + 1) : "";
-                    String frequency = (i % 2 == 0) ? "Odd Week" : "Even Week";
-                    
-                    if (!tryScheduleActivityWithDetails(teacher, group, "SEMINAR", duration, subgroup, frequency)) {
-                        if (!scheduleWithBacktrackingAndDetails(teacher, group, "SEMINAR", duration, subgroup, frequency)) {
-                            allScheduled = false;
-                        }
-                    }
-                }
-            } else {
-                // Regular frequency (usually 1)
-                int hoursForThisGroup = subject.getSeminarHours(); 
-                for (int i = 0; i < seminarSplits; i++) {
-                    int scheduledForSplit = 0;
-                    String subgroup = (seminarSplits > 1) ? String.valueOf(i + 1) : "";
-                    while (scheduledForSplit < hoursForThisGroup) {
-                        Teacher teacher = selectTeacher(teachers);
-                        int currentDuration = Math.min(duration, hoursForThisGroup - scheduledForSplit);
-                        if (currentDuration <= 0) break;
-
-                        if (!tryScheduleActivityWithDetails(teacher, group, "SEMINAR", currentDuration, subgroup, "Weekly")) {
-                            if (!scheduleWithBacktrackingAndDetails(teacher, group, "SEMINAR", currentDuration, subgroup, "Weekly")) {
-                                allScheduled = false;
-                                break;
-                            }
-                        }
-                        scheduledForSplit += currentDuration;
-                    }
-                }
-            }
+    private boolean exhausted(Requirement requirement, Map<Teacher, Integer> tried) {
+        for (Teacher teacher : requirement.teachers()) {
+            if (tried.containsKey(teacher) || symmetricToTried(teacher, tried)) continue;
+            if (teacherState.remainingHours(teacher.getName()) >= cycleHours(requirement)) return false;
         }
-        return allScheduled;
+        return true;
     }
 
     /**
-     * Schedule all laboratory activities for this subject
+     * Same class as a teacher that failed, same busy hours and no more hours left
      */
-    private boolean scheduleLaboratories(List<Group> groups, List<Teacher> teachers) {
-        boolean allScheduled = true;
-
-        for (Group group : groups) {
-            int labSplits = group.getLaboratorySplitCount();
-            if (labSplits <= 0) continue;
-            
-            double frequencyPerWeek = subject.getLaboratoriesPerWeek();
-            int duration = subject.getLaboratoriesLenght();
-
-            if (frequencyPerWeek == 0.5) {
-                // 0.5 frequency means 2 hours every 2 weeks (Odd/Even)
-                for (int i = 0; i < labSplits; i++) {
-                    Teacher teacher = selectTeacher(teachers);
-                    String subgroup = (labSplits > 1) ? String.valueOf(i + 1) : "";
-                    String frequency = (i % 2 == 0) ? "Odd Week" : "Even Week";
-                    
-                    if (!tryScheduleActivityWithDetails(teacher, group, "LABORATORY", duration, subgroup, frequency)) {
-                        if (!scheduleWithBacktrackingAndDetails(teacher, group, "LABORATORY", duration, subgroup, frequency)) {
-                            allScheduled = false;
-                        }
-                    }
-                }
-            } else {
-                int hoursForThisGroup = subject.getLaboratoryHours(); 
-                for (int i = 0; i < labSplits; i++) {
-                    int scheduledForSplit = 0;
-                    String subgroup = (labSplits > 1) ? String.valueOf(i + 1) : "";
-                    while (scheduledForSplit < hoursForThisGroup) {
-                        Teacher teacher = selectTeacher(teachers);
-                        int currentDuration = Math.min(duration, hoursForThisGroup - scheduledForSplit);
-                        if (currentDuration <= 0) break;
-
-                        if (!tryScheduleActivityWithDetails(teacher, group, "LABORATORY", currentDuration, subgroup, "Weekly")) {
-                            if (!scheduleWithBacktrackingAndDetails(teacher, group, "LABORATORY", currentDuration, subgroup, "Weekly")) {
-                                allScheduled = false;
-                                break;
-                            }
-                        }
-                        scheduledForSplit += currentDuration;
-                    }
-                }
-            }
+    private boolean symmetricToTried(Teacher teacher, Map<Teacher, Integer> tried) {
+        int teacherClass = symmetry.teacherClass(teacher.getName());
+        if (teacherClass < 0) return false;
+        for (Map.Entry<Teacher, Integer> entry : tried.entrySet()) {
+            String other = entry.getKey().getName();
+            if (symmetry.teacherClass(other) == teacherClass
+                    && teacherState.remainingHours(teacher.getName()) <= entry.getValue()
+                    && teacherState.sameRows(teacher.getName(), other)) return true;
         }
-        return allScheduled;
+        return false;
     }
 
-    private boolean tryScheduleActivityWithDetails(Teacher teacher, Group group, String activityType, int duration, String subgroup, String frequency) {
-        String[] days = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
-
-        for (int attempt = 0; attempt < 100; attempt++) {
-            String day = days[random.nextInt(days.length)];
-            int startHour = 8 + random.nextInt(12 - duration);
-            int endHour = startHour + duration;
-
-            if (canScheduleAt(teacher, group, day, startHour, endHour, activityType)) {
-                return scheduleActivityWithDetails(teacher, group, activityType, day, startHour, endHour, subgroup, frequency);
-            }
+    /**
+     * A failed requirement of the same shape for the same groups (another chunk of the same
+     * activity), or for a symmetric single group with the same busy hours
+     */
+    private boolean mirrorsFailed(Requirement requirement) {
+        for (Requirement other : failed) {
+            if (!sameShape(other, requirement)) continue;
+            if (other.groupIds().equals(requirement.groupIds())) return true;
+            if (symmetricGroup(other, requirement)) return true;
         }
         return false;
     }
 
-    private boolean scheduleWithBacktrackingAndDetails(Teacher teacher, Group group, String activityType, int duration, String subgroup, String frequency) {
-        String[] days = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
+    private boolean symmetricGroup(Requirement a, Requirement b) {
+        if (a.groupIds().size() != 1 || b.groupIds().size() != 1) return false;
+        if (!a.students().isAligned() || !b.students().isAligned()) return false;
+        String groupA = a.groupIds().get(0);
+        String groupB = b.groupIds().get(0);
+        int groupClass = symmetry.groupClass(groupA);
+        return groupClass >= 0 && symmetry.groupClass(groupB) == groupClass && groupState.sameRows(groupA, groupB);
+    }
 
-        for (String day : days) {
-            for (int hour = 8; hour <= 20 - duration; hour++) {
-                if (canScheduleAt(teacher, group, day, hour, hour + duration, activityType)) {
-                    return scheduleActivityWithDetails(teacher, group, activityType, day, hour, hour + duration, subgroup, frequency);
-                }
-            }
-        }
-        return false;
+    /**
+     * Same activity, length, subgroup, week parity and eligible resources
+     */
+    private static boolean sameShape(Requirement a, Requirement b) {
+        return a.activityType().equals(b.activityType())
+                && a.duration() == b.duration()
+                && Objects.equals(a.subgroup(), b.subgroup())
+                && Objects.equals(a.frequency(), b.frequency())
+                && a.teachers().equals(b.teachers())
+                && a.rooms().equals(b.rooms());
     }
 
-    private boolean scheduleActivityWithDetails(Teacher teacher, Group group, String activityType,
-                                             String day, int startHour, int endHour, String subgroup, String frequency) {
-        try {
-            if (teacher == null || group == null) return false;
+    // ==== Backjumping ====
 
-            int minCapacity = group.getSize();
-            if ("SEMINAR".equals(activityType)) {
-                minCapacity = group.getSeminaryGroupSize();
-            } else if ("LABORATORY".equals(activityType)) {
-                minCapacity = group.getLaboratoryGroupSize();
+    /**
+     * Jump back over the placements in the conflict set of a failed requirement, most recent first
+     * @return true if the requirement ends up placed; an undone placement that cannot be placed
+     *         again is recorded in `lost` (the requirement itself never is, the caller reports it)
+     */
+    private boolean backjump(Requirement requirement) {
+        if (BACKJUMPS == 0 || roomState.getAssignment() != RoomAssignment.GREEDY) return false;
+        int shape = shapeOf(requirement);
+        int jumps = 0;
+        for (int row = placed.size() - 1; row >= 0 && jumps < BACKJUMPS; row--) {
+            Placed culprit = placed.get(row);
+            if (!conflicts(culprit, requirement)) continue;
+            Nogood nogood = Nogood.of(shape, culprit);
+            if (nogoods.contains(nogood)) continue;
+            jumps++;
+
+            unplace(row);
+            if (place(requirement)) {
+                if (place(culprit.requirement())) return true;
+                unplace(placed.size() - 1);
+                if (restore(culprit)) {
+                    nogoods.add(nogood);
+                    return false;     // occupancy is back to where it was, the failure stands
+                }
+                // The slot was taken meanwhile by another subject: keep whichever fits
+                lost.add(culprit.requirement());
+                return place(requirement);
             }
-
-            Room room = getAvailableRoomWithCapacity(day, startHour, activityType, minCapacity);
-            if (room == null || room.getId() == null) {
+            nogoods.add(nogood);
+            if (!restore(culprit)) {
+                lost.add(culprit.requirement());
                 return false;
             }
+            row = placed.size();      // restored at the end; rescan the shifted rows
+        }
+        return false;
+    }
 
-            Activity activity = new Activity(
-                    subjectName,
-                    group.getId(),
-                    teacher.getName(),
-                    room.getId(),
-                    day,
-                    java.time.LocalTime.of(startHour, 0),
-                    java.time.LocalTime.of(endHour, 0),
-                    activityType,
-                    subgroup,
-                    frequency
-            );
-
-            teacherState.addActivity(teacher.getName(), activity);
-            groupState.addActivity(group.getId(), activity);
-            roomState.addActivity(room.getId(), activity);
-
-            scheduledActivities.add(activity);
-            return true;
-        } catch (Exception e) {
-            return false;
+    /**
+     * The culprit took an eligible teacher or room, or some of the students, of the requirement
+     * in a week lane it also needs
+     */
+    private boolean conflicts(Placed culprit, Requirement requirement) {
+        Requirement taken = culprit.requirement();
+        if ((WeekCycle.lanes(taken.frequency()) & WeekCycle.lanes(requirement.frequency())) == 0) return false;
+        if (requirement.teachers().contains(culprit.teacher())) return true;
+        for (Room room : requirement.rooms()) {
+            if (room.getId().equals(culprit.roomId())) return true;
         }
+        return taken.students().intersects(requirement.students());
     }
 
+    /**
+     * Undo one placement of this subject: free its teacher, room, students and hours
+     */
+    private void unplace(int row) {
+        Placed victim = placed.remove(row);
+        placements.remove(row);
+        Requirement requirement = victim.requirement();
+        int hours = TimeSlot.hourMask(victim.startHour(), victim.startHour() + requirement.duration());
+        int lanes = WeekCycle.lanes(requirement.frequency());
+        teacherState.release(victim.teacher().getName(), victim.dayIndex(), hours, lanes);
+        teacherState.releaseHours(victim.teacher().getName(), cycleHours(requirement));
+        roomState.release(victim.roomId(), victim.dayIndex(), hours, lanes);
+        groupState.release(requirement.students(), victim.dayIndex(), hours, lanes);
+    }
 
     /**
-     * Check if we can schedule activity at given time
+     * Put an undone placement back where it was, or anywhere if that slot got taken
      */
-    private boolean canScheduleAt(Teacher teacher, Group group, String day, int startHour, int endHour, String activityType) {
-        // Check teacher availability
-        if (teacher == null || teacher.getName() == null || teacherState == null) {
-            return false;
-        }
+    private boolean restore(Placed victim) {
+        Requirement requirement = victim.requirement();
+        int roomClass = roomState.roomClass(requirement.rooms());
+        return tryPlaceAt(requirement, victim.teacher(), roomClass, victim.dayIndex(), victim.startHour())
+                || place(requirement);
+    }
 
-        // Check availability for the whole duration
-        for (int h = startHour; h < endHour; h++) {
-            if (!teacherState.isTeacherAvailable(teacher.getName(), day, h)) {
-                return false;
+    private int shapeOf(Requirement requirement) {
+        List<Object> key = List.of(requirement.activityType(), requirement.groupIds(), requirement.subgroup(),
+                requirement.duration(), requirement.frequency());
+        return shapes.computeIfAbsent(key, k -> shapes.size());
+    }
+
+    /**
+     * Random probing first, then a full scan (backtracking)
+     */
+    private boolean placeWith(Requirement requirement, Teacher teacher, int roomClass) {
+        int duration = requirement.duration();
+        if (teacherState.remainingHours(teacher.getName()) < cycleHours(requirement)) return false;
+        String[] days = SchedulerConfig.DAYS;
+
+        if (duration < 12) {
+            for (int attempt = 0; attempt < RANDOM_ATTEMPTS; attempt++) {
+                int day = random.nextInt(days.length);
+                int startHour = SchedulerConfig.FIRST_HOUR + random.nextInt(12 - duration);
+                if (tryPlaceAt(requirement, teacher, roomClass, day, startHour)) return true;
             }
         }
-        
-        // Check teacher specific capability for the activity type
-        if ("SEMINAR".equals(activityType) && !teacher.canTeachSeminar(subjectName)) {
-            return false;
-        }
-        if ("LABORATORY".equals(activityType) && !teacher.canTeachLaboratory(subjectName)) {
-            return false;
-        }
 
-        // Check group availability for the whole duration
-        if (group == null || group.getId() == null || groupState == null) {
-            return false;
-        }
-        for (int h = startHour; h < endHour; h++) {
-            if (!groupState.isGroupAvailable(group.getId(), day, h)) {
-                return false;
+        // Backtracking
+        for (int day = 0; day < days.length; day++) {
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR + 1 - duration; hour++) {
+                if (tryPlaceAt(requirement, teacher, roomClass, day, hour)) return true;
             }
         }
+        return false;
+    }
 
-        // Check room availability and capability
-        if (context == null || context.getPlaces() == null) {
-            return false;
-        }
-        
-        int minCapacity = group.getSize();
-        if ("SEMINAR".equals(activityType)) {
-            minCapacity = group.getSeminaryGroupSize();
-        } else if ("LABORATORY".equals(activityType)) {
-            minCapacity = group.getLaboratoryGroupSize();
-        }
+    private boolean tryPlaceAt(Requirement requirement, Teacher teacher, int roomClass, int dayIndex, int startHour) {
+        int endHour = startHour + requirement.duration();
+        int hours = TimeSlot.hourMask(startHour, endHour);
+        // Odd / even week activities only take their own week lanes
+        int lanes = WeekCycle.lanes(requirement.frequency());
 
-        // Check room availability for the whole duration
-        Room room = getAvailableRoomWithCapacity(day, startHour, activityType, minCapacity);
-        if (room == null) return false;
+        // No eligible room left in some hour of the slot: reject before probing anything else
+        if (!roomState.hasFreeRoom(roomClass, dayIndex, hours, lanes)) return false;
 
-        for (int h = startHour + 1; h < endHour; h++) {
-            if (!roomState.isRoomAvailable(room.getId(), day, h)) {
-                return false;
-            }
+        if (!teacherState.isTeacherFree(teacher.getName(), dayIndex, hours, lanes)) return false;
+        // Only the attending students: a semigroup leaves the other one free, an elective spans groups
+        if (!groupState.isFree(requirement.students(), dayIndex, hours, lanes)) return false;
+
+        // Other tasks share these states: claim each one atomically and undo on the first loss
+        if (!teacherState.tryBlock(teacher.getName(), dayIndex, hours, lanes)) return false;
+        // (a rollback, not a release: the failure proofs of `failed` keep holding)
+        if (!groupState.tryBlock(requirement.students(), dayIndex, hours, lanes)) {
+            teacherState.rollback(teacher.getName(), dayIndex, hours, lanes);
+            return false;
+        }
+        String roomId = reserveRoom(requirement, teacher, dayIndex, startHour, endHour, lanes);
+        if (roomId == null) {
+            teacherState.rollback(teacher.getName(), dayIndex, hours, lanes);
+            groupState.rollback(requirement.students(), dayIndex, hours, lanes);
+            return false;
         }
 
+        placements.add(subjectName, requirement.groupIds(), requirement.subgroup(), teacher.getName(), roomId,
+                dayIndex, startHour, requirement.duration(), requirement.activityType(), requirement.frequency());
+        placed.add(new Placed(requirement, teacher, roomId, dayIndex, startHour));
         return true;
     }
 
-
     /**
-     * Get an available room for the time slot
+     * Take a room and charge the teacher's hours, both or neither
+     * @return the room id (a pending id under RoomAssignment.MATCHING), or null
      */
-    private Room getAvailableRoom(String day, int hour, String activityType) {
-        if (context == null || context.getPlaces() == null) return null;
-        for (Place place : context.getPlaces().values()) {
-            if (place == null || place.getRooms() == null) continue;
-
-            for (Room room : place.getRooms().values()) {
-                if (room == null || room.getId() == null) continue;
-                
-                // Check room capability
-                if ("COURSE".equals(activityType) && room.hasFlag("noCourse")) continue;
-                if ("SEMINAR".equals(activityType) && room.hasFlag("noSeminar")) continue;
-                if ("LABORATORY".equals(activityType) && room.hasFlag("noLaboratory")) continue;
-
-                if (roomState != null && roomState.isRoomAvailable(room.getId(), day, hour)) {
-                    return room;
-                }
+    private String reserveRoom(Requirement requirement, Teacher teacher, int dayIndex, int startHour, int endHour,
+                               int lanes) {
+        int charge = cycleHours(requirement);
+        if (roomState.getAssignment() == RoomAssignment.MATCHING) {
+            if (!teacherState.tryChargeHours(teacher.getName(), charge)) return null;
+            int ticket = roomState.reserveRoom(requirement.rooms(), dayIndex, startHour, endHour, lanes);
+            if (ticket < 0) {
+                teacherState.refundHours(teacher.getName(), charge);
+                return null;
             }
+            return RoomScheduleState.pendingRoomId(ticket);
         }
-        return null;
-    }
 
-    /**
-     * Select a teacher randomly from capable list
-     */
-    private Teacher selectTeacher(List<Teacher> teachers) {
-        if (teachers.isEmpty()) {
-            throw new IllegalArgumentException("No capable teachers for subject " + subjectName);
-        }
-        return teachers.get(random.nextInt(teachers.size()));
+        if (!teacherState.tryChargeHours(teacher.getName(), charge)) return null;
+        String roomId = roomState.blockFirstFree(requirement.rooms(), dayIndex,
+                TimeSlot.hourMask(startHour, endHour), lanes);
+        if (roomId == null) teacherState.refundHours(teacher.getName(), charge);
+        return roomId;
     }
 
     /**
-     * Get all groups that take this subject
+     * Hours the requirement charges to its teacher per week cycle
      */
-    private List<Group> getGroupsForSubject() {
-        return context.getGroups().values().stream()
-                .filter(g -> g.hasSubject(subjectName))
-                .collect(Collectors.toList());
+    private static int cycleHours(Requirement requirement) {
+        return WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
     }
 
     /**
-     * Get all teachers capable of teaching this subject
+     * Select a teacher randomly from the eligible list (activity type and language already
+     * filtered by the capability index), skipping teachers without enough weekly hours left
+     * @return null if every eligible teacher is saturated
      */
-    private List<Teacher> getCapableTeachers() {
-        return context.getTeachers().values().stream()
-                .filter(t -> t.canTeachSubject(subjectName))
-                .collect(Collectors.toList());
+    private Teacher selectTeacher(Requirement requirement) {
+        List<Teacher> teachers = requirement.teachers();
+        if (teachers.isEmpty()) {
+            throw new IllegalArgumentException("No capable teachers for subject " + subjectName);
+        }
+        List<Teacher> withHours = new ArrayList<>(teachers.size());
+        for (Teacher teacher : teachers) {
+            if (teacherState.remainingHours(teacher.getName()) >= cycleHours(requirement)) withHours.add(teacher);
+        }
+        return withHours.isEmpty() ? null : withHours.get(random.nextInt(withHours.size()));
     }
 }
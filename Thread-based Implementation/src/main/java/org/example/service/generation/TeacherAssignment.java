@@ -0,0 +1,246 @@
+package org.example.service.generation;
+
+import org.example.context.TeacherCapabilityIndex;
+import org.example.context.TimetableDataContext;
+import org.example.model.Subject;
+import org.example.model.Teacher;
+import org.example.model.TimeSlot;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.util.*;
+
+/**
+ * TeacherAssignment - Stage one of FLOW teacher selection: who holds each requirement,
+ * decided before any time slot is searched.
+ *
+ * Min-cost flow over source -> requirement (its WeekCycle.cycleHours) -> eligible teacher
+ * -> sink. A teacher's sink edge carries min(MaxHoursPerWeek, hours not blocked by the
+ * config schedule) per week of the cycle and costs load² / capacity, so flow spreads the
+ * work instead of filling the first capable teacher; a course costs a little more away
+ * from the subject's main teacher. Requirements are routed whole, one teacher each, by
+ * successive shortest paths (Bellman-Ford over the residual graph): a path may hand an
+ * already assigned requirement of the same weight to another eligible teacher to make room.
+ * Handing a course back to its main teacher costs less than 0, so paths stay simple and the
+ * search is bounded per teacher. Requirements without a path stay unassigned and are left
+ * to random selection.
+ *
+ * Computed once per data context, like the WorkloadPlan it reads.
+ */
+public class TeacherAssignment {
+    private static final Map<TimetableDataContext, TeacherAssignment> CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final long LOAD_COST_SCALE = 100;
+    private static final long OFF_MAIN_TEACHER_COST = 10;
+    private static final long UNREACHABLE = Long.MAX_VALUE / 4;
+
+    private final Teacher[] byRequirement;
+    private final int assignedCount;
+
+    private TeacherAssignment(Teacher[] byRequirement) {
+        this.byRequirement = byRequirement;
+        this.assignedCount = (int) Arrays.stream(byRequirement).filter(Objects::nonNull).count();
+    }
+
+    /**
+     * The assignment of `context` if -Dscheduler.teachers=FLOW, otherwise null
+     */
+    public static TeacherAssignment forConfig(TimetableDataContext context) {
+        return (TeacherSelection.fromConfig() == TeacherSelection.FLOW) ? of(context) : null;
+    }
+
+    public static TeacherAssignment of(TimetableDataContext context) {
+        TeacherAssignment assignment = CACHE.get(context);
+        if (assignment != null) return assignment;
+        assignment = new TeacherAssignment(new Flow(context, WorkloadPlan.of(context)).solve());
+        TeacherAssignment existing = CACHE.putIfAbsent(context, assignment);
+        return existing != null ? existing : assignment;
+    }
+
+    // ==== Access ====
+
+    /**
+     * Pre-assigned teacher of a requirement, or null if the flow found none
+     */
+    public Teacher teacherFor(Requirement requirement) {
+        int id = requirement.id();
+        return (id >= 0 && id < byRequirement.length) ? byRequirement[id] : null;
+    }
+
+    public int getAssignedCount() {
+        return assignedCount;
+    }
+
+    public int getUnassignedCount() {
+        return byRequirement.length - assignedCount;
+    }
+
+    // ==== Solver ====
+
+    private static class Flow {
+        private final TeacherCapabilityIndex index;
+        private final List<Requirement> requirements;
+        private final int[][] eligible;      // requirement -> eligible teacher ids
+        private final int[] mainTeacher;     // requirement -> main teacher id for courses, else -1
+        private final int[] capacity;        // teacher -> hours it may take
+        private final int[] load;            // teacher -> hours assigned so far
+        private final int[] assigned;        // requirement -> teacher id, -1 if none
+        private final List<List<Integer>> holding = new ArrayList<>(); // teacher -> requirement ids
+
+        Flow(TimetableDataContext context, WorkloadPlan plan) {
+            this.index = context.getCapabilityIndex();
+            this.requirements = plan.getRequirements();
+            int teacherCount = index.size();
+
+            this.eligible = new int[requirements.size()][];
+            this.mainTeacher = new int[requirements.size()];
+            for (Requirement r : requirements) {
+                eligible[r.id()] = r.teachers().stream().mapToInt(t -> index.idOf(t.getName())).filter(id -> id >= 0).toArray();
+                Subject subject = context.getSubjects().get(r.subjectName());
+                mainTeacher[r.id()] = ("COURSE".equals(r.activityType()) && subject != null && subject.getMainTeacher() != null)
+                        ? index.idOf(subject.getMainTeacher()) : -1;
+            }
+
+            this.capacity = new int[teacherCount];
+            this.load = new int[teacherCount];
+            int workingHours = TimeSlot.hourMask(SchedulerConfig.FIRST_HOUR, SchedulerConfig.LAST_HOUR + 1);
+            for (int t = 0; t < teacherCount; t++) {
+                Teacher teacher = index.teacher(t);
+                int free = 0;
+                for (int busy : teacher.getScheduleMask()) {
+                    free += Integer.bitCount(workingHours & ~busy);
+                }
+                int max = teacher.getMaxHoursPerWeek();
+                capacity[t] = ((max > 0) ? Math.min(max, free) : free) * WeekCycle.WEEKS;
+                holding.add(new ArrayList<>());
+            }
+
+            this.assigned = new int[requirements.size()];
+            Arrays.fill(assigned, -1);
+        }
+
+        Teacher[] solve() {
+            // Longest and most constrained requirements first
+            List<Requirement> order = new ArrayList<>(requirements);
+            order.sort(Comparator.comparingInt((Requirement r) -> -weight(r))
+                    .thenComparingInt(r -> eligible[r.id()].length));
+            order.forEach(this::augment);
+
+            Teacher[] result = new Teacher[requirements.size()];
+            for (int r = 0; r < assigned.length; r++) {
+                if (assigned[r] >= 0) result[r] = index.teacher(assigned[r]);
+            }
+            return result;
+        }
+
+        /**
+         * Route one requirement along the cheapest residual path
+         */
+        private void augment(Requirement requirement) {
+            int r = requirement.id();
+            int weight = weight(requirement);
+            int teacherCount = capacity.length;
+
+            long[] dist = new long[teacherCount];
+            int[] viaTeacher = new int[teacherCount];
+            int[] viaRequirement = new int[teacherCount];
+            Arrays.fill(dist, UNREACHABLE);
+            Arrays.fill(viaRequirement, -1);
+
+            Deque<Integer> queue = new ArrayDeque<>();
+            boolean[] queued = new boolean[teacherCount];
+            for (int t : eligible[r]) {
+                dist[t] = edgeCost(r, t);
+                queue.add(t);
+                queued[t] = true;
+            }
+
+            // Bellman-Ford (queue based). Moves toward a main teacher cost less than 0, so the
+            // residual graph can hold negative cycles: only simple paths are extended, and a
+            // teacher improved `teacherCount` times (only possible around such a cycle) is final
+            int[] improved = new int[teacherCount];
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                queued[u] = false;
+                for (int q : holding.get(u)) {
+                    if (weight(requirements.get(q)) != weight) continue;
+                    for (int v : eligible[q]) {
+                        if (v == u || improved[v] >= teacherCount || onPath(v, u, viaTeacher, viaRequirement)) continue;
+                        long candidate = dist[u] - edgeCost(q, u) + edgeCost(q, v);
+                        if (candidate < dist[v]) {
+                            dist[v] = candidate;
+                            viaTeacher[v] = u;
+                            viaRequirement[v] = q;
+                            improved[v]++;
+                            if (!queued[v]) {
+                                queue.add(v);
+                                queued[v] = true;
+                            }
+                        }
+                    }
+                }
+            }
+
+            int best = -1;
+            long bestCost = UNREACHABLE;
+            for (int t = 0; t < teacherCount; t++) {
+                if (dist[t] == UNREACHABLE || load[t] + weight > capacity[t]) continue;
+                long cost = dist[t] + loadCost(t, load[t] + weight) - loadCost(t, load[t]);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = t;
+                }
+            }
+            if (best < 0) return;
+
+            // Walk back to the start first: a later improvement can leave the predecessors in a
+            // cycle of moves, and then nothing may be moved (the requirement is left to random selection)
+            List<Integer> path = new ArrayList<>();
+            boolean[] seen = new boolean[teacherCount];
+            int v = best;
+            while (viaRequirement[v] >= 0) {
+                if (seen[v]) return;
+                seen[v] = true;
+                path.add(v);
+                v = viaTeacher[v];
+            }
+
+            // Every requirement on the path moves one teacher along it; only `best` gains hours
+            for (int t : path) {
+                int q = viaRequirement[t];
+                holding.get(viaTeacher[t]).remove(Integer.valueOf(q));
+                holding.get(t).add(q);
+                assigned[q] = t;
+            }
+            assigned[r] = v;
+            holding.get(v).add(r);
+            load[best] += weight;
+        }
+
+        /**
+         * `teacher` is on the current path to `end` (extending it there would repeat a teacher)
+         */
+        private static boolean onPath(int teacher, int end, int[] viaTeacher, int[] viaRequirement) {
+            int t = end;
+            for (int steps = 0; steps <= viaTeacher.length; steps++) {
+                if (t == teacher) return true;
+                if (viaRequirement[t] < 0) return false;
+                t = viaTeacher[t];
+            }
+            return true;  // the predecessors already loop: treat as taken
+        }
+
+        private static int weight(Requirement requirement) {
+            return WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+        }
+
+        private long edgeCost(int requirement, int teacher) {
+            int main = mainTeacher[requirement];
+            return (main >= 0 && main != teacher) ? OFF_MAIN_TEACHER_COST : 0;
+        }
+
+        private long loadCost(int teacher, int hours) {
+            return (long) hours * hours * LOAD_COST_SCALE / Math.max(1, capacity[teacher]);
+        }
+    }
+}
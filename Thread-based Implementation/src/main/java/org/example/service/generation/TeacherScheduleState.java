@@ -6,116 +6,270 @@ import org.example.model.TimeSlot;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Thread-safe state for tracking teacher schedules during generation
+ * Thread-safe state for tracking teacher schedules during generation.
+ * Guarded by a ReentrantLock (like the room and group states) so subject tasks
+ * running on virtual threads park instead of pinning their carrier thread.
+ *
+ * Availability is one int per teacher, day and week lane (bit h = hour h taken, lanes
+ * per WeekCycle), seeded on every lane from the compiled config schedule
+ * (Teacher.getScheduleMask). Placements themselves are kept by
+ * the schedulers (PlacementStore), so this state only tracks taken hours, plus the hours
+ * charged per teacher against MaxHoursPerWeek (TeacherWorkloadLedger, lock-free) and
+ * the free teachers of every registered eligible-teacher class (ResidualCapacity).
  */
 public class TeacherScheduleState {
-    private final Map<String, Map<String, List<Activity>>> teacherSchedules;
+    private final Map<String, int[]> occupied;
     private final Map<String, String> lastTeacherBuilding;
+    private final TeacherWorkloadLedger workload;
+    private final ResidualCapacity residual = new ResidualCapacity();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong releases = new AtomicLong();
 
     public TeacherScheduleState(Map<String, Teacher> teachers) {
-        this.teacherSchedules = new ConcurrentHashMap<>();
+        this.occupied = new ConcurrentHashMap<>();
         this.lastTeacherBuilding = new ConcurrentHashMap<>();
+        this.workload = new TeacherWorkloadLedger(teachers);
 
         teachers.forEach((name, teacher) -> {
-            Map<String, List<Activity>> schedule = new ConcurrentHashMap<>();
-            String[] days = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
-            for (String day : days) {
-                schedule.put(day, new CopyOnWriteArrayList<>());
-            }
-            
-            // Initial busy slots from teacher config
-            if (teacher.getSchedule() != null) {
-                teacher.getSchedule().forEach((day, slots) -> {
-                    String upperDay = day.toUpperCase();
-                    List<Activity> dayActivities = schedule.get(upperDay);
-                    if (dayActivities != null) {
-                        for (TimeSlot slot : slots) {
-                            // Extract start hour. Assuming format "HH:mm"
-                            try {
-                                int startHour = Integer.parseInt(slot.getStart().split(":")[0]);
-                                int endHour = Integer.parseInt(slot.getEnd().split(":")[0]);
-                                for (int h = startHour; h < endHour; h++) {
-                                    dayActivities.add(new Activity(
-                                        "BUSY", "N/A", name, "N/A", upperDay,
-                                        java.time.LocalTime.of(h, 0), java.time.LocalTime.of(h + 1, 0), "BUSY"
-                                    ));
-                                }
-                            } catch (Exception e) {
-                                // Ignore malformed slots
-                            }
-                        }
-                    }
-                });
-            }
-
-            teacherSchedules.put(name, schedule);
+            // Initial busy hours from teacher config
+            occupied.put(name, WeekCycle.spread(teacher.getScheduleMask()));
             // ConcurrentHashMap does not allow null values. Using empty string as placeholder.
             lastTeacherBuilding.put(name, "");
         });
     }
 
-    public synchronized boolean isTeacherAvailable(String teacherName, String day, int hour) {
-        if (teacherName == null) return true;
-        Map<String, List<Activity>> schedule = teacherSchedules.get(teacherName);
-        if (schedule == null) return true;
-        
-        // Normalize day to match keys initialized in constructor
-        String upperDay = day.toUpperCase();
-        List<Activity> dayActivities = schedule.get(upperDay);
-        if (dayActivities == null) return true;
+    /**
+     * Free in every week of the cycle
+     */
+    public boolean isTeacherAvailable(String teacherName, String day, int hour) {
+        return isTeacherFree(teacherName, TimeSlot.dayIndex(day), TimeSlot.hourMask(hour, hour + 1), WeekCycle.ALL);
+    }
+
+    /**
+     * None of `hourMask` is taken on the given week lanes of that day
+     */
+    public boolean isTeacherFree(String teacherName, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            if (teacherName == null) return true;
+            int[] row = occupied.get(teacherName);
+            if (row == null || dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return true;
+            return (WeekCycle.occupied(row, dayIndex, lanes) & hourMask) == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Both teachers have exactly the same busy hours in every week lane (symmetry check)
+     */
+    public boolean sameRows(String teacherA, String teacherB) {
+        lock.lock();
+        try {
+            int[] a = occupied.get(teacherA);
+            int[] b = occupied.get(teacherB);
+            return a != null && b != null && Arrays.equals(a, b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==== Residual capacity ====
+
+    /**
+     * Class id of an eligible-teacher list, for hasFreeTeacher / freeTeachers
+     */
+    public int teacherClass(List<Teacher> teachers) {
+        List<String> names = new ArrayList<>(teachers.size());
+        teachers.forEach(teacher -> names.add(teacher.getName()));
+        lock.lock();
+        try {
+            return residual.register(names, occupied);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Some teacher of the class is free in each hour of the slot (necessary, not sufficient)
+     */
+    public boolean hasFreeTeacher(int teacherClass, int dayIndex, int hourMask, int lanes) {
+        return freeTeachers(teacherClass, dayIndex, hourMask, lanes) > 0;
+    }
 
-        boolean available = dayActivities.stream()
-                .noneMatch(a -> {
-                    int start = a.startTime().getHour();
-                    int end = a.endTime().getHour();
-                    return hour >= start && hour < end;
-                });
-                
-        return available;
+    /**
+     * Fewest free teachers of the class over the hours of the slot
+     */
+    public int freeTeachers(int teacherClass, int dayIndex, int hourMask, int lanes) {
+        if (dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return 0;
+        lock.lock();
+        try {
+            return residual.minFree(teacherClass, dayIndex, hourMask, lanes);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void addActivity(String teacherName, Activity activity) {
+    public void addActivity(String teacherName, Activity activity) {
         if (teacherName == null || activity == null) return;
-        Map<String, List<Activity>> schedule = teacherSchedules.get(teacherName);
-        if (schedule == null) return;
-        
-        String upperDay = activity.day().toUpperCase();
-        List<Activity> dayActivities = schedule.get(upperDay);
-        if (dayActivities != null) {
-            dayActivities.add(activity);
+        lock.lock();
+        try {
+            if (!occupied.containsKey(teacherName)) return;
+            block(teacherName, TimeSlot.dayIndex(activity.day()),
+                    TimeSlot.hourMask(activity.startTime().getHour(), activity.endTime().getHour()),
+                    WeekCycle.lanes(activity.frequency()));
+
+            // Update last building if this is a real room activity
+            if (activity.roomId() != null && !activity.roomId().equals("N/A") && !activity.roomId().equals("BUSY")) {
+                // Find building from room ID (assuming room ID contains building or we can find it)
+                // For now, let's just use the activity room ID as a proxy for building/location
+                lastTeacherBuilding.put(teacherName, activity.roomId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark hours taken in every week (a placement, or hours committed by another process)
+     */
+    public void block(String teacherName, int dayIndex, int hourMask) {
+        block(teacherName, dayIndex, hourMask, WeekCycle.ALL);
+    }
+
+    /**
+     * Mark hours taken on the given week lanes
+     */
+    public void block(String teacherName, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            int[] row = occupied.get(teacherName);
+            if (row == null || dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+            for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                if ((lanes & (1 << lane)) == 0) continue;
+                int slot = WeekCycle.slot(dayIndex, lane);
+                residual.taken(teacherName, slot, hourMask & ~row[slot]);
+                row[slot] |= hourMask;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Block the hours only if none of them is taken, checked and marked under one lock
+     * @return false if another task took some of them since the caller's check
+     */
+    public boolean tryBlock(String teacherName, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            if (!isTeacherFree(teacherName, dayIndex, hourMask, lanes)) return false;
+            block(teacherName, dayIndex, hourMask, lanes);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Free hours a placement had taken (the search backjumped over it)
+     */
+    public void release(String teacherName, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            unblock(teacherName, dayIndex, hourMask, lanes);
+        } finally {
+            releases.incrementAndGet();
+            lock.unlock();
         }
-        
-        // Update last building if this is a real room activity
-        if (activity.roomId() != null && !activity.roomId().equals("N/A") && !activity.roomId().equals("BUSY")) {
-            // Find building from room ID (assuming room ID contains building or we can find it)
-            // For now, let's just use the activity room ID as a proxy for building/location
-            lastTeacherBuilding.put(teacherName, activity.roomId());
+    }
+
+    /**
+     * Undo a tryBlock whose placement then lost a race on another state. Not a release:
+     * no placement was undone, so releaseCount and the failures proven at it stay put
+     */
+    public void rollback(String teacherName, int dayIndex, int hourMask, int lanes) {
+        lock.lock();
+        try {
+            unblock(teacherName, dayIndex, hourMask, lanes);
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized List<Activity> getTeacherActivities(String teacherName) {
-        List<Activity> all = new ArrayList<>();
-        if (teacherName == null) return all;
-        
-        Map<String, List<Activity>> schedule = teacherSchedules.get(teacherName);
-        if (schedule != null) {
-            schedule.values().forEach(all::addAll);
+    private void unblock(String teacherName, int dayIndex, int hourMask, int lanes) {
+        int[] row = occupied.get(teacherName);
+        if (row == null || dayIndex < 0 || dayIndex >= TimeSlot.DAYS_PER_WEEK) return;
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((lanes & (1 << lane)) == 0) continue;
+            int slot = WeekCycle.slot(dayIndex, lane);
+            residual.freed(teacherName, slot, hourMask & row[slot]);
+            row[slot] &= ~hourMask;
         }
-        return all;
     }
 
-    public synchronized String getLastBuilding(String teacherName) {
-        if (teacherName == null) return "";
-        String building = lastTeacherBuilding.get(teacherName);
-        return building != null ? building : "";
+    /**
+     * Release calls so far; a failed search is only a proof while this has not moved
+     */
+    public long releaseCount() {
+        return releases.get();
+    }
+
+    // ==== Weekly hours ====
+
+    /**
+     * Charge placed hours if the teacher stays within MaxHoursPerWeek
+     */
+    public boolean tryChargeHours(String teacherName, int hours) {
+        return workload.tryCharge(teacherName, hours);
+    }
+
+    /**
+     * Charge hours committed elsewhere, without the limit check
+     */
+    public void chargeHours(String teacherName, int hours) {
+        workload.charge(teacherName, hours);
+    }
+
+    public void releaseHours(String teacherName, int hours) {
+        workload.release(teacherName, hours);
+        releases.incrementAndGet();
+    }
+
+    /**
+     * Give back hours charged for a placement that then lost its room (not a release)
+     */
+    public void refundHours(String teacherName, int hours) {
+        workload.release(teacherName, hours);
     }
 
-    public synchronized void setLastBuilding(String teacherName, String buildingId) {
-        if (teacherName != null && buildingId != null) {
-            lastTeacherBuilding.put(teacherName, buildingId);
+    public int remainingHours(String teacherName) {
+        return workload.remainingHours(teacherName);
+    }
+
+    public String getLastBuilding(String teacherName) {
+        lock.lock();
+        try {
+            if (teacherName == null) return "";
+            String building = lastTeacherBuilding.get(teacherName);
+            return building != null ? building : "";
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setLastBuilding(String teacherName, String buildingId) {
+        lock.lock();
+        try {
+            if (teacherName != null && buildingId != null) {
+                lastTeacherBuilding.put(teacherName, buildingId);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 }
@@ -0,0 +1,23 @@
+package org.example.service.generation;
+
+import java.util.Arrays;
+
+/**
+ * How a teacher is chosen for each requirement, selected with -Dscheduler.teachers (default RANDOM)
+ */
+public enum TeacherSelection {
+    /** A random eligible teacher with hours left, drawn while placing */
+    RANDOM,
+    /** Teachers pre-assigned by a min-cost flow over max hours (TeacherAssignment); random as fallback */
+    FLOW;
+
+    public static TeacherSelection fromConfig() {
+        String configured = System.getProperty(SchedulerConfig.TEACHER_SELECTION_PROPERTY, RANDOM.name());
+        try {
+            return valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown teacher selection '" + configured +
+                    "' (expected one of " + Arrays.toString(values()) + ")", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.service.generation;
+
+import org.example.model.Teacher;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * TeacherWorkloadLedger - Hours placed per teacher, checked against MaxHoursPerWeek.
+ *
+ * One atomic counter per teacher; tryCharge is a CAS loop, so subject tasks charge hours
+ * without taking the schedule-state lock. Hours are counted over one WeekCycle: the
+ * limit is MaxHoursPerWeek x cycle weeks, a weekly activity charges its duration once per
+ * week and an odd / even week one only in its own weeks (WeekCycle.cycleHours).
+ * A MaxHoursPerWeek of 0 (not configured) means no limit; unknown teachers are never limited.
+ */
+public class TeacherWorkloadLedger {
+    private final Map<String, Integer> index = new HashMap<>();
+    private final int[] maxHours;
+    private final AtomicIntegerArray used;
+
+    public TeacherWorkloadLedger(Map<String, Teacher> teachers) {
+        this.maxHours = new int[teachers.size()];
+        this.used = new AtomicIntegerArray(teachers.size());
+        int i = 0;
+        for (Map.Entry<String, Teacher> entry : teachers.entrySet()) {
+            int max = entry.getValue().getMaxHoursPerWeek();
+            maxHours[i] = (max > 0) ? max * WeekCycle.WEEKS : Integer.MAX_VALUE;
+            index.put(entry.getKey(), i++);
+        }
+    }
+
+    /**
+     * Charge `hours` if the teacher stays within the weekly maximum
+     * @return false (nothing charged) if the hours would exceed it
+     */
+    public boolean tryCharge(String teacherName, int hours) {
+        Integer i = index.get(teacherName);
+        if (i == null) return true;
+        while (true) {
+            int current = used.get(i);
+            if ((long) current + hours > maxHours[i]) return false;
+            if (used.compareAndSet(i, current, current + hours)) return true;
+        }
+    }
+
+    /**
+     * Charge unconditionally (hours committed elsewhere, e.g. by another worker)
+     */
+    public void charge(String teacherName, int hours) {
+        Integer i = index.get(teacherName);
+        if (i != null) used.addAndGet(i, hours);
+    }
+
+    public void release(String teacherName, int hours) {
+        Integer i = index.get(teacherName);
+        if (i != null) used.addAndGet(i, -hours);
+    }
+
+    public int usedHours(String teacherName) {
+        Integer i = index.get(teacherName);
+        return (i == null) ? 0 : used.get(i);
+    }
+
+    public int remainingHours(String teacherName) {
+        Integer i = index.get(teacherName);
+        if (i == null || maxHours[i] == Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        return Math.max(0, maxHours[i] - used.get(i));
+    }
+}
@@ -2,6 +2,9 @@ package org.example.service.generation;
 
 import org.example.context.TimetableDataContext;
 import org.example.model.*;
+import org.example.service.distributed.DistributedScheduler;
+import org.example.service.evolution.IslandOptimizer;
+import org.example.service.sat.SatScheduler;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -11,96 +14,189 @@ public class TimetableGenerator {
     private final TimetableDataContext context;
     private final GenerationMetrics metrics;
     private final ExecutorService executor;
+    private final GenerationMode mode;
 
     public record SubjectGenerationResult(
             String subjectName,
             boolean success,
-            int scheduledHours,
+            double scheduledHours,
             long executionTimeMs
+    ) {
+        /**
+         * Hours for display: whole hours without a fraction, biweekly halves as ".5"
+         */
+        public static String formatHours(double hours) {
+            return (hours == Math.rint(hours)) ? String.valueOf((long) hours) : String.valueOf(hours);
+        }
+    }
+
+    /**
+     * Everything generation needs before the first subject is scheduled:
+     * subject order (hardest first) and freshly built schedule states.
+     */
+    public record GenerationSetup(
+            List<String> sortedSubjects,
+            TeacherScheduleState teacherState,
+            RoomScheduleState roomState,
+            GroupScheduleState groupState
     ) {}
 
-    public TimetableGenerator(TimetableDataContext context) {
+    public TimetableGenerator(TimetableDataContext context, ExecutorService executor) {
+        this(context, executor, GenerationMode.fromConfig());
+    }
+
+    public TimetableGenerator(TimetableDataContext context, ExecutorService executor, GenerationMode mode) {
         this.context = context;
         this.metrics = new GenerationMetrics();
-        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.executor = executor;
+        this.mode = mode;
     }
 
-    public GenerationResult generate() throws InterruptedException {
-        long startTime = System.currentTimeMillis();
-        metrics.recordPhaseStart("GENERATION");
+    /**
+     * Build the generation setup on the shared pool. The three states and the workload
+     * plan are independent, so they are built in parallel; this can overlap with Phase-2 validation.
+     */
+    public CompletableFuture<GenerationSetup> prepareAsync() {
+        metrics.recordPhaseStart("SETUP");
 
-        try {
-            // Get all subjects and sort by required hours (hardest first)
+        // Get all subjects and sort by required hours (hardest first)
+        CompletableFuture<List<String>> sortedSubjects = CompletableFuture.supplyAsync(() -> {
             Map<String, Subject> subjects = context.getSubjects();
-            List<String> sortedSubjects = subjects.keySet().stream()
+            return subjects.keySet().stream()
                     .sorted((s1, s2) -> Integer.compare(
                             subjects.get(s2).getTotalHoursPerWeek(),
                             subjects.get(s1).getTotalHoursPerWeek()
                     ))
                     .collect(Collectors.toList());
+        }, executor);
+
+        // Initialize states
+        CompletableFuture<TeacherScheduleState> teacherState = CompletableFuture.supplyAsync(
+                () -> new TeacherScheduleState(context.getTeachers()), executor);
+        CompletableFuture<RoomScheduleState> roomState = CompletableFuture.supplyAsync(
+                () -> new RoomScheduleState(context.getPlaces(), roomAssignment()), executor);
+        CompletableFuture<GroupScheduleState> groupState = CompletableFuture.supplyAsync(
+                () -> new GroupScheduleState(context.getGroups(), StudentSetIndex.of(context)), executor);
+
+        // Compile the activity requirements (cached per context, so later runs reuse it),
+        // then pre-assign teachers when FLOW selection is configured
+        CompletableFuture<WorkloadPlan> workload = WorkloadPlan.prepareAsync(context, executor);
+        CompletableFuture<TeacherAssignment> assignment = workload.thenApplyAsync(
+                plan -> TeacherAssignment.forConfig(context), executor);
+
+        return CompletableFuture.allOf(sortedSubjects, teacherState, roomState, groupState, assignment)
+                .thenApply(ignored -> {
+                    metrics.recordPhaseEnd("SETUP");
+                    metrics.recordMetric("workload.requirements", String.valueOf(workload.join().getRequirementCount()));
+                    metrics.recordMetric("symmetry", context.getSymmetry().describe());
+                    if (assignment.join() != null) {
+                        metrics.recordMetric("teachers.assigned", String.valueOf(assignment.join().getAssignedCount()));
+                        metrics.recordMetric("teachers.unassigned", String.valueOf(assignment.join().getUnassignedCount()));
+                    }
+                    return new GenerationSetup(
+                            sortedSubjects.join(), teacherState.join(), roomState.join(), groupState.join());
+                });
+    }
 
-            // Initialize states
-            Map<String, Teacher> teachers = context.getTeachers();
-            Map<String, Group> groups = context.getGroups();
-
-            TeacherScheduleState teacherState = new TeacherScheduleState(teachers);
-            RoomScheduleState roomState = new RoomScheduleState(context.getPlaces());
-            GroupScheduleState groupState = new GroupScheduleState(groups);
-
-            // Schedule subjects in parallel
-            List<Future<List<Activity>>> futures = new ArrayList<>();
-            for (String subjectName : sortedSubjects) {
-                Subject subject = subjects.get(subjectName);
-                SubjectScheduler scheduler = new SubjectScheduler(
-                        subjectName, subject, context, teacherState, roomState, groupState
-                );
-                futures.add(executor.submit(scheduler::schedule));
+    /**
+     * MATCHING needs every subject to share one in-process room state
+     */
+    private RoomAssignment roomAssignment() {
+        RoomAssignment configured = RoomAssignment.fromConfig();
+        boolean sharedRooms = mode == GenerationMode.SHARED || mode == GenerationMode.PARTITIONED
+                || mode == GenerationMode.DSATUR;
+        return sharedRooms ? configured : RoomAssignment.GREEDY;
+    }
+
+    /**
+     * Whether some requirement has no session in the collected timetable
+     */
+    private static double requiredHours(List<WorkloadPlan.Requirement> requirements) {
+        return requirements.stream().mapToDouble(WorkloadPlan.Requirement::weeklyHours).sum();
+    }
+
+    private boolean hasUnplaced(Map<String, List<Session>> collected) {
+        WorkloadPlan workload = WorkloadPlan.of(context);
+        return collected.entrySet().stream()
+                .anyMatch(entry -> !workload.unplaced(entry.getKey(), entry.getValue()).isEmpty());
+    }
+
+    public GenerationResult generate() throws InterruptedException {
+        return generate(prepareAsync().join());
+    }
+
+    /**
+     * SHARED mode: every subject is a parallel task against the one global state
+     */
+    private Map<String, CompletableFuture<List<Session>>> scheduleShared(GenerationSetup setup) {
+        Map<String, CompletableFuture<List<Session>>> futures = new LinkedHashMap<>();
+        for (String subjectName : setup.sortedSubjects()) {
+            Subject subject = context.getSubjects().get(subjectName);
+            SubjectScheduler scheduler = new SubjectScheduler(
+                    subjectName, subject, context, setup.teacherState(), setup.roomState(), setup.groupState()
+            );
+            long submittedAt = System.nanoTime();
+            futures.put(subjectName, CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                List<Session> sessions = scheduler.schedule();
+                metrics.recordTaskTiming(subjectName, startedAt - submittedAt, System.nanoTime() - startedAt);
+                return sessions;
+            }, executor));
+        }
+        return futures;
+    }
+
+    public GenerationResult generate(GenerationSetup setup) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        metrics.recordPhaseStart("GENERATION");
+
+        try {
+            List<String> sortedSubjects = setup.sortedSubjects();
+
+            // Schedule subjects with the configured strategy
+            metrics.recordMetric("generationMode", mode.name());
+            Map<String, CompletableFuture<List<Session>>> futures = switch (mode) {
+                case SHARED -> scheduleShared(setup);
+                case PARTITIONED -> new PartitionedScheduler(context, metrics, executor)
+                        .schedule(sortedSubjects, setup.teacherState(), setup.roomState());
+                case OPTIMISTIC -> new OptimisticScheduler(context, metrics, executor)
+                        .schedule(sortedSubjects, setup.teacherState(), setup.roomState(), setup.groupState());
+                case DISTRIBUTED -> new DistributedScheduler(context, metrics)
+                        .schedule(sortedSubjects, setup.teacherState(), setup.roomState(), setup.groupState());
+                case SHARED_MEMORY -> new SharedMemoryScheduler(context, metrics, executor)
+                        .schedule(sortedSubjects, setup.teacherState(), setup.roomState(), setup.groupState());
+                case DSATUR -> new DSaturScheduler(context, metrics, executor)
+                        .schedule(sortedSubjects, setup.teacherState(), setup.roomState(), setup.groupState());
+                case SAT -> new SatScheduler(context, metrics, executor)
+                        .schedule(sortedSubjects, setup.teacherState(), setup.roomState(), setup.groupState());
+            };
+            // Modes that split subjects across processes only return this process's share
+            List<String> scheduledSubjects = new ArrayList<>(futures.keySet());
+
+            // Matched rooms may still move until the last subject is placed
+            boolean resolveRooms = setup.roomState().getAssignment() == RoomAssignment.MATCHING;
+            if (resolveRooms) {
+                CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                        .exceptionally(ignored -> null).join();
             }
 
             // Collect results
-            List<Activity> allActivities = Collections.synchronizedList(new ArrayList<>());
+            ActivityStorage storage = ActivityStorage.fromConfig();
+            metrics.recordMetric("storage", storage.name());
+            metrics.recordMetric("rooms", setup.roomState().getAssignment().name());
+            List<Session> allSessions = storage.newSessionList();
             List<SubjectGenerationResult> subjectResults = Collections.synchronizedList(new ArrayList<>());
+            Map<String, List<Session>> collected = new LinkedHashMap<>();
             
-            for (int i = 0; i < sortedSubjects.size(); i++) {
-                String subjectName = sortedSubjects.get(i);
-                Future<List<Activity>> future = futures.get(i);
+            for (String subjectName : scheduledSubjects) {
+                CompletableFuture<List<Session>> future = futures.get(subjectName);
                 long subStartTime = System.currentTimeMillis();
                 try {
-                    List<Activity> subjectActivities = future.get();
-                    if (subjectActivities != null && !subjectActivities.isEmpty()) {
-                        allActivities.addAll(subjectActivities);
-                    }
-                    
-                    Subject subj = subjects.get(subjectName);
-                    int requiredHours = (subj != null) ? subj.getTotalHoursPerWeek() : 0;
-                    
-                    // A subject is successful if we scheduled AT LEAST the required hours
-                    // Note: activities list contains duplicates for courses (one per group)
-                    // We need to count unique teacher-time slots.
-                    long uniqueScheduledHours = subjectActivities == null ? 0 : 
-                        subjectActivities.stream()
-                            .filter(a -> a.groupId().equals("ALL_GROUPS") || (!a.activityType().equals("COURSE") && !a.activityType().equals("BUSY") && !a.activityType().equals("CLOSED")))
-                            .mapToInt(Activity::getDurationHours)
-                            .sum();
-
-                    // Success rate check (strict 100% or allow near 100%)
-                    boolean subjectSuccess = uniqueScheduledHours >= (requiredHours - 0.01);
-                    
-                    if (!subjectSuccess) {
-                        String reason = (subjectActivities == null || subjectActivities.isEmpty()) 
-                                ? "No activities scheduled." 
-                                : "Only " + uniqueScheduledHours + "/" + requiredHours + " hours scheduled.";
-                        System.err.println("Subject " + subjectName + " failed: " + reason);
-                        metrics.recordError("Subject " + subjectName + " failed: " + reason);
+                    List<Session> subjectSessions = future.get();
+                    if (resolveRooms && subjectSessions != null) {
+                        subjectSessions = setup.roomState().resolveRooms(subjectSessions);
                     }
-                    
-                    subjectResults.add(new SubjectGenerationResult(
-                            subjectName,
-                            subjectSuccess,
-                            (int) uniqueScheduledHours,
-                            System.currentTimeMillis() - subStartTime
-                    ));
-                    
+                    collected.put(subjectName, subjectSessions == null ? List.of() : subjectSessions);
                 } catch (ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMsg;
@@ -138,6 +234,54 @@ public class TimetableGenerator {
                 }
             }
 
+            // Near misses are finished in place, when this process holds every subject
+            LnsRepair repair = new LnsRepair(context, metrics, executor);
+            if (repair.isEnabled() && scheduledSubjects.size() == sortedSubjects.size() && hasUnplaced(collected)) {
+                metrics.recordPhaseStart("REPAIR");
+                collected = repair.repair(collected);
+                metrics.recordPhaseEnd("REPAIR");
+            }
+
+            // Soft constraints are polished the same way, on whatever was placed
+            IslandOptimizer optimizer = new IslandOptimizer(context, metrics, executor);
+            if (optimizer.isEnabled() && scheduledSubjects.size() == sortedSubjects.size()) {
+                metrics.recordPhaseStart("EVOLUTION");
+                collected = optimizer.optimize(collected);
+                metrics.recordPhaseEnd("EVOLUTION");
+            }
+
+            WorkloadPlan workload = WorkloadPlan.of(context);
+            for (Map.Entry<String, List<Session>> entry : collected.entrySet()) {
+                String subjectName = entry.getKey();
+                List<Session> subjectSessions = entry.getValue();
+                allSessions.addAll(subjectSessions);
+                
+                // Measured against the compiled workload, as hasUnplaced: a course is one
+                // requirement for all its groups, so summing sessions against the per-group
+                // Subject.getTotalHoursPerWeek would count it once per group
+                List<WorkloadPlan.Requirement> missing = workload.unplaced(subjectName, subjectSessions);
+                double requiredHours = requiredHours(workload.forSubject(subjectName));
+                double scheduledHours = requiredHours - requiredHours(missing);
+                boolean subjectSuccess = missing.isEmpty();
+
+                if (!subjectSuccess) {
+                    String reason = (subjectSessions == null || subjectSessions.isEmpty())
+                            ? "No activities scheduled."
+                            : missing.size() + " activities unplaced, "
+                                + SubjectGenerationResult.formatHours(scheduledHours) + "/"
+                                + SubjectGenerationResult.formatHours(requiredHours) + " hours scheduled.";
+                    System.err.println("Subject " + subjectName + " failed: " + reason);
+                    metrics.recordError("Subject " + subjectName + " failed: " + reason);
+                }
+                
+                subjectResults.add(new SubjectGenerationResult(
+                        subjectName,
+                        subjectSuccess,
+                        scheduledHours,
+                        metrics.getTaskExecutionTimeMs(subjectName)
+                ));
+            }
+
             metrics.recordPhaseEnd("GENERATION");
             long totalTime = System.currentTimeMillis() - startTime;
             metrics.setTotalTime(totalTime);
@@ -147,10 +291,8 @@ public class TimetableGenerator {
                     .mapToDouble(SubjectGenerationResult::scheduledHours)
                     .sum();
             
-            double totalRequired = sortedSubjects.stream()
-                    .map(subjects::get)
-                    .filter(Objects::nonNull)
-                    .mapToDouble(Subject::getTotalHoursPerWeek)
+            double totalRequired = scheduledSubjects.stream()
+                    .mapToDouble(subjectName -> requiredHours(workload.forSubject(subjectName)))
                     .sum();
             
             double successRate = (totalRequired > 0) ? (totalScheduled / totalRequired) * 100.0 : 0.0;
@@ -167,7 +309,7 @@ public class TimetableGenerator {
                 fatalError = "Incomplete schedule (Success Rate: " + String.format("%.1f%%", successRate) + ")";
             }
             
-            return new GenerationResult(allActivities, allActivities.size(), successRate, totalTime, metrics, subjectResults, fatalError);
+            return new GenerationResult(allSessions, allSessions.size(), successRate, totalTime, metrics, subjectResults, fatalError);
         } catch (Exception e) {
             java.io.StringWriter sw = new java.io.StringWriter();
             java.io.PrintWriter pw = new java.io.PrintWriter(sw);
@@ -181,15 +323,4 @@ public class TimetableGenerator {
             metrics.printSummary();
         }
     }
-
-    public void shutdown() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-        }
-    }
 }
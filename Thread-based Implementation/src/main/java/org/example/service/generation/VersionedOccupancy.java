@@ -0,0 +1,202 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.TimeSlot;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * VersionedOccupancy - Copy-on-write occupancy grid for optimistic scheduling.
+ *
+ * Occupancy is one int per (resource, day, week lane): bit h set = hour h taken, lanes
+ * per WeekCycle; groups have one row per subgroup lane (SubgroupLanes.key). Readers grab the
+ * current immutable Snapshot without locking and plan against it. Writers commit a
+ * batch of claims: under a short lock every claim is re-checked against the latest
+ * snapshot, non-conflicting ones are applied to copies of the touched rows, and a new
+ * snapshot with version + 1 is published. Conflicting items are handed back for retry.
+ */
+public class VersionedOccupancy {
+
+    public enum Resource { TEACHER, GROUP, ROOM }
+
+    /**
+     * A claim on one resource for a set of hours on one day (day index into SchedulerConfig.DAYS),
+     * on the week lanes of its frequency
+     */
+    public record Claim(Resource resource, String key, int day, int hourMask, int lanes) {
+        /** Every week of the cycle */
+        public Claim(Resource resource, String key, int day, int hourMask) {
+            this(resource, key, day, hourMask, WeekCycle.ALL);
+        }
+    }
+
+    /**
+     * Immutable view of the whole grid at one version
+     */
+    public record Snapshot(long version, Map<String, int[]> teachers, Map<String, int[]> groups, Map<String, int[]> rooms)
+            implements OccupancyView {
+        public Map<String, int[]> rows(Resource resource) {
+            return switch (resource) {
+                case TEACHER -> teachers;
+                case GROUP -> groups;
+                case ROOM -> rooms;
+            };
+        }
+
+        @Override
+        public int occupied(Resource resource, String key, int day) {
+            return occupied(resource, key, day, WeekCycle.ALL);
+        }
+
+        @Override
+        public int occupied(Resource resource, String key, int day, int lanes) {
+            int[] row = rows(resource).get(key);
+            return row == null ? 0 : WeekCycle.occupied(row, day, lanes);
+        }
+
+        public boolean isFree(Claim claim) {
+            return (occupied(claim.resource(), claim.key(), claim.day(), claim.lanes()) & claim.hourMask()) == 0;
+        }
+    }
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private volatile Snapshot current;
+
+    private VersionedOccupancy(Snapshot initial) {
+        this.current = initial;
+    }
+
+    /**
+     * Seed the grid from freshly built schedule states, so BUSY (teacher config) and
+     * CLOSED (place schedule) hours mean exactly what they mean for SubjectScheduler.
+     */
+    public static VersionedOccupancy seed(TimetableDataContext context, TeacherScheduleState teacherState,
+                                          RoomScheduleState roomState, GroupScheduleState groupState) {
+        Map<String, int[]> teachers = new HashMap<>();
+        context.getTeachers().keySet().forEach(name ->
+                teachers.put(name, seedRow((day, hour) -> !teacherState.isTeacherAvailable(name, day, hour))));
+
+        Map<String, int[]> groups = new HashMap<>();
+        context.getGroups().forEach((id, group) -> {
+            int[] row = seedRow((day, hour) -> !groupState.isGroupAvailable(id, day, hour));
+            SubgroupLanes.keys(group, id).forEach(key -> groups.put(key, row.clone()));
+        });
+
+        Map<String, int[]> rooms = new HashMap<>();
+        context.getPlaces().values().forEach(place -> {
+            if (place.getRooms() == null) return;
+            place.getRooms().keySet().forEach(roomId ->
+                    rooms.put(roomId, seedRow((day, hour) -> !roomState.isRoomAvailable(roomId, day, hour))));
+        });
+
+        return new VersionedOccupancy(new Snapshot(0, teachers, groups, rooms));
+    }
+
+    private interface HourProbe {
+        boolean isTaken(String day, int hour);
+    }
+
+    private static int[] seedRow(HourProbe probe) {
+        int[] weekly = new int[SchedulerConfig.DAYS.length];
+        for (int d = 0; d < SchedulerConfig.DAYS.length; d++) {
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                if (probe.isTaken(SchedulerConfig.DAYS[d], hour)) {
+                    weekly[d] |= 1 << hour;
+                }
+            }
+        }
+        return WeekCycle.spread(weekly);
+    }
+
+    /**
+     * Bit mask for hours [startHour, endHour)
+     */
+    public static int hourMask(int startHour, int endHour) {
+        return TimeSlot.hourMask(startHour, endHour);
+    }
+
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Validate and apply a batch planned against snapshot `plannedVersion`.
+     * Items whose claims overlap the latest state are skipped and returned for retry.
+     * @return rejected items (empty if the whole batch was committed)
+     */
+    public <T> List<T> commit(long plannedVersion, List<T> batch, Function<T, List<Claim>> claimsOf) {
+        List<T> rejected = new ArrayList<>();
+        commitLock.lock();
+        try {
+            Snapshot latest = current;
+            EnumMap<Resource, Map<String, int[]>> writable = new EnumMap<>(Resource.class);
+
+            for (T item : batch) {
+                List<Claim> claims = claimsOf.apply(item);
+                // Nothing was committed since the plan was made - no overlap possible
+                boolean conflict = latest.version() != plannedVersion
+                        && claims.stream().anyMatch(claim -> overlaps(rowFor(latest, writable, claim, false), claim));
+                // ...but items of one batch may still overlap each other
+                conflict = conflict || claims.stream().anyMatch(claim -> writable.containsKey(claim.resource())
+                        && writable.get(claim.resource()).containsKey(claim.key())
+                        && overlaps(writable.get(claim.resource()).get(claim.key()), claim));
+
+                if (conflict) {
+                    conflicts.incrementAndGet();
+                    rejected.add(item);
+                    continue;
+                }
+                for (Claim claim : claims) {
+                    WeekCycle.block(rowFor(latest, writable, claim, true), claim.day(), claim.lanes(), claim.hourMask());
+                }
+            }
+
+            if (!writable.isEmpty()) {
+                current = new Snapshot(latest.version() + 1,
+                        merge(latest.teachers(), writable.get(Resource.TEACHER)),
+                        merge(latest.groups(), writable.get(Resource.GROUP)),
+                        merge(latest.rooms(), writable.get(Resource.ROOM)));
+                commits.incrementAndGet();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        return rejected;
+    }
+
+    private static boolean overlaps(int[] row, Claim claim) {
+        return (WeekCycle.occupied(row, claim.day(), claim.lanes()) & claim.hourMask()) != 0;
+    }
+
+    /**
+     * Row for a claim: the copy already written in this commit, a fresh copy (forWrite), or the snapshot row
+     */
+    private static int[] rowFor(Snapshot latest, EnumMap<Resource, Map<String, int[]>> writable, Claim claim, boolean forWrite) {
+        Map<String, int[]> copies = writable.get(claim.resource());
+        if (copies != null && copies.containsKey(claim.key())) {
+            return copies.get(claim.key());
+        }
+        int[] row = latest.rows(claim.resource()).get(claim.key());
+        if (!forWrite) {
+            return row != null ? row : new int[WeekCycle.SLOTS];
+        }
+        int[] copy = row != null ? row.clone() : new int[WeekCycle.SLOTS];
+        writable.computeIfAbsent(claim.resource(), k -> new HashMap<>()).put(claim.key(), copy);
+        return copy;
+    }
+
+    private static Map<String, int[]> merge(Map<String, int[]> base, Map<String, int[]> changed) {
+        if (changed == null || changed.isEmpty()) return base;
+        Map<String, int[]> merged = new HashMap<>(base);
+        merged.putAll(changed);
+        return merged;
+    }
+
+    public long getCommitCount() { return commits.get(); }
+    public long getConflictCount() { return conflicts.get(); }
+}
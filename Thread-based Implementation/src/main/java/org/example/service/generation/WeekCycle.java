@@ -0,0 +1,98 @@
+package org.example.service.generation;
+
+import org.example.model.TimeSlot;
+
+/**
+ * WeekCycle - Week lanes of the timetable cycle, set with -Dscheduler.weekCycle (default 2).
+ *
+ * Occupancy is kept per (day, lane): lane w is week w of an N-week cycle. A weekly
+ * activity takes every lane, an "Odd Week" one the even-indexed lanes (weeks 1, 3, ...)
+ * and an "Even Week" one the others, so an odd-week and an even-week laboratory can share
+ * a room, teacher or group slot. N = 1 puts every activity on one lane (biweekly
+ * activities then block both weeks, the old behaviour). N must be 1 or even, at most 16.
+ */
+public final class WeekCycle {
+    public static final int WEEKS = configuredWeeks();
+
+    /** Lane mask of a weekly activity */
+    public static final int ALL = (1 << WEEKS) - 1;
+
+    /** Slots per row: one per (day, lane) */
+    public static final int SLOTS = TimeSlot.DAYS_PER_WEEK * WEEKS;
+
+    private static final int ODD_LANES = ALL & 0x5555;
+    private static final int EVEN_LANES = ALL & 0xAAAA;
+
+    private WeekCycle() {}
+
+    private static int configuredWeeks() {
+        String configured = System.getProperty(SchedulerConfig.WEEK_CYCLE_PROPERTY, "2");
+        int weeks;
+        try {
+            weeks = Integer.parseInt(configured.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Week cycle '" + configured + "' is not a number", e);
+        }
+        if (weeks < 1 || weeks > 16 || (weeks > 1 && weeks % 2 != 0)) {
+            throw new IllegalArgumentException("Week cycle must be 1 or an even number up to 16, got " + weeks);
+        }
+        return weeks;
+    }
+
+    /**
+     * Lanes an activity of `frequency` takes ("Weekly", "Odd Week", "Even Week")
+     */
+    public static int lanes(String frequency) {
+        if (WEEKS == 1 || frequency == null) return ALL;
+        return switch (frequency) {
+            case "Odd Week" -> ODD_LANES;
+            case "Even Week" -> EVEN_LANES;
+            default -> ALL;
+        };
+    }
+
+    /**
+     * Row index of (day, lane)
+     */
+    public static int slot(int dayIndex, int lane) {
+        return dayIndex * WEEKS + lane;
+    }
+
+    /**
+     * Row with a weekly per-day mask (e.g. a config schedule) on every lane
+     */
+    public static int[] spread(int[] weekly) {
+        int[] row = new int[SLOTS];
+        for (int d = 0; d < TimeSlot.DAYS_PER_WEEK && d < weekly.length; d++) {
+            block(row, d, ALL, weekly[d]);
+        }
+        return row;
+    }
+
+    /**
+     * Occupancy of the given lanes of one day, OR-ed together
+     */
+    public static int occupied(int[] row, int dayIndex, int lanes) {
+        int taken = 0;
+        for (int lane = 0; lane < WEEKS; lane++) {
+            if ((lanes & (1 << lane)) != 0) taken |= row[slot(dayIndex, lane)];
+        }
+        return taken;
+    }
+
+    /**
+     * Mark hours taken on the given lanes of one day
+     */
+    public static void block(int[] row, int dayIndex, int lanes, int hourMask) {
+        for (int lane = 0; lane < WEEKS; lane++) {
+            if ((lanes & (1 << lane)) != 0) row[slot(dayIndex, lane)] |= hourMask;
+        }
+    }
+
+    /**
+     * Hours an activity takes over one whole cycle (duration x lanes)
+     */
+    public static int cycleHours(int duration, String frequency) {
+        return duration * Integer.bitCount(lanes(frequency));
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.service.generation;
+
+import org.example.context.SymmetryClasses;
+import org.example.context.TimetableDataContext;
+import org.example.model.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * WorkloadPlan - Every activity the timetable needs, compiled once per data context.
+ *
+ * Java counterpart of MPI/service/workload_generator.cpp: Subject x Group is expanded into
+ * immutable requirements (courses for all groups of a subject together, seminars and
+ * laboratories per split, chunked by activity length, 0.5 frequency as Odd/Even weeks).
+ * Each requirement also carries its eligible teachers (capable of that activity type and
+ * speaking the language it is taught in, from the context's TeacherCapabilityIndex) and
+ * eligible rooms (flags and capacity, smallest first), so solvers never re-derive them
+ * while probing slots, and its StudentSet (StudentSetIndex). An elective (Subject
+ * "Students") is held once for its whole mixed enrolment, every activity type alike.
+ */
+public class WorkloadPlan {
+    private static final Map<TimetableDataContext, WorkloadPlan> CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * One activity to place
+     */
+    public record Requirement(
+            int id,
+            String subjectName,
+            String activityType,
+            List<Group> groups,
+            List<String> groupIds,
+            int duration,
+            String subgroup,
+            String frequency,
+            int minCapacity,
+            List<Teacher> teachers,
+            List<Room> rooms,
+            StudentSet students
+    ) {
+        /**
+         * Hours per week, a biweekly activity counting half (as Session.getWeeklyHours)
+         */
+        public double weeklyHours() {
+            return switch (frequency) {
+                case "Odd Week", "Even Week" -> duration / 2.0;
+                default -> duration;
+            };
+        }
+    }
+
+    private final Map<String, List<Requirement>> bySubject;
+    private final int requirementCount;
+
+    private WorkloadPlan(Map<String, List<Requirement>> bySubject) {
+        this.bySubject = Collections.unmodifiableMap(bySubject);
+        this.requirementCount = bySubject.values().stream().mapToInt(List::size).sum();
+    }
+
+    // ==== Compilation ====
+
+    /**
+     * The plan of `context`, compiled on first use
+     */
+    public static WorkloadPlan of(TimetableDataContext context) {
+        WorkloadPlan plan = CACHE.get(context);
+        if (plan != null) return plan;
+        Map<String, List<Requirement>> bySubject = new LinkedHashMap<>();
+        List<Room> rooms = allRooms(context);
+        context.getSubjects().forEach((name, subject) -> bySubject.put(name, compileSubject(context, rooms, name, subject)));
+        return cache(context, new WorkloadPlan(renumber(bySubject)));
+    }
+
+    /**
+     * Compile on `executor`, one task per subject (used during generation setup)
+     */
+    public static CompletableFuture<WorkloadPlan> prepareAsync(TimetableDataContext context, Executor executor) {
+        WorkloadPlan cached = CACHE.get(context);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        List<Room> rooms = allRooms(context);
+        Map<String, CompletableFuture<List<Requirement>>> tasks = new LinkedHashMap<>();
+        context.getSubjects().forEach((name, subject) -> tasks.put(name,
+                CompletableFuture.supplyAsync(() -> compileSubject(context, rooms, name, subject), executor)));
+
+        return CompletableFuture.allOf(tasks.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<String, List<Requirement>> bySubject = new LinkedHashMap<>();
+                    tasks.forEach((name, task) -> bySubject.put(name, task.join()));
+                    return cache(context, new WorkloadPlan(renumber(bySubject)));
+                });
+    }
+
+    private static WorkloadPlan cache(TimetableDataContext context, WorkloadPlan plan) {
+        WorkloadPlan existing = CACHE.putIfAbsent(context, plan);
+        return existing != null ? existing : plan;
+    }
+
+    /**
+     * Give requirements dense ids in subject order
+     */
+    private static Map<String, List<Requirement>> renumber(Map<String, List<Requirement>> bySubject) {
+        Map<String, List<Requirement>> numbered = new LinkedHashMap<>();
+        int id = 0;
+        for (Map.Entry<String, List<Requirement>> entry : bySubject.entrySet()) {
+            List<Requirement> requirements = new ArrayList<>(entry.getValue().size());
+            for (Requirement r : entry.getValue()) {
+                requirements.add(new Requirement(id++, r.subjectName(), r.activityType(), r.groups(), r.groupIds(),
+                        r.duration(), r.subgroup(), r.frequency(), r.minCapacity(), r.teachers(), r.rooms(), r.students()));
+            }
+            numbered.put(entry.getKey(), List.copyOf(requirements));
+        }
+        return numbered;
+    }
+
+    private static List<Room> allRooms(TimetableDataContext context) {
+        List<Room> rooms = new ArrayList<>();
+        for (Place place : context.getPlaces().values()) {
+            if (place == null || place.getRooms() == null) continue;
+            for (Room room : place.getRooms().values()) {
+                if (room != null && room.getId() != null) rooms.add(room);
+            }
+        }
+        // Interchangeable rooms (SymmetryClasses) stay adjacent and are always tried in the same order
+        SymmetryClasses symmetry = context.getSymmetry();
+        rooms.sort(Comparator.comparingInt(Room::getCapacity)
+                .thenComparing(symmetry.canonicalOrder(Room::getId, symmetry::roomClass)));
+        return rooms;
+    }
+
+    private static List<Requirement> compileSubject(TimetableDataContext context, List<Room> rooms,
+                                                    String subjectName, Subject subject) {
+        List<Requirement> requirements = new ArrayList<>();
+        List<Group> groups = context.getGroupsForSubject(subjectName).stream()
+                .map(context.getGroups()::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (subject == null || groups.isEmpty()) return requirements;
+        StudentSetIndex students = StudentSetIndex.of(context);
+        if (subject.isElective()) {
+            addElectiveRequirements(requirements, context, rooms, students, subjectName, subject, groups);
+            return requirements;
+        }
+
+        int courseLength = subject.getCourseLenght();
+        if (courseLength > 0) {
+            int totalStudents = groups.stream().mapToInt(Group::getSize).sum();
+            List<Teacher> teachers = context.getEligibleTeachers(subjectName, "COURSE", courseLanguage(subject, groups));
+            List<Room> courseRooms = eligibleRooms(rooms, "COURSE", totalStudents);
+            List<String> groupIds = groups.stream().map(Group::getId).collect(Collectors.toUnmodifiableList());
+            StudentSet attending = students.setFor(subjectName, groupIds, "COURSE", "");
+            for (int i = 0; i < subject.getCourseHours() / courseLength; i++) {
+                requirements.add(new Requirement(0, subjectName, "COURSE", List.copyOf(groups), groupIds,
+                        courseLength, "", "Weekly", totalStudents, teachers, courseRooms, attending));
+            }
+        }
+
+        for (Group group : groups) {
+            String language = splitLanguage(subject, group);
+            addSplitRequirements(requirements, rooms, students, subjectName, "SEMINAR", group,
+                    context.getEligibleTeachers(subjectName, "SEMINAR", language),
+                    group.getSeminarySplit(), subject.getSeminarsPerWeek(), subject.getSeminarLenght(), subject.getSeminarHours());
+            addSplitRequirements(requirements, rooms, students, subjectName, "LABORATORY", group,
+                    context.getEligibleTeachers(subjectName, "LABORATORY", language),
+                    group.getLaboratorySplitCount(), subject.getLaboratoriesPerWeek(), subject.getLaboratoriesLenght(),
+                    subject.getLaboratoryHours());
+        }
+        return requirements;
+    }
+
+    private static void addSplitRequirements(List<Requirement> requirements, List<Room> rooms, StudentSetIndex students,
+                                             String subjectName, String activityType, Group group, List<Teacher> teachers,
+                                             int splits, double frequencyPerWeek, int duration, int hoursPerSplit) {
+        if (splits <= 0) return;
+        int minCapacity = "SEMINAR".equals(activityType) ? group.getSeminaryGroupSize() : group.getLaboratoryGroupSize();
+        List<Room> splitRooms = eligibleRooms(rooms, activityType, minCapacity);
+        List<Group> groups = List.of(group);
+        List<String> groupIds = List.of(group.getId());
+
+        for (int i = 0; i < splits; i++) {
+            String subgroup = (splits > 1) ? String.valueOf(i + 1) : "";
+            StudentSet attending = students.setFor(subjectName, groupIds, activityType, subgroup);
+            // 0.5 frequency means one activity every 2 weeks, alternating Odd/Even per split
+            String biweekly = (i % 2 == 0) ? "Odd Week" : "Even Week";
+            addChunks(requirements, new Requirement(0, subjectName, activityType, groups, groupIds, duration,
+                    subgroup, "Weekly", minCapacity, teachers, splitRooms, attending), frequencyPerWeek, biweekly, hoursPerSplit);
+        }
+    }
+
+    /**
+     * An elective: every activity type once for the whole enrolment, sized by its student blocks
+     */
+    private static void addElectiveRequirements(List<Requirement> requirements, TimetableDataContext context,
+                                                List<Room> rooms, StudentSetIndex students, String subjectName,
+                                                Subject subject, List<Group> groups) {
+        List<String> groupIds = groups.stream().map(Group::getId).collect(Collectors.toUnmodifiableList());
+        String language = courseLanguage(subject, groups);
+        List<TypeLoad> loads = List.of(
+                new TypeLoad("COURSE", subject.getCoursesPerWeek(), subject.getCourseLenght(), subject.getCourseHours()),
+                new TypeLoad("SEMINAR", subject.getSeminarsPerWeek(), subject.getSeminarLenght(), subject.getSeminarHours()),
+                new TypeLoad("LABORATORY", subject.getLaboratoriesPerWeek(), subject.getLaboratoriesLenght(),
+                        subject.getLaboratoryHours()));
+        for (TypeLoad load : loads) {
+            if (load.duration() <= 0) continue;
+            StudentSet attending = students.setFor(subjectName, groupIds, load.activityType(), "");
+            int minCapacity = students.studentCount(attending);
+            addChunks(requirements, new Requirement(0, subjectName, load.activityType(), List.copyOf(groups), groupIds,
+                    load.duration(), "", "Weekly", minCapacity,
+                    context.getEligibleTeachers(subjectName, load.activityType(), language),
+                    eligibleRooms(rooms, load.activityType(), minCapacity), attending), load.perWeek(), "Odd Week", load.hours());
+        }
+    }
+
+    private record TypeLoad(String activityType, double perWeek, int duration, int hours) {}
+
+    /**
+     * `template` as one biweekly session (0.5 per week), or weekly sessions chunked by its duration
+     */
+    private static void addChunks(List<Requirement> requirements, Requirement template, double frequencyPerWeek,
+                                  String biweekly, int hours) {
+        Requirement t = template;
+        if (frequencyPerWeek == 0.5) {
+            requirements.add(new Requirement(0, t.subjectName(), t.activityType(), t.groups(), t.groupIds(), t.duration(),
+                    t.subgroup(), biweekly, t.minCapacity(), t.teachers(), t.rooms(), t.students()));
+            return;
+        }
+        for (int scheduled = 0; scheduled < hours; ) {
+            int currentDuration = Math.min(t.duration(), hours - scheduled);
+            if (currentDuration <= 0) break;
+            requirements.add(new Requirement(0, t.subjectName(), t.activityType(), t.groups(), t.groupIds(), currentDuration,
+                    t.subgroup(), "Weekly", t.minCapacity(), t.teachers(), t.rooms(), t.students()));
+            scheduled += currentDuration;
+        }
+    }
+
+    /**
+     * A course is taught in the subject's language; without one, in the language all its
+     * groups share (null = any teacher)
+     */
+    private static String courseLanguage(Subject subject, List<Group> groups) {
+        if (subject.getLanguage() != null && !subject.getLanguage().isBlank()) return subject.getLanguage();
+        Set<String> languages = groups.stream().map(Group::getLanguage).collect(Collectors.toSet());
+        return languages.size() == 1 ? languages.iterator().next() : null;
+    }
+
+    /**
+     * Seminars and laboratories follow the group's language, falling back to the subject's
+     */
+    private static String splitLanguage(Subject subject, Group group) {
+        return (group.getLanguage() != null && !group.getLanguage().isBlank()) ? group.getLanguage() : subject.getLanguage();
+    }
+
+    /**
+     * Rooms allowed for the activity type with enough seats, smallest first (best fit)
+     */
+    private static List<Room> eligibleRooms(List<Room> roomsBySize, String activityType, int minCapacity) {
+        return roomsBySize.stream()
+                .filter(room -> room.getCapacity() >= minCapacity)
+                .filter(room -> !("COURSE".equals(activityType) && room.hasFlag("noCourse")))
+                .filter(room -> !("SEMINAR".equals(activityType) && room.hasFlag("noSeminar")))
+                .filter(room -> !("LABORATORY".equals(activityType) && room.hasFlag("noLaboratory")))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    // ==== Access ====
+
+    /**
+     * Requirements of one subject (empty if it has no groups)
+     */
+    public List<Requirement> forSubject(String subjectName) {
+        return bySubject.getOrDefault(subjectName, List.of());
+    }
+
+    /**
+     * All requirements in id order
+     */
+    public List<Requirement> getRequirements() {
+        List<Requirement> all = new ArrayList<>(requirementCount);
+        bySubject.values().forEach(all::addAll);
+        return all;
+    }
+
+    public int getRequirementCount() {
+        return requirementCount;
+    }
+
+    /**
+     * Pair the sessions of one subject with its requirements (same type, groups, subgroup,
+     * duration and frequency), e.g. to replay a finished timetable
+     * @return requirements no session was paired with, in plan order
+     */
+    public List<Requirement> match(String subjectName, List<Session> sessions,
+                                   BiConsumer<Requirement, Session> matched, Consumer<Session> unmatched) {
+        Map<List<Object>, Deque<Session>> open = new HashMap<>();
+        for (Session session : sessions) {
+            open.computeIfAbsent(matchKey(session.activityType(), session.groupIds(), session.subgroup(),
+                    session.getDurationHours(), session.frequency()), k -> new ArrayDeque<>()).add(session);
+        }
+        List<Requirement> unplaced = new ArrayList<>();
+        for (Requirement requirement : forSubject(subjectName)) {
+            Deque<Session> candidates = open.get(matchKey(requirement.activityType(), requirement.groupIds(),
+                    requirement.subgroup(), requirement.duration(), requirement.frequency()));
+            Session session = (candidates == null) ? null : candidates.poll();
+            if (session == null) {
+                unplaced.add(requirement);
+            } else {
+                matched.accept(requirement, session);
+            }
+        }
+        open.values().forEach(rest -> rest.forEach(unmatched));
+        return unplaced;
+    }
+
+    /**
+     * Requirements of one subject no session covers
+     */
+    public List<Requirement> unplaced(String subjectName, List<Session> sessions) {
+        return match(subjectName, sessions, (requirement, session) -> {}, session -> {});
+    }
+
+    private static List<Object> matchKey(String activityType, List<String> groupIds, String subgroup, int duration,
+                                         String frequency) {
+        return List.of(activityType.toUpperCase(), List.copyOf(groupIds), subgroup, duration, frequency);
+    }
+}
@@ -0,0 +1,320 @@
+package org.example.service.sat;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.*;
+import org.example.service.generation.*;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SatScheduler - The whole workload as one CNF (TimetableEncoding), solved by the in-tree SatSolver.
+ *
+ * Phases, all against one deadline (-Dscheduler.sat.timeoutMs):
+ * - Complete: assume every requirement placed. A portfolio of solvers (different seeds and
+ *   phase policies, -Dscheduler.sat.portfolio, one executor task each) races on it and
+ *   the first definite answer stops the others. SAT is a complete timetable, teacher hour
+ *   budgets included (encoded as weighted cardinality constraints); UNSAT proves that none
+ *   exists for the pre-assigned teachers, the hours already taken and the budgets left.
+ * - Maximal subset (if not complete): on the winning solver, incrementally, requirements
+ *   are added to the assumptions scarcest first (fewest starts) and kept while satisfiable.
+ * - Soft: the same for the weighted soft preferences of the placed requirements, heaviest
+ *   first (preferred building of the teacher, then no late end).
+ * Each step is a greedy MaxSAT step with a conflict budget, so the result is maximal (up
+ * to the budget), not maximum. The last model
+ * is decoded onto the schedule states; teacher hour budgets are charged there as well, so
+ * a state changed since encoding cannot push a teacher over its hours.
+ */
+public class SatScheduler {
+    private static final long DEFAULT_TIMEOUT_MS = 60_000;
+    /** Conflicts one greedy MaxSAT step may spend before its requirement / preference is given up */
+    private static final long STEP_CONFLICTS = 500;
+
+    private final TimetableDataContext context;
+    private final GenerationMetrics metrics;
+    private final ExecutorService executor;
+    private final WorkloadPlan workload;
+    private final TeacherAssignment assignment;
+    private final long timeoutMs;
+    private final int portfolio;
+
+    public SatScheduler(TimetableDataContext context, GenerationMetrics metrics, ExecutorService executor) {
+        this.context = context;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.workload = WorkloadPlan.of(context);
+        this.assignment = TeacherAssignment.of(context);
+        this.timeoutMs = Long.getLong(SchedulerConfig.SAT_TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_MS);
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.portfolio = Math.max(1, Integer.getInteger(SchedulerConfig.SAT_PORTFOLIO_PROPERTY, Math.min(4, cores)));
+    }
+
+    /**
+     * Encode and race the portfolio; every subject's future completes with the decoded model
+     */
+    public Map<String, CompletableFuture<List<Session>>> schedule(List<String> sortedSubjects,
+                                                                   TeacherScheduleState teacherState,
+                                                                   RoomScheduleState roomState,
+                                                                   GroupScheduleState groupState) {
+        long submittedAt = System.nanoTime();
+        long deadline = submittedAt + timeoutMs * 1_000_000;
+        Run run = new Run(sortedSubjects, teacherState, roomState, groupState, deadline);
+
+        CompletableFuture<TimetableEncoding> encoded = CompletableFuture.supplyAsync(run::encode, executor);
+        // The race completes from the solver tasks themselves; nothing waits on a pool worker
+        CompletableFuture<Map<String, PlacementStore>> solved = encoded
+                .thenCompose(run::race)
+                .thenApplyAsync(winner -> {
+                    long startedAt = System.nanoTime();
+                    Map<String, PlacementStore> placements = run.finish(winner);
+                    sortedSubjects.forEach(subjectName ->
+                            metrics.recordTaskTiming(subjectName, 0, System.nanoTime() - submittedAt));
+                    metrics.recordMetric("sat.finishMs", String.valueOf((System.nanoTime() - startedAt) / 1_000_000));
+                    return placements;
+                }, executor);
+
+        Map<String, CompletableFuture<List<Session>>> results = new LinkedHashMap<>();
+        for (String subjectName : sortedSubjects) {
+            results.put(subjectName, solved.thenApply(placements -> placements.get(subjectName).toSessions()));
+        }
+        return results;
+    }
+
+    // ==== One run ====
+
+    /**
+     * A portfolio member and its answer to "everything placed"
+     */
+    private record Attempt(int member, SatSolver solver, SatSolver.Result result) {}
+
+    private class Run {
+        private final List<String> subjects;
+        private final TeacherScheduleState teacherState;
+        private final RoomScheduleState roomState;
+        private final GroupScheduleState groupState;
+        private final long deadline;
+        private final AtomicBoolean decided = new AtomicBoolean();
+        private TimetableEncoding encoding;
+        private int[] everything;
+        private int overBudget;
+
+        Run(List<String> subjects, TeacherScheduleState teacherState, RoomScheduleState roomState,
+            GroupScheduleState groupState, long deadline) {
+            this.subjects = subjects;
+            this.teacherState = teacherState;
+            this.roomState = roomState;
+            this.groupState = groupState;
+            this.deadline = deadline;
+        }
+
+        TimetableEncoding encode() {
+            long startedAt = System.nanoTime();
+            List<Requirement> all = new ArrayList<>();
+            subjects.forEach(subjectName -> all.addAll(workload.forSubject(subjectName)));
+            Map<String, String> buildingOf = new HashMap<>();
+            context.getPlaces().values().forEach(place -> {
+                if (place.getRooms() != null) place.getRooms().keySet().forEach(roomId -> buildingOf.put(roomId, place.getName()));
+            });
+            encoding = new TimetableEncoding(all, assignment, context.getSymmetry(), buildingOf,
+                    teacherState, roomState, groupState);
+            everything = Arrays.stream(encoding.placed).filter(v -> v != 0).map(TimetableEncoding::pos).toArray();
+
+            metrics.recordMetric("sat.requirements", String.valueOf(all.size()));
+            metrics.recordMetric("sat.vars", String.valueOf(encoding.variableCount()));
+            metrics.recordMetric("sat.clauses", String.valueOf(encoding.clauses.size()));
+            metrics.recordMetric("sat.symmetryClauses", String.valueOf(encoding.symmetryClauses));
+            metrics.recordMetric("sat.budgetClauses", String.valueOf(encoding.budgetClauses));
+            metrics.recordMetric("sat.encodeMs", String.valueOf((System.nanoTime() - startedAt) / 1_000_000));
+            return encoding;
+        }
+
+        /**
+         * Every member solves "everything placed"; the first SAT / UNSAT wins and stops the rest
+         */
+        CompletableFuture<Attempt> race(TimetableEncoding encoding) {
+            CompletableFuture<Attempt> winner = new CompletableFuture<>();
+            List<CompletableFuture<Attempt>> members = new ArrayList<>();
+            for (int i = 0; i < portfolio; i++) {
+                int member = i;
+                members.add(CompletableFuture.supplyAsync(() -> {
+                    SatSolver solver = new SatSolver(member * 7919L + 1, member % 2 == 1);
+                    encoding.loadInto(solver);
+                    SatSolver.Result result = solver.solve(everything, () -> decided.get() || timedOut());
+                    Attempt attempt = new Attempt(member, solver, result);
+                    if (result != SatSolver.Result.UNKNOWN && decided.compareAndSet(false, true)) winner.complete(attempt);
+                    return attempt;
+                }, executor));
+            }
+            // Nobody decided (deadline): continue on the first member
+            CompletableFuture.allOf(members.toArray(CompletableFuture[]::new)).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    winner.completeExceptionally(failure);
+                } else {
+                    winner.complete(members.get(0).join());
+                }
+            });
+            return winner;
+        }
+
+        Map<String, PlacementStore> finish(Attempt winner) {
+            SatSolver solver = winner.solver();
+            metrics.recordMetric("sat.portfolio", String.valueOf(portfolio));
+            metrics.recordMetric("sat.winner", String.valueOf(winner.member()));
+            metrics.recordMetric("sat.result", winner.result().name());
+            metrics.recordMetric("sat.raceConflicts", String.valueOf(solver.conflictCount()));
+            switch (winner.result()) {
+                case UNSAT -> System.err.println("SAT: no complete timetable exists for the pre-assigned teachers ("
+                        + "proved in " + solver.conflictCount() + " conflicts); placing a maximal subset.");
+                case UNKNOWN -> System.err.println("SAT: no complete timetable found within " + timeoutMs + " ms.");
+                case SAT -> { }
+            }
+            long infeasible = Arrays.stream(encoding.placed).filter(v -> v == 0).count();
+            metrics.recordMetric("sat.infeasible", String.valueOf(infeasible));
+            if (infeasible > 0) {
+                System.err.println("SAT: " + infeasible + " requirement(s) have no assigned teacher or no free start and room at all.");
+            }
+
+            List<Integer> assumed = new ArrayList<>();
+            boolean haveModel = winner.result() == SatSolver.Result.SAT;
+            int solves = 1;
+            if (haveModel) {
+                for (int lit : everything) assumed.add(lit);
+            } else {
+                for (int r : byScarcity()) {
+                    assumed.add(TimetableEncoding.pos(encoding.placed[r]));
+                    solves++;
+                    if (step(solver, assumed) == SatSolver.Result.SAT) {
+                        haveModel = true;
+                    } else {
+                        assumed.remove(assumed.size() - 1);
+                    }
+                }
+            }
+
+            // Heaviest preferences first (stratified), each kept if still satisfiable
+            int softWeight = 0, softTotal = 0;
+            List<TimetableEncoding.Soft> softs = new ArrayList<>(encoding.softs);
+            softs.sort(Comparator.comparingInt((TimetableEncoding.Soft p) -> -p.weight()));
+            for (TimetableEncoding.Soft preference : softs) {
+                if (!haveModel || !solver.modelValue(encoding.placed[preference.r()])) continue;
+                softTotal += preference.weight();
+                assumed.add(TimetableEncoding.pos(preference.var()));
+                if (solver.modelValue(preference.var())) {
+                    softWeight += preference.weight();
+                    continue;
+                }
+                solves++;
+                if (step(solver, assumed) == SatSolver.Result.SAT) {
+                    softWeight += preference.weight();
+                } else {
+                    assumed.remove(assumed.size() - 1);
+                }
+            }
+            metrics.recordMetric("sat.solves", String.valueOf(solves));
+            metrics.recordMetric("sat.conflicts", String.valueOf(solver.conflictCount()));
+            metrics.recordMetric("sat.softWeight", softWeight + "/" + softTotal);
+            return decode(solver, haveModel);
+        }
+
+        /**
+         * One greedy MaxSAT step; a step that runs out of conflicts counts as unsatisfiable
+         */
+        private SatSolver.Result step(SatSolver solver, List<Integer> assumed) {
+            long limit = solver.conflictCount() + STEP_CONFLICTS;
+            return solver.solve(toArray(assumed), () -> timedOut() || solver.conflictCount() > limit);
+        }
+
+        /**
+         * Placeable requirements, fewest feasible starts first
+         */
+        private List<Integer> byScarcity() {
+            List<Integer> order = new ArrayList<>();
+            int[] starts = new int[encoding.requirements.length];
+            for (int r = 0; r < encoding.requirements.length; r++) {
+                if (encoding.placed[r] == 0) continue;
+                order.add(r);
+                for (int v : encoding.start[r]) {
+                    if (v != 0) starts[r]++;
+                }
+            }
+            order.sort(Comparator.comparingInt((Integer r) -> starts[r]).thenComparingInt(r -> r));
+            return order;
+        }
+
+        // ==== Decoding ====
+
+        private Map<String, PlacementStore> decode(SatSolver solver, boolean haveModel) {
+            Map<String, PlacementStore> placements = new LinkedHashMap<>();
+            subjects.forEach(subjectName -> placements.put(subjectName, new PlacementStore()));
+            List<Requirement> unplaced = new ArrayList<>();
+            for (int r = 0; r < encoding.requirements.length; r++) {
+                Requirement requirement = encoding.requirements[r];
+                if (!haveModel || encoding.placed[r] == 0 || !solver.modelValue(encoding.placed[r])
+                        || !commit(r, solver, placements.get(requirement.subjectName()))) {
+                    unplaced.add(requirement);
+                }
+            }
+            metrics.recordMetric("sat.unplaced", String.valueOf(unplaced.size()));
+            metrics.recordMetric("sat.overBudget", String.valueOf(overBudget));
+            if (overBudget > 0) {
+                System.err.println("SAT: " + overBudget + " requirement(s) placed by the model were dropped because their"
+                        + " teacher ran out of weekly hours after encoding.");
+            }
+
+            Map<String, Set<String>> failedTypes = new LinkedHashMap<>();
+            unplaced.forEach(r -> failedTypes.computeIfAbsent(r.subjectName(), k -> new LinkedHashSet<>()).add(r.activityType()));
+            failedTypes.forEach((subjectName, types) -> types.forEach(type ->
+                    SubjectScheduler.reportUnplaced(subjectName, type)));
+            return placements;
+        }
+
+        /**
+         * Block the model's start and room, re-checked against the states
+         */
+        private boolean commit(int r, SatSolver solver, PlacementStore store) {
+            Requirement requirement = encoding.requirements[r];
+            int b = first(encoding.start[r], solver);
+            int k = first(encoding.room[r], solver);
+            if (b < 0 || k < 0) return false;
+            int day = b / TimetableEncoding.HOURS;
+            int startHour = SchedulerConfig.FIRST_HOUR + b % TimetableEncoding.HOURS;
+            int hours = TimeSlot.hourMask(startHour, startHour + requirement.duration());
+            int lanes = WeekCycle.lanes(requirement.frequency());
+            String teacherName = encoding.teachers[r].getName();
+            String roomId = requirement.rooms().get(k).getId();
+            if (!teacherState.isTeacherFree(teacherName, day, hours, lanes)
+                    || !roomState.isRoomFree(roomId, day, hours, lanes)
+                    || !groupState.isFree(requirement.students(), day, hours, lanes)) {
+                return false;
+            }
+            int charge = WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+            if (!teacherState.tryChargeHours(teacherName, charge)) {
+                overBudget++;
+                return false;
+            }
+            teacherState.block(teacherName, day, hours, lanes);
+            roomState.block(roomId, day, hours, lanes);
+            groupState.block(requirement.students(), day, hours, lanes);
+            store.add(requirement.subjectName(), requirement.groupIds(), requirement.subgroup(), teacherName, roomId,
+                    day, startHour, requirement.duration(), requirement.activityType(), requirement.frequency());
+            return true;
+        }
+
+        private static int first(int[] vars, SatSolver solver) {
+            for (int i = 0; i < vars.length; i++) {
+                if (vars[i] != 0 && solver.modelValue(vars[i])) return i;
+            }
+            return -1;
+        }
+
+        private boolean timedOut() {
+            return System.nanoTime() > deadline;
+        }
+
+        private static int[] toArray(List<Integer> literals) {
+            return literals.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
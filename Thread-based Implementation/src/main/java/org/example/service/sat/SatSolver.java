@@ -0,0 +1,621 @@
+package org.example.service.sat;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * SatSolver - Small embeddable CDCL SAT solver, no dependencies.
+ *
+ * MiniSat-style: two watched literals, 1-UIP clause learning with local minimization,
+ * non-chronological backjumping, VSIDS variable order on a binary heap, phase saving,
+ * Luby restarts and periodic removal of half of the learnt clauses (glue clauses with
+ * LBD <= 2 are kept). Solving under assumptions makes it incremental: clauses learnt in
+ * one call stay valid for the next, so MaxSAT loops reuse them.
+ *
+ * Literals are ints: variable v >= 1 is 2v (positive) or 2v + 1 (negative), see lit().
+ * A seed perturbs the initial order and the default phase, so several solvers over the
+ * same clauses make a portfolio. One instance is not thread-safe.
+ */
+public class SatSolver {
+    public enum Result { SAT, UNSAT, UNKNOWN }
+
+    private static final int RESTART_BASE = 100;
+    private static final double VAR_DECAY = 0.95;
+    private static final double CLAUSE_DECAY = 0.999;
+
+    private static final class Clause {
+        final int[] lits;
+        final boolean learnt;
+        int lbd;
+        double activity;
+        boolean deleted;
+
+        Clause(int[] lits, boolean learnt) {
+            this.lits = lits;
+            this.learnt = learnt;
+        }
+    }
+
+    private final Random random;
+    private final boolean randomPhase;
+
+    private int vars;
+    private byte[] value = new byte[16];          // per variable: 1 true, -1 false, 0 unassigned
+    private int[] level = new int[16];
+    private Clause[] reason = new Clause[16];
+    private boolean[] phase = new boolean[16];
+    private boolean[] seen = new boolean[16];
+    private double[] activity = new double[16];
+    private final List<WatchList> watches = new ArrayList<>(List.of(new WatchList(), new WatchList()));
+
+    private final List<Clause> learnts = new ArrayList<>();
+    private int[] trail = new int[16];
+    private int trailSize;
+    private int qhead;
+    private final IntStack trailLim = new IntStack();
+    private final VarHeap order = new VarHeap();
+    private final VarHeap preferred = new VarHeap();   // suggested variables, branched on before the rest
+    private boolean[] suggested = new boolean[16];
+
+    private double varInc = 1;
+    private double clauseInc = 1;
+    private int clauseCount;
+    private double maxLearnts;
+    private boolean inconsistent;               // an empty clause was derived at level 0
+    private long conflicts;
+    private boolean[] model = new boolean[0];
+
+    public SatSolver(long seed, boolean randomPhase) {
+        this.random = new Random(seed);
+        this.randomPhase = randomPhase;
+    }
+
+    // ==== Problem ====
+
+    public static int lit(int var, boolean positive) {
+        return var << 1 | (positive ? 0 : 1);
+    }
+
+    public static int negate(int lit) {
+        return lit ^ 1;
+    }
+
+    private static int var(int lit) {
+        return lit >>> 1;
+    }
+
+    /**
+     * A fresh variable (numbered from 1)
+     */
+    public int newVar() {
+        int v = ++vars;
+        if (v >= value.length) {
+            int size = value.length * 2;
+            value = Arrays.copyOf(value, size);
+            level = Arrays.copyOf(level, size);
+            reason = Arrays.copyOf(reason, size);
+            phase = Arrays.copyOf(phase, size);
+            seen = Arrays.copyOf(seen, size);
+            activity = Arrays.copyOf(activity, size);
+            suggested = Arrays.copyOf(suggested, size);
+            trail = Arrays.copyOf(trail, size);
+        }
+        watches.add(new WatchList());
+        watches.add(new WatchList());
+        phase[v] = randomPhase && random.nextInt(8) == 0;
+        activity[v] = random.nextDouble() * 1e-5;
+        order.insert(v);
+        return v;
+    }
+
+    /**
+     * Decision hint: `lit` is tried true first, and its variable is branched on before any
+     * variable without a hint (priority orders the hinted ones until conflicts take over)
+     */
+    public void suggest(int lit, double priority) {
+        int v = var(lit);
+        phase[v] = (lit & 1) == 0;
+        activity[v] += priority;
+        if (!suggested[v]) {
+            suggested[v] = true;
+            if (order.contains(v)) order.remove(v);
+            if (value[v] == 0) preferred.insert(v);
+        } else if (preferred.contains(v)) {
+            preferred.increased(v);
+        }
+    }
+
+    public int variableCount() {
+        return vars;
+    }
+
+    public int clauseCount() {
+        return clauseCount;
+    }
+
+    public long conflictCount() {
+        return conflicts;
+    }
+
+    /**
+     * Add a clause at decision level 0
+     * @return false if the clause set is now unsatisfiable
+     */
+    public boolean addClause(int... lits) {
+        if (inconsistent) return false;
+        cancelUntil(0);
+        int[] sorted = lits.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int l : sorted) {
+            if (valueOf(l) > 0 || (size > 0 && sorted[size - 1] == negate(l))) return true;   // satisfied / tautology
+            if (valueOf(l) < 0 || (size > 0 && sorted[size - 1] == l)) continue;             // false / duplicate
+            sorted[size++] = l;
+        }
+        if (size == 0) {
+            inconsistent = true;
+            return false;
+        }
+        clauseCount++;
+        if (size == 1) {
+            enqueue(sorted[0], null);
+            if (propagate() != null) inconsistent = true;
+            return !inconsistent;
+        }
+        attach(new Clause(Arrays.copyOf(sorted, size), false));
+        return true;
+    }
+
+    /**
+     * Value of a variable in the last model
+     */
+    public boolean modelValue(int var) {
+        return var < model.length && model[var];
+    }
+
+    public boolean modelValueOfLit(int lit) {
+        return modelValue(var(lit)) == ((lit & 1) == 0);
+    }
+
+    // ==== Search ====
+
+    /**
+     * Solve under assumptions (literals forced true for this call only)
+     * @param stop polled between restarts and every few conflicts; true gives UNKNOWN
+     */
+    public Result solve(int[] assumptions, BooleanSupplier stop) {
+        if (inconsistent) return Result.UNSAT;
+        if (propagate() != null) {
+            inconsistent = true;
+            return Result.UNSAT;
+        }
+        maxLearnts = Math.max(maxLearnts, clauseCount / 3.0 + 1000);
+        Result result = Result.UNKNOWN;
+        for (int restart = 0; result == Result.UNKNOWN; restart++) {
+            if (stop.getAsBoolean()) break;
+            result = search((long) (luby(2, restart) * RESTART_BASE), assumptions, stop);
+        }
+        if (result == Result.SAT) {
+            model = new boolean[vars + 1];
+            for (int v = 1; v <= vars; v++) {
+                model[v] = value[v] > 0;
+            }
+        }
+        cancelUntil(0);
+        return result;
+    }
+
+    private Result search(long conflictBudget, int[] assumptions, BooleanSupplier stop) {
+        long budget = conflictBudget;
+        while (true) {
+            Clause conflict = propagate();
+            if (conflict != null) {
+                conflicts++;
+                if (decisionLevel() == 0) {
+                    inconsistent = true;
+                    return Result.UNSAT;
+                }
+                int[] learnt = analyze(conflict);
+                int backLevel = (learnt.length == 1) ? 0 : level[var(learnt[1])];
+                cancelUntil(backLevel);
+                if (learnt.length == 1) {
+                    enqueue(learnt[0], null);
+                } else {
+                    Clause clause = new Clause(learnt, true);
+                    clause.lbd = lbd(learnt);
+                    attach(clause);
+                    learnts.add(clause);
+                    bumpClause(clause);
+                    enqueue(learnt[0], clause);
+                }
+                varInc /= VAR_DECAY;
+                clauseInc /= CLAUSE_DECAY;
+                if (--budget <= 0 || (conflicts & 255) == 0 && stop.getAsBoolean()) {
+                    cancelUntil(0);
+                    return Result.UNKNOWN;
+                }
+                continue;
+            }
+
+            if (learnts.size() - trailSize >= maxLearnts) {
+                reduceLearnts();
+                maxLearnts *= 1.1;
+            }
+
+            int next = 0;
+            while (decisionLevel() < assumptions.length) {
+                int p = assumptions[decisionLevel()];
+                if (valueOf(p) > 0) {
+                    trailLim.push(trailSize);          // already true: an empty level keeps the indexing
+                } else if (valueOf(p) < 0) {
+                    return Result.UNSAT;               // under these assumptions
+                } else {
+                    next = p;
+                    break;
+                }
+            }
+            if (next == 0) {
+                int v = pickBranchVar();
+                if (v == 0) return Result.SAT;
+                next = lit(v, phase[v]);
+            }
+            trailLim.push(trailSize);
+            enqueue(next, null);
+        }
+    }
+
+    private int pickBranchVar() {
+        while (!preferred.isEmpty()) {
+            int v = preferred.removeMax();
+            if (value[v] == 0) return v;
+        }
+        while (!order.isEmpty()) {
+            int v = order.removeMax();
+            if (value[v] == 0) return v;
+        }
+        return 0;
+    }
+
+    // ==== Propagation ====
+
+    private Clause propagate() {
+        while (qhead < trailSize) {
+            int falseLit = negate(trail[qhead++]);
+            WatchList ws = watches.get(falseLit);
+            Clause[] cs = ws.clauses;
+            int[] blockers = ws.blockers;
+            int i = 0, j = 0, n = ws.size;
+            while (i < n) {
+                // A true blocker satisfies the clause without touching it
+                int blocker = blockers[i];
+                if (valueOf(blocker) > 0) {
+                    cs[j] = cs[i];
+                    blockers[j++] = blockers[i++];
+                    continue;
+                }
+                Clause c = cs[i++];
+                if (c.deleted) continue;
+                int[] lits = c.lits;
+                if (lits[0] == falseLit) {
+                    lits[0] = lits[1];
+                    lits[1] = falseLit;
+                }
+                int first = lits[0];
+                if (first != blocker && valueOf(first) > 0) {
+                    cs[j] = c;
+                    blockers[j++] = first;
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < lits.length; k++) {
+                    if (valueOf(lits[k]) >= 0) {
+                        lits[1] = lits[k];
+                        lits[k] = falseLit;
+                        watches.get(lits[1]).add(c, first);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) continue;
+                cs[j] = c;
+                blockers[j++] = first;
+                if (valueOf(first) < 0) {
+                    while (i < n) {
+                        cs[j] = cs[i];
+                        blockers[j++] = blockers[i++];
+                    }
+                    ws.truncate(j);
+                    qhead = trailSize;
+                    return c;
+                }
+                enqueue(first, c);
+            }
+            ws.truncate(j);
+        }
+        return null;
+    }
+
+    private void enqueue(int lit, Clause from) {
+        int v = var(lit);
+        value[v] = (byte) ((lit & 1) == 0 ? 1 : -1);
+        level[v] = decisionLevel();
+        reason[v] = from;
+        trail[trailSize++] = lit;
+    }
+
+    private int valueOf(int lit) {
+        int v = value[var(lit)];
+        return (lit & 1) == 0 ? v : -v;
+    }
+
+    private void attach(Clause c) {
+        watches.get(c.lits[0]).add(c, c.lits[1]);
+        watches.get(c.lits[1]).add(c, c.lits[0]);
+    }
+
+    private int decisionLevel() {
+        return trailLim.size();
+    }
+
+    private void cancelUntil(int targetLevel) {
+        if (decisionLevel() <= targetLevel) return;
+        int bound = trailLim.get(targetLevel);
+        for (int i = trailSize - 1; i >= bound; i--) {
+            int v = var(trail[i]);
+            phase[v] = value[v] > 0;
+            value[v] = 0;
+            reason[v] = null;
+            VarHeap heap = heapOf(v);
+            if (!heap.contains(v)) heap.insert(v);
+        }
+        trailSize = bound;
+        qhead = bound;
+        trailLim.truncate(targetLevel);
+    }
+
+    // ==== Conflict analysis ====
+
+    /**
+     * 1-UIP learnt clause: asserting literal first, highest remaining level second
+     */
+    private int[] analyze(Clause conflict) {
+        IntStack learnt = new IntStack();
+        learnt.push(0);
+        int pathCount = 0;
+        int p = 0;
+        int index = trailSize - 1;
+        Clause c = conflict;
+        do {
+            if (c.learnt) bumpClause(c);
+            for (int k = (p == 0) ? 0 : 1; k < c.lits.length; k++) {
+                int q = c.lits[k];
+                int v = var(q);
+                if (seen[v] || level[v] == 0) continue;
+                bumpVar(v);
+                seen[v] = true;
+                if (level[v] >= decisionLevel()) {
+                    pathCount++;
+                } else {
+                    learnt.push(q);
+                }
+            }
+            while (!seen[var(trail[index--])]) { }
+            p = trail[index + 1];
+            c = reason[var(p)];
+            seen[var(p)] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnt.set(0, negate(p));
+        int[] marked = learnt.toArray();
+
+        // Local minimization: drop literals implied by the others
+        int size = 1;
+        for (int i = 1; i < learnt.size(); i++) {
+            int q = learnt.get(i);
+            Clause why = reason[var(q)];
+            boolean redundant = why != null;
+            if (redundant) {
+                for (int k = 1; k < why.lits.length; k++) {
+                    int u = var(why.lits[k]);
+                    if (!seen[u] && level[u] > 0) {
+                        redundant = false;
+                        break;
+                    }
+                }
+            }
+            if (!redundant) learnt.set(size++, q);
+        }
+        for (int i = 1; i < marked.length; i++) {
+            seen[var(marked[i])] = false;
+        }
+        int[] result = Arrays.copyOf(learnt.toArray(), size);
+
+        // Highest level among the rest goes to index 1 (watched, decides the backjump)
+        int max = 1;
+        for (int i = 2; i < result.length; i++) {
+            if (level[var(result[i])] > level[var(result[max])]) max = i;
+        }
+        if (result.length > 1) {
+            int tmp = result[1];
+            result[1] = result[max];
+            result[max] = tmp;
+        }
+        return result;
+    }
+
+    private int lbd(int[] lits) {
+        Set<Integer> levels = new HashSet<>();
+        for (int l : lits) levels.add(level[var(l)]);
+        return levels.size();
+    }
+
+    private void bumpVar(int v) {
+        if ((activity[v] += varInc) > 1e100) {
+            for (int u = 1; u <= vars; u++) activity[u] *= 1e-100;
+            varInc *= 1e-100;
+        }
+        VarHeap heap = heapOf(v);
+        if (heap.contains(v)) heap.increased(v);
+    }
+
+    private VarHeap heapOf(int v) {
+        return suggested[v] ? preferred : order;
+    }
+
+    private void bumpClause(Clause c) {
+        if ((c.activity += clauseInc) > 1e20) {
+            for (Clause learnt : learnts) learnt.activity *= 1e-20;
+            clauseInc *= 1e-20;
+        }
+    }
+
+    /**
+     * Drop the less active half of the learnt clauses, except glue clauses and reasons
+     */
+    private void reduceLearnts() {
+        learnts.sort(Comparator.comparingDouble(c -> c.activity));
+        int half = learnts.size() / 2;
+        List<Clause> kept = new ArrayList<>(learnts.size() - half);
+        for (int i = 0; i < learnts.size(); i++) {
+            Clause c = learnts.get(i);
+            boolean locked = reason[var(c.lits[0])] == c && valueOf(c.lits[0]) > 0;
+            if (i < half && c.lbd > 2 && !locked) {
+                c.deleted = true;
+            } else {
+                kept.add(c);
+            }
+        }
+        learnts.clear();
+        learnts.addAll(kept);
+    }
+
+    private static double luby(double y, int x) {
+        int size = 1, seq = 0;
+        while (size < x + 1) {
+            seq++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != x) {
+            size = (size - 1) >> 1;
+            seq--;
+            x = x % size;
+        }
+        return Math.pow(y, seq);
+    }
+
+    // ==== Helpers ====
+
+    /**
+     * Clauses watching one literal, each with a blocker literal (another literal of the clause)
+     */
+    private static final class WatchList {
+        Clause[] clauses = new Clause[4];
+        int[] blockers = new int[4];
+        int size;
+
+        void add(Clause c, int blocker) {
+            if (size == clauses.length) {
+                clauses = Arrays.copyOf(clauses, size * 2);
+                blockers = Arrays.copyOf(blockers, size * 2);
+            }
+            clauses[size] = c;
+            blockers[size++] = blocker;
+        }
+
+        void truncate(int newSize) {
+            Arrays.fill(clauses, newSize, size, null);
+            size = newSize;
+        }
+    }
+
+    private static final class IntStack {
+        private int[] data = new int[16];
+        private int size;
+
+        void push(int x) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = x;
+        }
+
+        int get(int i) { return data[i]; }
+        void set(int i, int x) { data[i] = x; }
+        int size() { return size; }
+        void truncate(int newSize) { size = newSize; }
+        int[] toArray() { return Arrays.copyOf(data, size); }
+    }
+
+    /**
+     * Max-heap of variables by activity
+     */
+    private final class VarHeap {
+        private int[] heap = new int[16];
+        private int[] position = new int[16];       // index in heap + 1, 0 if absent
+        private int size;
+
+        boolean isEmpty() { return size == 0; }
+
+        boolean contains(int v) { return v < position.length && position[v] != 0; }
+
+        void insert(int v) {
+            if (v >= position.length) position = Arrays.copyOf(position, Math.max(v + 1, position.length * 2));
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            heap[size] = v;
+            position[v] = ++size;
+            up(size - 1);
+        }
+
+        void increased(int v) {
+            up(position[v] - 1);
+        }
+
+        void remove(int v) {
+            int i = position[v] - 1;
+            position[v] = 0;
+            int last = heap[--size];
+            if (i == size) return;
+            heap[i] = last;
+            position[last] = i + 1;
+            up(i);
+            down(position[last] - 1);
+        }
+
+        int removeMax() {
+            int top = heap[0];
+            position[top] = 0;
+            heap[0] = heap[--size];
+            if (size > 0) {
+                position[heap[0]] = 1;
+                down(0);
+            }
+            return top;
+        }
+
+        private void up(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (activity[heap[parent]] >= activity[v]) break;
+                heap[i] = heap[parent];
+                position[heap[i]] = i + 1;
+                i = parent;
+            }
+            heap[i] = v;
+            position[v] = i + 1;
+        }
+
+        private void down(int i) {
+            int v = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && activity[heap[child + 1]] > activity[heap[child]]) child++;
+                if (activity[heap[child]] <= activity[v]) break;
+                heap[i] = heap[child];
+                position[heap[i]] = i + 1;
+                i = child;
+            }
+            heap[i] = v;
+            position[v] = i + 1;
+        }
+    }
+}
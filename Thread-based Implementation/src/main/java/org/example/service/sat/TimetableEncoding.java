@@ -0,0 +1,511 @@
+package org.example.service.sat;
+
+import org.example.context.SymmetryClasses;
+import org.example.model.*;
+import org.example.service.generation.*;
+import org.example.service.generation.WorkloadPlan.Requirement;
+
+import java.util.*;
+
+/**
+ * TimetableEncoding - CNF of the compiled workload, built once and loaded into each solver.
+ *
+ * Variables per requirement r (its teacher is the TeacherAssignment flow's):
+ * - placed[r]: r is in the timetable (assumed true for a complete timetable)
+ * - start[r][b]: r starts at b = day * HOUR_SPAN + (hour - FIRST_HOUR), only for starts where
+ *   the teacher and students are free and some eligible room is open
+ * - room[r][k]: r takes its k-th eligible room
+ * - occupied cells (r, day, hour), implied by the starts covering them
+ * Hard clauses: placed -> exactly one start and one room; a shared teacher or shared
+ * students (conflict edge, overlapping week lanes) never occupy the same cell; a room
+ * holds at most one activity per cell and week lane (sequential-counter at-most-one over
+ * occupied-and-room auxiliaries) and is never used outside its place's hours; the placed
+ * requirements of a teacher fit the weekly hours it has left (weighted sequential counter,
+ * only where the flow's share could exceed them).
+ * Symmetry breaking:
+ * - interchangeable requirements (chunks of one activity: same groups, teacher, rooms and
+ *   starts) are placed in order, the later one only if the earlier one is, and strictly
+ *   later in the week (lex-leader over prefix variables)
+ * - interchangeable rooms (one SymmetryClasses room class, same hours taken, same building,
+ *   eligible for the same requirements): the first requirement that can use them only
+ *   gets the lowest member, any other timetable is a relabelling of one that does
+ * Soft (weighted, each a variable that implies its preference): a room in a preferred
+ * building of the teacher (BUILDING_WEIGHT) and no end after LATE_END (LATE_WEIGHT).
+ */
+final class TimetableEncoding {
+    static final int HOURS = SubgroupLanes.HOUR_SPAN;
+    static final int CELLS = SchedulerConfig.DAYS.length * HOURS;
+    /** Activities ending after this hour miss their soft preference */
+    static final int LATE_END = 18;
+    static final int LATE_WEIGHT = 1;
+    static final int BUILDING_WEIGHT = 2;
+    private static final int PAIRWISE_LIMIT = 5;
+    private static final double START_PRIORITY = 1e-2;
+    private static final double ROOM_PRIORITY = 5e-3;
+    private static final double SOFT_PRIORITY = 2e-2;
+
+    final Requirement[] requirements;
+    final Teacher[] teachers;
+    final int[] placed;             // 0 if r cannot be placed at all
+    final int[][] start;            // [r][b], 0 where infeasible
+    final int[][] room;             // [r][k], 0 where never open
+    final List<Soft> softs = new ArrayList<>();
+    final List<int[]> clauses = new ArrayList<>();
+    int symmetryClauses;
+    int budgetClauses;
+
+    private final int[] lanes;
+    private final int[][] cell;     // [r][cell] occupied variable, 0 if never occupied
+    private final Map<Long, Integer> occupiedRoom = new HashMap<>();
+    private int vars;
+
+    TimetableEncoding(List<Requirement> requirements, TeacherAssignment assignment, SymmetryClasses symmetry,
+                      Map<String, String> buildingOf,
+                      TeacherScheduleState teacherState, RoomScheduleState roomState, GroupScheduleState groupState) {
+        int n = requirements.size();
+        this.requirements = requirements.toArray(Requirement[]::new);
+        this.teachers = new Teacher[n];
+        this.lanes = new int[n];
+        this.placed = new int[n];
+        this.start = new int[n][];
+        this.room = new int[n][];
+        this.cell = new int[n][];
+        for (int r = 0; r < n; r++) {
+            teachers[r] = assignment.teacherFor(this.requirements[r]);
+            lanes[r] = WeekCycle.lanes(this.requirements[r].frequency());
+            variables(r, teacherState, roomState, groupState);
+        }
+        for (int r = 0; r < n; r++) {
+            if (placed[r] != 0) requirementClauses(r, roomState);
+        }
+        conflictClauses();
+        roomClauses();
+        budgetClauses(teacherState);
+        symmetryClauses(symmetry, buildingOf, roomState);
+        for (int r = 0; r < n; r++) {
+            if (placed[r] != 0) softClauses(r, buildingOf);
+        }
+    }
+
+    /**
+     * A soft preference of requirement r: `var` implies it, satisfying it is worth `weight`
+     */
+    record Soft(int r, int var, int weight) {}
+
+    int variableCount() {
+        return vars;
+    }
+
+    /**
+     * Load the variables and clauses into a solver
+     */
+    void loadInto(SatSolver solver) {
+        while (solver.variableCount() < vars) solver.newVar();
+        for (int[] clause : clauses) {
+            if (!solver.addClause(clause)) return;
+        }
+        // Branch on soft preferences (try them true), then starts, scarcest requirement first, then rooms
+        for (int r = 0; r < requirements.length; r++) {
+            if (placed[r] == 0) continue;
+            int starts = (int) Arrays.stream(start[r]).filter(v -> v != 0).count();
+            for (int v : start[r]) {
+                if (v != 0) solver.suggest(pos(v), START_PRIORITY * (1 + 1.0 / starts));
+            }
+            for (int v : room[r]) {
+                if (v != 0) solver.suggest(pos(v), ROOM_PRIORITY);
+            }
+        }
+        for (Soft preference : softs) {
+            solver.suggest(pos(preference.var()), SOFT_PRIORITY * preference.weight());
+        }
+    }
+
+    // ==== Variables ====
+
+    private void variables(int r, TeacherScheduleState teacherState, RoomScheduleState roomState,
+                           GroupScheduleState groupState) {
+        Requirement requirement = requirements[r];
+        start[r] = new int[CELLS];
+        room[r] = new int[requirement.rooms().size()];
+        cell[r] = new int[CELLS];
+        if (teachers[r] == null || requirement.rooms().isEmpty()) return;
+
+        boolean[] roomOpen = new boolean[room[r].length];
+        for (int day = 0; day < SchedulerConfig.DAYS.length; day++) {
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR + 1 - requirement.duration(); hour++) {
+                int hours = TimeSlot.hourMask(hour, hour + requirement.duration());
+                if (!teacherState.isTeacherFree(teachers[r].getName(), day, hours, lanes[r])) continue;
+                if (!groupState.isFree(requirement.students(), day, hours, lanes[r])) continue;
+                boolean anyRoom = false;
+                for (int k = 0; k < roomOpen.length; k++) {
+                    if (roomState.isRoomFree(requirement.rooms().get(k).getId(), day, hours, lanes[r])) {
+                        roomOpen[k] = anyRoom = true;
+                    }
+                }
+                if (anyRoom) start[r][bit(day, hour)] = ++vars;
+            }
+        }
+        boolean anyStart = Arrays.stream(start[r]).anyMatch(v -> v != 0);
+        if (!anyStart) return;
+        placed[r] = ++vars;
+        for (int k = 0; k < roomOpen.length; k++) {
+            if (roomOpen[k]) room[r][k] = ++vars;
+        }
+        for (int b = 0; b < CELLS; b++) {
+            if (start[r][b] == 0) continue;
+            for (int h = 0; h < requirement.duration(); h++) {
+                if (cell[r][b + h] == 0) cell[r][b + h] = ++vars;
+            }
+        }
+    }
+
+    // ==== Hard clauses ====
+
+    private void requirementClauses(int r, RoomScheduleState roomState) {
+        Requirement requirement = requirements[r];
+        List<Integer> starts = new ArrayList<>();
+        for (int b = 0; b < CELLS; b++) {
+            if (start[r][b] == 0) continue;
+            starts.add(pos(start[r][b]));
+            clause(neg(start[r][b]), pos(placed[r]));
+            for (int h = 0; h < requirement.duration(); h++) {
+                clause(neg(start[r][b]), pos(cell[r][b + h]));
+            }
+        }
+        List<Integer> rooms = new ArrayList<>();
+        for (int k = 0; k < room[r].length; k++) {
+            if (room[r][k] == 0) continue;
+            rooms.add(pos(room[r][k]));
+            clause(neg(room[r][k]), pos(placed[r]));
+            // Never outside the room's hours or over hours already taken
+            String roomId = requirement.rooms().get(k).getId();
+            for (int c = 0; c < CELLS; c++) {
+                if (cell[r][c] == 0) continue;
+                int hour = SchedulerConfig.FIRST_HOUR + c % HOURS;
+                if (!roomState.isRoomFree(roomId, c / HOURS, TimeSlot.hourMask(hour, hour + 1), lanes[r])) {
+                    clause(neg(cell[r][c]), neg(room[r][k]));
+                }
+            }
+        }
+        atLeastOne(placed[r], starts);
+        atMostOne(starts);
+        atLeastOne(placed[r], rooms);
+        atMostOne(rooms);
+    }
+
+    /**
+     * Same teacher or shared students, in a week lane both use: never the same cell
+     */
+    private void conflictClauses() {
+        Map<Teacher, List<Integer>> byTeacher = new HashMap<>();
+        Map<String, List<Integer>> byGroup = new HashMap<>();
+        for (int r = 0; r < requirements.length; r++) {
+            if (placed[r] == 0) continue;
+            byTeacher.computeIfAbsent(teachers[r], k -> new ArrayList<>()).add(r);
+            for (String groupId : requirements[r].students().getGroupLanes().keySet()) {
+                byGroup.computeIfAbsent(groupId, k -> new ArrayList<>()).add(r);
+            }
+        }
+        for (int a = 0; a < requirements.length; a++) {
+            if (placed[a] == 0) continue;
+            Set<Integer> neighbours = new TreeSet<>();
+            for (int b : byTeacher.get(teachers[a])) {
+                if (b > a) neighbours.add(b);
+            }
+            for (String groupId : requirements[a].students().getGroupLanes().keySet()) {
+                for (int b : byGroup.get(groupId)) {
+                    if (b > a && requirements[a].students().intersects(requirements[b].students())) neighbours.add(b);
+                }
+            }
+            for (int b : neighbours) {
+                if ((lanes[a] & lanes[b]) == 0) continue;
+                for (int c = 0; c < CELLS; c++) {
+                    if (cell[a][c] != 0 && cell[b][c] != 0) clause(neg(cell[a][c]), neg(cell[b][c]));
+                }
+            }
+        }
+    }
+
+    /**
+     * At most one activity per room, cell and week lane
+     */
+    private void roomClauses() {
+        Map<String, List<int[]>> byRoom = new LinkedHashMap<>();   // room id -> (r, k)
+        for (int r = 0; r < requirements.length; r++) {
+            for (int k = 0; k < room[r].length; k++) {
+                if (room[r][k] != 0) {
+                    byRoom.computeIfAbsent(requirements[r].rooms().get(k).getId(), id -> new ArrayList<>()).add(new int[]{r, k});
+                }
+            }
+        }
+        for (List<int[]> users : byRoom.values()) {
+            for (int c = 0; c < CELLS; c++) {
+                for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                    List<int[]> members = new ArrayList<>();
+                    for (int[] user : users) {
+                        if (cell[user[0]][c] != 0 && (lanes[user[0]] & (1 << lane)) != 0) members.add(user);
+                    }
+                    if (members.size() < 2) continue;
+                    if (members.size() <= PAIRWISE_LIMIT) {
+                        for (int i = 0; i < members.size(); i++) {
+                            for (int j = i + 1; j < members.size(); j++) {
+                                int[] x = members.get(i), y = members.get(j);
+                                clause(neg(cell[x[0]][c]), neg(room[x[0]][x[1]]), neg(cell[y[0]][c]), neg(room[y[0]][y[1]]));
+                            }
+                        }
+                    } else {
+                        List<Integer> taking = new ArrayList<>();
+                        for (int[] member : members) {
+                            taking.add(pos(occupiedRoom(member[0], member[1], c)));
+                        }
+                        atMostOne(taking);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Auxiliary "r occupies cell c in its k-th room", implied by both
+     */
+    private int occupiedRoom(int r, int k, int c) {
+        long key = ((long) r * 64 + k) * CELLS + c;
+        Integer existing = occupiedRoom.get(key);
+        if (existing != null) return existing;
+        int v = ++vars;
+        clause(neg(cell[r][c]), neg(room[r][k]), pos(v));
+        occupiedRoom.put(key, v);
+        return v;
+    }
+
+    /**
+     * Per teacher, the cycle hours of its placed requirements stay within its remaining budget
+     */
+    private void budgetClauses(TeacherScheduleState teacherState) {
+        int before = clauses.size();
+        Map<Teacher, List<Integer>> byTeacher = new LinkedHashMap<>();
+        for (int r = 0; r < requirements.length; r++) {
+            if (placed[r] != 0) byTeacher.computeIfAbsent(teachers[r], k -> new ArrayList<>()).add(r);
+        }
+        byTeacher.forEach((teacher, assigned) -> {
+            int[] weights = new int[assigned.size()];
+            List<Integer> literals = new ArrayList<>();
+            long total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                Requirement requirement = requirements[assigned.get(i)];
+                weights[i] = WeekCycle.cycleHours(requirement.duration(), requirement.frequency());
+                literals.add(pos(placed[assigned.get(i)]));
+                total += weights[i];
+            }
+            int bound = teacherState.remainingHours(teacher.getName());
+            if (total > bound) atMostWeight(literals, weights, bound);
+        });
+        budgetClauses = clauses.size() - before;
+    }
+
+    // ==== Symmetry breaking ====
+
+    private void symmetryClauses(SymmetryClasses symmetry, Map<String, String> buildingOf, RoomScheduleState roomState) {
+        int before = clauses.size();
+        requirementOrder();
+        roomOrder(symmetry, buildingOf, roomState);
+        symmetryClauses = clauses.size() - before;
+    }
+
+    private void requirementOrder() {
+        Map<List<Object>, Integer> previous = new HashMap<>();
+        for (int r = 0; r < requirements.length; r++) {
+            if (placed[r] == 0) continue;
+            Requirement q = requirements[r];
+            List<Object> key = List.of(q.subjectName(), q.activityType(), q.groupIds(), q.subgroup(), q.duration(),
+                    q.frequency(), teachers[r], q.rooms(), Arrays.toString(presence(start[r])));
+            Integer earlier = previous.put(key, r);
+            if (earlier != null) orderBefore(earlier, r);
+        }
+    }
+
+    /**
+     * Per class of interchangeable rooms, the first requirement able to use it takes the lowest member
+     */
+    private void roomOrder(SymmetryClasses symmetry, Map<String, String> buildingOf, RoomScheduleState roomState) {
+        Map<String, List<Integer>> usersOf = new TreeMap<>();    // room id -> requirements with a variable for it
+        Map<String, Integer> firstUser = new HashMap<>();
+        for (int r = 0; r < requirements.length; r++) {
+            for (int k = 0; k < room[r].length; k++) {
+                if (room[r][k] == 0) continue;
+                String roomId = requirements[r].rooms().get(k).getId();
+                usersOf.computeIfAbsent(roomId, id -> new ArrayList<>()).add(r);
+                firstUser.putIfAbsent(roomId, r);
+            }
+        }
+        Map<List<Object>, List<String>> interchangeable = new LinkedHashMap<>();
+        usersOf.forEach((roomId, users) -> {
+            int roomClass = symmetry.roomClass(roomId);
+            if (roomClass < 0) return;
+            List<Object> key = List.of(roomClass, String.valueOf(buildingOf.get(roomId)), users, takenHours(roomId, roomState));
+            interchangeable.computeIfAbsent(key, k -> new ArrayList<>()).add(roomId);
+        });
+        for (List<String> members : interchangeable.values()) {
+            if (members.size() < 2) continue;
+            int r = firstUser.get(members.get(0));
+            for (int k = 0; k < room[r].length; k++) {
+                String roomId = requirements[r].rooms().get(k).getId();
+                if (room[r][k] != 0 && !roomId.equals(members.get(0)) && members.contains(roomId)) clause(neg(room[r][k]));
+            }
+        }
+    }
+
+    private static String takenHours(String roomId, RoomScheduleState roomState) {
+        StringBuilder taken = new StringBuilder();
+        for (int day = 0; day < SchedulerConfig.DAYS.length; day++) {
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                    taken.append(roomState.isRoomFree(roomId, day, TimeSlot.hourMask(hour, hour + 1), 1 << lane) ? '0' : '1');
+                }
+            }
+        }
+        return taken.toString();
+    }
+
+    /**
+     * `later` is placed only if `earlier` is, and starts strictly after it
+     */
+    private void orderBefore(int earlier, int later) {
+        clause(neg(placed[later]), pos(placed[earlier]));
+        int prefix = 0;                      // "earlier starts at or before the previous start"
+        for (int b = 0; b < CELLS; b++) {
+            if (start[later][b] == 0) continue;
+            if (prefix == 0) {
+                clause(neg(start[later][b]));
+            } else {
+                clause(neg(start[later][b]), pos(prefix));
+            }
+            // prefix now covers b too: prefix' -> prefix or start[earlier][b]
+            int next = ++vars;
+            if (prefix == 0) {
+                clause(neg(next), pos(start[earlier][b]));
+            } else {
+                clause(neg(next), pos(prefix), pos(start[earlier][b]));
+            }
+            prefix = next;
+        }
+    }
+
+    private static boolean[] presence(int[] vars) {
+        boolean[] present = new boolean[vars.length];
+        for (int i = 0; i < vars.length; i++) present[i] = vars[i] != 0;
+        return present;
+    }
+
+    // ==== Soft preferences ====
+
+    private void softClauses(int r, Map<String, String> buildingOf) {
+        Requirement requirement = requirements[r];
+        List<Integer> lateStarts = new ArrayList<>();
+        for (int b = 0; b < CELLS; b++) {
+            int hour = SchedulerConfig.FIRST_HOUR + b % HOURS;
+            if (start[r][b] != 0 && hour + requirement.duration() > LATE_END) lateStarts.add(b);
+        }
+        if (!lateStarts.isEmpty()) {
+            int v = ++vars;
+            for (int b : lateStarts) clause(neg(v), neg(start[r][b]));
+            softs.add(new Soft(r, v, LATE_WEIGHT));
+        }
+
+        List<String> preferred = teachers[r].getPreferredBuildings();
+        if (preferred == null || preferred.isEmpty()) return;
+        List<Integer> inPreferred = new ArrayList<>();
+        for (int k = 0; k < room[r].length; k++) {
+            String building = buildingOf.get(requirement.rooms().get(k).getId());
+            if (room[r][k] != 0 && preferred.contains(building)) inPreferred.add(pos(room[r][k]));
+        }
+        if (inPreferred.isEmpty()) return;
+        int v = ++vars;
+        inPreferred.add(neg(v));
+        clauses.add(inPreferred.stream().mapToInt(Integer::intValue).toArray());
+        softs.add(new Soft(r, v, BUILDING_WEIGHT));
+    }
+
+    // ==== Cardinality ====
+
+    private void atLeastOne(int guard, List<Integer> literals) {
+        int[] clause = new int[literals.size() + 1];
+        clause[0] = neg(guard);
+        for (int i = 0; i < literals.size(); i++) clause[i + 1] = literals.get(i);
+        clauses.add(clause);
+    }
+
+    /**
+     * Pairwise for a few literals, else a sequential counter (Sinz)
+     */
+    private void atMostOne(List<Integer> literals) {
+        int n = literals.size();
+        if (n <= PAIRWISE_LIMIT) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    clause(SatSolver.negate(literals.get(i)), SatSolver.negate(literals.get(j)));
+                }
+            }
+            return;
+        }
+        int previous = 0;
+        for (int i = 0; i < n; i++) {
+            int literal = literals.get(i);
+            if (previous != 0) clause(SatSolver.negate(literal), neg(previous));
+            if (i == n - 1) break;
+            int counter = ++vars;
+            clause(SatSolver.negate(literal), pos(counter));
+            if (previous != 0) clause(neg(previous), pos(counter));
+            previous = counter;
+        }
+    }
+
+    /**
+     * Weighted sequential counter: the true literals weigh at most `bound` in total.
+     * counter[j] of item i means "items up to i weigh at least j + 1".
+     */
+    private void atMostWeight(List<Integer> literals, int[] weights, int bound) {
+        int[] previous = null;
+        for (int i = 0; i < literals.size(); i++) {
+            int literal = literals.get(i);
+            int weight = weights[i];
+            if (weight == 0) continue;
+            if (weight > bound) {
+                clause(SatSolver.negate(literal));
+                continue;
+            }
+            // Taking this one on top of more than bound - weight overflows
+            if (previous != null) clause(SatSolver.negate(literal), neg(previous[bound - weight]));
+            if (i == literals.size() - 1) break;
+            int[] counter = new int[bound];
+            for (int j = 0; j < bound; j++) {
+                counter[j] = ++vars;
+                if (previous != null) clause(neg(previous[j]), pos(counter[j]));
+                if (j < weight) {
+                    clause(SatSolver.negate(literal), pos(counter[j]));
+                } else if (previous != null) {
+                    clause(SatSolver.negate(literal), neg(previous[j - weight]), pos(counter[j]));
+                }
+            }
+            previous = counter;
+        }
+    }
+
+    // ==== Helpers ====
+
+    private void clause(int... literals) {
+        clauses.add(literals);
+    }
+
+    static int pos(int var) {
+        return SatSolver.lit(var, true);
+    }
+
+    static int neg(int var) {
+        return SatSolver.lit(var, false);
+    }
+
+    static int bit(int day, int hour) {
+        return day * HOURS + hour - SchedulerConfig.FIRST_HOUR;
+    }
+}
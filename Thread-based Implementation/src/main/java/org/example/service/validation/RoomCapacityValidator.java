@@ -16,16 +16,16 @@ import java.util.concurrent.*;
  * 
  * Threading: PARALLEL by places
  * - Each place analysis runs independently
- * - Thread pool size = CPU cores
+ * - Runs on the shared execution pool
  * Complexity: O(places × rooms)
  */
 public class RoomCapacityValidator implements Validator {
-    private static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
-    private final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+    private final ExecutorService executor;
     private final PlaceRepository placeRepository;
 
-    public RoomCapacityValidator(PlaceRepository placeRepository) {
+    public RoomCapacityValidator(PlaceRepository placeRepository, ExecutorService executor) {
         this.placeRepository = placeRepository;
+        this.executor = executor;
     }
 
     @Override
@@ -165,26 +165,22 @@ public class RoomCapacityValidator implements Validator {
      * Calculate capacity in parallel by place
      */
     private ActivityTypeCapacity calculateCapacityParallel(TimetableDataContext context) {
-        Map<String, ActivityTypeCapacity> placeCapacities = Collections.synchronizedMap(new HashMap<>());
-        List<Future<?>> futures = new ArrayList<>();
+        Map<String, ActivityTypeCapacity> placeCapacities = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
 
         for (String placeName : context.getPlaces().keySet()) {
-            Future<?> task = executor.submit(() -> {
+            futures.add(CompletableFuture.runAsync(() -> {
                 Place place = context.getPlaces().get(placeName);
                 ActivityTypeCapacity capacity = analyzePlaceCapacity(place);
                 placeCapacities.put(placeName, capacity);
-            });
-            futures.add(task);
+            }, executor));
         }
 
         // Wait for all to complete
-        for (Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (InterruptedException | ExecutionException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("V2 validation interrupted", e);
-            }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("V2 validation failed", e.getCause());
         }
 
         ActivityTypeCapacity total = new ActivityTypeCapacity();
@@ -220,16 +216,4 @@ public class RoomCapacityValidator implements Validator {
 
         return capacity;
     }
-
-    public void shutdown() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-    }
 }
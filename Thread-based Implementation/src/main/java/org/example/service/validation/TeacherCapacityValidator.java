@@ -14,13 +14,15 @@ import java.util.stream.Collectors;
  * 2. Validates that teachers speaking a subject's language exist.
  * 
  * Threading: PARALLEL by subjects
- * - Each subject analysis runs independently on separate thread
- * - Thread pool size = CPU cores
+ * - Each subject analysis runs independently as a task on the shared execution pool
  * Complexity: O(subjects × teachers) with parallelism
  */
 public class TeacherCapacityValidator implements Validator {
-    private static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
-    private final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+    private final ExecutorService executor;
+
+    public TeacherCapacityValidator(ExecutorService executor) {
+        this.executor = executor;
+    }
 
     @Override
     public String getValidatorName() {
@@ -59,26 +61,22 @@ public class TeacherCapacityValidator implements Validator {
     public ValidationResult validate(TimetableDataContext context) {
         long startTime = System.currentTimeMillis();
 
-        Map<String, SubjectCoverageAnalysis> analyses = Collections.synchronizedMap(new HashMap<>());
-        List<Future<?>> futures = new ArrayList<>();
+        Map<String, SubjectCoverageAnalysis> analyses = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
 
         // Spawn parallel task for each subject
         for (String subjectName : context.getSubjects().keySet()) {
-            Future<?> task = executor.submit(() -> {
+            futures.add(CompletableFuture.runAsync(() -> {
                 SubjectCoverageAnalysis analysis = analyzeSubjectCoverage(subjectName, context);
                 analyses.put(subjectName, analysis);
-            });
-            futures.add(task);
+            }, executor));
         }
 
         // Wait for all tasks to complete
-        for (Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (InterruptedException | ExecutionException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("V1V5 validation interrupted", e);
-            }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("V1V5 validation failed", e.getCause());
         }
 
         // Aggregate results
@@ -181,19 +179,4 @@ public class TeacherCapacityValidator implements Validator {
 
         return courseHours + seminarHours + labHours;
     }
-
-    /**
-     * Shutdown executor service gracefully
-     */
-    public void shutdown() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-    }
 }
@@ -20,12 +20,15 @@ import java.util.concurrent.*;
  *
  * THIS IS A WARNING VALIDATOR - never blocks generation, only indicates areas for improvement
  *
- * Threading: PARALLEL (teachers + places layers)
+ * Threading: PARALLEL (teachers + places layers, on the shared execution pool)
  * Complexity: O(teachers × slots + places × slots) with parallelism
  */
 public class TimeSlotCollisionValidator implements Validator {
-    private static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
-    private final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+    private final ExecutorService executor;
+
+    public TimeSlotCollisionValidator(ExecutorService executor) {
+        this.executor = executor;
+    }
 
     @Override
     public String getValidatorName() {
@@ -41,46 +44,22 @@ public class TimeSlotCollisionValidator implements Validator {
         TimeSlotRange range = new TimeSlotRange(context);
         int[][] collisionMatrix = new int[range.getDayCount()][range.getHourCount()];
 
-        // Teacher layer
-        for (Teacher teacher : context.getTeachers().values()) {
-            if (teacher.getSchedule() != null) {
-                for (Map.Entry<String, List<TimeSlot>> dayEntry : teacher.getSchedule().entrySet()) {
-                    int dayIdx = range.getDayIndex(dayEntry.getKey());
-                    if (dayIdx >= 0 && dayEntry.getValue() != null) {
-                        for (TimeSlot slot : dayEntry.getValue()) {
-                            int startHour = parseHour(slot.getStart());
-                            int endHour = parseHour(slot.getEnd());
-                            for (int h = startHour; h < endHour; h++) {
-                                int hourIdx = range.getHourIndex(h);
-                                if (hourIdx >= 0) {
-                                    collisionMatrix[dayIdx][hourIdx]++;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        // Teacher layer (+1) and room layer (-1) are independent - build them in parallel
+        CompletableFuture<int[][]> teacherLayer = CompletableFuture.supplyAsync(
+                () -> buildTeacherLayer(context, range), executor);
+        CompletableFuture<int[][]> roomLayer = CompletableFuture.supplyAsync(
+                () -> buildRoomLayer(context, range), executor);
 
-        // Room layer
-        for (Place place : context.getPlaces().values()) {
-            if (place.getSchedule() != null) {
-                for (Map.Entry<String, List<TimeSlot>> dayEntry : place.getSchedule().entrySet()) {
-                    int dayIdx = range.getDayIndex(dayEntry.getKey());
-                    if (dayIdx >= 0 && dayEntry.getValue() != null) {
-                        for (TimeSlot slot : dayEntry.getValue()) {
-                            int startHour = parseHour(slot.getStart());
-                            int endHour = parseHour(slot.getEnd());
-                            for (int h = startHour; h < endHour; h++) {
-                                int hourIdx = range.getHourIndex(h);
-                                if (hourIdx >= 0) {
-                                    collisionMatrix[dayIdx][hourIdx]--;
-                                }
-                            }
-                        }
-                    }
+        try {
+            int[][] teachers = teacherLayer.join();
+            int[][] rooms = roomLayer.join();
+            for (int d = 0; d < range.getDayCount(); d++) {
+                for (int h = 0; h < range.getHourCount(); h++) {
+                    collisionMatrix[d][h] = teachers[d][h] - rooms[d][h];
                 }
             }
+        } catch (CompletionException e) {
+            throw new RuntimeException("V4 validation failed", e.getCause());
         }
 
         // Analyze bottlenecks
@@ -153,23 +132,55 @@ public class TimeSlotCollisionValidator implements Validator {
         return analysis;
     }
 
-    private static int parseHour(String timeStr) {
-        try {
-            return Integer.parseInt(timeStr.split(":")[0]);
-        } catch (Exception e) {
-            return 8; // Default fallback
+    private static int startHour(TimeSlot slot) {
+        return slot.isValid() ? slot.getStartHour() : 8; // Default fallback
+    }
+
+    private static int endHour(TimeSlot slot) {
+        return slot.isValid() ? slot.getEndHour() : 8; // Default fallback
+    }
+
+    /**
+     * Teacher layer: +1 for each hour a teacher is available
+     */
+    private int[][] buildTeacherLayer(TimetableDataContext context, TimeSlotRange range) {
+        int[][] layer = new int[range.getDayCount()][range.getHourCount()];
+        for (Teacher teacher : context.getTeachers().values()) {
+            if (teacher.getSchedule() != null) {
+                addScheduleToLayer(teacher.getSchedule(), range, layer);
+            }
         }
+        return layer;
     }
 
-    public void shutdown() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
+    /**
+     * Room layer: +1 for each hour a place is open (subtracted from the teacher layer)
+     */
+    private int[][] buildRoomLayer(TimetableDataContext context, TimeSlotRange range) {
+        int[][] layer = new int[range.getDayCount()][range.getHourCount()];
+        for (Place place : context.getPlaces().values()) {
+            if (place.getSchedule() != null) {
+                addScheduleToLayer(place.getSchedule(), range, layer);
+            }
+        }
+        return layer;
+    }
+
+    private void addScheduleToLayer(Map<String, List<TimeSlot>> schedule, TimeSlotRange range, int[][] layer) {
+        for (Map.Entry<String, List<TimeSlot>> dayEntry : schedule.entrySet()) {
+            int dayIdx = range.getDayIndex(dayEntry.getKey());
+            if (dayIdx >= 0 && dayEntry.getValue() != null) {
+                for (TimeSlot slot : dayEntry.getValue()) {
+                    int startHour = startHour(slot);
+                    int endHour = endHour(slot);
+                    for (int h = startHour; h < endHour; h++) {
+                        int hourIdx = range.getHourIndex(h);
+                        if (hourIdx >= 0) {
+                            layer[dayIdx][hourIdx]++;
+                        }
+                    }
+                }
             }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
         }
     }
 
@@ -203,8 +214,8 @@ public class TimeSlotCollisionValidator implements Validator {
                     for (List<TimeSlot> slots : place.getSchedule().values()) {
                         if (slots != null) {
                             for (TimeSlot slot : slots) {
-                                hourSet.add(parseHour(slot.getStart()));
-                                hourSet.add(parseHour(slot.getEnd()));
+                                hourSet.add(startHour(slot));
+                                hourSet.add(endHour(slot));
                             }
                         }
                     }
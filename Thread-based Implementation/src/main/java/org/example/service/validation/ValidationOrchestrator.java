@@ -8,124 +8,123 @@ import java.util.concurrent.*;
 /**
  * ValidationOrchestrator - Runs all validators in correct order
  *
- * Execution order:
+ * Execution order (expressed as a CompletableFuture dependency graph):
  * 1. V0 (must pass - blocks rest if fails)
  * 2. V1+V5, V2, V3+V6, V4 (run in parallel - non-blocking)
  * 3. Generate comprehensive report
  *
+ * All stages run on the shared execution pool - the orchestrator owns no threads.
+ *
  * NOTE: WARN validators never block - they're informative!
  */
 public class ValidationOrchestrator {
-    private static final int THREAD_POOL_SIZE = 5;
-    private final ExecutorService mainExecutor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+    private final ExecutorService executor;
     private final TimetableDataContext dataContext;
     private final PlaceRepository placeRepository;
 
-    public ValidationOrchestrator(TimetableDataContext dataContext, PlaceRepository placeRepository) {
+    public ValidationOrchestrator(TimetableDataContext dataContext, PlaceRepository placeRepository,
+                                  ExecutorService executor) {
         this.dataContext = dataContext;
         this.placeRepository = placeRepository;
+        this.executor = executor;
     }
 
     /**
      * Run all validations in correct order with proper dependency handling
      */
     public ValidationReport runAllValidations() {
+        try {
+            return runAllValidationsAsync().join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Validation interrupted", e.getCause());
+        }
+    }
+
+    /**
+     * Build the validation graph: V0 -> (V1+V5, V2, V3+V6, V4) -> report.
+     * Returns immediately; callers can overlap other work with Phase 2.
+     */
+    public CompletableFuture<ValidationReport> runAllValidationsAsync() {
         System.out.println("\n╔════════════════════════════════════════════╗");
         System.out.println("║   RUNNING TIMETABLE VALIDATIONS (v1.0)    ║");
         System.out.println("╚════════════════════════════════════════════╝\n");
 
         long totalStartTime = System.currentTimeMillis();
-        List<ValidationResult> results = new ArrayList<>();
 
         // PHASE 1: V0 (BLOCKING - must pass)
-        System.out.println("[PHASE 1] Running Teacher Definition Validator (prerequisite check)...");
-        TeacherDefinitionValidator v0 = new TeacherDefinitionValidator();
-        ValidationResult v0Result = v0.validate(dataContext);
-        results.add(v0Result);
-        System.out.println("  → [" + getStatusIcon(v0Result.getStatus()) + "] " + v0Result.getMessage());
-
-        // If V0 fails, block completely
-        if (v0Result.getStatus() == ValidationResult.Status.FAIL) {
-            System.out.println("\n⚠️  Teacher Definition Validator FAILED - Cannot proceed with other validations");
-            System.out.println("    Fix teacher definitions and try again.\n");
-            long totalTime = System.currentTimeMillis() - totalStartTime;
-            return new ValidationReport(results, totalTime);
-        }
+        CompletableFuture<ValidationResult> phase1 = CompletableFuture.supplyAsync(() -> {
+            System.out.println("[PHASE 1] Running Teacher Definition Validator (prerequisite check)...");
+            ValidationResult v0Result = new TeacherDefinitionValidator().validate(dataContext);
+            System.out.println("  → [" + getStatusIcon(v0Result.getStatus()) + "] " + v0Result.getMessage());
+            return v0Result;
+        }, executor);
+
+        return phase1.thenCompose(v0Result -> {
+            List<ValidationResult> results = new ArrayList<>();
+            results.add(v0Result);
+
+            // If V0 fails, block completely
+            if (v0Result.getStatus() == ValidationResult.Status.FAIL) {
+                System.out.println("\n⚠️  Teacher Definition Validator FAILED - Cannot proceed with other validations");
+                System.out.println("    Fix teacher definitions and try again.\n");
+                long totalTime = System.currentTimeMillis() - totalStartTime;
+                return CompletableFuture.completedFuture(new ValidationReport(results, totalTime));
+            }
+
+            return runPhase2().thenApply(phase2Results -> {
+                results.addAll(phase2Results);
+
+                long totalTime = System.currentTimeMillis() - totalStartTime;
+                System.out.println("\n╔════════════════════════════════════════════╗");
+                System.out.println("║     ALL VALIDATIONS COMPLETED              ║");
+                System.out.println("╚════════════════════════════════════════════╝\n");
+
+                return new ValidationReport(results, totalTime);
+            });
+        });
+    }
 
-        // PHASE 2: V1+V5, V2, V3+V6, V4 (PARALLEL - non-blocking)
+    /**
+     * PHASE 2: V1+V5, V2, V3+V6, V4 (PARALLEL - non-blocking)
+     */
+    private CompletableFuture<List<ValidationResult>> runPhase2() {
         System.out.println("\n[PHASE 2] Running secondary validators in parallel...");
-        List<Future<ValidationResult>> futures = new ArrayList<>();
+        List<CompletableFuture<ValidationResult>> futures = new ArrayList<>();
 
         // V1+V5 validator
-        TeacherCapacityValidator v1v5 = new TeacherCapacityValidator();
-        Future<ValidationResult> f1 = mainExecutor.submit(() -> {
-            System.out.println("  Teacher Capacity Validator Running (parallel by subjects)...");
-            return v1v5.validate(dataContext);
-        });
-        futures.add(f1);
+        TeacherCapacityValidator v1v5 = new TeacherCapacityValidator(executor);
+        futures.add(runValidator(v1v5, "  Teacher Capacity Validator Running (parallel by subjects)..."));
 
         // V2 validator
-        RoomCapacityValidator v2 = new RoomCapacityValidator(placeRepository);
-        Future<ValidationResult> f2 = mainExecutor.submit(() -> {
-            System.out.println("  Room Capacity Validator running (parallel by places)...");
-            return v2.validate(dataContext);
-        });
-        futures.add(f2);
+        RoomCapacityValidator v2 = new RoomCapacityValidator(placeRepository, executor);
+        futures.add(runValidator(v2, "  Room Capacity Validator running (parallel by places)..."));
 
         // V3+V6 validator
         TeacherAvailabilityValidator v3v6 = new TeacherAvailabilityValidator();
-        Future<ValidationResult> f3 = mainExecutor.submit(() -> {
-            System.out.println("  Teacher Availability Validator Running (sequential aggregate)...");
-            return v3v6.validate(dataContext);
-        });
-        futures.add(f3);
+        futures.add(runValidator(v3v6, "  Teacher Availability Validator Running (sequential aggregate)..."));
 
         // V4 validator
-        TimeSlotCollisionValidator v4 = new TimeSlotCollisionValidator();
-        Future<ValidationResult> f4 = mainExecutor.submit(() -> {
-            System.out.println("  Time Slot Collision Validator running (parallel matrix build)...");
-            return v4.validate(dataContext);
-        });
-        futures.add(f4);
-
-        // Collect results as they complete
-        for (Future<ValidationResult> future : futures) {
-            try {
-                ValidationResult result = future.get();
-                results.add(result);
-                System.out.println("  ✓ [" + getStatusIcon(result.getStatus()) + "] " + result.getMessage());
-            } catch (InterruptedException | ExecutionException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Validation interrupted", e);
-            }
-        }
-
-        // Cleanup executors
-        v1v5.shutdown();
-        v2.shutdown();
-        v4.shutdown();
-
-        long totalTime = System.currentTimeMillis() - totalStartTime;
-        System.out.println("\n╔════════════════════════════════════════════╗");
-        System.out.println("║     ALL VALIDATIONS COMPLETED              ║");
-        System.out.println("╚════════════════════════════════════════════╝\n");
-
-        return new ValidationReport(results, totalTime);
+        TimeSlotCollisionValidator v4 = new TimeSlotCollisionValidator(executor);
+        futures.add(runValidator(v4, "  Time Slot Collision Validator running (parallel matrix build)..."));
+
+        // Collect results in submission order once all have completed
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                .thenApply(ignored -> {
+                    List<ValidationResult> results = new ArrayList<>();
+                    for (CompletableFuture<ValidationResult> future : futures) {
+                        ValidationResult result = future.join();
+                        results.add(result);
+                        System.out.println("  ✓ [" + getStatusIcon(result.getStatus()) + "] " + result.getMessage());
+                    }
+                    return results;
+                });
     }
 
-    /**
-     * Shutdown executor gracefully
-     */
-    public void shutdown() {
-        mainExecutor.shutdown();
-        try {
-            if (!mainExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
-                mainExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            mainExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+    private CompletableFuture<ValidationResult> runValidator(Validator validator, String startMessage) {
+        return CompletableFuture.supplyAsync(() -> {
+            System.out.println(startMessage);
+            return validator.validate(dataContext);
+        }, executor);
     }
 
     private String getStatusIcon(ValidationResult.Status status) {
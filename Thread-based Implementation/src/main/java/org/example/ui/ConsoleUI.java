@@ -1,7 +1,7 @@
 package org.example.ui;
 
 import org.example.context.TimetableDataContext;
-import org.example.model.Activity;
+import org.example.model.Session;
 import org.example.service.generation.*;
 import org.example.service.validation.ValidationOrchestrator;
 import org.example.service.validation.ValidationResult;
@@ -205,7 +205,7 @@ public class ConsoleUI {
         for (TimetableGenerator.SubjectGenerationResult subjectResult : result.subjectResults()) {
             String status = subjectResult.success() ? SUCCESS_COLOR + "✓" : ERROR_COLOR + "✗";
             System.out.println(status + " " + RESET_COLOR + subjectResult.subjectName() +
-                    " - " + subjectResult.scheduledHours() + " hours (" + subjectResult.executionTimeMs() + "ms)");
+                    " - " + TimetableGenerator.SubjectGenerationResult.formatHours(subjectResult.scheduledHours()) + " hours (" + subjectResult.executionTimeMs() + "ms)");
         }
 
         // Display detailed metrics
@@ -237,8 +237,8 @@ public class ConsoleUI {
 
     // ==================== SUCCESS & FAILURE ====================
 
-    public static void displayDetailedTimetable(List<Activity> activities) {
-        if (activities == null || activities.isEmpty()) {
+    public static void displayDetailedTimetable(List<Session> sessions) {
+        if (sessions == null || sessions.isEmpty()) {
             System.out.println(INFO_COLOR + "No activities scheduled to display." + RESET_COLOR);
             return;
         }
@@ -248,60 +248,45 @@ public class ConsoleUI {
         System.out.println(HEADER_COLOR + "║           DETAILED TIMETABLE               ║" + RESET_COLOR);
         System.out.println(HEADER_COLOR + "╚════════════════════════════════════════════╝" + RESET_COLOR);
 
-        // Sort activities by day, then by start time, then by group
-        List<Activity> sortedActivities = new ArrayList<>(activities);
+        // Sort sessions by day, then by start time, then by groups
+        List<Session> sortedSessions = new ArrayList<>(sessions);
         List<String> daysOrder = Arrays.asList("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY");
         
-        sortedActivities.sort(Comparator
-                .comparingInt((Activity a) -> daysOrder.indexOf(a.day().toUpperCase()))
-                .thenComparing(Activity::startTime)
-                .thenComparing(Activity::groupId));
+        sortedSessions.sort(Comparator
+                .comparingInt((Session s) -> daysOrder.indexOf(s.day().toUpperCase()))
+                .thenComparing(Session::startTime)
+                .thenComparing(Session::groupLabel));
 
         String currentDay = "";
-        Set<String> displayedCourseSlots = new HashSet<>();
 
-        for (Activity activity : sortedActivities) {
-            // Skip busy/closed slots if you want a clean timetable
-            if ("BUSY".equals(activity.activityType()) || "CLOSED".equals(activity.activityType())) {
-                continue;
-            }
-
-            // Deduplicate course entries (which are repeated for each group)
-            if ("COURSE".equals(activity.activityType())) {
-                String slotKey = activity.day() + "|" + activity.startTime() + "|" + activity.subjectName() + "|" + activity.roomId();
-                if (displayedCourseSlots.contains(slotKey)) {
-                    continue;
-                }
-                displayedCourseSlots.add(slotKey);
-            }
-
-            if (!activity.day().equalsIgnoreCase(currentDay)) {
-                currentDay = activity.day().toUpperCase();
+        for (Session session : sortedSessions) {
+            if (!session.day().equalsIgnoreCase(currentDay)) {
+                currentDay = session.day().toUpperCase();
                 System.out.println("\n" + INFO_COLOR + "📅 " + currentDay + RESET_COLOR);
                 System.out.println("─".repeat(125));
             }
 
-            String timeStr = String.format("%s - %s", activity.startTime(), activity.endTime());
-            String typeColor = switch (activity.activityType()) {
+            String timeStr = String.format("%s - %s", session.startTime(), session.endTime());
+            String typeColor = switch (session.activityType()) {
                 case "COURSE" -> "\u001B[34m"; // Blue
                 case "SEMINAR" -> "\u001B[32m"; // Green
                 case "LABORATORY" -> "\u001B[33m"; // Yellow
                 default -> RESET_COLOR;
             };
 
-            String groupDisplay = "COURSE".equals(activity.activityType()) ? "ALL" : activity.groupId();
-            if (!"COURSE".equals(activity.activityType()) && activity.subgroup() != null && !activity.subgroup().isEmpty()) {
-                groupDisplay += "/" + activity.subgroup();
+            String groupDisplay = "COURSE".equals(session.activityType()) ? "ALL" : session.groupLabel();
+            if (!"COURSE".equals(session.activityType()) && session.subgroup() != null && !session.subgroup().isEmpty()) {
+                groupDisplay += "/" + session.subgroup();
             }
 
             System.out.printf("  %-15s | %s%-11s%s | Gr: %-7s | %-5s | %-10s | %-35s | %-20s%n",
                     timeStr,
-                    typeColor, activity.activityType(), RESET_COLOR,
+                    typeColor, session.activityType(), RESET_COLOR,
                     groupDisplay,
-                    activity.roomId(),
-                    activity.frequency(),
-                    activity.subjectName(),
-                    activity.teacherName()
+                    session.roomId(),
+                    session.frequency(),
+                    session.subjectName(),
+                    session.teacherName()
             );
         }
         System.out.println("\n" + "─".repeat(125));
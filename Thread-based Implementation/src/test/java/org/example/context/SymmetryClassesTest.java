@@ -0,0 +1,81 @@
+package org.example.context;
+
+import org.example.model.Group;
+import org.example.model.Place;
+import org.example.model.Room;
+import org.example.model.Teacher;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.context;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymmetryClassesTest {
+
+    @Test
+    void onlyIndistinguishableEntitiesShareAClass() {
+        Map<String, Group> groups = new LinkedHashMap<>();
+        groups.put("913", new Group("913", 30, "English", List.of("Logic", "Algebra"), 2, 2));
+        groups.put("911", new Group("911", 30, "English", List.of("Algebra", "Logic"), 2, 2));
+        groups.put("912", new Group("912", 28, "English", List.of("Algebra", "Logic"), 2, 2));
+        groups.put("914", new Group("914", 30, "Romanian", List.of("Algebra", "Logic"), 2, 2));
+
+        Map<String, Room> hall = new LinkedHashMap<>();
+        hall.put("A2", new Room("A2", 40, List.of("noLaboratory")));
+        hall.put("A1", new Room("A1", 40, List.of("noLaboratory")));
+        hall.put("L1", new Room("L1", 40, List.of()));
+        Map<String, Room> annex = Map.of("B1", new Room("B1", 40, List.of("noLaboratory")));
+        Map<String, Place> places = Map.of(
+                "Main", new Place("Main", Map.of("Monday", List.of(new TimeSlot("08:00", "20:00"))), hall),
+                "Annex", new Place("Annex", Map.of("Monday", List.of(new TimeSlot("08:00", "14:00"))), annex));
+
+        SymmetryClasses symmetry = new SymmetryClasses(groups, places, Map.of());
+        assertEquals(symmetry.groupClass("911"), symmetry.groupClass("913"));
+        assertNotEquals(symmetry.groupClass("911"), symmetry.groupClass("912"));
+        assertNotEquals(symmetry.groupClass("911"), symmetry.groupClass("914"));
+        assertEquals(List.of("911", "913"), symmetry.groupMembers(symmetry.groupClass("913")));
+        assertEquals(3, symmetry.groupClassCount());
+
+        // Same capacity and flags, but B1's place closes at 14:00
+        assertEquals(symmetry.roomClass("A1"), symmetry.roomClass("A2"));
+        assertNotEquals(symmetry.roomClass("A1"), symmetry.roomClass("L1"));
+        assertNotEquals(symmetry.roomClass("A1"), symmetry.roomClass("B1"));
+        assertEquals(-1, symmetry.roomClass("Z9"));
+
+        List<String> ordered = new ArrayList<>(List.of("L1", "B1", "A2", "A1"));
+        ordered.sort(symmetry.canonicalOrder(id -> id, symmetry::roomClass));
+        assertEquals(List.of(0, 0, 1, 2), ordered.stream().map(symmetry::roomClass).toList());
+        assertEquals(List.of("A1", "A2"), ordered.subList(0, 2));
+    }
+
+    @Test
+    void sampleTeachersInOneClassLookTheSame() {
+        Map<String, Teacher> teachers = context().getTeachers();
+        SymmetryClasses symmetry = context().getSymmetry();
+        int members = 0;
+        for (int c = 0; c < symmetry.teacherClassCount(); c++) {
+            List<String> names = symmetry.teacherMembers(c);
+            members += names.size();
+            assertEquals(names.stream().sorted().toList(), names);
+            Teacher first = teachers.get(names.get(0));
+            for (String name : names) {
+                Teacher other = teachers.get(name);
+                assertEquals(c, symmetry.teacherClass(name));
+                assertEquals(first.getMaxHoursPerWeek(), other.getMaxHoursPerWeek());
+                assertArrayEquals(first.getScheduleMask(), other.getScheduleMask());
+                assertEquals(capabilities(first), capabilities(other));
+            }
+        }
+        assertEquals(teachers.size(), members);
+    }
+
+    private static Map<String, String> capabilities(Teacher teacher) {
+        Map<String, String> capabilities = new TreeMap<>();
+        if (teacher.getSubjects() != null) {
+            teacher.getSubjects().forEach((subject, capability) -> capabilities.put(subject, String.valueOf(capability)));
+        }
+        return capabilities;
+    }
+}
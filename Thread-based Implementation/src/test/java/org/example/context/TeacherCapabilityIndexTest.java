@@ -0,0 +1,84 @@
+package org.example.context;
+
+import org.example.model.SubjectCapability;
+import org.example.model.Teacher;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.context;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeacherCapabilityIndexTest {
+
+    @Test
+    void lookupsMatchAScanOfTheTeachers() {
+        Map<String, Teacher> teachers = context().getTeachers();
+        TeacherCapabilityIndex index = new TeacherCapabilityIndex(teachers);
+        assertEquals(teachers.size(), index.size());
+
+        Set<String> subjects = new TreeSet<>(context().getSubjects().keySet());
+        Set<String> languages = new TreeSet<>();
+        for (Teacher teacher : teachers.values()) {
+            if (teacher.getSubjects() != null) subjects.addAll(teacher.getSubjects().keySet());
+            if (teacher.getLanguages() != null) languages.addAll(teacher.getLanguages());
+        }
+        languages.add("Klingon");
+        List<String> anyOrEach = new ArrayList<>(languages);
+        anyOrEach.add(null);
+        anyOrEach.add(" ");
+
+        for (String subject : subjects) {
+            for (String type : TeacherCapabilityIndex.ACTIVITY_TYPES) {
+                for (String language : anyOrEach) {
+                    List<Teacher> found = index.teachers(subject, type, language);
+                    assertEquals(scan(teachers, subject, type, language), found, subject + " " + type + " " + language);
+                    for (int id : index.teacherIds(subject, type, language)) {
+                        assertEquals(id, index.idOf(index.teacher(id).getName()));
+                    }
+                }
+            }
+        }
+        assertEquals(List.of(), index.teachers("No such subject", "COURSE", null));
+        assertEquals(-1, index.idOf("Nobody"));
+        assertThrows(IllegalArgumentException.class, () -> index.teacherIds(subjects.iterator().next(), "WORKSHOP", null));
+    }
+
+    @Test
+    void emptyCapabilitiesAreSkipped() {
+        Map<String, SubjectCapability> subjects = new HashMap<>();
+        subjects.put("Logic", null);
+        subjects.put("Algebra", new SubjectCapability(false, true, false));
+        Teacher teacher = new Teacher();
+        teacher.setName("A");
+        teacher.setSubjects(subjects);
+        Teacher idle = new Teacher();
+        idle.setName("B");
+
+        TeacherCapabilityIndex index = new TeacherCapabilityIndex(Map.of("A", teacher, "B", idle));
+        assertEquals(List.of(), index.teachers("Logic", "SEMINAR", null));
+        assertEquals(List.of(teacher), index.teachers("Algebra", "SEMINAR", null));
+        // A teacher with no languages listed is only found when any language will do
+        assertEquals(List.of(), index.teachers("Algebra", "SEMINAR", "English"));
+        assertEquals(1, index.idOf("B"));
+    }
+
+    /**
+     * Capable teachers by the Teacher predicates, in name order
+     */
+    private static List<Teacher> scan(Map<String, Teacher> teachers, String subject, String type, String language) {
+        List<Teacher> capable = new ArrayList<>();
+        for (Teacher teacher : teachers.values()) {
+            if (teacher.getSubjects() == null || teacher.getSubjects().get(subject) == null) continue;
+            boolean can = switch (type) {
+                case "COURSE" -> teacher.canTeachCourse(subject);
+                case "SEMINAR" -> teacher.canTeachSeminar(subject);
+                default -> teacher.canTeachLaboratory(subject);
+            };
+            boolean anyLanguage = language == null || language.isBlank();
+            if (can && (anyLanguage || teacher.speaksLanguage(language))) capable.add(teacher);
+        }
+        capable.sort(Comparator.comparing(Teacher::getName));
+        return capable;
+    }
+}
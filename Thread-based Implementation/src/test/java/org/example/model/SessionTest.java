@@ -0,0 +1,50 @@
+package org.example.model;
+
+import org.example.service.generation.GenerationMode;
+import org.example.service.generation.GenerationResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTest {
+
+    @Test
+    void aCourseExpandsToOneActivityPerGroup() {
+        Session course = new Session("Logic", List.of("911", "912", "913"), "T", "C310", "Monday",
+                LocalTime.of(8, 0), LocalTime.of(10, 0), "COURSE", "", "Odd Week");
+
+        List<Activity> activities = course.expand();
+        assertEquals(List.of("911", "912", "913"), activities.stream().map(Activity::groupId).toList());
+        for (Activity activity : activities) {
+            assertEquals(course.forGroup(activity.groupId()), activity);
+            assertEquals("C310", activity.roomId());
+            assertEquals("Odd Week", activity.frequency());
+        }
+        assertEquals(2, course.getDurationHours());
+        assertEquals(1.0, course.getWeeklyHours());
+        assertEquals("911, 912, 913", course.groupLabel());
+    }
+
+    @Test
+    void generationKeepsOneSessionPerPlacement() {
+        GenerationResult result = generate(GenerationMode.SHARED);
+        List<Session> sessions = result.getSessions();
+
+        // A multi-group course is one session, not one copy per group or per hour
+        Set<String> placements = new HashSet<>();
+        for (Session s : sessions) {
+            assertFalse(s.groupIds().isEmpty());
+            assertEquals(s.groupIds().size(), new HashSet<>(s.groupIds()).size(), s.toString());
+            assertTrue(placements.add(s.teacherName() + " " + s.day() + " " + s.startTime() + " " + s.frequency()),
+                    "duplicate " + s);
+        }
+        assertTrue(sessions.stream().anyMatch(s -> s.groupIds().size() > 1));
+        assertEquals(sessions.stream().mapToInt(s -> s.groupIds().size()).sum(), result.getActivities().size());
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.model;
+
+import org.example.context.TimetableDataContext;
+import org.example.service.generation.GenerationMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSlotTest {
+
+    @Test
+    void slotsCompileToWholeHourMasks() {
+        assertEquals(0b11 << 8, new TimeSlot("08:00", "10:00").hourMask());
+        assertEquals(0b11 << 8, new TimeSlot(" 8:30", "10:15").hourMask());
+        assertEquals(1 << 23, new TimeSlot("23:00", "24:00").hourMask());
+        assertEquals(0, new TimeSlot("10:00", "10:00").hourMask());
+        assertEquals(0, new TimeSlot("ten", "12:00").hourMask());
+        assertEquals(0, new TimeSlot("25:00", "26:00").hourMask());
+
+        int[] week = TimeSlot.weeklyMask(Map.of(
+                "monday", List.of(new TimeSlot("08:00", "09:00"), new TimeSlot("12:00", "14:00")),
+                "Friday", List.of(new TimeSlot("18:00", "20:00")),
+                "Sunday", List.of(new TimeSlot("08:00", "20:00"))));
+        assertArrayEquals(new int[]{1 << 8 | 0b11 << 12, 0, 0, 0, 0b11 << 18}, week);
+    }
+
+    @Test
+    void generationKeepsOutOfBusyAndClosedHours() {
+        TimetableDataContext context = context();
+        Map<String, Place> placeOfRoom = new HashMap<>();
+        context.getPlaces().values().forEach(place -> {
+            if (place.getRooms() != null) place.getRooms().keySet().forEach(roomId -> placeOfRoom.put(roomId, place));
+        });
+
+        for (Session s : generate(GenerationMode.SHARED).getSessions()) {
+            int day = TimeSlot.dayIndex(s.day());
+            int hours = TimeSlot.hourMask(s.startTime().getHour(), s.endTime().getHour());
+            Teacher teacher = context.getTeachers().get(s.teacherName());
+            assertEquals(0, teacher.getScheduleMask()[day] & hours, s + " while the teacher is busy");
+            Place place = placeOfRoom.get(s.roomId());
+            assertEquals(hours, place.getScheduleMask()[day] & hours, s + " while the room is closed");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.service.distributed;
+
+import org.example.model.Session;
+import org.example.service.generation.GenerationMode;
+import org.example.service.generation.GenerationResult;
+import org.example.service.generation.SchedulerConfig;
+import org.example.service.generation.VersionedOccupancy;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistributedSchedulerTest {
+
+    @Test
+    void messagesSurviveTheWire() throws IOException {
+        WireProtocol.Assignment assignment = new WireProtocol.Assignment(3, 1L << 40, List.of("Logic", "Algebra"),
+                List.of(new WireProtocol.Reservation(VersionedOccupancy.Resource.ROOM, "C310", new int[]{0, 1 << 9, 300})));
+        WireProtocol.Result result = new WireProtocol.Result(3, 7, List.of(
+                new Session("Logic", List.of("911", "912"), "T", "C310", "Monday",
+                        LocalTime.of(8, 0), LocalTime.of(10, 0), "COURSE", "", "Weekly"),
+                new Session("Logic", List.of("911"), "T", "L001", "Friday",
+                        LocalTime.of(18, 0), LocalTime.of(20, 0), "LABORATORY", "2", "Odd Week")));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        WireProtocol.writeAssignment(out, assignment);
+        WireProtocol.writeResult(out, result);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(WireProtocol.TAG_WORK_ASSIGN, in.readByte());
+        WireProtocol.Assignment read = WireProtocol.readAssignment(in);
+        assertEquals(assignment.partitionId(), read.partitionId());
+        assertEquals(assignment.version(), read.version());
+        assertEquals(assignment.subjects(), read.subjects());
+        assertEquals(assignment.reservations().get(0).key(), read.reservations().get(0).key());
+        assertArrayEquals(assignment.reservations().get(0).days(), read.reservations().get(0).days());
+
+        assertEquals(WireProtocol.TAG_WORK_RESULT, in.readByte());
+        assertEquals(result, WireProtocol.readResult(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void spawnedWorkersReturnAClashFreeTimetable() {
+        GenerationResult result = generate(GenerationMode.DISTRIBUTED,
+                Map.of(SchedulerConfig.DISTRIBUTED_WORKERS_PROPERTY, "2"));
+
+        assertFalse(result.getSessions().isEmpty());
+        assertEquals(List.of(), clashes(result.getSessions()));
+        assertEquals(List.of(), overBudget(result.getSessions()));
+        assertTrue(metric(result, "distributed.assignments") > 0);
+        assertEquals(0, metric(result, "distributed.linkErrors"));
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.service.evolution;
+
+import org.example.model.Session;
+import org.example.service.generation.GenerationMode;
+import org.example.service.generation.GenerationResult;
+import org.example.service.generation.SchedulerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IslandOptimizerTest {
+    private static final Map<String, String> SEEDED = Map.of(
+            SchedulerConfig.EVOLUTION_EPOCHS_PROPERTY, "5",
+            SchedulerConfig.EVOLUTION_SEED_PROPERTY, "42");
+
+    @Test
+    void evolutionLowersThePenaltyAndKeepsEveryPlacement() {
+        List<Session> input = generate(GenerationMode.DSATUR).getSessions();
+        GenerationResult result = generate(GenerationMode.DSATUR, SEEDED);
+        List<Session> sessions = result.getSessions();
+
+        assertEquals(List.of(), clashes(sessions));
+        assertEquals(unplaced(input), unplaced(sessions));
+        assertEquals(input.size(), sessions.size());
+        assertEquals(4, metric(result, "evolution.islands"));
+        assertEquals(5, metric(result, "evolution.epochs"));
+        assertTrue(metric(result, "evolution.penaltyAfter") < metric(result, "evolution.penaltyBefore"),
+                metric(result, "evolution.penaltyBefore") + " -> " + metric(result, "evolution.penaltyAfter"));
+    }
+
+    @Test
+    void aSeededEpochBoundedRunIsReproduced() {
+        GenerationResult first = generate(GenerationMode.DSATUR, SEEDED);
+        GenerationResult second = generate(GenerationMode.DSATUR, SEEDED);
+
+        assertEquals(first.getSessions(), second.getSessions());
+        assertEquals(metric(first, "evolution.penaltyAfter"), metric(second, "evolution.penaltyAfter"));
+    }
+}
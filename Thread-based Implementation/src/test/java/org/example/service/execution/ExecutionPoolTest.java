@@ -0,0 +1,43 @@
+package org.example.service.execution;
+
+import org.example.service.generation.GenerationMode;
+import org.example.service.generation.GenerationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionPoolTest {
+
+    @Test
+    void everyModeGeneratesAClashFreeTimetable() {
+        for (ExecutionPool.Mode mode : ExecutionPool.Mode.values()) {
+            GenerationResult result = generate(GenerationMode.SHARED, mode, Map.of());
+            assertFalse(result.getSessions().isEmpty(), mode.name());
+            assertEquals(List.of(), clashes(result.getSessions()), mode.name());
+        }
+    }
+
+    @Test
+    void modeComesFromTheSystemProperty() {
+        String previous = System.getProperty(ExecutionPool.MODE_PROPERTY);
+        try {
+            System.setProperty(ExecutionPool.MODE_PROPERTY, " virtual ");
+            try (ExecutionPool pool = ExecutionPool.fromConfig()) {
+                assertEquals(ExecutionPool.Mode.VIRTUAL, pool.mode());
+                assertTrue(pool.supply(() -> Thread.currentThread().isVirtual()).join());
+            }
+            System.setProperty(ExecutionPool.MODE_PROPERTY, "fibers");
+            assertThrows(IllegalArgumentException.class, ExecutionPool::fromConfig);
+        } finally {
+            if (previous == null) {
+                System.clearProperty(ExecutionPool.MODE_PROPERTY);
+            } else {
+                System.setProperty(ExecutionPool.MODE_PROPERTY, previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DSaturSchedulerTest {
+
+    @Test
+    void coloringIsClashFreeAndReproducible() {
+        GenerationResult result = generate(GenerationMode.DSATUR);
+        List<Session> sessions = result.getSessions();
+
+        assertEquals(List.of(), clashes(sessions));
+        assertEquals(unplaced(sessions), metric(result, "dsatur.unplaced"));
+        assertEquals(sessions, generate(GenerationMode.DSATUR).getSessions());
+    }
+
+    @Test
+    void coloringStaysWithinItsKnownBoundOnTheSample() {
+        // DSATUR has no randomness, so the bound is exact: subject-by-subject greedy (SHARED)
+        // leaves 20 to 35 of the 143 sample requirements unplaced, the coloring 4
+        GenerationResult result = generate(GenerationMode.DSATUR);
+        assertEquals(143, WorkloadPlan.of(context()).getRequirementCount());
+        assertTrue(unplaced(result.getSessions()) <= 4, "DSATUR left " + unplaced(result.getSessions()) + " unplaced");
+    }
+
+    @Test
+    void successIsMeasuredAgainstTheWorkloadPlan() {
+        GenerationResult result = generate(GenerationMode.DSATUR);
+        WorkloadPlan plan = WorkloadPlan.of(context());
+        double required = 0;
+        double missing = 0;
+        for (String subjectName : context().getSubjects().keySet()) {
+            List<Session> sessions = result.getSessions().stream().filter(s -> s.subjectName().equals(subjectName)).toList();
+            List<WorkloadPlan.Requirement> unplaced = plan.unplaced(subjectName, sessions);
+            required += plan.forSubject(subjectName).stream().mapToDouble(WorkloadPlan.Requirement::weeklyHours).sum();
+            missing += unplaced.stream().mapToDouble(WorkloadPlan.Requirement::weeklyHours).sum();
+            TimetableGenerator.SubjectGenerationResult subject = result.subjectResults().stream()
+                    .filter(r -> r.subjectName().equals(subjectName)).findFirst().orElseThrow();
+            assertEquals(unplaced.isEmpty(), subject.success(), subjectName);
+        }
+        assertEquals(Math.round((required - missing) / required * 1000.0) / 10.0, result.getSuccessRate());
+        assertTrue(result.getSuccessRate() < 100.0);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service.generation;
+
+import org.example.model.Group;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupScheduleStateTest {
+
+    @Test
+    void cohortUnionsAgreeWithPerGroupChecks() {
+        Map<String, Group> groups = new LinkedHashMap<>();
+        for (int g = 0; g < 6; g++) {
+            String id = "91" + g;
+            groups.put(id, new Group(id, 30, "English", List.of(), 2, 1 + g % 3));
+        }
+        StudentSetIndex index = new StudentSetIndex(groups, Map.of());
+        GroupScheduleState state = new GroupScheduleState(groups, index);
+        List<String> ids = new ArrayList<>(groups.keySet());
+        List<List<String>> cohorts = List.of(ids, ids.subList(0, 3), ids.subList(2, 6), List.of(ids.get(1), ids.get(4)));
+
+        Random random = new Random(9);
+        record Placement(StudentSet set, int day, int hours, int lanes) {}
+        List<Placement> placed = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            int day = random.nextInt(TimeSlot.DAYS_PER_WEEK);
+            int start = SchedulerConfig.FIRST_HOUR + random.nextInt(8);
+            int hours = TimeSlot.hourMask(start, start + 1 + random.nextInt(3));
+            int lanes = 1 + random.nextInt(WeekCycle.ALL);
+
+            // Mix group, semigroup and cohort placements with releases (which drop the unions)
+            int action = random.nextInt(10);
+            if (action < 6) {
+                String groupId = ids.get(random.nextInt(ids.size()));
+                String subgroup = random.nextBoolean() ? "" : String.valueOf(1 + random.nextInt(2));
+                StudentSet set = index.setFor("S", List.of(groupId), "SEMINAR", subgroup);
+                if (state.tryBlock(set, day, hours, lanes)) placed.add(new Placement(set, day, hours, lanes));
+            } else if (action < 8) {
+                StudentSet set = index.setFor("C", cohorts.get(random.nextInt(cohorts.size())), "COURSE", "");
+                if (state.tryBlock(set, day, hours, lanes)) placed.add(new Placement(set, day, hours, lanes));
+            } else if (!placed.isEmpty()) {
+                Placement p = placed.remove(random.nextInt(placed.size()));
+                state.release(p.set(), p.day(), p.hours(), p.lanes());
+            }
+
+            for (List<String> cohort : cohorts) {
+                StudentSet set = index.setFor("C", cohort, "COURSE", "");
+                assertNotNull(set.getCohort());
+                boolean each = cohort.stream().allMatch(id -> state.isGroupFree(id, day, hours, lanes));
+                assertEquals(each, state.isFree(set, day, hours, lanes), "step " + step + " " + cohort);
+            }
+        }
+    }
+
+    @Test
+    void aSingleGroupOrASemigroupIsNoCohort() {
+        Map<String, Group> groups = Map.of("911", new Group("911", 30, "English", List.of(), 2, 2),
+                "912", new Group("912", 30, "English", List.of(), 2, 2));
+        StudentSetIndex index = new StudentSetIndex(groups, Map.of());
+        assertNull(index.setFor("S", List.of("911"), "COURSE", "").getCohort());
+        assertNull(index.setFor("S", List.of("911", "912"), "SEMINAR", "1").getCohort());
+        assertEquals("911,912", index.setFor("S", List.of("912", "911"), "COURSE", "").getCohort());
+    }
+}
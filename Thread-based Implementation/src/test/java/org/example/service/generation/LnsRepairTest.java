@@ -0,0 +1,58 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LnsRepairTest {
+
+    @Test
+    void repairLowersTheUnplacedCountWithoutClashes() {
+        // Every fifth session of the deterministic coloring is dropped: a known amount of work
+        List<Session> colored = generate(GenerationMode.DSATUR).getSessions();
+        Map<String, List<Session>> input = new LinkedHashMap<>();
+        context().getSubjects().keySet().forEach(subjectName -> input.put(subjectName, new ArrayList<>()));
+        int dropped = 0;
+        for (int i = 0; i < colored.size(); i++) {
+            if (i % 5 == 0) {
+                dropped++;
+            } else {
+                input.get(colored.get(i).subjectName()).add(colored.get(i));
+            }
+        }
+
+        GenerationMetrics metrics = new GenerationMetrics();
+        Map<String, List<Session>> repaired;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            repaired = new LnsRepair(context(), metrics, executor).repair(input);
+        } finally {
+            executor.shutdown();
+        }
+        List<Session> sessions = repaired.values().stream().flatMap(List::stream).toList();
+        long before = Long.parseLong(metrics.getMetrics().get("repair.unplacedBefore"));
+        long after = Long.parseLong(metrics.getMetrics().get("repair.unplacedAfter"));
+
+        assertEquals(unplaced(colored) + dropped, before);
+        assertTrue(after < before, before + " -> " + after);
+        assertEquals(after, unplaced(sessions));
+        assertEquals(List.of(), clashes(sessions));
+    }
+
+    @Test
+    void repairNeverLosesAColoredPlacement() {
+        GenerationResult result = generate(GenerationMode.DSATUR,
+                Map.of(SchedulerConfig.REPAIR_TIMEOUT_PROPERTY, "3000"));
+        long after = metric(result, "repair.unplacedAfter");
+
+        assertTrue(after <= metric(result, "repair.unplacedBefore"));
+        assertEquals(after, unplaced(result.getSessions()));
+        assertEquals(List.of(), clashes(result.getSessions()));
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapActivityStoreTest {
+
+    @Test
+    void rowsReadBackAcrossChunks() {
+        OffHeapActivityStore store = new OffHeapActivityStore();
+        List<Session> written = new ArrayList<>();
+        String[] days = SchedulerConfig.DAYS;
+        // More than one 16k-row chunk, with repeated names and group sets
+        for (int i = 0; i < 40_000; i++) {
+            List<String> groups = i % 3 == 0 ? List.of("911", "912", "913") : List.of("91" + (i % 7));
+            int start = 8 + i % 12;
+            Session session = new Session("Subject " + i % 50, groups, "Teacher " + i % 90, "R" + i % 40,
+                    days[i % days.length], LocalTime.of(start, 0), LocalTime.of(start + 1 + i % 2, 0),
+                    PlacementStore.TYPES[i % 3], i % 4 == 0 ? "1" : "", PlacementStore.PARITIES[i % 3]);
+            assertEquals(i, store.append(session));
+            written.add(session);
+        }
+
+        assertEquals(written.size(), store.size());
+        assertEquals(written, store.asList());
+        assertTrue(store.offHeapBytes() >= (long) written.size() * OffHeapActivityStore.ROW_BYTES);
+    }
+
+    @Test
+    void offHeapGenerationKeepsTheSameTimetable() {
+        GenerationResult result = generate(GenerationMode.DSATUR, Map.of(SchedulerConfig.STORAGE_PROPERTY, "off-heap"));
+        assertEquals("OFF_HEAP", result.metrics().getMetrics().get("storage"));
+
+        // DSATUR is deterministic, so both storages must hold the very same sessions
+        GenerationResult onHeap = generate(GenerationMode.DSATUR);
+        assertEquals(onHeap.getSessions(), new ArrayList<>(result.getSessions()));
+        assertEquals(List.of(), clashes(result.getSessions()));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.service.execution.ExecutionPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticSchedulerTest {
+
+    @Test
+    void staleBatchesAreRejectedOnlyWhereTheyOverlap() {
+        TimetableDataContext context = context();
+        VersionedOccupancy occupancy = VersionedOccupancy.seed(context,
+                new TeacherScheduleState(context.getTeachers()), new RoomScheduleState(context.getPlaces()),
+                new GroupScheduleState(context.getGroups(), StudentSetIndex.of(context)));
+        VersionedOccupancy.Snapshot planned = occupancy.snapshot();
+        String teacher = context.getTeachers().keySet().stream()
+                .filter(name -> freeDay(planned, name) >= 0).findFirst().orElseThrow();
+        int day = freeDay(planned, teacher);
+
+        VersionedOccupancy.Claim nineToEleven = claim(teacher, day, 9, 11);
+        VersionedOccupancy.Claim tenToTwelve = claim(teacher, day, 10, 12);
+        VersionedOccupancy.Claim twelveToTwo = claim(teacher, day, 12, 14);
+
+        assertEquals(List.of(), occupancy.commit(planned.version(), List.of(nineToEleven), List::of));
+        // Planned against the old version: only the overlapping claim goes back for retry
+        assertEquals(List.of(tenToTwelve),
+                occupancy.commit(planned.version(), List.of(tenToTwelve, twelveToTwo), List::of));
+        assertEquals(1, occupancy.getConflictCount());
+
+        // Snapshots are immutable: the plan's view never sees later commits
+        assertTrue(planned.isFree(nineToEleven));
+        assertFalse(occupancy.snapshot().isFree(nineToEleven));
+        assertFalse(occupancy.snapshot().isFree(twelveToTwo));
+        assertEquals(planned.version() + 2, occupancy.snapshot().version());
+    }
+
+    @Test
+    void optimisticRunsLeaveNoClash() {
+        for (ExecutionPool.Mode mode : List.of(ExecutionPool.Mode.WORK_STEALING, ExecutionPool.Mode.PLATFORM)) {
+            GenerationResult result = generate(GenerationMode.OPTIMISTIC, mode, Map.of());
+            assertEquals(List.of(), clashes(result.getSessions()), mode.name());
+            assertEquals(List.of(), overBudget(result.getSessions()), mode.name());
+            assertTrue(metric(result, "optimistic.commits") > 0);
+        }
+    }
+
+    private static VersionedOccupancy.Claim claim(String teacher, int day, int startHour, int endHour) {
+        return new VersionedOccupancy.Claim(VersionedOccupancy.Resource.TEACHER, teacher, day,
+                VersionedOccupancy.hourMask(startHour, endHour));
+    }
+
+    /**
+     * A day on which the teacher is free from 9 to 14, or -1
+     */
+    private static int freeDay(VersionedOccupancy.Snapshot snapshot, String teacher) {
+        for (int day = 0; day < SchedulerConfig.DAYS.length; day++) {
+            if (snapshot.isFree(claim(teacher, day, 9, 14))) return day;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Teacher;
+import org.example.model.TimeSlot;
+import org.example.service.execution.ExecutionPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedSchedulerTest {
+
+    @Test
+    void partitionsShareNoGroupAndNoExclusiveTeacher() {
+        TimetableDataContext context = context();
+        List<String> subjects = new ArrayList<>(context.getSubjects().keySet());
+        CohortPartitioner.PartitionPlan plan = new CohortPartitioner().partition(context, subjects);
+
+        List<String> covered = new ArrayList<>();
+        Set<String> groups = new HashSet<>();
+        Set<String> teachers = new HashSet<>(plan.sharedTeachers());
+        for (CohortPartitioner.Partition partition : plan.partitions()) {
+            covered.addAll(partition.subjects());
+            for (String groupId : partition.groupIds()) assertTrue(groups.add(groupId), "group " + groupId);
+            for (String teacher : partition.exclusiveTeachers()) assertTrue(teachers.add(teacher), "teacher " + teacher);
+            // Subjects keep the caller's order inside a partition
+            List<String> inOrder = new ArrayList<>(partition.subjects());
+            inOrder.sort(Comparator.comparingInt(subjects::indexOf));
+            assertEquals(inOrder, partition.subjects());
+        }
+        covered.sort(null);
+        subjects.sort(null);
+        assertEquals(subjects, covered);
+    }
+
+    @Test
+    void partitionFreeTeacherCountsSeeBlocksOnSharedTeachers() {
+        Map<String, Teacher> all = context().getTeachers();
+        List<String> names = new ArrayList<>(all.keySet());
+        Set<String> sharedNames = new HashSet<>();
+        Map<String, Teacher> exclusive = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (i % 2 == 0) sharedNames.add(names.get(i)); else exclusive.put(names.get(i), all.get(names.get(i)));
+        }
+        TeacherScheduleState shared = new TeacherScheduleState(all);
+        TeacherScheduleState partition = new PartitionedScheduler.PartitionTeacherScheduleState(exclusive, shared, sharedNames);
+        Map<Integer, List<String>> classes = new HashMap<>();
+        WorkloadPlan.of(context()).getRequirements().stream().map(WorkloadPlan.Requirement::teachers)
+                .filter(list -> !list.isEmpty()).distinct()
+                .forEach(list -> classes.put(partition.teacherClass(list), list.stream().map(Teacher::getName).toList()));
+        Random random = new Random(23);
+
+        for (int step = 0; step < 600; step++) {
+            String name = names.get(random.nextInt(names.size()));
+            int day = random.nextInt(TimeSlot.DAYS_PER_WEEK);
+            int start = SchedulerConfig.FIRST_HOUR + random.nextInt(10);
+            int hours = TimeSlot.hourMask(start, start + 1 + random.nextInt(3));
+            int lanes = 1 + random.nextInt(WeekCycle.ALL);
+            // Other partitions block shared teachers straight in the global state
+            TeacherScheduleState owner = (sharedNames.contains(name) && random.nextBoolean()) ? shared : partition;
+            if (random.nextInt(3) > 0) owner.block(name, day, hours, lanes); else owner.release(name, day, hours, lanes);
+            if (step % 30 != 0) continue;
+
+            int probeDay = random.nextInt(TimeSlot.DAYS_PER_WEEK);
+            int probeHour = SchedulerConfig.FIRST_HOUR + random.nextInt(10);
+            int probeLane = 1 << random.nextInt(WeekCycle.WEEKS);
+            classes.forEach((id, members) -> {
+                long expected = members.stream()
+                        .filter(member -> partition.isTeacherFree(member, probeDay, 1 << probeHour, probeLane)).count();
+                assertEquals(expected, partition.freeTeachers(id, probeDay, 1 << probeHour, probeLane));
+                assertEquals(expected > 0, partition.hasFreeTeacher(id, probeDay, 1 << probeHour, probeLane));
+            });
+        }
+    }
+
+    @Test
+    void partitionsOnAnyExecutorLeaveNoClash() {
+        // Partitions race for shared rooms and teachers; PLATFORM threads run them truly in parallel
+        for (ExecutionPool.Mode mode : ExecutionPool.Mode.values()) {
+            for (int run = 0; run < 3; run++) {
+                GenerationResult result = generate(GenerationMode.PARTITIONED, mode, Map.of());
+                assertEquals(List.of(), clashes(result.getSessions()), mode + " run " + run);
+                assertTrue(metric(result, "partitions") > 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementStoreTest {
+
+    @Test
+    void packedFieldsDoNotBleedIntoEachOther() {
+        long p = PlacementStore.pack(0xFFF, 0xFFFF, 0xFFFF, 4, 20, 15, 2, 2, 15);
+        assertEquals(20, PlacementStore.startHour(p));
+        assertEquals(4, PlacementStore.day(p));
+        assertEquals(15, PlacementStore.duration(p));
+        assertEquals(2, PlacementStore.type(p));
+        assertEquals(2, PlacementStore.parity(p));
+        assertEquals(15, PlacementStore.subgroup(p));
+        assertEquals(0xFFF, PlacementStore.subject(p));
+        assertEquals(0xFFFF, PlacementStore.teacher(p));
+        assertEquals(0xFFFF, PlacementStore.room(p));
+
+        long q = PlacementStore.pack(1, 0, 0, 0, 0, 0, 0, 0, 0);
+        assertEquals(1, PlacementStore.subject(q));
+        assertEquals(0, PlacementStore.teacher(q) | PlacementStore.room(q) | PlacementStore.startHour(q));
+    }
+
+    @Test
+    void rowsMaterializeToTheSessionsRecorded() {
+        PlacementStore store = new PlacementStore();
+        List<Session> expected = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            List<String> groups = random.nextBoolean() ? List.of("911", "912") : List.of("92" + random.nextInt(6));
+            String subgroup = random.nextInt(3) == 0 ? "" : String.valueOf(1 + random.nextInt(2));
+            int day = random.nextInt(SchedulerConfig.DAYS.length);
+            int start = 8 + random.nextInt(10);
+            int duration = 1 + random.nextInt(3);
+            String type = PlacementStore.TYPES[random.nextInt(3)];
+            String parity = PlacementStore.PARITIES[random.nextInt(3)];
+            assertEquals(i, store.add("S" + random.nextInt(20), groups, subgroup, "T" + random.nextInt(30),
+                    "R" + random.nextInt(15), day, start, duration, type, parity));
+            expected.add(store.toSession(i));
+            Session last = expected.get(i);
+            assertEquals(groups, last.groupIds());
+            assertEquals(subgroup, last.subgroup());
+            assertEquals(SchedulerConfig.DAYS[day], last.day());
+            assertEquals(start, last.startTime().getHour());
+            assertEquals(duration, last.getDurationHours());
+            assertEquals(type, last.activityType());
+            assertEquals(parity, last.frequency());
+        }
+        assertEquals(expected.stream().mapToInt(Session::getDurationHours).sum(), store.totalHours());
+
+        // Removing a row shifts the later ones up
+        store.remove(0);
+        store.remove(250);
+        expected.remove(0);
+        expected.remove(250);
+        assertEquals(expected, store.toSessions());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.remove(store.size()));
+        assertThrows(IllegalArgumentException.class, () -> store.add("S", List.of("911"), "", "T", "R", 0, 8, 2,
+                "WORKSHOP", "Weekly"));
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.service.generation;
+
+import org.example.model.Room;
+import org.example.model.Teacher;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResidualCapacityTest {
+
+    @Test
+    void freeRoomCountsMatchASweepThroughBlocksAndReleases() {
+        RoomScheduleState rooms = new RoomScheduleState(context().getPlaces());
+        List<List<Room>> eligible = WorkloadPlan.of(context()).getRequirements().stream()
+                .map(WorkloadPlan.Requirement::rooms).distinct().toList();
+        List<String> roomIds = eligible.stream().flatMap(List::stream).map(Room::getId).distinct().toList();
+        Random random = new Random(21);
+        List<Block> blocked = new ArrayList<>();
+
+        // Half the classes exist from the start, the rest register mid-run from the current rows
+        Map<Integer, List<Room>> classes = new HashMap<>();
+        for (int i = 0; i < eligible.size(); i += 2) classes.put(rooms.roomClass(eligible.get(i)), eligible.get(i));
+        for (int step = 0; step < 2000; step++) {
+            if (step == 1000) {
+                for (int i = 1; i < eligible.size(); i += 2) classes.put(rooms.roomClass(eligible.get(i)), eligible.get(i));
+            }
+            Block b = randomBlock(random, roomIds.get(random.nextInt(roomIds.size())));
+            if (random.nextInt(3) > 0 || blocked.isEmpty()) {
+                rooms.block(b.id(), b.day(), b.hours(), b.lanes());
+                blocked.add(b);
+            } else {
+                Block old = blocked.remove(random.nextInt(blocked.size()));
+                rooms.release(old.id(), old.day(), old.hours(), old.lanes());
+            }
+            if (step % 50 != 0) continue;
+            Block probe = randomBlock(random, null);
+            classes.forEach((id, members) -> assertEquals(
+                    sweep(members.stream().map(Room::getId).toList(), probe, rooms::isRoomFree),
+                    rooms.freeRooms(id, probe.day(), probe.hours(), probe.lanes())));
+        }
+    }
+
+    @Test
+    void freeTeacherCountsMatchASweep() {
+        TeacherScheduleState teachers = new TeacherScheduleState(context().getTeachers());
+        List<List<Teacher>> eligible = WorkloadPlan.of(context()).getRequirements().stream()
+                .map(WorkloadPlan.Requirement::teachers).filter(list -> !list.isEmpty()).distinct().toList();
+        Map<Integer, List<String>> classes = new HashMap<>();
+        eligible.forEach(list -> classes.put(teachers.teacherClass(list), list.stream().map(Teacher::getName).toList()));
+        List<String> names = new ArrayList<>(context().getTeachers().keySet());
+        Random random = new Random(22);
+
+        for (int step = 0; step < 1000; step++) {
+            Block b = randomBlock(random, names.get(random.nextInt(names.size())));
+            if (random.nextBoolean()) {
+                teachers.block(b.id(), b.day(), b.hours(), b.lanes());
+            } else {
+                teachers.release(b.id(), b.day(), b.hours(), b.lanes());
+            }
+            if (step % 50 != 0) continue;
+            Block probe = randomBlock(random, null);
+            classes.forEach((id, members) -> {
+                int expected = sweep(members, probe, teachers::isTeacherFree);
+                assertEquals(expected, teachers.freeTeachers(id, probe.day(), probe.hours(), probe.lanes()));
+                assertEquals(expected > 0, teachers.hasFreeTeacher(id, probe.day(), probe.hours(), probe.lanes()));
+            });
+        }
+    }
+
+    private record Block(String id, int day, int hours, int lanes) {}
+
+    private interface FreeCheck {
+        boolean isFree(String member, int day, int hourMask, int lanes);
+    }
+
+    private static Block randomBlock(Random random, String id) {
+        int start = SchedulerConfig.FIRST_HOUR + random.nextInt(10);
+        return new Block(id, random.nextInt(TimeSlot.DAYS_PER_WEEK),
+                TimeSlot.hourMask(start, start + 1 + random.nextInt(3)), 1 + random.nextInt(WeekCycle.ALL));
+    }
+
+    /**
+     * Fewest members free in any single hour and week lane of the probe
+     */
+    private static int sweep(List<String> members, Block probe, FreeCheck check) {
+        int min = Integer.MAX_VALUE;
+        for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+            if ((probe.lanes() & (1 << lane)) == 0) continue;
+            for (int hour = SchedulerConfig.FIRST_HOUR; hour <= SchedulerConfig.LAST_HOUR; hour++) {
+                if ((probe.hours() & (1 << hour)) == 0) continue;
+                int free = 0;
+                for (String member : members) {
+                    if (check.isFree(member, probe.day(), 1 << hour, 1 << lane)) free++;
+                }
+                min = Math.min(min, free);
+            }
+        }
+        return min;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.service.generation;
+
+import org.example.model.Place;
+import org.example.model.Room;
+import org.example.model.Session;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomScheduleStateTest {
+    private static final Room SMALL = new Room("S", 20, List.of());
+    private static final Room LARGE = new Room("L", 40, List.of());
+
+    @Test
+    void matchingMovesAReservationWhereGreedyGetsStuck() {
+        int hours = TimeSlot.hourMask(10, 12);
+
+        RoomScheduleState greedy = new RoomScheduleState(places());
+        assertEquals("S", greedy.blockFirstFree(List.of(SMALL, LARGE), 0, hours, WeekCycle.ALL));
+        assertNull(greedy.blockFirstFree(List.of(SMALL), 0, hours, WeekCycle.ALL));
+
+        RoomScheduleState matching = new RoomScheduleState(places(), RoomAssignment.MATCHING);
+        int first = matching.reserveRoom(List.of(SMALL, LARGE), 0, 10, 12, WeekCycle.ALL);
+        int second = matching.reserveRoom(List.of(SMALL), 0, 10, 12, WeekCycle.ALL);
+        assertTrue(first >= 0 && second >= 0);
+        assertEquals(-1, matching.reserveRoom(List.of(SMALL, LARGE), 0, 10, 12, WeekCycle.ALL));
+        assertFalse(matching.isRoomFree("S", 0, hours, WeekCycle.ALL));
+        assertFalse(matching.isRoomFree("L", 0, hours, WeekCycle.ALL));
+
+        List<Session> resolved = matching.resolveRooms(List.of(pending(first), pending(second)));
+        assertEquals("L", resolved.get(0).roomId());
+        assertEquals("S", resolved.get(1).roomId());
+        // Another day's window is untouched
+        assertTrue(matching.isRoomFree("S", 1, hours, WeekCycle.ALL));
+    }
+
+    @Test
+    void matchingGenerationResolvesEveryRoom() {
+        GenerationResult result = generate(GenerationMode.SHARED,
+                Map.of(SchedulerConfig.ROOM_ASSIGNMENT_PROPERTY, "matching"));
+        List<Session> sessions = result.getSessions();
+        Set<String> rooms = new HashSet<>();
+        context().getPlaces().values().forEach(place -> rooms.addAll(place.getRooms().keySet()));
+
+        for (Session s : sessions) {
+            assertTrue(rooms.contains(s.roomId()), s.toString());
+        }
+        assertEquals(List.of(), clashes(sessions));
+    }
+
+    @Test
+    void matchingSeatsAtLeastAsManyRequirementsAsGreedy() {
+        List<WorkloadPlan.Requirement> requirements = WorkloadPlan.of(context()).getRequirements();
+        Random random = new Random(11);
+        // The plan's own eligible-room lists competing for one window, many times over
+        for (int round = 0; round < 200; round++) {
+            RoomScheduleState greedy = new RoomScheduleState(context().getPlaces());
+            RoomScheduleState matching = new RoomScheduleState(context().getPlaces(), RoomAssignment.MATCHING);
+            int greedyPlaced = 0;
+            int matchingPlaced = 0;
+            for (int i = 0; i < 40; i++) {
+                List<Room> eligible = requirements.get(random.nextInt(requirements.size())).rooms();
+                if (greedy.blockFirstFree(eligible, 2, TimeSlot.hourMask(10, 12), WeekCycle.ALL) != null) {
+                    greedyPlaced++;
+                }
+                if (matching.reserveRoom(eligible, 2, 10, 12, WeekCycle.ALL) >= 0) matchingPlaced++;
+            }
+            assertTrue(matchingPlaced >= greedyPlaced, "round " + round + ": " + matchingPlaced + " < " + greedyPlaced);
+        }
+    }
+
+    private static Map<String, Place> places() {
+        Map<String, List<TimeSlot>> open = new HashMap<>();
+        for (String day : SchedulerConfig.DAYS) {
+            open.put(day, List.of(new TimeSlot("08:00", "20:00")));
+        }
+        Map<String, Room> rooms = new LinkedHashMap<>();
+        rooms.put("S", SMALL);
+        rooms.put("L", LARGE);
+        return Map.of("P", new Place("P", open, rooms));
+    }
+
+    private static Session pending(int ticket) {
+        return new Session("Logic", List.of("911"), "T", RoomScheduleState.pendingRoomId(ticket), "Monday",
+                java.time.LocalTime.of(10, 0), java.time.LocalTime.of(12, 0), "SEMINAR", "", "Weekly");
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Teacher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedMemorySchedulerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void aRunJoinsItsGridAndANewRunReseedsIt() throws IOException {
+        Path file = dir.resolve("grid.bin");
+        String teacher = context().getTeachers().keySet().iterator().next();
+        VersionedOccupancy.Claim claim = new VersionedOccupancy.Claim(
+                VersionedOccupancy.Resource.TEACHER, teacher, 0, VersionedOccupancy.hourMask(20, 21));
+
+        int seeded;
+        try (MappedOccupancy first = open(file, 1); MappedOccupancy second = open(file, 1)) {
+            seeded = first.occupied(VersionedOccupancy.Resource.TEACHER, teacher, 0);
+            assertTrue(first.tryClaim(List.of(claim)));
+            // Same run: the second process shares the first one's hours and counters
+            assertFalse(second.tryClaim(List.of(claim)));
+            assertEquals(1, second.getClaimCount());
+            assertEquals(1, second.getConflictCount());
+        }
+        try (MappedOccupancy rerun = open(file, 1)) {
+            assertNotEquals(0, rerun.occupied(VersionedOccupancy.Resource.TEACHER, teacher, 0) & claim.hourMask());
+        }
+        // A new run must not inherit the old run's claims
+        try (MappedOccupancy next = open(file, 2)) {
+            assertEquals(seeded, next.occupied(VersionedOccupancy.Resource.TEACHER, teacher, 0));
+            assertEquals(0, next.getClaimCount());
+            assertTrue(next.tryClaim(List.of(claim)));
+        }
+    }
+
+    @Test
+    void processesOfARunShareEachTeachersWeeklyBudget() throws IOException {
+        Path file = dir.resolve("budget.bin");
+        Teacher teacher = context().getTeachers().values().stream()
+                .filter(t -> t.getMaxHoursPerWeek() > 0).findFirst().orElseThrow();
+        int limit = teacher.getMaxHoursPerWeek() * WeekCycle.WEEKS;
+
+        try (MappedOccupancy first = open(file, 3); MappedOccupancy second = open(file, 3)) {
+            assertEquals(0, first.stamp());
+            assertTrue(first.tryClaim(List.of(), teacher.getName(), limit - 1));
+            assertEquals(1, second.remainingHours(teacher.getName()));
+            // The hour is free but the budget is not: nothing is claimed or charged
+            VersionedOccupancy.Claim claim = new VersionedOccupancy.Claim(
+                    VersionedOccupancy.Resource.ROOM, firstRoomId(), 0, VersionedOccupancy.hourMask(20, 21));
+            assertFalse(second.tryClaim(List.of(claim), teacher.getName(), 2));
+            assertEquals(0, first.occupied(VersionedOccupancy.Resource.ROOM, firstRoomId(), 0) & claim.hourMask());
+            assertEquals(1, first.remainingHours(teacher.getName()));
+            assertEquals(1, first.stamp());
+            assertTrue(second.tryClaim(List.of(claim), teacher.getName(), 1));
+            assertEquals(0, first.remainingHours(teacher.getName()));
+        }
+    }
+
+    @Test
+    void oneShardGeneratesAClashFreeTimetable() {
+        GenerationResult result = generate(GenerationMode.SHARED_MEMORY,
+                Map.of(SchedulerConfig.SHM_FILE_PROPERTY, dir.resolve("run.bin").toString()));
+
+        assertEquals(List.of(), clashes(result.getSessions()));
+        assertEquals(List.of(), overBudget(result.getSessions()));
+        assertEquals(result.getSessions().size(), metric(result, "shm.claims"));
+    }
+
+    private static String firstRoomId() {
+        return context().getPlaces().values().stream().filter(place -> place.getRooms() != null)
+                .flatMap(place -> place.getRooms().keySet().stream()).sorted().findFirst().orElseThrow();
+    }
+
+    private static MappedOccupancy open(Path file, long runId) throws IOException {
+        TimetableDataContext context = context();
+        return MappedOccupancy.open(file, runId, context, new TeacherScheduleState(context.getTeachers()),
+                new RoomScheduleState(context.getPlaces()),
+                new GroupScheduleState(context.getGroups(), StudentSetIndex.of(context)));
+    }
+}
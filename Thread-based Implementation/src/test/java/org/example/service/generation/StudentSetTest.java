@@ -0,0 +1,81 @@
+package org.example.service.generation;
+
+import org.example.model.Group;
+import org.example.model.Subject;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentSetTest {
+
+    @Test
+    void electivesIntersectExactlyWhenTheyShareAStudentBlock() {
+        // 80 groups of two halves: 160 blocks, so sets span several words
+        Map<String, Group> groups = new LinkedHashMap<>();
+        for (int g = 0; g < 80; g++) {
+            String id = String.valueOf(100 + g);
+            groups.put(id, new Group(id, 30, "English", List.of(), 2, 2));
+        }
+        Random random = new Random(3);
+        Map<String, Subject> subjects = new LinkedHashMap<>();
+        Map<String, Set<String>> enrolled = new HashMap<>();
+        for (int e = 0; e < 40; e++) {
+            Set<String> blocks = new TreeSet<>();
+            int size = 1 + random.nextInt(6);
+            for (int i = 0; i < size; i++) {
+                String id = String.valueOf(100 + random.nextInt(80));
+                if (random.nextBoolean()) {
+                    blocks.add(id + "/1");
+                    blocks.add(id + "/2");
+                } else {
+                    blocks.add(id + "/" + (1 + random.nextInt(2)));
+                }
+            }
+            Subject subject = new Subject("Elective " + e, "", "English", 0, 0, 2, 2, 0, 0);
+            subject.setStudents(List.copyOf(blocks));
+            subjects.put(subject.getName(), subject);
+            enrolled.put(subject.getName(), blocks);
+        }
+
+        StudentSetIndex index = new StudentSetIndex(groups, subjects);
+        assertEquals(3, index.words());
+        for (String a : subjects.keySet()) {
+            StudentSet setA = index.setFor(a, List.of(), "SEMINAR", "");
+            assertFalse(setA.isAligned());
+            assertEquals(enrolled.get(a), new TreeSet<>(setA.getKeys()));
+            for (String b : subjects.keySet()) {
+                StudentSet setB = index.setFor(b, List.of(), "SEMINAR", "");
+                boolean shared = !Collections.disjoint(enrolled.get(a), enrolled.get(b));
+                assertEquals(shared, setA.intersects(setB), a + " / " + b);
+
+                // The occupancy check agrees with the pairwise one
+                GroupScheduleState state = new GroupScheduleState(groups, index);
+                state.block(setA, 2, TimeSlot.hourMask(10, 12), WeekCycle.ALL);
+                assertEquals(!shared, state.isFree(setB, 2, TimeSlot.hourMask(11, 13), WeekCycle.ALL), a + " / " + b);
+                assertTrue(state.isFree(setB, 2, TimeSlot.hourMask(12, 14), WeekCycle.ALL));
+            }
+        }
+    }
+
+    @Test
+    void anElectiveClashesWithTheSemigroupItDrawsFrom() {
+        Map<String, Group> groups = Map.of("921", new Group("921", 30, "English", List.of(), 2, 2),
+                "922", new Group("922", 30, "English", List.of(), 2, 2));
+        Subject elective = new Subject("Elective", "", "English", 0, 0, 2, 2, 0, 0);
+        elective.setStudents(List.of("921/2", "922"));
+        StudentSetIndex index = new StudentSetIndex(groups, Map.of("Elective", elective));
+        GroupScheduleState state = new GroupScheduleState(groups, index);
+        int hours = TimeSlot.hourMask(8, 10);
+
+        state.block(index.setFor("Elective", List.of(), "SEMINAR", ""), 0, hours, WeekCycle.lanes("Odd Week"));
+        assertTrue(state.isFree(index.setFor("Seminar", List.of("921"), "SEMINAR", "1"), 0, hours, WeekCycle.ALL));
+        assertFalse(state.isFree(index.setFor("Seminar", List.of("921"), "SEMINAR", "2"), 0, hours, WeekCycle.ALL));
+        assertFalse(state.isFree(index.setFor("Seminar", List.of("922"), "SEMINAR", "1"), 0, hours, WeekCycle.ALL));
+        assertTrue(state.isFree(index.setFor("Seminar", List.of("922"), "SEMINAR", "1"), 0, hours,
+                WeekCycle.lanes("Even Week")));
+        assertEquals(45, index.studentCount(index.setFor("Elective", List.of(), "SEMINAR", "")));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service.generation;
+
+import org.example.model.Group;
+import org.example.model.Session;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubgroupLanesTest {
+    private static final Group HALVES_AND_QUARTERS = new Group("931", 32, "English", List.of(), 2, 4);
+
+    @Test
+    void subgroupsTakeTheLanesOfTheirShare() {
+        assertEquals(4, SubgroupLanes.count(HALVES_AND_QUARTERS));
+        assertEquals(0b0011, SubgroupLanes.lanes(HALVES_AND_QUARTERS, "SEMINAR", "1"));
+        assertEquals(0b1100, SubgroupLanes.lanes(HALVES_AND_QUARTERS, "SEMINAR", "2"));
+        assertEquals(0b0001, SubgroupLanes.lanes(HALVES_AND_QUARTERS, "LABORATORY", "1"));
+        assertEquals(0b0100, SubgroupLanes.lanes(HALVES_AND_QUARTERS, "LABORATORY", "3"));
+        assertEquals(0b1111, SubgroupLanes.lanes(HALVES_AND_QUARTERS, "COURSE", ""));
+        assertEquals(0b1111, SubgroupLanes.lanes(HALVES_AND_QUARTERS, "SEMINAR", "3"));
+        assertEquals(1, SubgroupLanes.count(new Group("932", 30, "English", List.of(), 1, 1)));
+        assertEquals(List.of("931/3"),
+                SubgroupLanes.keys(HALVES_AND_QUARTERS, "931", SubgroupLanes.lanes(HALVES_AND_QUARTERS, "LABORATORY", "3")));
+
+        // Too many lanes for one long: the cut gets coarser and halves may share a lane, never miss one
+        Group halvesAndSevenths = new Group("933", 42, "English", List.of(), 2, 7);
+        assertEquals(SubgroupLanes.MAX_LANES, SubgroupLanes.count(halvesAndSevenths));
+        assertNotEquals(0, SubgroupLanes.lanes(halvesAndSevenths, "SEMINAR", "1")
+                & SubgroupLanes.lanes(halvesAndSevenths, "LABORATORY", "4"));
+    }
+
+    @Test
+    void semigroupsRunInParallelButBlockTheWholeGroup() {
+        GroupScheduleState state = new GroupScheduleState(Map.of("931", HALVES_AND_QUARTERS),
+                new StudentSetIndex(Map.of("931", HALVES_AND_QUARTERS), Map.of()));
+        int hours = TimeSlot.hourMask(10, 12);
+        int first = state.subgroupLanes("931", "SEMINAR", "1");
+
+        state.block("931", first, 1, hours, WeekCycle.ALL);
+        assertTrue(state.isGroupFree("931", state.subgroupLanes("931", "SEMINAR", "2"), 1, hours, WeekCycle.ALL));
+        assertTrue(state.isGroupFree("931", state.subgroupLanes("931", "LABORATORY", "3"), 1, hours, WeekCycle.ALL));
+        // The second quarter of a lab is part of the first half
+        assertFalse(state.isGroupFree("931", state.subgroupLanes("931", "LABORATORY", "2"), 1, hours, WeekCycle.ALL));
+        assertFalse(state.isGroupFree("931", 1, hours, WeekCycle.ALL));
+        assertTrue(state.isGroupFree("931", 1, TimeSlot.hourMask(12, 14), WeekCycle.ALL));
+    }
+
+    @Test
+    void generationRunsSomeSemigroupsInParallel() {
+        List<Session> sessions = generate(GenerationMode.SHARED).getSessions();
+        assertEquals(List.of(), clashes(sessions));
+
+        Map<String, Set<String>> subgroupsAt = new HashMap<>();
+        for (Session s : sessions) {
+            if (s.subgroup().isEmpty() || s.groupIds().size() != 1) continue;
+            for (int hour = s.startTime().getHour(); hour < s.endTime().getHour(); hour++) {
+                subgroupsAt.computeIfAbsent(s.groupIds().get(0) + " " + s.day() + " " + hour + " " + s.frequency(),
+                        k -> new HashSet<>()).add(s.activityType() + s.subgroup());
+            }
+        }
+        assertTrue(subgroupsAt.values().stream().anyMatch(subgroups -> subgroups.size() > 1));
+    }
+}
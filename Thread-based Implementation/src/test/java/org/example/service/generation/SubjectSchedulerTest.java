@@ -0,0 +1,95 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubjectSchedulerTest {
+
+    @Test
+    void everyRequirementIsPlacedOrReportedOnce() {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        List<Session> sessions;
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            sessions = generate(GenerationMode.SHARED).getSessions();
+        } finally {
+            System.setErr(err);
+        }
+        assertEquals(List.of(), clashes(sessions));
+
+        // Backjumps undo and redo placements: none may be left twice or dropped silently
+        WorkloadPlan plan = WorkloadPlan.of(context());
+        Map<String, List<Session>> bySubject = new HashMap<>();
+        sessions.forEach(s -> bySubject.computeIfAbsent(s.subjectName(), k -> new ArrayList<>()).add(s));
+        Set<String> failed = new TreeSet<>();
+        int unplaced = 0;
+        for (String subjectName : context().getSubjects().keySet()) {
+            List<Session> stray = new ArrayList<>();
+            List<WorkloadPlan.Requirement> missing = plan.match(subjectName,
+                    bySubject.getOrDefault(subjectName, List.of()), (requirement, session) -> {}, stray::add);
+            assertEquals(List.of(), stray, subjectName + " has sessions no requirement asked for");
+            missing.forEach(requirement -> failed.add(subjectName + " " + requirement.activityType()));
+            unplaced += missing.size();
+        }
+        assertEquals(plan.getRequirementCount(), sessions.size() + unplaced);
+
+        List<String> reported = captured.toString(StandardCharsets.UTF_8).lines()
+                .filter(line -> line.contains("Failed to schedule")).toList();
+        assertEquals(new HashSet<>(reported).size(), reported.size(), "reported twice: " + reported);
+        assertEquals(failed.size(), reported.size(), reported.toString());
+    }
+
+    @Test
+    void aSubjectAlonePlacesOrReportsEachRequirement() {
+        String subjectName = WorkloadPlan.of(context()).getRequirements().get(0).subjectName();
+        SubjectScheduler scheduler = new SubjectScheduler(subjectName, context().getSubjects().get(subjectName),
+                context(), new TeacherScheduleState(context().getTeachers()), new RoomScheduleState(context().getPlaces()),
+                new GroupScheduleState(context().getGroups(), StudentSetIndex.of(context())));
+
+        List<Session> sessions = scheduler.schedule();
+        assertEquals(List.of(), clashes(sessions));
+        assertFalse(sessions.isEmpty());
+        assertEquals(WorkloadPlan.of(context()).forSubject(subjectName).size(),
+                sessions.size() + WorkloadPlan.of(context()).unplaced(subjectName, sessions).size());
+    }
+
+    @Test
+    void aLostRaceIsRolledBackWithoutCountingARelease() {
+        WorkloadPlan.Requirement requirement = WorkloadPlan.of(context()).getRequirements().get(0);
+        String teacher = requirement.teachers().get(0).getName();
+        TeacherScheduleState teachers = new TeacherScheduleState(context().getTeachers());
+        GroupScheduleState groups = new GroupScheduleState(context().getGroups(), StudentSetIndex.of(context()));
+        int start = SchedulerConfig.FIRST_HOUR;
+        while (!teachers.isTeacherFree(teacher, 0, TimeSlot.hourMask(start, start + 2), WeekCycle.ALL)) start++;
+        int hours = TimeSlot.hourMask(start, start + 2);
+        int teacherClass = teachers.teacherClass(requirement.teachers());
+        int free = teachers.freeTeachers(teacherClass, 0, hours, WeekCycle.ALL);
+
+        assertTrue(teachers.tryBlock(teacher, 0, hours, WeekCycle.ALL));
+        assertTrue(groups.tryBlock(requirement.students(), 0, hours, WeekCycle.ALL));
+        assertTrue(teachers.tryChargeHours(teacher, 2));
+        teachers.rollback(teacher, 0, hours, WeekCycle.ALL);
+        groups.rollback(requirement.students(), 0, hours, WeekCycle.ALL);
+        teachers.refundHours(teacher, 2);
+
+        assertTrue(teachers.isTeacherFree(teacher, 0, hours, WeekCycle.ALL));
+        assertTrue(groups.isFree(requirement.students(), 0, hours, WeekCycle.ALL));
+        assertEquals(free, teachers.freeTeachers(teacherClass, 0, hours, WeekCycle.ALL));
+        assertEquals(0, teachers.releaseCount());
+        assertEquals(0, groups.releaseCount());
+
+        teachers.block(teacher, 0, hours, WeekCycle.ALL);
+        teachers.release(teacher, 0, hours, WeekCycle.ALL);
+        assertEquals(1, teachers.releaseCount());
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+import org.example.model.Teacher;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeacherWorkloadLedgerTest {
+
+    @Test
+    void concurrentChargesStopAtTheCycleLimit() {
+        Teacher teacher = new Teacher();
+        teacher.setName("T");
+        teacher.setMaxHoursPerWeek(10);
+        TeacherWorkloadLedger ledger = new TeacherWorkloadLedger(Map.of("T", teacher));
+        int limit = 10 * WeekCycle.WEEKS;
+
+        AtomicInteger charged = new AtomicInteger();
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            if (ledger.tryCharge("T", 2)) charged.addAndGet(2);
+        });
+        assertEquals(limit - limit % 2, charged.get());
+        assertEquals(charged.get(), ledger.usedHours("T"));
+        assertEquals(limit % 2, ledger.remainingHours("T"));
+        assertFalse(ledger.tryCharge("T", 2));
+
+        ledger.release("T", 2);
+        assertTrue(ledger.tryCharge("T", 2));
+        // Unknown teachers and a MaxHoursPerWeek of 0 are never limited
+        assertTrue(ledger.tryCharge("Nobody", 1000));
+        Teacher unlimited = new Teacher();
+        unlimited.setName("U");
+        TeacherWorkloadLedger open = new TeacherWorkloadLedger(Map.of("U", unlimited));
+        assertTrue(open.tryCharge("U", 100_000));
+        assertEquals(Integer.MAX_VALUE, open.remainingHours("U"));
+    }
+
+    @Test
+    void randomAndFlowTeachersStayWithinMaxHours() {
+        for (TeacherSelection selection : TeacherSelection.values()) {
+            List<Session> sessions = generate(GenerationMode.SHARED,
+                    Map.of(SchedulerConfig.TEACHER_SELECTION_PROPERTY, selection.name())).getSessions();
+            assertEquals(List.of(), clashes(sessions), selection.name());
+            assertEquals(List.of(), overBudget(sessions), selection.name());
+        }
+    }
+
+    @Test
+    void flowAssignsEligibleTeachers() {
+        TeacherAssignment assignment = TeacherAssignment.of(context());
+        WorkloadPlan plan = WorkloadPlan.of(context());
+        assertEquals(plan.getRequirementCount(), assignment.getAssignedCount() + assignment.getUnassignedCount());
+        assertTrue(assignment.getAssignedCount() > 0);
+
+        Map<String, Integer> load = new HashMap<>();
+        for (WorkloadPlan.Requirement requirement : plan.getRequirements()) {
+            Teacher teacher = assignment.teacherFor(requirement);
+            if (teacher == null) continue;
+            assertTrue(requirement.teachers().contains(teacher), teacher.getName() + " for " + requirement);
+            load.merge(teacher.getName(), WeekCycle.cycleHours(requirement.duration(), requirement.frequency()),
+                    Integer::sum);
+        }
+        load.forEach((name, hours) -> {
+            int max = context().getTeachers().get(name).getMaxHoursPerWeek();
+            if (max > 0) assertTrue(hours <= max * WeekCycle.WEEKS, name + " assigned " + hours + "h");
+        });
+    }
+}
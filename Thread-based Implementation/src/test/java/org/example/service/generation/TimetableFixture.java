@@ -0,0 +1,137 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Session;
+import org.example.repository.GroupRepository;
+import org.example.repository.PlaceRepository;
+import org.example.repository.SubjectRepository;
+import org.example.repository.TeacherRepository;
+import org.example.service.execution.ExecutionPool;
+
+import java.util.*;
+
+/**
+ * TimetableFixture - Shared setup for generation tests: the sample config, one run of a mode
+ * under given -D properties, and the clash / unplaced checks every mode must pass.
+ */
+public final class TimetableFixture {
+    private TimetableFixture() {
+    }
+
+    /**
+     * The context over the *-config.json resources (a singleton, so built once per test JVM)
+     */
+    public static TimetableDataContext context() {
+        try {
+            return TimetableDataContext.getInstance(
+                    new GroupRepository(), new TeacherRepository(), new SubjectRepository(), new PlaceRepository());
+        } catch (Exception e) {
+            throw new IllegalStateException("Sample config failed to load", e);
+        }
+    }
+
+    /**
+     * One generation in `mode` on a fresh pool of the given execution mode; `properties` are set
+     * for the run only (repair is off unless they turn it on, so each test sees its own mode)
+     */
+    public static GenerationResult generate(GenerationMode mode, ExecutionPool.Mode execution,
+                                            Map<String, String> properties) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put(SchedulerConfig.REPAIR_TIMEOUT_PROPERTY, "0");
+        settings.putAll(properties);
+
+        Map<String, String> previous = new HashMap<>();
+        settings.forEach((name, value) -> previous.put(name, System.getProperty(name)));
+        settings.forEach(System::setProperty);
+        try (ExecutionPool pool = new ExecutionPool(execution)) {
+            return new TimetableGenerator(context(), pool.executor(), mode).generate();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            previous.forEach((name, value) -> {
+                if (value == null) {
+                    System.clearProperty(name);
+                } else {
+                    System.setProperty(name, value);
+                }
+            });
+        }
+    }
+
+    public static GenerationResult generate(GenerationMode mode, Map<String, String> properties) {
+        return generate(mode, ExecutionPool.Mode.WORK_STEALING, properties);
+    }
+
+    public static GenerationResult generate(GenerationMode mode) {
+        return generate(mode, Map.of());
+    }
+
+    // ==== Checks ====
+
+    /**
+     * Every hour a teacher, room or student appears twice on one day and week lane.
+     * Subgroup "1" / "2" sessions take half a group, anything else the whole group.
+     */
+    public static List<String> clashes(List<Session> sessions) {
+        List<String> clashes = new ArrayList<>();
+        Set<String> taken = new HashSet<>();
+        for (Session s : sessions) {
+            int lanes = WeekCycle.lanes(s.frequency());
+            List<String> halves = s.subgroup().equals("1") || s.subgroup().equals("2")
+                    ? List.of(s.subgroup()) : List.of("1", "2");
+            for (int hour = s.startTime().getHour(); hour < s.endTime().getHour(); hour++) {
+                for (int lane = 0; lane < WeekCycle.WEEKS; lane++) {
+                    if ((lanes & (1 << lane)) == 0) continue;
+                    String when = s.day() + " " + hour + ":00 week " + lane;
+                    List<String> keys = new ArrayList<>();
+                    keys.add("teacher " + s.teacherName());
+                    keys.add("room " + s.roomId());
+                    for (String groupId : s.groupIds()) {
+                        for (String half : halves) keys.add("group " + groupId + "/" + half);
+                    }
+                    for (String key : keys) {
+                        if (!taken.add(key + " " + when)) clashes.add(key + " at " + when + " (" + s.subjectName() + ")");
+                    }
+                }
+            }
+        }
+        return clashes;
+    }
+
+    /**
+     * Every teacher charged more than MaxHoursPerWeek per week cycle (TeacherWorkloadLedger)
+     */
+    public static List<String> overBudget(List<Session> sessions) {
+        Map<String, Integer> hours = new TreeMap<>();
+        sessions.forEach(s -> hours.merge(s.teacherName(),
+                WeekCycle.cycleHours(s.getDurationHours(), s.frequency()), Integer::sum));
+        List<String> over = new ArrayList<>();
+        hours.forEach((name, used) -> {
+            int max = context().getTeachers().get(name).getMaxHoursPerWeek();
+            if (max > 0 && used > max * WeekCycle.WEEKS) over.add(name + " teaches " + used + "h per cycle");
+        });
+        return over;
+    }
+
+    /**
+     * Requirements of the workload plan with no session of their own
+     */
+    public static int unplaced(List<Session> sessions) {
+        TimetableDataContext context = context();
+        Map<String, List<Session>> bySubject = new HashMap<>();
+        sessions.forEach(s -> bySubject.computeIfAbsent(s.subjectName(), k -> new ArrayList<>()).add(s));
+        WorkloadPlan workload = WorkloadPlan.of(context);
+        int unplaced = 0;
+        for (String subjectName : context.getSubjects().keySet()) {
+            unplaced += workload.unplaced(subjectName, bySubject.getOrDefault(subjectName, List.of())).size();
+        }
+        return unplaced;
+    }
+
+    public static long metric(GenerationResult result, String key) {
+        String value = result.metrics().getMetrics().get(key);
+        if (value == null) throw new AssertionError("metric " + key + " was not recorded");
+        return Long.parseLong(value);
+    }
+}
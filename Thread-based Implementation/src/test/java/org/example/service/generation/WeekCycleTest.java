@@ -0,0 +1,71 @@
+package org.example.service.generation;
+
+import org.example.model.Session;
+import org.example.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeekCycleTest {
+
+    @Test
+    void oddAndEvenWeeksTakeDisjointLanes() {
+        assertEquals(2, WeekCycle.WEEKS);
+        assertEquals(0b01, WeekCycle.lanes("Odd Week"));
+        assertEquals(0b10, WeekCycle.lanes("Even Week"));
+        assertEquals(WeekCycle.ALL, WeekCycle.lanes("Weekly"));
+        assertEquals(WeekCycle.ALL, WeekCycle.lanes(null));
+        assertEquals(4, WeekCycle.cycleHours(2, "Weekly"));
+        assertEquals(2, WeekCycle.cycleHours(2, "Odd Week"));
+
+        int[] row = new int[WeekCycle.SLOTS];
+        int hours = TimeSlot.hourMask(10, 12);
+        WeekCycle.block(row, 3, WeekCycle.lanes("Odd Week"), hours);
+        assertEquals(0, WeekCycle.occupied(row, 3, WeekCycle.lanes("Even Week")) & hours);
+        assertEquals(hours, WeekCycle.occupied(row, 3, WeekCycle.lanes("Weekly")) & hours);
+        assertEquals(0, WeekCycle.occupied(row, 2, WeekCycle.ALL));
+    }
+
+    @Test
+    void anOddAndAnEvenWeekActivityShareOneRoomSlot() {
+        RoomScheduleState rooms = new RoomScheduleState(context().getPlaces());
+        String roomId = context().getPlaces().values().iterator().next().getRooms().keySet().iterator().next();
+        int hours = TimeSlot.hourMask(10, 12);
+        int day = freeDay(rooms, roomId, hours);
+
+        rooms.block(roomId, day, hours, WeekCycle.lanes("Odd Week"));
+        assertTrue(rooms.isRoomFree(roomId, day, hours, WeekCycle.lanes("Even Week")));
+        assertFalse(rooms.isRoomFree(roomId, day, hours, WeekCycle.lanes("Weekly")));
+        rooms.block(roomId, day, hours, WeekCycle.lanes("Even Week"));
+        assertFalse(rooms.isRoomFree(roomId, day, hours, WeekCycle.lanes("Even Week")));
+
+        rooms.release(roomId, day, hours, WeekCycle.lanes("Odd Week"));
+        assertTrue(rooms.isRoomFree(roomId, day, hours, WeekCycle.lanes("Odd Week")));
+    }
+
+    @Test
+    void generationPairsOddAndEvenWeeksInOneSlot() {
+        List<Session> sessions = generate(GenerationMode.SHARED).getSessions();
+        assertEquals(List.of(), clashes(sessions));
+
+        // Some room slot holds an odd-week and an even-week activity at once
+        Map<String, Set<String>> frequencies = new HashMap<>();
+        for (Session s : sessions) {
+            for (int hour = s.startTime().getHour(); hour < s.endTime().getHour(); hour++) {
+                frequencies.computeIfAbsent(s.roomId() + " " + s.day() + " " + hour, k -> new HashSet<>())
+                        .add(s.frequency());
+            }
+        }
+        assertTrue(frequencies.values().stream().anyMatch(f -> f.containsAll(List.of("Odd Week", "Even Week"))));
+    }
+
+    private static int freeDay(RoomScheduleState rooms, String roomId, int hours) {
+        for (int day = 0; day < TimeSlot.DAYS_PER_WEEK; day++) {
+            if (rooms.isRoomFree(roomId, day, hours, WeekCycle.ALL)) return day;
+        }
+        throw new AssertionError(roomId + " is never open 10-12");
+    }
+}
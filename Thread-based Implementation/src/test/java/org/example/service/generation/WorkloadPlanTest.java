@@ -0,0 +1,65 @@
+package org.example.service.generation;
+
+import org.example.context.TimetableDataContext;
+import org.example.model.Room;
+import org.example.model.Session;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadPlanTest {
+
+    @Test
+    void aContextCompilesItsPlanOnce() {
+        TimetableDataContext context = context();
+        WorkloadPlan plan = WorkloadPlan.of(context);
+        assertSame(plan, WorkloadPlan.of(context));
+        assertSame(plan, WorkloadPlan.prepareAsync(context, ForkJoinPool.commonPool()).join());
+
+        // Dense ids in subject order, every requirement with rooms that fit it
+        List<WorkloadPlan.Requirement> all = plan.getRequirements();
+        assertEquals(plan.getRequirementCount(), all.size());
+        for (int id = 0; id < all.size(); id++) {
+            WorkloadPlan.Requirement requirement = all.get(id);
+            assertEquals(id, requirement.id());
+            assertTrue(requirement.duration() > 0, requirement.toString());
+            for (Room room : requirement.rooms()) {
+                assertTrue(room.getCapacity() >= requirement.minCapacity(), room + " for " + requirement);
+            }
+        }
+        for (String subjectName : context.getSubjects().keySet()) {
+            assertEquals(plan.forSubject(subjectName), plan.unplaced(subjectName, List.of()));
+        }
+    }
+
+    @Test
+    void everySessionMatchesOneRequirement() {
+        TimetableDataContext context = context();
+        WorkloadPlan plan = WorkloadPlan.of(context);
+        List<Session> sessions = generate(GenerationMode.SHARED).getSessions();
+        Map<String, List<Session>> bySubject = new HashMap<>();
+        sessions.forEach(s -> bySubject.computeIfAbsent(s.subjectName(), k -> new ArrayList<>()).add(s));
+
+        int matched = 0;
+        int unplaced = 0;
+        List<Session> stray = new ArrayList<>();
+        for (String subjectName : context.getSubjects().keySet()) {
+            int[] count = {0};
+            unplaced += plan.match(subjectName, bySubject.getOrDefault(subjectName, List.of()),
+                    (requirement, session) -> count[0]++, stray::add).size();
+            matched += count[0];
+        }
+
+        assertEquals(List.of(), stray);
+        assertEquals(sessions.size(), matched);
+        assertEquals(plan.getRequirementCount(), matched + unplaced);
+        assertEquals(unplaced, unplaced(sessions));
+    }
+}
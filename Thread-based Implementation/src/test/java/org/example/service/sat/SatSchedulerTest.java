@@ -0,0 +1,60 @@
+package org.example.service.sat;
+
+import org.example.model.Teacher;
+import org.example.service.generation.*;
+import org.example.service.generation.WorkloadPlan.Requirement;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatSchedulerTest {
+
+    @Test
+    void commitsAClashFreeTimetableAndAccountsForEveryLoss() {
+        GenerationResult result = generate(GenerationMode.SAT, Map.of(SchedulerConfig.SAT_TIMEOUT_PROPERTY, "30000"));
+
+        assertEquals(List.of(), clashes(result.getSessions()));
+        assertEquals(List.of(), overBudget(result.getSessions()));
+        assertEquals(metric(result, "sat.unplaced"), unplaced(result.getSessions()));
+        // Budgets are encoded, so no model the states accept runs a teacher over its hours
+        assertEquals(0, metric(result, "sat.overBudget"));
+        if ("SAT".equals(result.metrics().getMetrics().get("sat.result"))) {
+            assertEquals(metric(result, "sat.infeasible"), metric(result, "sat.unplaced"));
+        }
+    }
+
+    @Test
+    void aTeachersPlacedRequirementsFitTheHoursItHasLeft() {
+        WorkloadPlan plan = WorkloadPlan.of(context());
+        TeacherAssignment assignment = TeacherAssignment.of(context());
+        Map<Teacher, List<Requirement>> byTeacher = new LinkedHashMap<>();
+        plan.getRequirements().forEach(r -> {
+            Teacher teacher = assignment.teacherFor(r);
+            if (teacher != null) byTeacher.computeIfAbsent(teacher, k -> new ArrayList<>()).add(r);
+        });
+        TeacherScheduleState teacherState = new TeacherScheduleState(context().getTeachers());
+        Teacher teacher = byTeacher.keySet().stream()
+                .filter(t -> byTeacher.get(t).size() >= 2 && teacherState.remainingHours(t.getName()) < Integer.MAX_VALUE)
+                .findFirst().orElseThrow();
+        List<Requirement> requirements = byTeacher.get(teacher);
+
+        // Leave the teacher exactly the hours of its first requirement
+        Requirement first = requirements.get(0);
+        int bound = WeekCycle.cycleHours(first.duration(), first.frequency());
+        teacherState.chargeHours(teacher.getName(), teacherState.remainingHours(teacher.getName()) - bound);
+        TimetableEncoding encoding = new TimetableEncoding(requirements, assignment, context().getSymmetry(), Map.of(),
+                teacherState, new RoomScheduleState(context().getPlaces()),
+                new GroupScheduleState(context().getGroups(), StudentSetIndex.of(context())));
+        assertTrue(encoding.budgetClauses > 0);
+        assertTrue(Arrays.stream(encoding.placed).allMatch(v -> v != 0));
+
+        SatSolver solver = new SatSolver(1, false);
+        encoding.loadInto(solver);
+        int[] all = Arrays.stream(encoding.placed).map(TimetableEncoding::pos).toArray();
+        assertEquals(SatSolver.Result.UNSAT, solver.solve(all, () -> false));
+        assertEquals(SatSolver.Result.SAT, solver.solve(new int[]{TimetableEncoding.pos(encoding.placed[0])}, () -> false));
+    }
+}
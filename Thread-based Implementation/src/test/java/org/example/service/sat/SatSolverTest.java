@@ -0,0 +1,195 @@
+package org.example.service.sat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatSolverTest {
+    private static final int RANDOM_VARS = 12;
+    private static final int RANDOM_CLAUSES = 52;   // ratio ~4.3, around the SAT / UNSAT threshold
+
+    @Test
+    void pigeonholeWithOneHoleTooFewIsUnsat() {
+        for (int holes = 2; holes <= 5; holes++) {
+            SatSolver solver = new SatSolver(holes, false);
+            pigeonhole(solver, holes + 1, holes);
+            assertEquals(SatSolver.Result.UNSAT, solver.solve(new int[0], () -> false), holes + " holes");
+        }
+    }
+
+    @Test
+    void pigeonholeWithEnoughHolesIsSatWithAValidModel() {
+        SatSolver solver = new SatSolver(7, true);
+        int[][] in = pigeonhole(solver, 5, 5);
+        assertEquals(SatSolver.Result.SAT, solver.solve(new int[0], () -> false));
+        boolean[] taken = new boolean[5];
+        for (int[] pigeon : in) {
+            int holes = 0;
+            for (int h = 0; h < pigeon.length; h++) {
+                if (!solver.modelValue(pigeon[h])) continue;
+                holes++;
+                assertFalse(taken[h], "hole " + h + " taken twice");
+                taken[h] = true;
+            }
+            assertEquals(1, holes);
+        }
+    }
+
+    @Test
+    void randomThreeSatAgreesWithBruteForce() {
+        Random random = new Random(42);
+        int sat = 0;
+        for (int instance = 0; instance < 300; instance++) {
+            List<int[]> clauses = randomThreeSat(random);
+            SatSolver solver = solverFor(clauses, instance);
+            SatSolver.Result result = solver.solve(new int[0], () -> false);
+            boolean expected = bruteForce(clauses, new int[0]);
+            assertEquals(expected ? SatSolver.Result.SAT : SatSolver.Result.UNSAT, result, "instance " + instance);
+            if (expected) {
+                sat++;
+                assertModelSatisfies(solver, clauses);
+            }
+        }
+        // Both answers must actually have been exercised
+        assertTrue(sat > 30 && sat < 270, "satisfiable instances: " + sat);
+    }
+
+    @Test
+    void unitClausesPropagateWithoutConflicts() {
+        SatSolver solver = new SatSolver(1, false);
+        int a = solver.newVar(), b = solver.newVar(), c = solver.newVar();
+        assertTrue(solver.addClause(SatSolver.lit(a, true)));
+        assertTrue(solver.addClause(SatSolver.lit(a, false), SatSolver.lit(b, true)));
+        assertTrue(solver.addClause(SatSolver.lit(b, false), SatSolver.lit(c, false)));
+
+        assertEquals(SatSolver.Result.SAT, solver.solve(new int[0], () -> false));
+        assertEquals(0, solver.conflictCount());
+        assertTrue(solver.modelValue(a));
+        assertTrue(solver.modelValue(b));
+        assertFalse(solver.modelValue(c));
+
+        // c is already false at level 0, so a unit clause for it empties the clause set
+        assertFalse(solver.addClause(SatSolver.lit(c, true)));
+        assertEquals(SatSolver.Result.UNSAT, solver.solve(new int[0], () -> false));
+    }
+
+    @Test
+    void learntClausesStayValidAcrossAssumptions() {
+        Random random = new Random(7);
+        for (int instance = 0; instance < 40; instance++) {
+            List<int[]> clauses = randomThreeSat(random);
+            // One solver answers every query, so clauses learnt under one set of assumptions
+            // are reused by the next: a wrong learnt clause shows up as a wrong answer later
+            SatSolver solver = solverFor(clauses, instance);
+            for (int query = 0; query < 15; query++) {
+                int[] assumptions = randomAssumptions(random);
+                SatSolver.Result result = solver.solve(assumptions, () -> false);
+                boolean expected = bruteForce(clauses, assumptions);
+                assertEquals(expected ? SatSolver.Result.SAT : SatSolver.Result.UNSAT, result,
+                        "instance " + instance + " query " + query);
+                if (expected) {
+                    assertModelSatisfies(solver, clauses);
+                    for (int lit : assumptions) assertTrue(solver.modelValueOfLit(lit), "assumption dropped");
+                }
+            }
+            // An UNSAT answer under assumptions must not leak into the plain problem
+            assertEquals(bruteForce(clauses, new int[0]) ? SatSolver.Result.SAT : SatSolver.Result.UNSAT,
+                    solver.solve(new int[0], () -> false), "instance " + instance);
+        }
+    }
+
+    @Test
+    void stopGivesUnknown() {
+        SatSolver solver = new SatSolver(3, false);
+        pigeonhole(solver, 9, 8);
+        assertEquals(SatSolver.Result.UNKNOWN, solver.solve(new int[0], () -> true));
+    }
+
+    // ==== Helpers ====
+
+    /**
+     * Every pigeon in some hole, no hole with two pigeons; in[p][h] is "pigeon p in hole h"
+     */
+    private static int[][] pigeonhole(SatSolver solver, int pigeons, int holes) {
+        int[][] in = new int[pigeons][holes];
+        for (int[] pigeon : in) {
+            for (int h = 0; h < holes; h++) pigeon[h] = solver.newVar();
+        }
+        for (int[] pigeon : in) {
+            solver.addClause(Arrays.stream(pigeon).map(v -> SatSolver.lit(v, true)).toArray());
+        }
+        for (int h = 0; h < holes; h++) {
+            for (int p = 0; p < pigeons; p++) {
+                for (int q = p + 1; q < pigeons; q++) {
+                    solver.addClause(SatSolver.lit(in[p][h], false), SatSolver.lit(in[q][h], false));
+                }
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Clauses over variables 1..RANDOM_VARS, three distinct variables each
+     */
+    private static List<int[]> randomThreeSat(Random random) {
+        List<int[]> clauses = new ArrayList<>();
+        for (int c = 0; c < RANDOM_CLAUSES; c++) {
+            int[] clause = new int[3];
+            Set<Integer> used = new HashSet<>();
+            for (int k = 0; k < 3; k++) {
+                int v;
+                do {
+                    v = 1 + random.nextInt(RANDOM_VARS);
+                } while (!used.add(v));
+                clause[k] = SatSolver.lit(v, random.nextBoolean());
+            }
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    private static int[] randomAssumptions(Random random) {
+        List<Integer> vars = new ArrayList<>();
+        for (int v = 1; v <= RANDOM_VARS; v++) vars.add(v);
+        Collections.shuffle(vars, random);
+        int count = 1 + random.nextInt(4);
+        int[] assumptions = new int[count];
+        for (int k = 0; k < count; k++) assumptions[k] = SatSolver.lit(vars.get(k), random.nextBoolean());
+        return assumptions;
+    }
+
+    private static SatSolver solverFor(List<int[]> clauses, long seed) {
+        SatSolver solver = new SatSolver(seed, seed % 2 == 0);
+        for (int v = 0; v < RANDOM_VARS; v++) solver.newVar();
+        for (int[] clause : clauses) solver.addClause(clause);
+        return solver;
+    }
+
+    private static boolean bruteForce(List<int[]> clauses, int[] assumptions) {
+        for (int bits = 0; bits < 1 << RANDOM_VARS; bits++) {
+            int assignment = bits;
+            boolean ok = Arrays.stream(assumptions).allMatch(lit -> holds(lit, assignment));
+            for (int i = 0; ok && i < clauses.size(); i++) {
+                ok = Arrays.stream(clauses.get(i)).anyMatch(lit -> holds(lit, assignment));
+            }
+            if (ok) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Variable v is bit v - 1 of the assignment
+     */
+    private static boolean holds(int lit, int assignment) {
+        boolean value = (assignment >> ((lit >>> 1) - 1) & 1) != 0;
+        return value == ((lit & 1) == 0);
+    }
+
+    private static void assertModelSatisfies(SatSolver solver, List<int[]> clauses) {
+        for (int[] clause : clauses) {
+            assertTrue(Arrays.stream(clause).anyMatch(solver::modelValueOfLit), "clause " + Arrays.toString(clause));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.service.validation;
+
+import org.example.context.TimetableDataContext;
+import org.example.repository.PlaceRepository;
+import org.example.service.execution.ExecutionPool;
+import org.example.service.generation.GenerationResult;
+import org.example.service.generation.TimetableGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static org.example.service.generation.TimetableFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationOrchestratorTest {
+
+    @Test
+    void validationAndGenerationSetupShareOnePool() throws Exception {
+        TimetableDataContext context = context();
+        try (ExecutionPool pool = new ExecutionPool()) {
+            ExecutorService executor = pool.executor();
+            PlaceRepository places = new PlaceRepository();
+
+            // As TimetableInitializer does: setup overlaps Phase 2 on the same executor
+            TimetableGenerator generator = new TimetableGenerator(context, executor);
+            CompletableFuture<TimetableGenerator.GenerationSetup> setup = generator.prepareAsync();
+            ValidationOrchestrator.ValidationReport report =
+                    new ValidationOrchestrator(context, places, executor).runAllValidationsAsync().join();
+
+            // Same validators, same answers, in submission order, as running each one by itself
+            List<ValidationResult> expected = List.of(
+                    new TeacherDefinitionValidator().validate(context),
+                    new TeacherCapacityValidator(executor).validate(context),
+                    new RoomCapacityValidator(places, executor).validate(context),
+                    new TeacherAvailabilityValidator().validate(context),
+                    new TimeSlotCollisionValidator(executor).validate(context));
+            assertEquals(expected.stream().map(ValidationResult::getValidatorName).toList(),
+                    report.getResults().stream().map(ValidationResult::getValidatorName).toList());
+            assertEquals(expected.stream().map(ValidationResult::getStatus).toList(),
+                    report.getResults().stream().map(ValidationResult::getStatus).toList());
+
+            GenerationResult result = generator.generate(setup.join());
+            assertFalse(result.getSessions().isEmpty());
+            assertEquals(List.of(), clashes(result.getSessions()));
+        }
+    }
+}